@@ -257,11 +257,11 @@ public class MapViewerExample {
                     frame.setTitle(getDefaultFrameTitle() + " - [Loading: " + file.getPath() + "]"));
 
             /* parse file */
-            boolean xml = file.getName().endsWith(".osm");
+            boolean osm = file.getName().endsWith(".osm") || file.getName().endsWith(".osm.pbf");
             SegmentFeatureProvider segment;
 
             try {
-                if (xml) {
+                if (osm) {
                     QuadTreeTiledMapSegment.Generator tiler = new QuadTreeTiledMapSegment.Generator();
                     TilingScheme scheme = viewer.getPreferredTilingScheme();
 
@@ -408,12 +408,12 @@ public class SimulationExample {
                     frame.setTitle(getDefaultFrameTitle() + " - [Loading: " + file.getPath() + "]"));
 
             /* parse file */
-            boolean xml = file.getName().endsWith(".osm");
+            boolean osm = file.getName().endsWith(".osm") || file.getName().endsWith(".osm.pbf");
             SegmentFeatureProvider segment;
             Graph graph;
 
             try {
-                if (xml) {
+                if (osm) {
                     QuadTreeTiledMapSegment.Generator tiler = new QuadTreeTiledMapSegment.Generator();
                     TilingScheme scheme = viewer.getPreferredTilingScheme();
 
@@ -9,6 +9,7 @@ import microtrafficsim.core.exfmt.exceptions.NotAvailableException;
 import microtrafficsim.core.exfmt.extractor.map.QuadTreeTiledMapSegmentExtractor;
 import microtrafficsim.core.exfmt.extractor.simulation.RouteContainerExtractor;
 import microtrafficsim.core.exfmt.extractor.simulation.SimulationConfigExtractor;
+import microtrafficsim.core.exfmt.extractor.streetgraph.ArcFlagsExtractor;
 import microtrafficsim.core.exfmt.extractor.streetgraph.StreetGraphExtractor;
 import microtrafficsim.core.exfmt.injector.simulation.ProjectedAreasInjector;
 import microtrafficsim.core.exfmt.injector.simulation.RouteContainerInjector;
@@ -16,11 +17,13 @@ import microtrafficsim.core.exfmt.injector.simulation.SimulationConfigInjector;
 import microtrafficsim.core.logic.streetgraph.Graph;
 import microtrafficsim.core.logic.streetgraph.GraphGUID;
 import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.map.*;
 import microtrafficsim.core.map.tiles.QuadTreeTiledMapSegment;
 import microtrafficsim.core.map.tiles.TilingScheme;
 import microtrafficsim.core.parser.OSMParser;
 import microtrafficsim.core.serialization.ExchangeFormatSerializer;
+import microtrafficsim.core.shortestpath.arcflags.ArcFlags;
 import microtrafficsim.core.simulation.configs.SimulationConfig;
 import microtrafficsim.core.simulation.utils.RouteContainer;
 import microtrafficsim.core.vis.map.projections.Projection;
@@ -31,6 +34,7 @@ import org.slf4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Should simplify loading/saving simulation files
@@ -95,7 +99,7 @@ public class ExfmtStorage {
     }
 
     /**
-     * Loads the given file depending on its map type (OSM or MTSM)
+     * Loads the given file depending on its map type (OSM XML, OSM PBF or MTSM)
      *
      * @param priorityToTheRight Needed for visualization purpose; doesn't matter if no osm file
      */
@@ -104,7 +108,7 @@ public class ExfmtStorage {
             throw new IOException("You have to setup some map loading attributes, e.g. the parser.");
 
         try {
-            if (MTSFileChooser.Filters.MAP_OSM_XML.accept(file)) {
+            if (MTSFileChooser.Filters.MAP_OSM.accept(file)) {
                 OSMParser.Result result = parser.parse(file, new MapProperties(priorityToTheRight));
                 return new Tuple<>(result.streetgraph, result.segment);
             } else if (MTSFileChooser.Filters.MAP_EXFMT.accept(file)) {
@@ -148,6 +152,62 @@ public class ExfmtStorage {
         }
     }
 
+    /**
+     * Saves the map together with the arc-flags of its graph, so they don't have to be calculated again.
+     */
+    public boolean saveMap(File file, Graph graph, MapProvider provider, ArcFlags arcFlags) throws IOException {
+        if (!mapLoadingHasBeenSet)
+            throw new IOException("You have to setup some map loading attributes, e.g. the parser.");
+
+        try {
+            serializer.write(file, exfmt.manipulator()
+                    .inject(provider)
+                    .inject(graph)
+                    .inject(arcFlags)
+                    .getContainer());
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @param graph the graph loaded from the same file
+     * @param edgeWeightFunction has to be the edge weight function the stored flags have been calculated with
+     * @return the stored arc-flags of the given graph; null if there are none or they belong to another graph
+     */
+    public ArcFlags loadArcFlags(File file, Graph graph, ToDoubleFunction<? super DirectedEdge> edgeWeightFunction) {
+        ArcFlagsExtractor.Config cfg = new ArcFlagsExtractor.Config();
+        cfg.setGraph(graph);
+        cfg.setEdgeWeightFunction(edgeWeightFunction);
+        exfmt.getConfig().set(cfg);
+
+
+        /* prepare extractor */
+        ExchangeFormat.Manipulator manipulator = null;
+        try {
+            manipulator = exfmt.manipulator(serializer.read(file));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+
+        /* load arc-flags */
+        ArcFlags arcFlags = null;
+        if (manipulator != null) {
+            try {
+                arcFlags = manipulator.extract(ArcFlags.class);
+            } catch (NotAvailableException e) {
+                logger.info("The file does not contain arc-flags.");
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        return arcFlags;
+    }
+
 
     /*
     |========|
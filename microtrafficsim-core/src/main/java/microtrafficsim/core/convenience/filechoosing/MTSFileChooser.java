@@ -94,6 +94,7 @@ public class MTSFileChooser extends JFileChooser {
     public static abstract class Filters {
 
         public static final String MAP_OSM_XML_POSTFIX = "osm";
+        public static final String MAP_OSM_PBF_POSTFIX = "pbf";
         public static final String MAP_EXFMT_POSTFIX   = "mtsmap";
         public static final String SCENARIO_POSTFIX    = "mtssim";
         public static final String CONFIG_POSTFIX      = "mtscfg";
@@ -121,6 +122,41 @@ public class MTSFileChooser extends JFileChooser {
             }
         };
 
+        public static final FileFilter MAP_OSM_PBF = new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                if (file.isDirectory()) return true;
+
+                switch (extension(file)) {
+                    case MAP_OSM_PBF_POSTFIX: return true;
+                    default:                  return false;
+                }
+            }
+
+            @Override
+            public String getDescription() {
+                return "OpenStreetMap PBF Files (*." + MAP_OSM_PBF_POSTFIX + ")";
+            }
+        };
+
+        public static final FileFilter MAP_OSM = new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                if (file.isDirectory()) return true;
+
+                switch (extension(file)) {
+                    case MAP_OSM_XML_POSTFIX: return true;
+                    case MAP_OSM_PBF_POSTFIX: return true;
+                    default:                  return false;
+                }
+            }
+
+            @Override
+            public String getDescription() {
+                return "OpenStreetMap Files (*." + MAP_OSM_XML_POSTFIX + " *." + MAP_OSM_PBF_POSTFIX + ")";
+            }
+        };
+
         public static final FileFilter MAP_EXFMT = new FileFilter() {
             @Override
             public boolean accept(File file) {
@@ -146,13 +182,15 @@ public class MTSFileChooser extends JFileChooser {
                 switch (extension(file)) {
                     case MAP_EXFMT_POSTFIX:    return true;
                     case MAP_OSM_XML_POSTFIX:  return true;
+                    case MAP_OSM_PBF_POSTFIX:  return true;
                     default:                   return false;
                 }
             }
 
             @Override
             public String getDescription() {
-                return "All Map Files (*." + MAP_EXFMT_POSTFIX + " *." + MAP_OSM_XML_POSTFIX + ")";
+                return "All Map Files (*." + MAP_EXFMT_POSTFIX + " *." + MAP_OSM_XML_POSTFIX
+                        + " *." + MAP_OSM_PBF_POSTFIX + ")";
             }
         };
 
@@ -15,6 +15,7 @@ public class MapFilterSet extends MTSFileChooser.FilterSet {
         getOpenFilters().add(MTSFileChooser.Filters.MAP_ALL);
         getOpenFilters().add(MTSFileChooser.Filters.MAP_EXFMT);
         getOpenFilters().add(MTSFileChooser.Filters.MAP_OSM_XML);
+        getOpenFilters().add(MTSFileChooser.Filters.MAP_OSM_PBF);
         addAllOpenFilters = true;
 
         saveSelected = getSaveFilters().get(0);
@@ -42,10 +42,12 @@ public class DefaultParserConfig {
             // predicates to match/select features
             Predicate<Way> streetgraphMatcher = w -> {
                 if (!w.visible) return false;
-                if (w.tags.get("highway") == null) return false;
-                if (w.tags.get("area") != null && !w.tags.get("area").equals("no")) return false;
 
-                switch (w.tags.get("highway")) {
+                String highway = w.tags.get("highway");
+                if (highway == null) return false;
+                if (w.tags.containsKey("area") && !w.tags.contains("area", "no")) return false;
+
+                switch (highway) {
                     case "motorway":      return true;
                     case "trunk":         return true;
                     case "primary":       return true;
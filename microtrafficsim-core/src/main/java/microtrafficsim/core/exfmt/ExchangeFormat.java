@@ -13,6 +13,7 @@ import microtrafficsim.core.exfmt.extractor.map.QuadTreeTiledMapSegmentExtractor
 import microtrafficsim.core.exfmt.extractor.simulation.RouteContainerExtractor;
 import microtrafficsim.core.exfmt.extractor.simulation.SimulationConfigExtractor;
 import microtrafficsim.core.exfmt.extractor.simulation.UnprojectedAreasExtractor;
+import microtrafficsim.core.exfmt.extractor.streetgraph.ArcFlagsExtractor;
 import microtrafficsim.core.exfmt.extractor.streetgraph.StreetGraphExtractor;
 import microtrafficsim.core.exfmt.injector.map.QuadTreeTiledMapSegmentInjector;
 import microtrafficsim.core.exfmt.injector.map.SegmentFeatureProviderInjector;
@@ -26,6 +27,7 @@ import microtrafficsim.core.exfmt.injector.simulation.ProjectedAreasInjector;
 import microtrafficsim.core.exfmt.injector.simulation.RouteContainerInjector;
 import microtrafficsim.core.exfmt.injector.simulation.SimulationConfigInjector;
 import microtrafficsim.core.exfmt.injector.simulation.UnprojectedAreasInjector;
+import microtrafficsim.core.exfmt.injector.streetgraph.ArcFlagsInjector;
 import microtrafficsim.core.exfmt.injector.streetgraph.DirectedEdgeInjector;
 import microtrafficsim.core.exfmt.injector.streetgraph.GraphInjector;
 import microtrafficsim.core.exfmt.injector.streetgraph.NodeInjector;
@@ -40,6 +42,7 @@ import microtrafficsim.core.map.features.Polygon;
 import microtrafficsim.core.map.features.Street;
 import microtrafficsim.core.map.tiles.QuadTreeTiledMapSegment;
 import microtrafficsim.core.map.tiles.TileFeatureGrid;
+import microtrafficsim.core.shortestpath.arcflags.ArcFlags;
 import microtrafficsim.core.simulation.configs.SimulationConfig;
 import microtrafficsim.core.simulation.utils.RouteContainer;
 import microtrafficsim.core.simulation.utils.SortedRouteContainer;
@@ -103,6 +106,9 @@ public class ExchangeFormat {
             format.injector(StreetGraph.class, new GraphInjector());
             format.extractor(StreetGraph.class, new StreetGraphExtractor());
 
+            format.injector(ArcFlags.class, new ArcFlagsInjector());
+            format.extractor(ArcFlags.class, new ArcFlagsExtractor());
+
             // simulation
             format.injector(SimulationConfig.class, new SimulationConfigInjector());
             format.extractor(SimulationConfig.class, new SimulationConfigExtractor());
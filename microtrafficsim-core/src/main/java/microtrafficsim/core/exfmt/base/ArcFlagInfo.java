@@ -0,0 +1,65 @@
+package microtrafficsim.core.exfmt.base;
+
+import microtrafficsim.core.exfmt.Container;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.GraphGUID;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.map.tiles.TilingScheme;
+import microtrafficsim.core.shortestpath.arcflags.ArcFlags;
+
+import java.util.function.ToDoubleFunction;
+
+
+/**
+ * Stores the {@link ArcFlags} of a street graph, so they do not have to be recalculated when the map is loaded. The
+ * edge weight function is not stored, so it has to be given when restoring the flags.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ArcFlagInfo extends Container.Entry {
+    private GraphGUID    graphGUID;
+    private TilingScheme scheme;
+    private int          level;
+    private int[]        regionXs;
+    private int[]        regionYs;
+    private long[]       flags;
+
+
+    public ArcFlagInfo() {}
+
+    public ArcFlagInfo(ArcFlags arcFlags) {
+        graphGUID = arcFlags.getGraph().getGUID();
+        scheme    = arcFlags.getTilingScheme();
+        level     = arcFlags.getLevel();
+        flags     = arcFlags.getFlags();
+
+        int regionCount = arcFlags.getRegionCount();
+        regionXs = new int[regionCount];
+        regionYs = new int[regionCount];
+        for (int r = 0; r < regionCount; r++) {
+            regionXs[r] = arcFlags.getRegionTile(r).x;
+            regionYs[r] = arcFlags.getRegionTile(r).y;
+        }
+    }
+
+
+    public GraphGUID getGraphGUID() {
+        return graphGUID;
+    }
+
+    public TilingScheme getTilingScheme() {
+        return scheme;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @param edgeWeightFunction has to be the edge weight function the flags have been calculated with
+     * @throws IllegalArgumentException if the flags do not fit the graph
+     */
+    public ArcFlags toArcFlags(Graph graph, ToDoubleFunction<? super DirectedEdge> edgeWeightFunction) {
+        return new ArcFlags(graph, edgeWeightFunction, scheme, level, regionXs, regionYs, flags);
+    }
+}
@@ -2,9 +2,11 @@ package microtrafficsim.core.exfmt.base;
 
 import microtrafficsim.core.exfmt.Container;
 import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.routes.CompactRoute;
 import microtrafficsim.core.logic.routes.MetaRoute;
 import microtrafficsim.core.logic.routes.Route;
 import microtrafficsim.core.logic.routes.StackRoute;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
 import microtrafficsim.core.logic.streetgraph.Graph;
 import microtrafficsim.core.logic.streetgraph.GraphGUID;
 import microtrafficsim.core.logic.streets.DirectedEdge;
@@ -47,6 +49,7 @@ public class ScenarioRouteInfo extends Container.Entry {
 
 
         RouteContainer routeContainer = new SortedRouteContainer();
+        CSRGraph csrGraph = null;    // shared by all compact routes, created if needed
 
         for (SparseRoute sparseRoute : sparseRoutes) {
             if (MetaRoute.class == sparseRoute.routeClass) {
@@ -64,6 +67,22 @@ public class ScenarioRouteInfo extends Container.Entry {
                     route.add(edgeMap.get(key));
                 }
 
+                routeContainer.add(route);
+            } else if (CompactRoute.class == sparseRoute.routeClass) {
+                if (csrGraph == null)
+                    csrGraph = new CSRGraph(graph);
+
+                ArrayList<DirectedEdge> edges = new ArrayList<>(sparseRoute.edgeKeys.size());
+                for (DirectedEdge.Key key : sparseRoute.edgeKeys) {
+                    edges.add(edgeMap.get(key));
+                }
+
+                CompactRoute route = new CompactRoute(
+                        csrGraph,
+                        CompactRoute.indicesOf(csrGraph, edges),
+                        sparseRoute.spawnDelay);
+                route.setMonitored(sparseRoute.isMonitored);
+
                 routeContainer.add(route);
             }
         }
@@ -0,0 +1,60 @@
+package microtrafficsim.core.exfmt.extractor.streetgraph;
+
+import microtrafficsim.core.exfmt.Container;
+import microtrafficsim.core.exfmt.ExchangeFormat;
+import microtrafficsim.core.exfmt.base.ArcFlagInfo;
+import microtrafficsim.core.exfmt.exceptions.ExchangeFormatException;
+import microtrafficsim.core.exfmt.exceptions.NotAvailableException;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.GraphGUID;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.arcflags.ArcFlags;
+
+import java.util.function.ToDoubleFunction;
+
+
+/**
+ * Restores the {@link ArcFlags} of the graph given by the {@link Config}. The stored flags have to belong to this
+ * graph.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ArcFlagsExtractor implements ExchangeFormat.Extractor<ArcFlags> {
+    @Override
+    public ArcFlags extract(ExchangeFormat fmt, ExchangeFormat.Context ctx, Container src)
+            throws ExchangeFormatException {
+        Config cfg = fmt.getConfig().get(Config.class);
+        if (cfg == null) throw new ExchangeFormatException(
+                "Config for " + getClass().getSimpleName() + " missing");
+
+        /* extract data */
+        ArcFlagInfo info = src.get(ArcFlagInfo.class);
+        if (info == null) throw new NotAvailableException(ArcFlagInfo.class.getSimpleName() + " missing");
+
+        if (!info.getGraphGUID().equals(GraphGUID.from(cfg.graph)))
+            throw new ExchangeFormatException("The stored arc-flags belong to another graph.");
+
+        try {
+            return info.toArcFlags(cfg.graph, cfg.edgeWeightFunction);
+        } catch (IllegalArgumentException e) {
+            throw new ExchangeFormatException(e);
+        }
+    }
+
+
+    public static class Config extends microtrafficsim.core.exfmt.Config.Entry {
+        private Graph graph;
+        private ToDoubleFunction<? super DirectedEdge> edgeWeightFunction;
+
+        public void setGraph(Graph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * @param edgeWeightFunction has to be the edge weight function the stored flags have been calculated with
+         */
+        public void setEdgeWeightFunction(ToDoubleFunction<? super DirectedEdge> edgeWeightFunction) {
+            this.edgeWeightFunction = edgeWeightFunction;
+        }
+    }
+}
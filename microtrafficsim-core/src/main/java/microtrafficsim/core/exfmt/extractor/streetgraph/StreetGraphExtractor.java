@@ -15,6 +15,8 @@ import microtrafficsim.core.exfmt.exceptions.NotAvailableException;
 import microtrafficsim.core.logic.nodes.Node;
 import microtrafficsim.core.logic.streetgraph.StreetGraph;
 import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.LaneContainer;
+import microtrafficsim.core.logic.streets.NavigableSkipListLaneContainer;
 import microtrafficsim.core.logic.streets.information.Orientation;
 import microtrafficsim.core.map.features.Street;
 import microtrafficsim.core.simulation.configs.CrossingLogicConfig;
@@ -51,6 +53,7 @@ public class StreetGraphExtractor implements ExchangeFormat.Extractor<StreetGrap
         graph.setSeed(cfg.seed);
         for (Node node : graph.getNodes()) {
             node.updateCrossingIndices();
+            node.freeze();
         }
         graph.updateGraphGUID();
 
@@ -109,7 +112,8 @@ public class StreetGraphExtractor implements ExchangeFormat.Extractor<StreetGrap
                         gec.getStreetType(),
                         gec.getForwardLanes(),
                         gec.getForwardMaxVelocity(),
-                        cfg.metersPerCell, cfg.priorityFn
+                        cfg.metersPerCell, cfg.priorityFn,
+                        cfg.laneContainerFactory
                 );
 
                 graph.addEdge(forward);
@@ -129,7 +133,8 @@ public class StreetGraphExtractor implements ExchangeFormat.Extractor<StreetGrap
                         gec.getStreetType(),
                         gec.getBackwardLanes(),
                         gec.getBackwardMaxVelocity(),
-                        cfg.metersPerCell, cfg.priorityFn
+                        cfg.metersPerCell, cfg.priorityFn,
+                        cfg.laneContainerFactory
                 );
             }
 
@@ -218,6 +223,7 @@ public class StreetGraphExtractor implements ExchangeFormat.Extractor<StreetGrap
         public float metersPerCell;
         public SimulationConfig.StreetPriorityFunction priorityFn;
         public CrossingLogicConfig crossingLogic;
+        public LaneContainer.Factory laneContainerFactory;
         public long seed;
 
         public Config(float metersPerCell,
@@ -227,6 +233,7 @@ public class StreetGraphExtractor implements ExchangeFormat.Extractor<StreetGrap
             this.metersPerCell = metersPerCell;
             this.priorityFn = priorityFn;
             this.crossingLogic = crossingLogic;
+            this.laneContainerFactory = (nLanes, nCells) -> new NavigableSkipListLaneContainer(nLanes);
             this.seed = seed;
         }
 
@@ -234,6 +241,7 @@ public class StreetGraphExtractor implements ExchangeFormat.Extractor<StreetGrap
             this.metersPerCell = cfg.metersPerCell;
             this.priorityFn = cfg.streetPriorityLevel;
             this.crossingLogic = cfg.crossingLogic;
+            this.laneContainerFactory = cfg.laneContainerFactory;
             this.seed = cfg.seed;
         }
     }
@@ -0,0 +1,18 @@
+package microtrafficsim.core.exfmt.injector.streetgraph;
+
+import microtrafficsim.core.exfmt.Container;
+import microtrafficsim.core.exfmt.ExchangeFormat;
+import microtrafficsim.core.exfmt.base.ArcFlagInfo;
+import microtrafficsim.core.shortestpath.arcflags.ArcFlags;
+
+
+/**
+ * @author Dominic Parga Cacheiro
+ */
+public class ArcFlagsInjector implements ExchangeFormat.Injector<ArcFlags> {
+
+    @Override
+    public void inject(ExchangeFormat fmt, ExchangeFormat.Context ctx, Container dst, ArcFlags src) {
+        dst.set(new ArcFlagInfo(src));
+    }
+}
@@ -0,0 +1,65 @@
+package microtrafficsim.core.logic.nodes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * <p>
+ * Worklist of all nodes of a graph, that have to be updated in the next simulation step. A node is added by itself
+ * whenever a vehicle registers or unregisters (see {@link Node#setActiveNodes(ActiveNodes)}), so adding is thread
+ * safe. A node stays in this worklist as long as it holds registered vehicles, because their priorities can change
+ * although no vehicle (un)registers, e.g. when the next road gets free.
+ *
+ * <p>
+ * Nodes without any registered vehicle are not contained, so updating only the active nodes is equivalent to
+ * updating all nodes.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ActiveNodes {
+
+    private final Set<Node> nodes;
+
+
+    public ActiveNodes() {
+        nodes = ConcurrentHashMap.newKeySet();
+    }
+
+
+    void add(Node node) {
+        nodes.add(node);
+    }
+
+    /**
+     * <p>
+     * Returns all active nodes sorted by their natural order, so the nodes are updated in the same order as if all
+     * nodes of the graph were updated. Nodes without registered vehicles are removed from this worklist afterwards,
+     * but are still returned, because they have changed since their last update.
+     *
+     * <p>
+     * Must not be called while vehicles can (un)register at the nodes.
+     *
+     * @return sorted, unmodifiable list of all nodes that have to be updated
+     */
+    public List<Node> poll() {
+        Node[] active = nodes.toArray(new Node[nodes.size()]);
+        Arrays.sort(active);
+
+        for (Node node : active)
+            if (node.deactivateIfIdle())
+                nodes.remove(node);
+
+        return Collections.unmodifiableList(Arrays.asList(active));
+    }
+
+    /**
+     * @return number of currently active nodes
+     */
+    public int size() {
+        return nodes.size();
+    }
+}
@@ -0,0 +1,186 @@
+package microtrafficsim.core.logic.nodes;
+
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.math.MathUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+/**
+ * <p>
+ * Dense table of all static information the crossing logic of one {@link Node} needs for comparing two vehicles.
+ * Every connector (incoming lane, leaving lane) of the node is a turn and gets a small id. For every pair of turns,
+ * the table stores whether they are crossing each other and which one has priority regarding right-before-left (or
+ * left-before-right). In addition, the priority levels of the turns' origin and destination edge are stored.
+ *
+ * <p>
+ * Thus, comparing two vehicles at runtime needs only the turn ids of both vehicles and one array lookup instead of
+ * several map lookups and index calculations. The result of {@link #calcConflict(byte, byte, byte, byte)} is the same
+ * as calculated by {@link IndicesCalculator} directly.
+ *
+ * <p>
+ * Turns are looked up by the identity of the incoming and leaving edge, because lanes are created on demand and
+ * comparing them by key allocates. The table is immutable. Connectors, whose lanes have no valid crossing index, are
+ * not contained.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ConflictTable {
+
+    public static final int NO_TURN = -1;
+
+    /* conflicts */
+    public static final byte NOT_CROSSING        = 0;
+    public static final byte FIRST_HAS_PRIORITY  = 1;
+    public static final byte SECOND_HAS_PRIORITY = -1;
+    /** crossing, but neither origin is the leftmost index in matching */
+    public static final byte CROSSING            = 2;
+
+    // turn lookup
+    private final IdentityHashMap<DirectedEdge, int[]>   incomingTurns;    // lane idx * leaving slot count + slot
+    private final IdentityHashMap<DirectedEdge, Integer> leavingSlots;
+
+    // turn information
+    private final int    turnCount;
+    private final byte[] originPriorities;
+    private final byte[] destinationPriorities;
+    private final byte[] conflicts;    // turn1 * turnCount + turn2 -> conflict
+
+
+    /**
+     * @param connectors incoming lane -> (leaving edge -> leaving lane) as stored in {@link Node#getConnectors()}
+     * @param incomingLanes crossing indices of the incoming lanes
+     * @param leavingLanes crossing indices of the leaving lanes
+     */
+    public ConflictTable(Map<DirectedEdge.Lane, ? extends Map<DirectedEdge, DirectedEdge.Lane>> connectors,
+                         Map<DirectedEdge.Lane, Byte> incomingLanes,
+                         Map<DirectedEdge.Lane, Byte> leavingLanes)
+    {
+        incomingTurns = new IdentityHashMap<>();
+        leavingSlots  = new IdentityHashMap<>();
+
+
+        /* collect turns */
+        ArrayList<DirectedEdge.Lane> turnOrigins      = new ArrayList<>();
+        ArrayList<DirectedEdge.Lane> turnDestinations = new ArrayList<>();
+        for (Map.Entry<DirectedEdge.Lane, ? extends Map<DirectedEdge, DirectedEdge.Lane>> entry
+                : connectors.entrySet()) {
+            DirectedEdge.Lane incoming = entry.getKey();
+            if (!hasValidIndex(incomingLanes, incoming))
+                continue;
+
+            for (DirectedEdge.Lane leaving : entry.getValue().values()) {
+                if (!hasValidIndex(leavingLanes, leaving))
+                    continue;
+
+                leavingSlots.putIfAbsent(leaving.getEdge(), leavingSlots.size());
+                turnOrigins.add(incoming);
+                turnDestinations.add(leaving);
+            }
+        }
+
+
+        /* turn lookup */
+        turnCount = turnOrigins.size();
+        int leavingSlotCount = leavingSlots.size();
+
+        byte[] origins      = new byte[turnCount];
+        byte[] destinations = new byte[turnCount];
+        originPriorities      = new byte[turnCount];
+        destinationPriorities = new byte[turnCount];
+        for (int turn = 0; turn < turnCount; turn++) {
+            DirectedEdge.Lane incoming = turnOrigins.get(turn);
+            DirectedEdge.Lane leaving  = turnDestinations.get(turn);
+
+            int[] turns = incomingTurns.computeIfAbsent(incoming.getEdge(), edge -> {
+                int[] array = new int[edge.getNumberOfLanes() * leavingSlotCount];
+                Arrays.fill(array, NO_TURN);
+                return array;
+            });
+            turns[incoming.getIndex() * leavingSlotCount + leavingSlots.get(leaving.getEdge())] = turn;
+
+            origins[turn]               = incomingLanes.get(incoming);
+            destinations[turn]          = leavingLanes.get(leaving);
+            originPriorities[turn]      = incoming.getEdge().getPriorityLevel();
+            destinationPriorities[turn] = leaving.getEdge().getPriorityLevel();
+        }
+
+
+        /* conflicts */
+        conflicts = new byte[turnCount * turnCount];
+        for (int turn1 = 0; turn1 < turnCount; turn1++)
+            for (int turn2 = 0; turn2 < turnCount; turn2++)
+                conflicts[turn1 * turnCount + turn2] = calcConflict(
+                        origins[turn1], destinations[turn1],
+                        origins[turn2], destinations[turn2]);
+    }
+
+    private static boolean hasValidIndex(Map<DirectedEdge.Lane, Byte> indices, DirectedEdge.Lane lane) {
+        Byte index = indices.get(lane);
+        return index != null && index >= 0;
+    }
+
+
+    /**
+     * @return the conflict of two turns given by their crossing indices; one of {@link #NOT_CROSSING},
+     * {@link #FIRST_HAS_PRIORITY}, {@link #SECOND_HAS_PRIORITY} and {@link #CROSSING}
+     */
+    public static byte calcConflict(byte origin1, byte destination1, byte origin2, byte destination2) {
+        byte supremum = (byte) (1 + MathUtils.max(origin1, destination1, origin2, destination2));
+        assert supremum >= 0 : "Crossing indices cannot be stored as byte any longer.";
+
+        if (!IndicesCalculator.areIndicesCrossing(origin1, destination1, origin2, destination2, supremum))
+            return NOT_CROSSING;
+
+        byte leftmostMatchingIdx = IndicesCalculator.leftmostIndexInMatching(
+                origin1, destination1, origin2, destination2, supremum);
+        if (leftmostMatchingIdx == origin1)
+            return FIRST_HAS_PRIORITY;
+        if (leftmostMatchingIdx == origin2)
+            return SECOND_HAS_PRIORITY;
+        return CROSSING;
+    }
+
+
+    /**
+     * @return the id of the turn from the given incoming lane to the given leaving edge or {@link #NO_TURN}, if
+     * there is no such connector
+     */
+    public int getTurn(DirectedEdge.Lane incoming, DirectedEdge leaving) {
+        int[] turns = incomingTurns.get(incoming.getEdge());
+        if (turns == null)
+            return NO_TURN;
+        Integer leavingSlot = leavingSlots.get(leaving);
+        if (leavingSlot == null)
+            return NO_TURN;
+        return turns[incoming.getIndex() * leavingSlots.size() + leavingSlot];
+    }
+
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * @return the conflict of both turns as calculated by {@link #calcConflict(byte, byte, byte, byte)}
+     */
+    public byte getConflict(int turn1, int turn2) {
+        return conflicts[turn1 * turnCount + turn2];
+    }
+
+    /**
+     * @return priority level of the turn's incoming edge
+     */
+    public byte getOriginPriority(int turn) {
+        return originPriorities[turn];
+    }
+
+    /**
+     * @return priority level of the turn's leaving edge
+     */
+    public byte getDestinationPriority(int turn) {
+        return destinationPriorities[turn];
+    }
+}
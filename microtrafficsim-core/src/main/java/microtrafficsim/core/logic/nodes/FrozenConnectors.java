@@ -0,0 +1,172 @@
+package microtrafficsim.core.logic.nodes;
+
+import microtrafficsim.core.logic.streets.DirectedEdge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+/**
+ * <p>
+ * Immutable, array-based copy of the connectors of one {@link Node} created by {@link Node#freeze()}. Every leaving
+ * and incoming edge gets an ordinal (its position in the node's sorted edges), which is stored in the edge itself.
+ * Thus, finding the leaving lane of a connector needs no map lookup, but only array accesses:
+ * {@code leavingLanes[(incomingLaneOffsets[incomingOrdinal] + laneIdx) * leavingCount + leavingOrdinal]}.
+ *
+ * <p>
+ * All lookups are allocation-free and can be done without locking. Edges, that are not part of the frozen node (e.g.
+ * equal, but not identical edges), are not known by this class; see {@link #isIncoming(DirectedEdge)} and
+ * {@link #isLeaving(DirectedEdge)}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+final class FrozenConnectors {
+
+    private final DirectedEdge[] leaving;
+    private final DirectedEdge[] incoming;
+    private final int[]          incomingLaneOffsets;
+    private final DirectedEdge.Lane[] leavingLanes;
+
+    private final Set<DirectedEdge>       allLeavingEdges;
+    private final Set<DirectedEdge>       allIncomingEdges;
+    private final List<Set<DirectedEdge>> leavingEdges;     // by incoming ordinal
+    private final List<Set<DirectedEdge>> incomingEdges;    // by leaving ordinal
+
+
+    private FrozenConnectors(DirectedEdge[] leaving, DirectedEdge[] incoming) {
+        this.leaving  = leaving;
+        this.incoming = incoming;
+
+        incomingLaneOffsets = new int[incoming.length + 1];
+        for (int i = 0; i < incoming.length; i++)
+            incomingLaneOffsets[i + 1] = incomingLaneOffsets[i] + incoming[i].getNumberOfLanes();
+        leavingLanes = new DirectedEdge.Lane[incomingLaneOffsets[incoming.length] * leaving.length];
+
+        TreeSet<DirectedEdge> allLeaving  = new TreeSet<>();
+        TreeSet<DirectedEdge> allIncoming = new TreeSet<>();
+        Collections.addAll(allLeaving, leaving);
+        Collections.addAll(allIncoming, incoming);
+        allLeavingEdges  = Collections.unmodifiableSet(allLeaving);
+        allIncomingEdges = Collections.unmodifiableSet(allIncoming);
+
+        leavingEdges  = new ArrayList<>(incoming.length);
+        incomingEdges = new ArrayList<>(leaving.length);
+    }
+
+    /**
+     * Sets the ordinals of all edges of the node and copies its connectors.
+     *
+     * @return the frozen connectors or {@code null}, if a connector refers to an edge, that is not an incoming or
+     * leaving edge of the node
+     */
+    static FrozenConnectors freeze(Set<DirectedEdge> leavingSet,
+                                   Set<DirectedEdge> incomingSet,
+                                   TreeMap<DirectedEdge.Lane, TreeMap<DirectedEdge, DirectedEdge.Lane>> connectors)
+    {
+        /* check connectors */
+        for (Map.Entry<DirectedEdge.Lane, TreeMap<DirectedEdge, DirectedEdge.Lane>> entry : connectors.entrySet()) {
+            if (!incomingSet.contains(entry.getKey().getEdge()))
+                return null;
+            for (DirectedEdge leavingEdge : entry.getValue().keySet())
+                if (!leavingSet.contains(leavingEdge))
+                    return null;
+        }
+
+
+        /* ordinals */
+        FrozenConnectors frozen = new FrozenConnectors(
+                leavingSet.toArray(new DirectedEdge[leavingSet.size()]),
+                incomingSet.toArray(new DirectedEdge[incomingSet.size()]));
+        for (int i = 0; i < frozen.leaving.length; i++)
+            frozen.leaving[i].setLeavingOrdinal(i);
+        for (int i = 0; i < frozen.incoming.length; i++)
+            frozen.incoming[i].setIncomingOrdinal(i);
+
+
+        /* connectors */
+        List<TreeSet<DirectedEdge>> leavingEdges  = new ArrayList<>();
+        List<TreeSet<DirectedEdge>> incomingEdges = new ArrayList<>();
+        for (DirectedEdge ignored : frozen.incoming)
+            leavingEdges.add(new TreeSet<>());
+        for (DirectedEdge ignored : frozen.leaving)
+            incomingEdges.add(new TreeSet<>());
+
+        for (Map.Entry<DirectedEdge.Lane, TreeMap<DirectedEdge, DirectedEdge.Lane>> entry : connectors.entrySet()) {
+            DirectedEdge.Lane incomingLane = entry.getKey();
+            int incomingOrdinal = incomingLane.getEdge().getIncomingOrdinal();
+
+            for (DirectedEdge.Lane leavingLane : entry.getValue().values()) {
+                int leavingOrdinal = leavingLane.getEdge().getLeavingOrdinal();
+                frozen.leavingLanes[frozen.slot(incomingOrdinal, incomingLane.getIndex(), leavingOrdinal)]
+                        = leavingLane;
+                leavingEdges.get(incomingOrdinal).add(leavingLane.getEdge());
+                incomingEdges.get(leavingOrdinal).add(incomingLane.getEdge());
+            }
+        }
+
+        for (TreeSet<DirectedEdge> edges : leavingEdges)
+            frozen.leavingEdges.add(Collections.unmodifiableSet(edges));
+        for (TreeSet<DirectedEdge> edges : incomingEdges)
+            frozen.incomingEdges.add(Collections.unmodifiableSet(edges));
+
+        return frozen;
+    }
+
+
+    /*
+    |=========|
+    | lookups |
+    |=========|
+    */
+    boolean isIncoming(DirectedEdge edge) {
+        int ordinal = edge.getIncomingOrdinal();
+        return 0 <= ordinal && ordinal < incoming.length && incoming[ordinal] == edge;
+    }
+
+    boolean isLeaving(DirectedEdge edge) {
+        int ordinal = edge.getLeavingOrdinal();
+        return 0 <= ordinal && ordinal < leaving.length && leaving[ordinal] == edge;
+    }
+
+    /**
+     * Both edges have to be known, see {@link #isIncoming(DirectedEdge)} and {@link #isLeaving(DirectedEdge)}.
+     */
+    DirectedEdge.Lane getLeavingLane(DirectedEdge.Lane incomingLane, DirectedEdge leavingEdge) {
+        return leavingLanes[slot(
+                incomingLane.getEdge().getIncomingOrdinal(),
+                incomingLane.getIndex(),
+                leavingEdge.getLeavingOrdinal())];
+    }
+
+    Set<DirectedEdge> getLeavingEdges() {
+        return allLeavingEdges;
+    }
+
+    /**
+     * The edge has to be known, see {@link #isIncoming(DirectedEdge)}.
+     */
+    Set<DirectedEdge> getLeavingEdges(DirectedEdge incomingEdge) {
+        return leavingEdges.get(incomingEdge.getIncomingOrdinal());
+    }
+
+    Set<DirectedEdge> getIncomingEdges() {
+        return allIncomingEdges;
+    }
+
+    /**
+     * The edge has to be known, see {@link #isLeaving(DirectedEdge)}.
+     */
+    Set<DirectedEdge> getIncomingEdges(DirectedEdge leavingEdge) {
+        return incomingEdges.get(leavingEdge.getLeavingOrdinal());
+    }
+
+
+    private int slot(int incomingOrdinal, int laneIdx, int leavingOrdinal) {
+        return (incomingLaneOffsets[incomingOrdinal] + laneIdx) * leaving.length + leavingOrdinal;
+    }
+}
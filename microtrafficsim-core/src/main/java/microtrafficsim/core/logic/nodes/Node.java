@@ -38,10 +38,16 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
     // crossing logic
     private HashSet<Vehicle>               registerLog;
     private PriorityQueue<Vehicle>         newRegisteredVehicles;
-    private TreeMap<Vehicle, Set<Vehicle>> assessedVehicles;
+    private TreeMap<Vehicle, Assessment>   assessedVehicles;
     private TreeSet<Vehicle>               maxPrioVehicles;
     private boolean                        anyChangeSinceUpdate;
     private TreeMap<DirectedEdge.Lane, TreeMap<DirectedEdge, DirectedEdge.Lane>> connectors;
+    private ConflictTable                  conflictTable;    // built lazily in update()
+    private volatile FrozenConnectors      frozen;           // see freeze()
+
+    // update scheduling
+    private ActiveNodes activeNodes;
+    private boolean     isActive;
 
     // edges
     private final TreeSet<DirectedEdge> leaving;
@@ -169,7 +175,7 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
      * @return an {@code int > 0} if v1 has priority over v2; an {@code int < 0} if v2 has priority over v1; an {@code int = 0} if v1 and v2
      * have equal priorities
      */
-    private int compare(Vehicle v1, Vehicle v2) {
+    private int compare(Vehicle v1, int turn1, Vehicle v2, int turn2) {
         // main rules:
         // (1) two not-spawned vehicles are compared by their IDs. The smaller id wins.
         // (2) spawned vehicles before not spawned vehicles
@@ -189,6 +195,20 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
         }
 
         // (3) both SPAWNED => there is always a current edge and a next edge per vehicle
+        if (turn1 == ConflictTable.NO_TURN || turn2 == ConflictTable.NO_TURN)
+            return compareByCrossingIndices(v1, v2);
+
+        return compare(
+                conflictTable.getConflict(turn1, turn2),
+                conflictTable.getOriginPriority(turn1), conflictTable.getOriginPriority(turn2),
+                conflictTable.getDestinationPriority(turn1), conflictTable.getDestinationPriority(turn2));
+    }
+
+    /**
+     * Calculates the conflict of two spawned vehicles without the {@link ConflictTable}, e.g. if their turns are not
+     * contained in the table.
+     */
+    private int compareByCrossingIndices(Vehicle v1, Vehicle v2) {
         assert v1.getLane() != null : "Vehicle 1 in node-comparator has no lane!";
         assert v2.getLane() != null : "Vehicle 2 in node-comparator has no lane!";
         DirectedEdge.Lane v1LeavingLane = getLeavingLane(v1.getLane(), v1.getDriver().peekRoute());
@@ -201,26 +221,33 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
         byte destination2   = leavingLanes.get(v2LeavingLane);
         assert MathUtils.min(origin1, destination1, origin2, destination2) >= 0 : "Wrong crossing indices";
 
-        byte supremum = (byte) (1 + MathUtils.max(origin1, destination1, origin2, destination2));
-        assert supremum >= 0 : "Crossing indices cannot be stored as byte any longer.";
+        return compare(
+                ConflictTable.calcConflict(origin1, destination1, origin2, destination2),
+                v1.getLane().getEdge().getPriorityLevel(), v2.getLane().getEdge().getPriorityLevel(),
+                v1.getDriver().peekRoute().getPriorityLevel(), v2.getDriver().peekRoute().getPriorityLevel());
+    }
 
+    /**
+     * Compares two turns given their conflict and the priority levels of their edges.
+     */
+    private int compare(byte conflict,
+                        byte originPriority1, byte originPriority2,
+                        byte destinationPriority1, byte destinationPriority2)
+    {
         // if vehicles are crossing each other's way
-        if (IndicesCalculator.areIndicesCrossing(origin1, destination1, origin2, destination2, supremum)) {
+        if (conflict != ConflictTable.NOT_CROSSING) {
             // compare priorities of origins
-            byte cmp = (byte) (v1.getLane().getEdge().getPriorityLevel() - v2.getLane().getEdge().getPriorityLevel());
+            byte cmp = (byte) (originPriority1 - originPriority2);
             boolean edgePriorityEnabled = config.edgePriorityEnabled;
             if (cmp == 0 || !edgePriorityEnabled) {
                 // compare priorities of destinations
-                cmp = (byte) (v1.getDriver().peekRoute().getPriorityLevel()
-                        - v2.getDriver().peekRoute().getPriorityLevel());
+                cmp = (byte) (destinationPriority1 - destinationPriority2);
                 if (cmp == 0 || !edgePriorityEnabled) {
                     // compare right before left (or left before right)
                     if (config.priorityToTheRightEnabled) {
-                        byte leftmostMatchingIdx = IndicesCalculator.leftmostIndexInMatching(
-                                origin1, destination1, origin2, destination2, supremum);
-                        if (leftmostMatchingIdx == origin1)
+                        if (conflict == ConflictTable.FIRST_HAS_PRIORITY)
                             return 1;
-                        if (leftmostMatchingIdx == origin2)
+                        if (conflict == ConflictTable.SECOND_HAS_PRIORITY)
                             return -1;
                         assert false : "Crossing logic returns 0 where it should not be 0.";
                     } else {
@@ -234,21 +261,41 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
         return 0;
     }
 
+    /**
+     * Registered vehicles keep their lane and their next edge until they unregister, so the turn is calculated only
+     * once per registration.
+     *
+     * @return the vehicle's turn in the {@link ConflictTable} or {@link ConflictTable#NO_TURN}, if the vehicle is not
+     * spawned or its turn is unknown
+     */
+    private int getTurn(Vehicle vehicle) {
+        if (vehicle.getState() != VehicleState.SPAWNED)
+            return ConflictTable.NO_TURN;
+        return conflictTable.getTurn(vehicle.getLane(), vehicle.getDriver().peekRoute());
+    }
+
     /**
      * If any vehicle has unregistered since the last call of {@code update}, all vehicles are compared to each other
      * for getting the highest priority. This needs O(n^2) comparisons due to the Gauss sum.
      */
     public void update() {
 
+        /* build conflict table lazily, because connectors could be added after updating crossing indices */
+        if (conflictTable == null && !newRegisteredVehicles.isEmpty())
+            conflictTable = new ConflictTable(connectors, incomingLanes, leavingLanes);
+
         /* add new registered vehicles */
         while (!newRegisteredVehicles.isEmpty()) { // invariant: all vehicles in this set are new at this point
             Vehicle newVehicle = newRegisteredVehicles.poll();
+            int newTurn = getTurn(newVehicle);
             Set<Vehicle> defeatedVehicles = new TreeSet<>(Comparator.comparingLong(Vehicle::getId));
 
             // calculate priority counter
             newVehicle.getDriver().resetPriorityCounter();
-            for (Vehicle assessedVehicle : assessedVehicles.keySet()) {
-                int cmp = compare(newVehicle, assessedVehicle);
+            for (Map.Entry<Vehicle, Assessment> entry : assessedVehicles.entrySet()) {
+                Vehicle    assessedVehicle = entry.getKey();
+                Assessment assessment      = entry.getValue();
+                int cmp = compare(newVehicle, newTurn, assessedVehicle, assessment.turn);
 
                 if (cmp > 0) {
                     newVehicle.getDriver().incPriorityCounter();
@@ -259,17 +306,17 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
                     newVehicle.getDriver().decPriorityCounter();
 
                     assessedVehicle.getDriver().incPriorityCounter();
-                    assessedVehicles.get(assessedVehicle).add(newVehicle);
+                    assessment.defeatedVehicles.add(newVehicle);
                 } else {
                     newVehicle.getDriver().incPriorityCounter();
                     defeatedVehicles.add(assessedVehicle);
 
                     assessedVehicle.getDriver().incPriorityCounter();
-                    assessedVehicles.get(assessedVehicle).add(newVehicle);
+                    assessment.defeatedVehicles.add(newVehicle);
                 }
             }
 
-            assessedVehicles.put(newVehicle, defeatedVehicles);
+            assessedVehicles.put(newVehicle, new Assessment(newTurn, defeatedVehicles));
         }
 
         /* find max prioritized vehicles */
@@ -358,6 +405,7 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
 
         newRegisteredVehicles.add(newVehicle);
         anyChangeSinceUpdate = true;
+        activate();
 
         registerLog.add(newVehicle);
         return true;
@@ -377,12 +425,13 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
         if (!isRegistered(vehicle))
             return false;
 
-        Set<Vehicle> defeatedVehicles = assessedVehicles.remove(vehicle);
-        if (defeatedVehicles == null) {
+        Assessment removed = assessedVehicles.remove(vehicle);
+        if (removed == null) {
             newRegisteredVehicles.remove(vehicle);
         } else {
-            for (Vehicle otherVehicle : assessedVehicles.keySet()) {
-                boolean otherWon = assessedVehicles.get(otherVehicle).remove(vehicle);
+            for (Map.Entry<Vehicle, Assessment> entry : assessedVehicles.entrySet()) {
+                Vehicle otherVehicle = entry.getKey();
+                boolean otherWon = entry.getValue().defeatedVehicles.remove(vehicle);
 
                 if (otherWon)
                     otherVehicle.getDriver().decPriorityCounter();
@@ -393,6 +442,7 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
 
             anyChangeSinceUpdate = true;
         }
+        activate();
 
         registerLog.remove(vehicle);
         return true;
@@ -413,6 +463,56 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
         return registerLog.contains(vehicle);
     }
 
+    /**
+     * Sets the worklist this node adds itself to whenever a vehicle registers or unregisters. The node is added
+     * immediately, so it is updated at least once.
+     *
+     * @param activeNodes worklist of the graph containing this node; {@code null} disables tracking
+     */
+    public synchronized void setActiveNodes(ActiveNodes activeNodes) {
+        this.activeNodes = activeNodes;
+        isActive = false;
+        activate();
+    }
+
+    /**
+     * @return true, if any vehicle is registered at this node (for the crossing logic)
+     */
+    public synchronized boolean hasRegisteredVehicles() {
+        return !assessedVehicles.isEmpty() || !newRegisteredVehicles.isEmpty();
+    }
+
+    private void activate() {
+        if (!isActive && activeNodes != null) {
+            isActive = true;
+            activeNodes.add(this);
+        }
+    }
+
+    /**
+     * @return true, if this node has no registered vehicles and has been marked as inactive
+     */
+    synchronized boolean deactivateIfIdle() {
+        if (hasRegisteredVehicles())
+            return false;
+        isActive = false;
+        return true;
+    }
+
+    /**
+     * Crossing information of one assessed vehicle: its turn in the {@link ConflictTable} and the vehicles it has
+     * defeated.
+     */
+    private static class Assessment {
+        final int          turn;
+        final Set<Vehicle> defeatedVehicles;
+
+        Assessment(int turn, Set<Vehicle> defeatedVehicles) {
+            this.turn             = turn;
+            this.defeatedVehicles = defeatedVehicles;
+        }
+    }
+
     /*
     |===========================|
     | add edges (preprocessing) |
@@ -430,6 +530,8 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
         TreeMap<DirectedEdge, DirectedEdge.Lane> connectedLanes
                 = connectors.computeIfAbsent(incoming, k -> new TreeMap<>());
         connectedLanes.put(leaving.getEdge(), leaving);
+        conflictTable = null;
+        frozen = null;
     }
 
     public void addLeavingEdge(DirectedEdge edge) {
@@ -438,6 +540,8 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
 
         leaving.add(edge);
         edge.forEach(lane -> leavingLanes.put(lane, (byte) -1));
+        conflictTable = null;
+        frozen = null;
     }
 
     public void addIncomingEdge(DirectedEdge edge) {
@@ -446,6 +550,8 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
 
         incoming.add(edge);
         edge.forEach(lane -> incomingLanes.put(lane, (byte) -1));
+        conflictTable = null;
+        frozen = null;
     }
 
     /**
@@ -458,6 +564,7 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
         leavingLanes.putAll(tuple.obj0);
         incomingLanes.clear();
         incomingLanes.putAll(tuple.obj1);
+        conflictTable = null;
     }
 
     /**
@@ -553,7 +660,30 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
     }
 
 
-    public synchronized int findOutermostTurningLaneIndex(DirectedEdge incoming, DirectedEdge leaving) {
+    /**
+     * <p>
+     * This method should be called after all edges and connectors are added to this node. It copies the connectors
+     * into compact arrays indexed by the edges' ordinals (see {@link DirectedEdge#getLeavingOrdinal()}). Afterwards,
+     * {@link #getLeavingLane(DirectedEdge.Lane, DirectedEdge)}, {@link #isLaneCorrect(DirectedEdge.Lane,
+     * DirectedEdge)}, {@link #getLeavingEdges(DirectedEdge)} and {@link #getIncomingEdges(DirectedEdge)} are
+     * lock-free and allocation-free for all edges of this node.
+     *
+     * <p>
+     * Adding edges or connectors later unfreezes this node, so it stays correct, but is slower until it is frozen
+     * again.
+     */
+    public synchronized void freeze() {
+        frozen = FrozenConnectors.freeze(leaving, incoming, connectors);
+    }
+
+    /**
+     * @return true, if this node has been frozen by {@link #freeze()} and not been changed since then
+     */
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    public int findOutermostTurningLaneIndex(DirectedEdge incoming, DirectedEdge leaving) {
         for (DirectedEdge.Lane lane : incoming)
             if (isLaneCorrect(lane, leaving))
                 return lane.getIndex();
@@ -561,15 +691,21 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
         return -1;
     }
 
-    public synchronized boolean isLaneCorrect(DirectedEdge.Lane incomingLane, DirectedEdge leavingEdge) {
+    public boolean isLaneCorrect(DirectedEdge.Lane incomingLane, DirectedEdge leavingEdge) {
         return getLeavingLane(incomingLane, leavingEdge) != null;
     }
 
-    public synchronized DirectedEdge.Lane getLeavingLane(DirectedEdge.Lane incomingLane, DirectedEdge leavingEdge) {
-        TreeMap<DirectedEdge, DirectedEdge.Lane> leaving = connectors.get(incomingLane);
-        if (leaving == null)
-            return null;
-        return leaving.get(leavingEdge);
+    public DirectedEdge.Lane getLeavingLane(DirectedEdge.Lane incomingLane, DirectedEdge leavingEdge) {
+        FrozenConnectors frozen = this.frozen;
+        if (frozen != null && frozen.isIncoming(incomingLane.getEdge()) && frozen.isLeaving(leavingEdge))
+            return frozen.getLeavingLane(incomingLane, leavingEdge);
+
+        synchronized (this) {
+            TreeMap<DirectedEdge, DirectedEdge.Lane> leaving = connectors.get(incomingLane);
+            if (leaving == null)
+                return null;
+            return leaving.get(leavingEdge);
+        }
     }
 
     /**
@@ -580,53 +716,73 @@ public class Node implements ShortestPathNode<DirectedEdge>, Resettable, Seeded,
      * @param incomingEdge The edge from which a travelling vehicle is arriving. The leaving edges may be depending
      *                     on the incoming edge, due to turn-restrictions. If {@code null}, every leaving edge will
      *                     be returned (i.e. if a vehicle has just spawned at a node and no previous edge is exists).
-     * @return All leaving edges depending on the incoming edge.
+     * @return All leaving edges depending on the incoming edge. If this node is frozen, the returned set is
+     * unmodifiable.
      */
     @Override
-    public synchronized Set<DirectedEdge> getLeavingEdges(DirectedEdge incomingEdge) {
-        // TODO: maybe pre-compute leaving edges?
+    public Set<DirectedEdge> getLeavingEdges(DirectedEdge incomingEdge) {
+        FrozenConnectors frozen = this.frozen;
+        if (frozen != null) {
+            if (incomingEdge == null)
+                return frozen.getLeavingEdges();
+            if (frozen.isIncoming(incomingEdge))
+                return frozen.getLeavingEdges(incomingEdge);
+        }
 
-        // return everything if incoming edge is null
-        if (incomingEdge == null)
-            return Collections.unmodifiableSet(leaving);
+        synchronized (this) {
+            // return everything if incoming edge is null
+            if (incomingEdge == null)
+                return Collections.unmodifiableSet(leaving);
 
-        TreeSet<DirectedEdge> result = new TreeSet<>();
-        for (DirectedEdge.Lane incomingLane : incomingEdge) {
-            TreeMap<DirectedEdge, DirectedEdge.Lane> leaving = connectors.get(incomingLane);
-            if (leaving != null)
-                result.addAll(leaving.keySet());
-        }
+            TreeSet<DirectedEdge> result = new TreeSet<>();
+            for (DirectedEdge.Lane incomingLane : incomingEdge) {
+                TreeMap<DirectedEdge, DirectedEdge.Lane> leaving = connectors.get(incomingLane);
+                if (leaving != null)
+                    result.addAll(leaving.keySet());
+            }
 
-        return result;
+            return result;
+        }
     }
 
-    public synchronized Set<DirectedEdge> getLeavingEdges() {
+    public Set<DirectedEdge> getLeavingEdges() {
         return getLeavingEdges(null);
     }
 
+    /**
+     * Analogous to {@link #getLeavingEdges(DirectedEdge)}.
+     */
     @Override
-    public synchronized Set<DirectedEdge> getIncomingEdges(DirectedEdge leavingEdge) {
-        // TODO: maybe pre-compute incoming edges?
-
-        // return everything if leaving edge is null
-        if (leavingEdge == null)
-            return Collections.unmodifiableSet(incoming);
-
-        TreeSet<DirectedEdge> result = new TreeSet<>();
-        connectors.entrySet().forEach(entry -> {
-            TreeMap<DirectedEdge, DirectedEdge.Lane> leaving = entry.getValue();
-            if (leaving != null) {
-                if (leaving.containsKey(leavingEdge)) {
-                    DirectedEdge.Lane incomingLane = entry.getKey();
-                    result.add(incomingLane.getEdge());
+    public Set<DirectedEdge> getIncomingEdges(DirectedEdge leavingEdge) {
+        FrozenConnectors frozen = this.frozen;
+        if (frozen != null) {
+            if (leavingEdge == null)
+                return frozen.getIncomingEdges();
+            if (frozen.isLeaving(leavingEdge))
+                return frozen.getIncomingEdges(leavingEdge);
+        }
+
+        synchronized (this) {
+            // return everything if leaving edge is null
+            if (leavingEdge == null)
+                return Collections.unmodifiableSet(incoming);
+
+            TreeSet<DirectedEdge> result = new TreeSet<>();
+            connectors.entrySet().forEach(entry -> {
+                TreeMap<DirectedEdge, DirectedEdge.Lane> leaving = entry.getValue();
+                if (leaving != null) {
+                    if (leaving.containsKey(leavingEdge)) {
+                        DirectedEdge.Lane incomingLane = entry.getKey();
+                        result.add(incomingLane.getEdge());
+                    }
                 }
-            }
-        });
+            });
 
-        return result;
+            return result;
+        }
     }
 
-    public synchronized Set<DirectedEdge> getIncomingEdges() {
+    public Set<DirectedEdge> getIncomingEdges() {
         return getIncomingEdges(null);
     }
 
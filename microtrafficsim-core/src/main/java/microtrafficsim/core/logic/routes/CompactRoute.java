@@ -0,0 +1,213 @@
+package microtrafficsim.core.logic.routes;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.utils.strings.builder.LevelStringBuilder;
+
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Route consuming an immutable array of edge indices of a {@link CSRGraph} through a cursor. The array is shared
+ * between all routes of the same path (e.g. by {@link microtrafficsim.core.shortestpath.cache.RouteCache
+ * RouteCache}) and by {@link #clone()}, so a vehicle's route only costs its cursor instead of one stack entry per edge
+ * like {@link StackRoute}. Its methods are not synchronized, because a route is used by one vehicle only.
+ *
+ * <p>
+ * Iterating over this route returns the remaining edges in driving order.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class CompactRoute implements Route {
+    private final CSRGraph graph;
+    private final int[]    edges;    // edge indices of the graph in driving order; shared
+    private int            cursor;
+    private int            spawnDelay;
+    private boolean        isMonitored;
+
+
+    /**
+     * @param edges edge indices of the given graph in driving order; they are not copied, so the array must not be
+     *              changed afterwards
+     */
+    public CompactRoute(CSRGraph graph, int[] edges) {
+        this(graph, edges, 0);
+    }
+
+    /**
+     * @param edges edge indices of the given graph in driving order; they are not copied, so the array must not be
+     *              changed afterwards
+     */
+    public CompactRoute(CSRGraph graph, int[] edges, int spawnDelay) {
+        this.graph      = graph;
+        this.edges      = edges;
+        this.spawnDelay = spawnDelay;
+        cursor          = 0;
+        isMonitored     = false;
+    }
+
+
+    /**
+     * @param edges edges in driving order
+     * @return the edge indices of the given edges
+     * @throws IllegalArgumentException if an edge is not part of the graph
+     */
+    public static int[] indicesOf(CSRGraph graph, List<? extends DirectedEdge> edges) {
+        int[] indices = new int[edges.size()];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = indexOf(graph, edges.get(i));
+        return indices;
+    }
+
+    /**
+     * @param shortestPath path as filled by a {@link microtrafficsim.core.shortestpath.ShortestPathAlgorithm
+     *                     ShortestPathAlgorithm}, so its first edge is on top
+     * @return the edge indices of the path in driving order
+     * @throws IllegalArgumentException if an edge is not part of the graph
+     */
+    public static int[] indicesOfStack(CSRGraph graph, List<? extends DirectedEdge> shortestPath) {
+        int[] indices = new int[shortestPath.size()];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = indexOf(graph, shortestPath.get(indices.length - 1 - i));
+        return indices;
+    }
+
+    private static int indexOf(CSRGraph graph, DirectedEdge edge) {
+        int index = graph.indexOf(edge);
+        if (index == CSRGraph.NOT_CONTAINED)
+            throw new IllegalArgumentException("The edge " + edge.getId() + " is not part of the graph.");
+        return index;
+    }
+
+
+    @Override
+    public String toString() {
+        LevelStringBuilder strBuilder = new LevelStringBuilder()
+                .setDefaultLevelSubString()
+                .setDefaultLevelSeparator();
+        strBuilder.appendln("<" + getClass().getSimpleName() + ">").incLevel();
+        {
+            if (isEmpty())
+                strBuilder.appendln("Route is empty.");
+            else {
+                strBuilder.appendln("hash       = " + hashCode());
+                strBuilder.appendln("spawndelay = " + spawnDelay);
+                strBuilder.appendln("start      = " + getOrigin());
+                strBuilder.appendln("end        = " + getDestination());
+                strBuilder.appendln("size       = " + size());
+            }
+        }
+        strBuilder.decLevel().append("</" + getClass().getSimpleName() + ">");
+        return strBuilder.toString();
+    }
+
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the edge index of the {@code i}-th remaining edge, so index {@code 0} belongs to {@link #peek()}
+     */
+    public int getEdgeIndex(int i) {
+        return edges[cursor + i];
+    }
+
+    /**
+     * Addition to superclass: The copy shares the edges with this route, but has its own cursor.
+     */
+    @Override
+    public CompactRoute clone() {
+        CompactRoute copy = new CompactRoute(graph, edges, spawnDelay);
+        copy.cursor      = cursor;
+        copy.isMonitored = isMonitored;
+        return copy;
+    }
+
+    @Override
+    public boolean isMonitored() {
+        return isMonitored;
+    }
+
+    @Override
+    public void setMonitored(boolean isMonitored) {
+        this.isMonitored = isMonitored;
+    }
+
+    @Override
+    public int getSpawnDelay() {
+        return spawnDelay;
+    }
+
+    @Override
+    public void setSpawnDelay(int spawnDelay) {
+        this.spawnDelay = spawnDelay;
+    }
+
+    @Override
+    public Node getOrigin() {
+        if (isEmpty())
+            return null;
+        return graph.getNode(graph.getOrigin(edges[cursor]));
+    }
+
+    @Override
+    public Node getDestination() {
+        if (isEmpty())
+            return null;
+        return graph.getNode(graph.getDestination(edges[edges.length - 1]));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cursor >= edges.length;
+    }
+
+    @Override
+    public int size() {
+        return edges.length - cursor;
+    }
+
+    /**
+     * @throws EmptyStackException if this route is empty, like {@link StackRoute}
+     */
+    @Override
+    public DirectedEdge peek() {
+        if (isEmpty())
+            throw new EmptyStackException();
+        return graph.getEdge(edges[cursor]);
+    }
+
+    /**
+     * @throws EmptyStackException if this route is empty, like {@link StackRoute}
+     */
+    @Override
+    public DirectedEdge pop() {
+        if (isEmpty())
+            throw new EmptyStackException();
+        return graph.getEdge(edges[cursor++]);
+    }
+
+    @Override
+    public Iterator<DirectedEdge> iterator() {
+        return new Iterator<DirectedEdge>() {
+            private int next = cursor;
+
+            @Override
+            public boolean hasNext() {
+                return next < edges.length;
+            }
+
+            @Override
+            public DirectedEdge next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return graph.getEdge(edges[next++]);
+            }
+        };
+    }
+}
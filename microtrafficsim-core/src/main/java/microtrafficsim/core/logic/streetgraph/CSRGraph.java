@@ -0,0 +1,466 @@
+package microtrafficsim.core.logic.streetgraph;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.map.Coordinate;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+/**
+ * <p>
+ * Immutable, int-indexed view of a {@link Graph} in compressed-sparse-row (CSR) layout. It is built once from the
+ * graph and stores everything static in flat primitive arrays, so e.g. routing, partitioning, statistics or
+ * serialization can run without walking the object graph.
+ *
+ * <p>
+ * Nodes and edges are indexed in their natural order, so the indices only depend on the graph's content, not on the
+ * order it has been created in. Every lane gets a global index as well, which is {@code getFirstLane(edge) + laneNo}.
+ * All adjacencies are stored in CSR layout: the entries of row {@code i} are in {@code [getXBegin(i), getXEnd(i))}
+ * and are read by {@code getXAt(j)}. There are rows for
+ * <ul>
+ *     <li> the leaving and incoming edges of every node (sorted by edge index)
+ *     <li> the turns of every edge, which are the leaving edges any of its lanes is connected to (sorted by edge
+ *     index)
+ *     <li> the reverse turns of every edge, which are the incoming edges having it as turn (sorted by edge index)
+ *     <li> the connectors of every lane, which are the leaving lanes it is connected to (sorted by lane index)
+ * </ul>
+ *
+ * <p>
+ * {@link #getNode(int)}, {@link #getEdge(int)} and {@link #indexOf(Node)}, {@link #indexOf(DirectedEdge)} map between
+ * indices and the graph's objects. Changes of the graph after creation are not reflected by this class; connectors
+ * referring to edges, that are not part of the graph, are ignored.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class CSRGraph {
+
+    public static final int NOT_CONTAINED = -1;
+
+    private final GraphGUID guid;
+
+    /* nodes */
+    private final Node[]   nodes;
+    private final long[]   nodeIds;
+    private final double[] lats;
+    private final double[] lons;
+    private final IdentityHashMap<Node, Integer> nodeIndices;
+
+    /* edges */
+    private final DirectedEdge[] edges;
+    private final long[]   edgeIds;
+    private final int[]    origins;
+    private final int[]    destinations;
+    private final int[]    laneCounts;
+    private final int[]    lengths;             // in cells
+    private final double[] lengthsInMeter;
+    private final int[]    maxVelocities;       // in cells/s
+    private final byte[]   priorityLevels;
+    private final IdentityHashMap<DirectedEdge, Integer> edgeIndices;
+
+    /* adjacencies */
+    private final int[] leavingOffsets;         // by node
+    private final int[] leavingEdges;
+    private final int[] incomingOffsets;        // by node
+    private final int[] incomingEdges;
+    private final int[] laneOffsets;            // by edge
+    private final int[] laneEdges;              // by lane
+    private final int[] turnOffsets;            // by edge
+    private final int[] turnEdges;
+    private final int[] reverseTurnOffsets;     // by edge
+    private final int[] reverseTurnEdges;
+    private final int[] connectorOffsets;       // by lane
+    private final int[] connectorLanes;
+
+
+    /**
+     * Creates the CSR view of the given graph. The graph must not be modified concurrently.
+     *
+     * @throws IllegalArgumentException if an edge's origin or destination is not part of the graph
+     */
+    public CSRGraph(Graph graph) {
+        guid = GraphGUID.from(graph);
+
+        /* nodes */
+        Set<Node> nodeSet = graph.getNodes();
+        int nodeCount = nodeSet.size();
+        nodes       = nodeSet.toArray(new Node[nodeCount]);
+        nodeIds     = new long[nodeCount];
+        lats        = new double[nodeCount];
+        lons        = new double[nodeCount];
+        nodeIndices = new IdentityHashMap<>(nodeCount);
+        for (int n = 0; n < nodeCount; n++) {
+            Coordinate coordinate = nodes[n].getCoordinate();
+            nodeIds[n] = nodes[n].getId();
+            lats[n]    = coordinate.lat;
+            lons[n]    = coordinate.lon;
+            nodeIndices.put(nodes[n], n);
+        }
+
+
+        /* edges */
+        Set<DirectedEdge> edgeSet = graph.getEdges();
+        int edgeCount = edgeSet.size();
+        edges          = edgeSet.toArray(new DirectedEdge[edgeCount]);
+        edgeIds        = new long[edgeCount];
+        origins        = new int[edgeCount];
+        destinations   = new int[edgeCount];
+        laneCounts     = new int[edgeCount];
+        lengths        = new int[edgeCount];
+        lengthsInMeter = new double[edgeCount];
+        maxVelocities  = new int[edgeCount];
+        priorityLevels = new byte[edgeCount];
+        edgeIndices    = new IdentityHashMap<>(edgeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            DirectedEdge edge = edges[e];
+            edgeIds[e]        = edge.getId();
+            origins[e]        = requireNode(edge, edge.getOrigin());
+            destinations[e]   = requireNode(edge, edge.getDestination());
+            laneCounts[e]     = edge.getNumberOfLanes();
+            lengths[e]        = edge.getLength();
+            lengthsInMeter[e] = edge.getLengthInMeter();
+            maxVelocities[e]  = edge.getMaxVelocity();
+            priorityLevels[e] = edge.getPriorityLevel();
+            edgeIndices.put(edge, e);
+        }
+
+
+        /* leaving and incoming edges; edges are iterated in order, so the rows are sorted */
+        leavingOffsets  = new int[nodeCount + 1];
+        incomingOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            leavingOffsets[origins[e] + 1]++;
+            incomingOffsets[destinations[e] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            leavingOffsets[n + 1]  += leavingOffsets[n];
+            incomingOffsets[n + 1] += incomingOffsets[n];
+        }
+
+        leavingEdges  = new int[edgeCount];
+        incomingEdges = new int[edgeCount];
+        int[] leavingFill  = Arrays.copyOf(leavingOffsets, nodeCount);
+        int[] incomingFill = Arrays.copyOf(incomingOffsets, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            leavingEdges[leavingFill[origins[e]]++]        = e;
+            incomingEdges[incomingFill[destinations[e]]++] = e;
+        }
+
+
+        /* lanes */
+        laneOffsets = new int[edgeCount + 1];
+        for (int e = 0; e < edgeCount; e++)
+            laneOffsets[e + 1] = laneOffsets[e] + laneCounts[e];
+        int laneCount = laneOffsets[edgeCount];
+
+        laneEdges = new int[laneCount];
+        for (int e = 0; e < edgeCount; e++)
+            Arrays.fill(laneEdges, laneOffsets[e], laneOffsets[e + 1], e);
+
+
+        /* connectors and turns */
+        connectorOffsets = new int[laneCount + 1];
+        turnOffsets      = new int[edgeCount + 1];
+        int[] connectors = new int[16];
+        int[] turns      = new int[16];
+        int connectorCount = 0;
+        int turnCount      = 0;
+
+        for (int e = 0; e < edgeCount; e++) {
+            DirectedEdge edge = edges[e];
+            TreeMap<DirectedEdge.Lane, TreeMap<DirectedEdge, DirectedEdge.Lane>> nodeConnectors
+                    = edge.getDestination().getConnectors();
+            int firstTurn = turnCount;
+
+            for (int laneNo = 0; laneNo < laneCounts[e]; laneNo++) {
+                int lane = laneOffsets[e] + laneNo;
+                int firstConnector = connectorCount;
+
+                Map<DirectedEdge, DirectedEdge.Lane> laneConnectors = nodeConnectors.get(edge.getLane(laneNo));
+                if (laneConnectors != null) {
+                    for (DirectedEdge.Lane leavingLane : laneConnectors.values()) {
+                        int leavingEdge = indexOf(leavingLane.getEdge());
+                        if (leavingEdge == NOT_CONTAINED)
+                            continue;
+
+                        if (connectorCount == connectors.length)
+                            connectors = Arrays.copyOf(connectors, 2 * connectorCount);
+                        connectors[connectorCount++] = laneOffsets[leavingEdge] + leavingLane.getIndex();
+
+                        if (turnCount == turns.length)
+                            turns = Arrays.copyOf(turns, 2 * turnCount);
+                        turns[turnCount++] = leavingEdge;
+                    }
+                }
+
+                Arrays.sort(connectors, firstConnector, connectorCount);
+                connectorOffsets[lane + 1] = connectorCount;
+            }
+
+            /* remove duplicate turns of different lanes */
+            Arrays.sort(turns, firstTurn, turnCount);
+            int uniqueEnd = firstTurn;
+            for (int i = firstTurn; i < turnCount; i++)
+                if (uniqueEnd == firstTurn || turns[uniqueEnd - 1] != turns[i])
+                    turns[uniqueEnd++] = turns[i];
+            turnCount = uniqueEnd;
+            turnOffsets[e + 1] = turnCount;
+        }
+
+        connectorLanes = Arrays.copyOf(connectors, connectorCount);
+        turnEdges      = Arrays.copyOf(turns, turnCount);
+
+
+        /* reverse turns; edges are iterated in order, so the rows are sorted */
+        reverseTurnOffsets = new int[edgeCount + 1];
+        for (int i = 0; i < turnCount; i++)
+            reverseTurnOffsets[turnEdges[i] + 1]++;
+        for (int e = 0; e < edgeCount; e++)
+            reverseTurnOffsets[e + 1] += reverseTurnOffsets[e];
+
+        reverseTurnEdges = new int[turnCount];
+        int[] reverseTurnFill = Arrays.copyOf(reverseTurnOffsets, edgeCount);
+        for (int e = 0; e < edgeCount; e++)
+            for (int i = turnOffsets[e]; i < turnOffsets[e + 1]; i++)
+                reverseTurnEdges[reverseTurnFill[turnEdges[i]]++] = e;
+    }
+
+    private int requireNode(DirectedEdge edge, Node node) {
+        int index = indexOf(node);
+        if (index == NOT_CONTAINED)
+            throw new IllegalArgumentException(
+                    "The edge " + edge.key() + " has a node, that is not part of the graph.");
+        return index;
+    }
+
+
+    /**
+     * @return the GUID of the graph at creation
+     */
+    public GraphGUID getGUID() {
+        return guid;
+    }
+
+
+    /*
+    |=======|
+    | nodes |
+    |=======|
+    */
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public Node getNode(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * @return the index of the given node or {@link #NOT_CONTAINED}; nodes, that are not identical to the graph's
+     * node, but equal regarding their key, are found as well
+     */
+    public int indexOf(Node node) {
+        Integer index = nodeIndices.get(node);
+        if (index != null)
+            return index;
+
+        index = Arrays.binarySearch(nodes, node);
+        return index >= 0 ? index : NOT_CONTAINED;
+    }
+
+    public long getNodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public double getLat(int node) {
+        return lats[node];
+    }
+
+    public double getLon(int node) {
+        return lons[node];
+    }
+
+    public int getLeavingBegin(int node) {
+        return leavingOffsets[node];
+    }
+
+    public int getLeavingEnd(int node) {
+        return leavingOffsets[node + 1];
+    }
+
+    /**
+     * @return the edge index at position {@code i} of the leaving edges' rows
+     */
+    public int getLeavingAt(int i) {
+        return leavingEdges[i];
+    }
+
+    public int getIncomingBegin(int node) {
+        return incomingOffsets[node];
+    }
+
+    public int getIncomingEnd(int node) {
+        return incomingOffsets[node + 1];
+    }
+
+    /**
+     * @return the edge index at position {@code i} of the incoming edges' rows
+     */
+    public int getIncomingAt(int i) {
+        return incomingEdges[i];
+    }
+
+
+    /*
+    |=======|
+    | edges |
+    |=======|
+    */
+    public int getEdgeCount() {
+        return edges.length;
+    }
+
+    public DirectedEdge getEdge(int edge) {
+        return edges[edge];
+    }
+
+    /**
+     * @return the index of the given edge or {@link #NOT_CONTAINED}; edges, that are not identical to the graph's
+     * edge, but equal regarding their key, are found as well
+     */
+    public int indexOf(DirectedEdge edge) {
+        Integer index = edgeIndices.get(edge);
+        if (index != null)
+            return index;
+
+        index = Arrays.binarySearch(edges, edge);
+        return index >= 0 ? index : NOT_CONTAINED;
+    }
+
+    public long getEdgeId(int edge) {
+        return edgeIds[edge];
+    }
+
+    public int getOrigin(int edge) {
+        return origins[edge];
+    }
+
+    public int getDestination(int edge) {
+        return destinations[edge];
+    }
+
+    public int getNumberOfLanes(int edge) {
+        return laneCounts[edge];
+    }
+
+    /**
+     * @return the edge's length in cells
+     */
+    public int getLength(int edge) {
+        return lengths[edge];
+    }
+
+    public double getLengthInMeter(int edge) {
+        return lengthsInMeter[edge];
+    }
+
+    /**
+     * @return the edge's max velocity in cells/s
+     */
+    public int getMaxVelocity(int edge) {
+        return maxVelocities[edge];
+    }
+
+    public byte getPriorityLevel(int edge) {
+        return priorityLevels[edge];
+    }
+
+    /**
+     * @return the time needed to pass the edge at max velocity, calculated as in
+     * {@link DirectedEdge#getTimeCostMillis()}
+     */
+    public double getTimeCostMillis(int edge) {
+        return (1000.0 * lengths[edge]) / maxVelocities[edge];
+    }
+
+    public int getTurnBegin(int edge) {
+        return turnOffsets[edge];
+    }
+
+    public int getTurnEnd(int edge) {
+        return turnOffsets[edge + 1];
+    }
+
+    /**
+     * @return the leaving edge index at position {@code i} of the turns' rows
+     */
+    public int getTurnAt(int i) {
+        return turnEdges[i];
+    }
+
+    public int getReverseTurnBegin(int edge) {
+        return reverseTurnOffsets[edge];
+    }
+
+    public int getReverseTurnEnd(int edge) {
+        return reverseTurnOffsets[edge + 1];
+    }
+
+    /**
+     * @return the incoming edge index at position {@code i} of the reverse turns' rows
+     */
+    public int getReverseTurnAt(int i) {
+        return reverseTurnEdges[i];
+    }
+
+
+    /*
+    |=======|
+    | lanes |
+    |=======|
+    */
+    public int getLaneCount() {
+        return laneEdges.length;
+    }
+
+    /**
+     * @return the global index of the edge's lane 0
+     */
+    public int getFirstLane(int edge) {
+        return laneOffsets[edge];
+    }
+
+    public int getLaneEdge(int lane) {
+        return laneEdges[lane];
+    }
+
+    /**
+     * @return the lane's index in its edge, see {@link DirectedEdge.Lane#getIndex()}
+     */
+    public int getLaneNo(int lane) {
+        return lane - laneOffsets[laneEdges[lane]];
+    }
+
+    public DirectedEdge.Lane getLane(int lane) {
+        return edges[laneEdges[lane]].getLane(getLaneNo(lane));
+    }
+
+    public int getConnectorBegin(int lane) {
+        return connectorOffsets[lane];
+    }
+
+    public int getConnectorEnd(int lane) {
+        return connectorOffsets[lane + 1];
+    }
+
+    /**
+     * @return the leaving lane index at position {@code i} of the connectors' rows
+     */
+    public int getConnectorAt(int i) {
+        return connectorLanes[i];
+    }
+}
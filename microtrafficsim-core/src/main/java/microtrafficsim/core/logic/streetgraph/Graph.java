@@ -10,6 +10,7 @@ import microtrafficsim.core.vis.scenario.areas.Area;
 import microtrafficsim.math.random.Seeded;
 import microtrafficsim.utils.Resettable;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -74,6 +75,17 @@ public interface Graph extends Seeded, Resettable, ShortestPathGraph {
     @Override
     Set<Node> getNodes();
 
+    /**
+     * Returns all nodes that have to be updated in the current simulation step, sorted by their natural order. These
+     * are at least all nodes holding registered vehicles or whose registered vehicles have changed since their last
+     * update. Per default, all nodes are returned.
+     *
+     * @return all nodes that have to be updated in the current simulation step
+     */
+    default Collection<Node> getActiveNodes() {
+        return getNodes();
+    }
+
     /**
      * Returns the edges of this graph.
      *
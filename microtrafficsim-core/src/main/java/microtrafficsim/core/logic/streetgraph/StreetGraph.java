@@ -1,5 +1,6 @@
 package microtrafficsim.core.logic.streetgraph;
 
+import microtrafficsim.core.logic.nodes.ActiveNodes;
 import microtrafficsim.core.logic.nodes.Node;
 import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.map.Bounds;
@@ -22,6 +23,7 @@ public class StreetGraph implements Graph {
     private Bounds bounds;
     private TreeMap<Node.Key, Node> nodes;
     private TreeMap<DirectedEdge.Key, DirectedEdge> edges;
+    private final ActiveNodes activeNodes;
     private long seed;
 
     /**
@@ -33,6 +35,7 @@ public class StreetGraph implements Graph {
         this.bounds = bounds;
         this.nodes  = new TreeMap<>();
         this.edges  = new TreeMap<>();
+        this.activeNodes = new ActiveNodes();
         this.seed   = Random.createSeed();
     }
 
@@ -88,6 +91,15 @@ public class StreetGraph implements Graph {
         return new TreeSet<>(nodes.values());
     }
 
+    /**
+     * Addition to superclass: Returns only the nodes tracked by this graph's {@link ActiveNodes} instead of creating a
+     * set of all nodes. Must not be called while vehicles can (un)register at the nodes.
+     */
+    @Override
+    public List<Node> getActiveNodes() {
+        return activeNodes.poll();
+    }
+
     @Override
     public TreeSet<DirectedEdge> getEdges() {
         return new TreeSet<>(edges.values());
@@ -96,6 +108,7 @@ public class StreetGraph implements Graph {
     @Override
     public void addNode(Node node) {
         nodes.put(node.key(), node);
+        node.setActiveNodes(activeNodes);
     }
 
     @Override
@@ -0,0 +1,149 @@
+package microtrafficsim.core.logic.streetgraph;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.math.Vec2d;
+
+
+/**
+ * <p>
+ * Immutable, static part of a street graph: nodes, edges, their geometry and traffic attributes and the connectors.
+ * It is taken once from a template graph and does not contain any state of a simulation run, i.e. no vehicles, no
+ * crossing logic state and no random generators.
+ *
+ * <p>
+ * Every call of {@link #instantiate(SimulationConfig)} creates a new {@link StreetGraph} holding fresh dynamic state on
+ * top of this topology, without parsing or loading the map again. Thus, several simulation runs (e.g. with different
+ * seeds) can be executed concurrently on the same map, each on its own instance. All instances are equal to the
+ * template regarding nodes, edges and connectors, so they have the same {@link GraphGUID}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class StreetGraphTopology {
+
+    private final CSRGraph     csr;
+    private final Bounds       bounds;
+    private final Coordinate[] coordinates;
+
+    /* edges: static information not contained in the csr graph */
+    private final Vec2d[]       originDirections;
+    private final Vec2d[]       destinationDirections;
+    private final Orientation[] orientations;
+    private final StreetType[]  types;
+    private final float[]       rawMaxVelocities;    // in km/h
+
+
+    /**
+     * @param template the graph, whose topology is copied; it must not be modified concurrently
+     */
+    public StreetGraphTopology(Graph template) {
+        csr    = new CSRGraph(template);
+        bounds = new Bounds(template.getBounds());
+
+        coordinates = new Coordinate[csr.getNodeCount()];
+        for (int n = 0; n < coordinates.length; n++)
+            coordinates[n] = new Coordinate(csr.getLat(n), csr.getLon(n));
+
+        int edgeCount = csr.getEdgeCount();
+        originDirections      = new Vec2d[edgeCount];
+        destinationDirections = new Vec2d[edgeCount];
+        orientations          = new Orientation[edgeCount];
+        types                 = new StreetType[edgeCount];
+        rawMaxVelocities      = new float[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            DirectedEdge edge = csr.getEdge(e);
+            originDirections[e]      = new Vec2d(edge.getOriginDirection());
+            destinationDirections[e] = new Vec2d(edge.getDestinationDirection());
+            orientations[e]          = edge.getOrientation();
+            types[e]                 = edge.getStreetType();
+            rawMaxVelocities[e]      = edge.getRawMaxVelocity();
+        }
+    }
+
+
+    /**
+     * @return the int-indexed view of this topology; its {@code Node}s and {@code DirectedEdge}s are the template's
+     * ones, not the ones of an instance
+     */
+    public CSRGraph getCSRGraph() {
+        return csr;
+    }
+
+    public Bounds getBounds() {
+        return new Bounds(bounds);
+    }
+
+    /**
+     * Creates a new graph with this topology. Nodes and edges are indexed equally in this topology's
+     * {@link #getCSRGraph() CSR graph} and in a {@code CSRGraph} of the instance. The nodes are frozen (see
+     * {@link Node#freeze()}) and the graph's seed is set to {@code config.seed}.
+     *
+     * @param config used for the crossing logic, the lane containers and the edges' number of cells and priority
+     *               levels; to get the template's cells and priority levels, it has to be equal to the template's
+     *               config regarding {@code metersPerCell} and {@code streetPriorityLevel}
+     * @return a new graph, that does not share any dynamic state with other instances
+     */
+    public StreetGraph instantiate(SimulationConfig config) {
+        StreetGraph graph = new StreetGraph(new Bounds(bounds));
+
+        /* nodes */
+        Node[] nodes = new Node[csr.getNodeCount()];
+        for (int n = 0; n < nodes.length; n++)
+            nodes[n] = new Node(csr.getNodeId(n), new Coordinate(coordinates[n]), config.crossingLogic);
+
+
+        /* edges */
+        DirectedEdge[] edges = new DirectedEdge[csr.getEdgeCount()];
+        for (int e = 0; e < edges.length; e++) {
+            Node origin      = nodes[csr.getOrigin(e)];
+            Node destination = nodes[csr.getDestination(e)];
+
+            edges[e] = new DirectedEdge(
+                    csr.getEdgeId(e),
+                    csr.getLengthInMeter(e),
+                    new Vec2d(originDirections[e]), new Vec2d(destinationDirections[e]),
+                    orientations[e],
+                    origin, destination,
+                    types[e],
+                    csr.getNumberOfLanes(e),
+                    rawMaxVelocities[e],
+                    config.metersPerCell, config.streetPriorityLevel,
+                    config.laneContainerFactory);
+
+            graph.addEdge(edges[e]);
+            origin.addLeavingEdge(edges[e]);
+            destination.addIncomingEdge(edges[e]);
+        }
+
+
+        /* connectors */
+        for (int lane = 0; lane < csr.getLaneCount(); lane++) {
+            DirectedEdge incoming = edges[csr.getLaneEdge(lane)];
+
+            for (int i = csr.getConnectorBegin(lane); i < csr.getConnectorEnd(lane); i++) {
+                int leavingLane = csr.getConnectorAt(i);
+                DirectedEdge leaving = edges[csr.getLaneEdge(leavingLane)];
+                incoming.getDestination().addConnector(
+                        incoming.getLane(csr.getLaneNo(lane)),
+                        leaving.getLane(csr.getLaneNo(leavingLane)));
+            }
+        }
+
+
+        /* finish graph */
+        for (Node node : nodes) {
+            graph.addNode(node);
+            node.updateCrossingIndices();
+            node.freeze();
+        }
+        graph.setSeed(config.seed);
+        graph.updateGraphGUID();
+
+        return graph;
+    }
+}
@@ -4,6 +4,7 @@ import microtrafficsim.core.logic.nodes.Node;
 import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.map.Bounds;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
@@ -59,6 +60,11 @@ public class UnmodifiableGraph implements Graph {
         return Collections.unmodifiableSet(graph.getNodes());
     }
 
+    @Override
+    public Collection<Node> getActiveNodes() {
+        return Collections.unmodifiableCollection(graph.getActiveNodes());
+    }
+
     @Override
     public Set<DirectedEdge> getEdges() {
         return Collections.unmodifiableSet(graph.getEdges());
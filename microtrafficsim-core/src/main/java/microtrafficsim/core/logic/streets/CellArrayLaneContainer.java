@@ -0,0 +1,207 @@
+package microtrafficsim.core.logic.streets;
+
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * This implementation of {@code LaneContainer} stores every lane as array of cells, so {@link #get(int, int)} is a
+ * simple array access. In addition, the occupied cells of every lane are indexed by a bit set, so the next occupied
+ * cell in front of or behind a cell is found by scanning 64 cells at once. Thus the neighbour lookups are O(gap / 64)
+ * with gap being the number of empty cells in between. Queries in front of the first or behind the last vehicle are
+ * answered in O(1).
+ *
+ * <p>
+ * The number of cells is fixed, so the lanes' length has to be known on creation, e.g.
+ * {@link DirectedEdge#getLength()}.
+ *
+ * <p>
+ * The locks are not fair, because they are mostly uncontended.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class CellArrayLaneContainer implements LaneContainer {
+    private static final int NONE = -1;
+
+    private final int nCells;
+    private final Vehicle[][] cells;
+    private final long[][] occupied;
+    /* lowest cell = last vehicle, highest cell = first vehicle */
+    private final int[] lowest, highest;
+    private final int[] count;
+    private final Lock[] lock;
+
+
+    public CellArrayLaneContainer(int nLanes, int nCells) {
+        this.nCells = nCells;
+        cells = new Vehicle[nLanes][nCells];
+        occupied = new long[nLanes][(nCells + 63) >>> 6];
+        lowest = new int[nLanes];
+        highest = new int[nLanes];
+        count = new int[nLanes];
+        lock = new ReentrantLock[nLanes];
+
+        Arrays.fill(lowest, NONE);
+        Arrays.fill(highest, NONE);
+        for (int i = 0; i < nLanes; i++)
+            lock[i] = new ReentrantLock();
+    }
+
+
+    @Override
+    public void lockLane(int laneNo) {
+        lock[laneNo].lock();
+    }
+
+    @Override
+    public void unlockLane(int laneNo) {
+        lock[laneNo].unlock();
+    }
+
+    @Override
+    public boolean isEmpty(int laneNo) {
+        return count[laneNo] == 0;
+    }
+
+    @Override
+    public int getVehicleCount(int laneNo) {
+        return count[laneNo];
+    }
+
+    @Override
+    public Vehicle getFirstVehicle(int laneNo) {
+        return count[laneNo] == 0 ? null : cells[laneNo][highest[laneNo]];
+    }
+
+    @Override
+    public Vehicle getLastVehicle(int laneNo) {
+        return count[laneNo] == 0 ? null : cells[laneNo][lowest[laneNo]];
+    }
+
+    @Override
+    public Vehicle get(int laneNo, int cellNo) {
+        if (cellNo < 0 || cellNo >= nCells)
+            return null;
+        return cells[laneNo][cellNo];
+    }
+
+    @Override
+    public Vehicle getPrevOf(int laneNo, int cellNo) {
+        int prev = prevOccupiedCell(laneNo, cellNo);
+        return prev == NONE ? null : cells[laneNo][prev];
+    }
+
+    @Override
+    public Vehicle getNextOf(int laneNo, int cellNo) {
+        int next = nextOccupiedCell(laneNo, cellNo);
+        return next == NONE ? null : cells[laneNo][next];
+    }
+
+    @Override
+    public Vehicle set(Vehicle vehicle, int laneNo, int cellNo) {
+        Vehicle[] lane = cells[laneNo];
+
+        Vehicle removed = lane[cellNo];
+        lane[cellNo] = vehicle;
+        if (removed != null)
+            return removed;
+
+        occupied[laneNo][cellNo >>> 6] |= 1L << cellNo;
+        if (count[laneNo] == 0) {
+            lowest[laneNo] = cellNo;
+            highest[laneNo] = cellNo;
+        } else if (cellNo < lowest[laneNo]) {
+            lowest[laneNo] = cellNo;
+        } else if (cellNo > highest[laneNo]) {
+            highest[laneNo] = cellNo;
+        }
+
+        count[laneNo]++;
+        return null;
+    }
+
+    @Override
+    public Vehicle remove(int laneNo, int cellNo) {
+        if (cellNo < 0 || cellNo >= nCells)
+            return null;
+
+        Vehicle[] lane = cells[laneNo];
+        Vehicle removed = lane[cellNo];
+        if (removed == null)
+            return null;
+
+        // find new bounds before removing
+        if (count[laneNo] == 1) {
+            lowest[laneNo] = NONE;
+            highest[laneNo] = NONE;
+        } else if (cellNo == lowest[laneNo]) {
+            lowest[laneNo] = nextOccupiedCell(laneNo, cellNo);
+        } else if (cellNo == highest[laneNo]) {
+            highest[laneNo] = prevOccupiedCell(laneNo, cellNo);
+        }
+
+        lane[cellNo] = null;
+        occupied[laneNo][cellNo >>> 6] &= ~(1L << cellNo);
+
+        count[laneNo]--;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (int laneNo = 0; laneNo < cells.length; laneNo++) {
+            Arrays.fill(cells[laneNo], null);
+            Arrays.fill(occupied[laneNo], 0L);
+            lowest[laneNo] = NONE;
+            highest[laneNo] = NONE;
+            count[laneNo] = 0;
+        }
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    /**
+     * @return the greatest occupied cell less than {@code cellNo} or {@link #NONE}
+     */
+    private int prevOccupiedCell(int laneNo, int cellNo) {
+        if (count[laneNo] == 0 || cellNo <= lowest[laneNo])
+            return NONE;
+        if (cellNo > highest[laneNo])
+            return highest[laneNo];
+
+        // lowest < cellNo <= highest => terminates at lowest at the latest
+        long[] bits = occupied[laneNo];
+        int from = cellNo - 1;
+        int idx = from >>> 6;
+        long word = bits[idx] & (-1L >>> (63 - (from & 63)));
+        while (word == 0)
+            word = bits[--idx];
+        return (idx << 6) + 63 - Long.numberOfLeadingZeros(word);
+    }
+
+    /**
+     * @return the least occupied cell greater than {@code cellNo} or {@link #NONE}
+     */
+    private int nextOccupiedCell(int laneNo, int cellNo) {
+        if (count[laneNo] == 0 || cellNo >= highest[laneNo])
+            return NONE;
+        if (cellNo < lowest[laneNo])
+            return lowest[laneNo];
+
+        // lowest <= cellNo < highest => terminates at highest at the latest
+        long[] bits = occupied[laneNo];
+        int from = cellNo + 1;
+        int idx = from >>> 6;
+        long word = bits[idx] & (-1L << from);
+        while (word == 0)
+            word = bits[++idx];
+        return (idx << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
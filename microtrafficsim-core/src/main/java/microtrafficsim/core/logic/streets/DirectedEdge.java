@@ -36,6 +36,9 @@ public class DirectedEdge
     private StreetEntity entity;
     private final LaneContainer lanes;
 
+    // positions of this edge in its nodes' sorted edges, set by Node#freeze()
+    private int leavingOrdinal;
+    private int incomingOrdinal;
 
     /**
      * In addition to standard initialization, this constructor also calculates
@@ -55,6 +58,34 @@ public class DirectedEdge
                         int nLanes,
                         float maxVelocity,
                         float metersPerCell, SimulationConfig.StreetPriorityFunction priorityFn)
+    {
+        this(id,
+                lengthInMeters,
+                originDirection, destinationDirection,
+                orientation,
+                origin, destination,
+                type,
+                nLanes,
+                maxVelocity,
+                metersPerCell, priorityFn,
+                (nLanesPerEdge, nCells) -> new NavigableSkipListLaneContainer(nLanesPerEdge));
+    }
+
+    /**
+     * Same as {@link #DirectedEdge(long, double, Vec2d, Vec2d, Orientation, Node, Node, StreetType, int, float, float,
+     * SimulationConfig.StreetPriorityFunction) DirectedEdge(...)}, but the lanes are stored in a container created by
+     * the given factory.
+     */
+    public DirectedEdge(long id,
+                        double lengthInMeters,
+                        Vec2d originDirection, Vec2d destinationDirection,
+                        Orientation orientation,
+                        Node origin, Node destination,
+                        StreetType type,
+                        int nLanes,
+                        float maxVelocity,
+                        float metersPerCell, SimulationConfig.StreetPriorityFunction priorityFn,
+                        LaneContainer.Factory laneContainerFactory)
     {
         streetInfo = new FullStreetInfo(new RawStreetInfo(
                 id,
@@ -67,7 +98,9 @@ public class DirectedEdge
                 maxVelocity,
                 metersPerCell, priorityFn
         ));
-        lanes = new NavigableSkipListLaneContainer(streetInfo.raw.nLanes);
+        lanes = laneContainerFactory.create(streetInfo.raw.nLanes, streetInfo.numberOfCells);
+        leavingOrdinal  = -1;
+        incomingOrdinal = -1;
     }
 
 
@@ -230,6 +263,33 @@ public class DirectedEdge
 
 
 
+    /**
+     * @return position of this edge in the sorted leaving edges of its origin or -1, if the origin has not been
+     * frozen yet
+     * @see Node#freeze()
+     */
+    public int getLeavingOrdinal() {
+        return leavingOrdinal;
+    }
+
+    public void setLeavingOrdinal(int leavingOrdinal) {
+        this.leavingOrdinal = leavingOrdinal;
+    }
+
+    /**
+     * @return position of this edge in the sorted incoming edges of its destination or -1, if the destination has
+     * not been frozen yet
+     * @see Node#freeze()
+     */
+    public int getIncomingOrdinal() {
+        return incomingOrdinal;
+    }
+
+    public void setIncomingOrdinal(int incomingOrdinal) {
+        this.incomingOrdinal = incomingOrdinal;
+    }
+
+
     /**
      * Just an immutable container used by vehicles as lane/edge reference.
      */
@@ -37,4 +37,17 @@ public interface LaneContainer {
     Vehicle remove(int laneNo, int cellNo);
 
     void clear();
-}
\ No newline at end of file
+
+
+    /**
+     * Creates the lane container of one {@link DirectedEdge}.
+     */
+    @FunctionalInterface
+    interface Factory {
+        /**
+         * @param nLanes number of lanes of the edge
+         * @param nCells number of cells of every lane, see {@link DirectedEdge#getLength()}
+         */
+        LaneContainer create(int nLanes, int nCells);
+    }
+}
@@ -0,0 +1,91 @@
+package microtrafficsim.core.logic.vehicles.driver;
+
+import microtrafficsim.core.logic.vehicles.machines.StoredVehicle;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
+
+/**
+ * This implementation of {@code Driver} behaves like {@link BasicDriver}, but its travelling time and anger are
+ * stored in the {@link VehicleStateStore} of its vehicle.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class StoredDriver extends BasicDriver {
+
+    private final VehicleStateStore store;
+    private final int               idx;
+
+    /**
+     * @param setup   initial values of this driver
+     * @param vehicle its index is used for storing the travelling time and anger of this driver
+     */
+    public StoredDriver(InitSetup setup, StoredVehicle vehicle) {
+        super(setup);
+        store = vehicle.getStore();
+        idx   = vehicle.getIndex();
+
+        store.setTravellingTime(idx, -setup.spawnDelay);
+        store.setAnger(idx, 0);
+        store.setTotalAnger(idx, 0);
+    }
+
+    /*
+    |============|
+    | (i) Driver |
+    |============|
+    */
+    @Override
+    public int getTravellingTime() {
+        return store.getTravellingTime(idx);
+    }
+
+    @Override
+    public void incTravellingTime() {
+        store.setTravellingTime(idx, store.getTravellingTime(idx) + 1);
+    }
+
+
+    /*
+    |==========|
+    | (i) Hulk |
+    |==========|
+    */
+    @Override
+    public void becomeMoreAngry() {
+        int anger = store.getAnger(idx);
+        if (anger < getMaxAnger())
+            store.setAnger(idx, anger + 1);
+        store.setTotalAnger(idx, store.getTotalAnger(idx) + 1);
+    }
+
+    @Override
+    public void calmDown() {
+        int anger = store.getAnger(idx);
+        if (anger > 0)
+            store.setAnger(idx, anger - 1);
+    }
+
+    @Override
+    public int getAnger() {
+        return store.getAnger(idx);
+    }
+
+    @Override
+    public int getTotalAnger() {
+        return store.getTotalAnger(idx);
+    }
+
+
+    /*
+    |================|
+    | (i) Resettable |
+    |================|
+    */
+    @Override
+    public void reset() {
+        super.reset();
+
+        store.setTravellingTime(idx, 0);
+        store.setAnger(idx, 0);
+        store.setTotalAnger(idx, 0);
+    }
+}
@@ -0,0 +1,588 @@
+package microtrafficsim.core.logic.vehicles.machines;
+
+import microtrafficsim.core.entities.vehicle.VehicleEntity;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.vehicles.VehicleState;
+import microtrafficsim.core.logic.vehicles.VehicleStateListener;
+import microtrafficsim.core.logic.vehicles.driver.Driver;
+import microtrafficsim.core.map.style.VehicleStyleSheet;
+import microtrafficsim.math.MathUtils;
+import microtrafficsim.utils.strings.builder.LevelStringBuilder;
+
+import java.util.LinkedList;
+
+/**
+ * <p>
+ * This class implements the traffic logic of a vehicle (lane changing, braking, dawdling, moving, spawning etc.).
+ * It does not decide where the dynamic state of the vehicle is stored, so every access goes through the abstract
+ * getters and setters of this class. {@link BasicVehicle} stores its state in fields, {@link StoredVehicle} in the
+ * arrays of a {@link microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore VehicleStateStore}.
+ *
+ * <p>
+ * Acceleration and the vehicle's max velocity are left to the children.
+ */
+public abstract class AbstractVehicle implements Vehicle {
+
+    /* general */
+    private final LinkedList<VehicleStateListener> stateListeners;
+
+    /* variable information */
+    private Driver driver;
+
+    /* fix information */
+    public final long id;
+
+    /* visualization */
+    private final VehicleStyleSheet style;
+
+    /* logic vehicle entity */
+    private VehicleEntity entity;
+
+    /**
+     * @param id    unique id
+     * @param style the vehicle's visualization style. Can be null.
+     */
+    public AbstractVehicle(long id, VehicleStyleSheet style) {
+        /* general */
+        stateListeners = new LinkedList<>();
+
+        /* fix information */
+        this.id = id;
+
+        /* visualization */
+        this.style = style;
+
+        /* logic vehicle entity */
+        entity = null;
+    }
+
+
+    @Override
+    public String toString() {
+        LevelStringBuilder strBuilder = new LevelStringBuilder()
+                .setDefaultLevelSeparator()
+                .setDefaultLevelSubString();
+        strBuilder.appendln("<" + getClass().getSimpleName() + ">").incLevel();
+        {
+            strBuilder
+                    .appendln("id = " + id)
+                    .appendln("state = " + getState())
+                    .appendln("cell position = " + getCellPosition())
+                    .appendln("velocity v = " + getVelocity())
+                    .appendln("maximum  v = " + getMaxVelocity())
+                    .appendln("last v was zero = " + isLastVelocityZero());
+            if (driver != null)
+                strBuilder.appendln(driver);
+            DirectedEdge.Lane lane = getLane();
+            if (lane != null) {
+                strBuilder.appendln(lane);
+                strBuilder.appendln("lane is correct = " + isLaneCorrect());
+                strBuilder.appendln("");
+                strBuilder.appendln("-- infos from next node --");
+                strBuilder.appendln(
+                    "permission = " + lane.getEdge().getDestination().permissionToCross(this)
+                );
+                strBuilder.appendln("node.id = " + lane.getEdge().getDestination().getId());
+            }
+        }
+        strBuilder.decLevel().append("</" + getClass().getSimpleName() + ">");
+        return strBuilder.toString();
+    }
+
+    @Override
+    public void setDriver(Driver driver) {
+        this.driver = driver;
+    }
+
+
+    /*
+    |===============|
+    | dynamic state |
+    |===============|
+    */
+    public abstract boolean isLaneCorrect();
+
+    public abstract void setLaneIsCorrect(boolean laneIsCorrect);
+
+    protected abstract void setLane(DirectedEdge.Lane lane);
+
+    protected abstract void setCellPosition(int cellPosition);
+
+    protected abstract void setVelocity(int velocity);
+
+    protected abstract void setLastVelocityZero(boolean wasZero);
+
+    protected abstract int getOutermostTurningLaneIndex();
+
+    protected abstract void setOutermostTurningLaneIndex(int outermostTurningLaneIndex);
+
+    protected abstract LaneChangeDirection getLaneChangeDirection();
+
+    protected abstract void setLaneChangeDirection(LaneChangeDirection direction);
+
+    /**
+     * Stores the given state without notifying the state listeners.
+     */
+    protected abstract void storeState(VehicleState state);
+
+
+    /*
+    |============|
+    | simulation |
+    |============|
+    */
+    private void didOneSimulationStep() {
+        // anger
+        if (getVelocity() == 0) {
+            if (isLastVelocityZero()) driver.becomeMoreAngry();
+            setLastVelocityZero(true);
+        } else {
+            if (!isLastVelocityZero()) driver.calmDown();
+            setLastVelocityZero(false);
+        }
+
+        // age
+        driver.incTravellingTime();
+
+        // color
+        if (entity.getVisualization() != null)
+            entity.getVisualization().setBaseColor(style.getColor(this));
+    }
+
+
+    private void leaveCurrentRoad() {
+        DirectedEdge.Lane lane = getLane();
+        lane.getDestination().unregisterVehicle(this);
+        lane.removeVehicle(this);
+
+        // -1 * distance to end of road
+        setCellPosition(getCellPosition() - lane.getLength());
+    }
+
+    private void enterNextRoad() {
+        DirectedEdge.Lane lane = getLane();
+        enterNextRoad(lane.getDestination().getLeavingLane(lane, driver.popRoute()));
+    }
+
+    private void enterNextRoad(DirectedEdge.Lane nextLane) {
+        setLane(nextLane);
+        int cellPosition = getCellPosition() + getVelocity();
+        setCellPosition(cellPosition);
+        nextLane.insertVehicle(this, cellPosition);
+        if (entity.getVisualization() != null)
+            entity.getVisualization().updatePosition();
+
+
+        int outermostTurningLaneIndex;
+        if (!driver.getRoute().isEmpty()) {
+            DirectedEdge nextEdge = driver.peekRoute();
+            outermostTurningLaneIndex
+                    = nextLane.getDestination().findOutermostTurningLaneIndex(nextLane.getEdge(), nextEdge);
+            setLaneIsCorrect(nextLane.getDestination().isLaneCorrect(nextLane, nextEdge));
+        } else {
+            outermostTurningLaneIndex = 0;
+            setLaneIsCorrect(true);
+        }
+        setOutermostTurningLaneIndex(outermostTurningLaneIndex);
+
+        assert outermostTurningLaneIndex >= 0 : "Outermost turning lane index = " + outermostTurningLaneIndex + " < 0";
+    }
+
+    private void drive() {
+        int velocity = getVelocity();
+        getLane().moveVehicle(this, velocity);
+        setCellPosition(getCellPosition() + velocity);
+        if (entity.getVisualization() != null)
+            entity.getVisualization().updatePosition();
+    }
+
+
+    private boolean wantsToOvertake(Vehicle other) {
+        if (other != null) {
+            int distance = other.getCellPosition() - getCellPosition();
+            assert distance > 0 : "Something is wrong with the data structure! " +
+                    "Vehicle, expected to be at the very front, is not.";
+
+            // traffic jam inversion
+            if (
+                other.isLastVelocityZero()
+                || (distance < getMaxVelocity() && getVelocity() > other.getVelocity())
+            ) {
+                return true;
+            }
+
+            // // no traffic jam inversion
+            // if (distance < getMaxVelocity()) {
+            //     if (velocity > other.getVelocity() || other.getVelocity() == 0) {
+            //         return true;
+            //     }
+            // }
+        }
+        return false;
+    }
+
+    private void tendToOvertaking() {
+        Vehicle front = getLane().getVehicleInFront(this);
+
+        if (wantsToOvertake(front))
+            checkChangeToInnerLane();
+        else
+            tendToOutermostLane();
+    }
+
+    private void tendToOutermostLane() {
+        DirectedEdge.Lane lane = getLane();
+        int outermostTurningLaneIndex = getOutermostTurningLaneIndex();
+        if (lane.getIndex() > outermostTurningLaneIndex) {
+            // check for lane.isOutermost() is not necessary due to outermostTurningLaneIndex
+            Vehicle outerFront = lane.getOuterLane().getVehicleInFront(this);
+
+            if (!wantsToOvertake(outerFront))
+                checkChangeToOuterLane();
+        } else if (lane.getIndex() < outermostTurningLaneIndex) {
+            checkChangeToInnerLane();
+        }
+    }
+
+    /**
+     * Executes the lane change if there is enough space (EXCLUDING the data structure operations).
+     */
+    private void checkChangeToOuterLane() {
+        DirectedEdge.Lane lane = getLane();
+        if (lane.isOutermost()) {
+            setLaneChangeDirection(LaneChangeDirection.NONE);
+            return;
+        }
+
+        setLaneChangeDirection(LaneChangeDirection.OUTER);
+
+        Vehicle outerVehicle = lane.getOuterVehicle(this);
+        if (outerVehicle != null) {
+            int distance = getCellPosition() - outerVehicle.getCellPosition();
+            assert distance >= 0 : "Something is wrong with the data structure. Distance is " + distance + ", but " +
+                    "should be >= 0.";
+            if (distance == 0)
+                setLaneChangeDirection(LaneChangeDirection.NONE);
+        }
+    }
+
+    /**
+     * Executes the lane change if there is space (EXCLUDING the data structure operations).
+     */
+    private void checkChangeToInnerLane() {
+        DirectedEdge.Lane lane = getLane();
+        if (lane.isInnermost()) {
+            setLaneChangeDirection(LaneChangeDirection.NONE);
+            return;
+        }
+
+        setLaneChangeDirection(LaneChangeDirection.INNER);
+
+        // check for second inner vehicle
+        Vehicle innerVehicle = lane.getSecondInnerVehicle(this);
+        if (innerVehicle != null) {
+            int distance = getCellPosition() - innerVehicle.getCellPosition();
+            assert distance >= 0 : "Something is wrong with the data structure. Distance is " + distance + ", but " +
+                    "should be >= 0.";
+            if (distance == 0) {
+                setLaneChangeDirection(LaneChangeDirection.NONE);
+                return;
+            }
+        }
+
+        // check for inner vehicle
+        innerVehicle = lane.getInnerVehicle(this);
+        if (innerVehicle != null) {
+            int distance = getCellPosition() - innerVehicle.getCellPosition();
+            assert distance >= 0 : "Something is wrong with the data structure. Distance is " + distance + ", but " +
+                    "should be >= 0.";
+            if (distance == 0)
+                setLaneChangeDirection(LaneChangeDirection.NONE);
+        }
+    }
+
+    /**
+     * Executes the change in the data structure. This method does not focus on traffic logic, but only on the
+     * underlying data structure.
+     */
+    private void changeToLane(DirectedEdge.Lane newLane) {
+        assert newLane != null : "Lane after changing lane is null. Old idx = " + getLane().getIndex();
+        getLane().removeVehicle(this);
+        setLane(newLane);
+        newLane.insertVehicle(this, getCellPosition());
+    }
+
+
+    /*
+    |=============|
+    | (i) Vehicle |
+    |=============|
+    */
+    @Override
+    public void registerInGraph() {
+        if (!driver.getRoute().isEmpty())
+            driver.getRoute().getOrigin().registerVehicle(this);
+    }
+
+    /**
+     * If this vehicle is not spawned yet, this method checks if the route is
+     * empty. If yes, the vehicle will despawn instantly. If no, it has to
+     * check, if it can cross the node.
+     */
+    @Override
+    public void spawn() {
+        if (driver.getTravellingTime() >= 0) {
+            if (!driver.getRoute().isEmpty()) {
+                if (!driver.getRoute().getOrigin().permissionToCross(this)) {
+                    setVelocity(0);
+                } else {    // allowed to spawn
+                    if (driver.peekRoute().getLane(0).getMaxInsertionIndex() < 0) {
+                        setVelocity(0);
+                    } else {
+                        setVelocity(1);
+                        driver.getRoute().getOrigin().unregisterVehicle(this);
+                        enterNextRoad(driver.popRoute().getLane(0));
+                        setState(VehicleState.SPAWNED);
+                    }
+                }
+            } else {    // route is empty
+                setVelocity(0);
+
+                despawn();
+                return;
+            }
+        }
+        didOneSimulationStep();
+    }
+
+    @Override
+    public void despawn() {
+        setLane(null);
+        setState(VehicleState.DESPAWNED);
+    }
+
+    @Override
+    public void setState(VehicleState state) {
+        storeState(state);
+        for (VehicleStateListener listener : stateListeners)
+            listener.stateChanged(this);
+    }
+
+    @Override
+    public void addStateListener(VehicleStateListener listener) {
+        if (listener != null)
+            stateListeners.add(listener);
+    }
+
+    @Override
+    public void willChangeLane() {
+        setLaneChangeDirection(LaneChangeDirection.NONE);
+
+        if (driver.tendToChangeLane()) {
+            if (shouldGetIntoCorrectLane()) {
+                tendToOutermostLane();
+            } else {
+                tendToOvertaking();
+            }
+        }
+    }
+
+    @Override
+    public void changeLane() {
+        LaneChangeDirection direction = getLaneChangeDirection();
+        if (direction != LaneChangeDirection.NONE) {
+            if (direction == LaneChangeDirection.OUTER)
+                changeToLane(getLane().getOuterLane());
+            else if (direction == LaneChangeDirection.INNER)
+                changeToLane(getLane().getInnerLane());
+
+            DirectedEdge.Lane lane = getLane();
+            lane.getDestination().unregisterVehicle(this);
+            if (!driver.getRoute().isEmpty())
+                setLaneIsCorrect(lane.getDestination().isLaneCorrect(lane, driver.peekRoute()));
+            else
+                setLaneIsCorrect(true);
+        }
+    }
+
+    @Override
+    public void brake() {
+        DirectedEdge.Lane lane = getLane();
+        int cellPosition = getCellPosition();
+        int velocity = getVelocity();
+
+        /* variables needed */
+        int distance;
+        boolean isBraking = true;
+        boolean shouldCheckForCorrection = true;
+
+
+        /* determine case and prepare variables */
+        Vehicle vehicleInFront = lane.getVehicleInFront(this);
+
+
+        if (vehicleInFront != null) {
+            // brake for front vehicle
+            distance = vehicleInFront.getCellPosition() - cellPosition;
+            shouldCheckForCorrection = false;
+        } else {
+            // this vehicle is first in lane
+            distance = lane.getEdge().getLength() - cellPosition;
+            // would cross node?
+            if (velocity >= distance) {
+                if (!driver.getRoute().isEmpty()) {
+                    if (isLaneCorrect() && lane.getDestination().permissionToCross(this)) {
+                        // if next road has vehicles => brake for this
+                        // else => brake for end of next road
+                        shouldCheckForCorrection = false;
+
+                        DirectedEdge.Lane nextLane
+                                = lane.getDestination().getLeavingLane(lane, driver.peekRoute());
+                        int maxInsertionIndex = nextLane.getMaxInsertionIndex();
+                        if (maxInsertionIndex == nextLane.getLength() - 1)
+                            maxInsertionIndex--;
+                        distance += maxInsertionIndex + 1;
+                    }
+                } else {
+                    shouldCheckForCorrection = false;
+                }
+            } else {
+                isBraking = false;
+                shouldCheckForCorrection = !driver.getRoute().isEmpty();
+            }
+        }
+
+
+        /* execute case */
+        if (isBraking) {
+            // brake for front vehicle
+            // OR brake for end of road
+            // OR brake for first vehicle or end of next road
+            velocity = Math.min(velocity, distance - 1);
+        }
+
+        if (shouldCheckForCorrection && velocity > 0) {
+            // if vehicle reaches last cell of current lane
+            assert cellPosition + velocity <= lane.getLength() - 1
+                 : "Should brake for end of road if the following code should be executed.";
+            if (cellPosition + velocity == lane.getLength() - 1) {
+                if (!isLaneCorrect()) {
+                    // if not: outermost vehicle and critical zone is empty
+                    // => deadlock danger if vehicle does not brake!
+                    if (
+                        !(lane.containsOutermostVehicles() && lane.getEdge().isCriticalZoneEmpty())
+                    ) {
+                        velocity--;
+                    }
+                }
+            }
+        }
+
+
+        assert velocity >= 0 : "Velocity < 0 in braking. Actual = " + velocity;
+        setVelocity(velocity);
+    }
+
+    @Override
+    public void dawdle() {
+        int velocity = getVelocity();
+        if (velocity > 0) {
+            int newVelocity = driver.dawdle(velocity);
+
+            assert newVelocity <= velocity
+                    : "v_after_dawdling=" + newVelocity + " > " + velocity + "=v_before_dawdling";
+
+            setVelocity(MathUtils.clamp(newVelocity, 0, getMaxVelocity()));
+        }
+    }
+
+    @Override
+    public void move() {
+        int distance = getLane().getEdge().getLength() - getCellPosition();
+        // Will cross node?
+        if (getVelocity() >= distance) {
+            leaveCurrentRoad();
+            if (driver.getRoute().isEmpty())
+                despawn();
+            else
+                enterNextRoad();
+        } else {
+            // if standing at the end of the road
+            // and route is empty
+            // => despawn
+            if (getVelocity() == 0 && distance == 1 && driver.getRoute().isEmpty()) {
+                leaveCurrentRoad();
+                despawn();
+            } else {
+                drive();
+            }
+        }
+    }
+
+    @Override
+    public void didMove() {
+        didOneSimulationStep();
+
+        DirectedEdge.Lane lane = getLane();
+        if (shouldRegister())
+            lane.getDestination().registerVehicle(this);
+        else
+            lane.getDestination().unregisterVehicle(this);
+    }
+
+    private boolean shouldGetIntoCorrectLane() {
+        // the order of the if-statements is chosen by their runtime
+        // check for:
+        // - standing at the end of the road?
+        // - Is route empty? If yes, vehicle doesn't have to register
+        int distance = getLane().getLength() - getCellPosition();
+        if (getMaxVelocity() >= distance)
+            if (!driver.getRoute().isEmpty())
+                return true;
+
+        return false;
+    }
+
+    private boolean shouldRegister() {
+        // the order of the if-statements is chosen by their runtime
+        // check for:
+        // - Is vehicle on the correct lane? If not, it has to change lane before register
+        // - Does vehicle have front vehicles? If yes, it doesn't have to register.
+        if (shouldGetIntoCorrectLane()) {
+            // if route is empty => isLaneCorrect is always true but shouldGetIntoCorrectLane() is false
+            if (isLaneCorrect()) {
+                if (!getLane().hasVehicleInFront(this)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public Driver getDriver() {
+        return driver;
+    }
+
+
+    /*
+    |========================|
+    | (i) LogicVehicleEntity |
+    |========================|
+    */
+    @Override
+    public VehicleEntity getEntity() {
+        return entity;
+    }
+
+    @Override
+    public void setEntity(VehicleEntity entity) {
+        this.entity = entity;
+    }
+}
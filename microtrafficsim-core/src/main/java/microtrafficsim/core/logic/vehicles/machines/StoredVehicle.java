@@ -0,0 +1,155 @@
+package microtrafficsim.core.logic.vehicles.machines;
+
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.vehicles.VehicleState;
+import microtrafficsim.core.map.style.VehicleStyleSheet;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
+
+/**
+ * <p>
+ * This class shares the traffic logic of {@link AbstractVehicle} with {@link BasicVehicle}, but its dynamic state is
+ * not stored in this instance. Instead, every instance is a view onto one dense index of a {@link VehicleStateStore},
+ * which keeps the state of all vehicles in primitive arrays.
+ *
+ * <p>
+ * The acceleration is fixed to the Nagel-Schreckenberg-model ({@code v + 1}), so the store is able to accelerate all
+ * vehicles without touching their views.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public abstract class StoredVehicle extends AbstractVehicle {
+
+    /* general */
+    private final VehicleStateStore store;
+    private final int               idx;
+
+    /**
+     * Default constructor. Allocates a new index in the given store.
+     *
+     * @param id          unique id
+     * @param maxVelocity the 'physical' max velocity of this vehicle independent of crossing logic etc.
+     * @param style       the vehicle's visualization style. Can be null.
+     * @param store       stores the dynamic state of this vehicle
+     */
+    public StoredVehicle(long id, int maxVelocity, VehicleStyleSheet style, VehicleStateStore store) {
+        super(id, style);
+
+        /* general */
+        this.store = store;
+        idx = store.allocate(this, maxVelocity);
+    }
+
+
+    public VehicleStateStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return the dense index of this vehicle in its store
+     */
+    public int getIndex() {
+        return idx;
+    }
+
+
+    /*
+    |=====================|
+    | (c) AbstractVehicle |
+    |=====================|
+    */
+    @Override
+    public boolean isLastVelocityZero() {
+        return store.isLastVelocityZero(idx);
+    }
+
+    @Override
+    protected void setLastVelocityZero(boolean wasZero) {
+        store.setLastVelocityZero(idx, wasZero);
+    }
+
+    @Override
+    public boolean isLaneCorrect() {
+        return store.isLaneCorrect(idx);
+    }
+
+    @Override
+    public void setLaneIsCorrect(boolean laneIsCorrect) {
+        store.setLaneIsCorrect(idx, laneIsCorrect);
+    }
+
+    @Override
+    protected void setLane(DirectedEdge.Lane lane) {
+        store.setLane(idx, lane);
+    }
+
+    @Override
+    protected void setCellPosition(int cellPosition) {
+        store.setCellPosition(idx, cellPosition);
+    }
+
+    @Override
+    protected void setVelocity(int velocity) {
+        store.setVelocity(idx, velocity);
+    }
+
+    @Override
+    protected int getOutermostTurningLaneIndex() {
+        return store.getOutermostTurningLaneIndex(idx);
+    }
+
+    @Override
+    protected void setOutermostTurningLaneIndex(int outermostTurningLaneIndex) {
+        store.setOutermostTurningLaneIndex(idx, outermostTurningLaneIndex);
+    }
+
+    @Override
+    protected LaneChangeDirection getLaneChangeDirection() {
+        return store.getLaneChangeDirection(idx);
+    }
+
+    @Override
+    protected void setLaneChangeDirection(LaneChangeDirection direction) {
+        store.setLaneChangeDirection(idx, direction);
+    }
+
+    @Override
+    protected void storeState(VehicleState state) {
+        store.setState(idx, state);
+    }
+
+
+    /*
+    |=============|
+    | (i) Vehicle |
+    |=============|
+    */
+    @Override
+    public VehicleState getState() {
+        return store.getState(idx);
+    }
+
+    @Override
+    public void accelerate() {
+        store.accelerate(idx);
+    }
+
+    @Override
+    public int getCellPosition() {
+        return store.getCellPosition(idx);
+    }
+
+    @Override
+    public int getVelocity() {
+        return store.getVelocity(idx);
+    }
+
+    @Override
+    public int getMaxVelocity() {
+        return store.getMaxVelocity(idx);
+    }
+
+    @Override
+    public DirectedEdge.Lane getLane() {
+        return store.getLane(idx);
+    }
+}
@@ -0,0 +1,18 @@
+package microtrafficsim.core.logic.vehicles.machines.impl;
+
+import microtrafficsim.core.logic.vehicles.machines.MonitoredVehicle;
+import microtrafficsim.core.map.style.VehicleStyleSheet;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
+
+/**
+ * @author Dominic Parga Cacheiro
+ */
+public class MonitoredStoredCar extends StoredCar implements MonitoredVehicle {
+    public MonitoredStoredCar(long id, VehicleStyleSheet style, VehicleStateStore store) {
+        super(id, style, store);
+    }
+
+    public MonitoredStoredCar(long id, int maxVelocity, VehicleStyleSheet style, VehicleStateStore store) {
+        super(id, maxVelocity, style, store);
+    }
+}
@@ -0,0 +1,28 @@
+package microtrafficsim.core.logic.vehicles.machines.impl;
+
+import microtrafficsim.core.logic.vehicles.machines.StoredVehicle;
+import microtrafficsim.core.map.style.VehicleStyleSheet;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
+
+/**
+ * This class represents the same simple car as {@link Car}, but stores its dynamic state in a
+ * {@link VehicleStateStore}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class StoredCar extends StoredVehicle {
+
+    /**
+     * Calls {@link #StoredCar(long, int, VehicleStyleSheet, VehicleStateStore) StoredCar(id, 5, style, store)}
+     */
+    public StoredCar(long id, VehicleStyleSheet style, VehicleStateStore store) {
+        this(id, 5, style, store);
+    }
+
+    /**
+     * @see StoredVehicle#StoredVehicle(long, int, VehicleStyleSheet, VehicleStateStore)
+     */
+    public StoredCar(long id, int maxVelocity, VehicleStyleSheet style, VehicleStateStore store) {
+        super(id, maxVelocity, style, store);
+    }
+}
@@ -26,7 +26,16 @@ public class BasicStreetBasePredicate implements StreetBasePredicate {
 
     @Override
     public boolean test(Way w) {
-        return w.visible && type.equals(w.tags.get("highway"))
-                && (w.tags.get("area") == null || w.tags.get("area").equals("no"));
+        return w.visible && w.tags.contains("highway", type) && !isArea(w);
+    }
+
+    /**
+     * Checks if the given way is tagged as area, i.e. has an {@code area}-tag with a value other than {@code no}.
+     *
+     * @param w the way to check.
+     * @return {@code true} if the given way is tagged as area.
+     */
+    protected static boolean isArea(Way w) {
+        return w.tags.containsKey("area") && !w.tags.contains("area", "no");
     }
 }
\ No newline at end of file
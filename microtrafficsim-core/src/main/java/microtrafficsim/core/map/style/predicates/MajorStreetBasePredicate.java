@@ -26,7 +26,6 @@ public class MajorStreetBasePredicate extends BasicStreetBasePredicate {
 
     @Override
     public boolean test(Way w) {
-        return w.visible && (type.equals(w.tags.get("highway")) || link.equals(w.tags.get("highway")))
-                && (w.tags.get("area") == null || w.tags.get("area").equals("no"));
+        return w.visible && (w.tags.contains("highway", type) || w.tags.contains("highway", link)) && !isArea(w);
     }
 }
\ No newline at end of file
@@ -46,7 +46,7 @@ public class PolygonFeatureGenerator implements MapFeatureGenerator<Polygon> {
             bounds = dataset.bounds;
         }
 
-        for (WayEntity way : dataset.ways.values()) {
+        for (WayEntity way : dataset.ways.valuesSortedByKey()) {
             if (!way.features.contains(feature))
                 continue;
 
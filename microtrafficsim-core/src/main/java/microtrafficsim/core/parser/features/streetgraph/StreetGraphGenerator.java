@@ -33,6 +33,7 @@ import org.slf4j.Logger;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 
@@ -101,14 +102,15 @@ public class StreetGraphGenerator implements FeatureGenerator {
 
         Graph graph = new StreetGraph(bounds);
 
-        // create required nodes and edges
-        for (WayEntity way : dataset.ways.values()) {
+        // create required nodes and edges, in order of the ways' ids
+        List<WayEntity> ways = dataset.ways.valuesSortedByKey();
+        for (WayEntity way : ways) {
             if (!way.features.contains(feature)) continue;
             createAndAddEdges(dataset, graph, way, config);
         }
 
         // add turn-lanes
-        for (WayEntity way : dataset.ways.values()) {
+        for (WayEntity way : ways) {
             if (!way.features.contains(feature)) continue;
             addLeavingConnectors(dataset, way);
         }
@@ -120,6 +122,7 @@ public class StreetGraphGenerator implements FeatureGenerator {
         graph.setSeed(config.seed);
         for (Node node : graph.getNodes()) {
             node.updateCrossingIndices();
+            node.freeze();
         }
         graph.updateGraphGUID();
 
@@ -172,7 +175,8 @@ public class StreetGraphGenerator implements FeatureGenerator {
                     type,
                     streetinfo.lanes.forward,
                     streetinfo.maxspeed.forward,
-                    config.metersPerCell, config.streetPriorityLevel);
+                    config.metersPerCell, config.streetPriorityLevel,
+                    config.laneContainerFactory);
         }
 
         if (streetinfo.oneway == OnewayInfo.NO || streetinfo.oneway == OnewayInfo.BACKWARD) {
@@ -191,7 +195,8 @@ public class StreetGraphGenerator implements FeatureGenerator {
                     type,
                     streetinfo.lanes.backward,
                     streetinfo.maxspeed.backward,
-                    config.metersPerCell, config.streetPriorityLevel);
+                    config.metersPerCell, config.streetPriorityLevel,
+                    config.laneContainerFactory);
         }
 
         // create component for ECS
@@ -16,6 +16,7 @@ import microtrafficsim.osm.parser.ecs.entities.WayEntity;
 import microtrafficsim.osm.parser.features.FeatureDefinition;
 import microtrafficsim.osm.parser.features.streets.StreetComponent;
 import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponent;
+import microtrafficsim.utils.concurrency.ParallelLoops;
 
 import java.util.*;
 
@@ -65,60 +66,70 @@ public class StreetFeatureGenerator implements MapFeatureGenerator<Street> {
 
     @Override
     public void execute(DataSet dataset, FeatureDefinition feature, Properties properties) {
-        ArrayList<Street>     streets = new ArrayList<>();
-        ArrayList<Coordinate> coords  = new ArrayList<>();
-
-        for (WayEntity way : dataset.ways.values()) {
-            if (!way.features.contains(feature)) continue;
-
-            // get coordinates
-            for (long ref : way.nodes) {
-                NodeEntity node = dataset.nodes.get(ref);
-                coords.add(new Coordinate(node.lat, node.lon));
-            }
-
-            // calculate distances
-            double[] dist = new double[coords.size() - 1];
-            Coordinate a  = coords.get(0);
-            Coordinate b;
-            for (int i = 1; i < coords.size(); i++) {
-                b           = coords.get(i);
-                dist[i - 1] = distcalc.getDistance(a, b);
-                a           = b;
-            }
-
-            // calculate length
-            float len = 0;
-            for (double d : dist)
-                len += d;
-
-            // create street
-            StreetComponent sc = way.get(StreetComponent.class);
-            Street street = new Street(
-                    way.id,
-                    coords.toArray(new Coordinate[coords.size()]),
-                    sc.layer,
-                    len, dist,
-                    sc.lanes.forward, sc.lanes.backward
-            );
-
-            StreetGraphWayComponent sgwc = way.get(StreetGraphWayComponent.class);
-            if (sgwc != null) {
-                StreetEntity entity = new StreetEntity(sgwc.forward, sgwc.backward, street);
-                street.setEntity(entity);
-
-                if (sgwc.forward != null)  sgwc.forward.setEntity(entity);
-                if (sgwc.backward != null) sgwc.backward.setEntity(entity);
-            }
-
-            streets.add(street);
-            coords.clear();
-        }
+        WayEntity[] ways = dataset.ways.valuesSortedByKey().stream()
+                .filter(way -> way.features.contains(feature))
+                .toArray(WayEntity[]::new);
+
+        // streets are created independently of each other, in order of the ways
+        Street[] data = new Street[ways.length];
+        ParallelLoops.forEach(properties.pool, ways.length, i -> data[i] = createStreet(dataset, ways[i]));
 
-        Street[] data = streets.toArray(new Street[streets.size()]);
         generated.put(feature.getName(), new Feature<>(feature.getName(), Street.class, data));
     }
 
+    /**
+     * Creates the {@code Street} for the given way and links it with the edges
+     * of the way, if any.
+     *
+     * @param dataset the {@code DataSet} containing the way.
+     * @param way     the way to create the street for.
+     * @return the created street.
+     */
+    private Street createStreet(DataSet dataset, WayEntity way) {
+        // get coordinates
+        Coordinate[] coords = new Coordinate[way.nodes.length];
+        for (int i = 0; i < way.nodes.length; i++) {
+            NodeEntity node = dataset.nodes.get(way.nodes[i]);
+            coords[i] = new Coordinate(node.lat, node.lon);
+        }
+
+        // calculate distances
+        double[] dist = new double[coords.length - 1];
+        Coordinate a  = coords[0];
+        Coordinate b;
+        for (int i = 1; i < coords.length; i++) {
+            b           = coords[i];
+            dist[i - 1] = distcalc.getDistance(a, b);
+            a           = b;
+        }
+
+        // calculate length
+        float len = 0;
+        for (double d : dist)
+            len += d;
+
+        // create street
+        StreetComponent sc = way.get(StreetComponent.class);
+        Street street = new Street(
+                way.id,
+                coords,
+                sc.layer,
+                len, dist,
+                sc.lanes.forward, sc.lanes.backward
+        );
+
+        StreetGraphWayComponent sgwc = way.get(StreetGraphWayComponent.class);
+        if (sgwc != null) {
+            StreetEntity entity = new StreetEntity(sgwc.forward, sgwc.backward, street);
+            street.setEntity(entity);
+
+            if (sgwc.forward != null)  sgwc.forward.setEntity(entity);
+            if (sgwc.backward != null) sgwc.backward.setEntity(entity);
+        }
+
+        return street;
+    }
+
 
     @Override
     public Set<Class<? extends Component>> getRequiredWayComponents() {
@@ -20,6 +20,8 @@ import microtrafficsim.osm.parser.features.streets.info.OnewayInfo;
 import microtrafficsim.osm.parser.relations.restriction.RestrictionRelation;
 import microtrafficsim.osm.primitives.Primitive;
 import microtrafficsim.utils.collections.ArrayUtils;
+import microtrafficsim.utils.collections.LongHashMap;
+import microtrafficsim.utils.concurrency.ParallelLoops;
 import microtrafficsim.utils.id.BasicLongIDGenerator;
 import microtrafficsim.utils.id.LongGenerator;
 import microtrafficsim.utils.logging.EasyMarkableLogger;
@@ -145,7 +147,7 @@ public class OSMProcessor implements Processor {
      * @param streetgraph    the {@code FeatureDefinition} used to identify features belonging to the street-graph.
      */
     public static void setupGraphNodeComponents(DataSet dataset, FeatureDefinition streetgraph) {
-        for (WayEntity way : dataset.ways.values()) {
+        for (WayEntity way : dataset.ways.valuesSortedByKey()) {
             if (!way.features.contains(streetgraph)) continue;
 
             for (long ref : way.nodes) {
@@ -187,14 +189,17 @@ public class OSMProcessor implements Processor {
      * Sets up the GraphWayComponents including the Street-Connectors. This step
      * requires the GraphNodeComponents to be set up. Streets with one-way-type
      * {@code REVERSIBLE} are handled as if the one-way-type would be {@code NO}.
+     * The components are created in parallel, the connectors sequentially.
      *
      * @param dataset the DataSet on which to perform this action on.
      */
     private void setupGraphWayComponents(DataSet dataset) {
 
         // assure all street-graph related ways have GraphWayComponents, create cyclic connectors
-        for (WayEntity way : dataset.ways.values()) {
-            if (!way.features.contains(streetgraph)) continue;
+        WayEntity[] ways = dataset.ways.values().toArray(new WayEntity[dataset.ways.size()]);
+        ParallelLoops.forEach(genprops.pool, ways.length, i -> {
+            WayEntity way = ways[i];
+            if (!way.features.contains(streetgraph)) return;
 
             StreetComponent sc = way.get(StreetComponent.class);
 
@@ -216,10 +221,10 @@ public class OSMProcessor implements Processor {
                     gwc.cyclicStartToEnd = true;
                 }
             }
-        }
+        });
 
         // create connectors between all streets
-        for (NodeEntity node : dataset.nodes.values()) {
+        for (NodeEntity node : dataset.nodes.valuesSortedByKey()) {
             GraphNodeComponent gnc = node.get(GraphNodeComponent.class);
             if (gnc == null) continue;
 
@@ -310,14 +315,25 @@ public class OSMProcessor implements Processor {
 
 
     /**
-     * Splits the Ways relevant for the StreetGraph on crossings.
+     * Splits the Ways relevant for the StreetGraph on crossings. The split-points
+     * are searched in parallel, the ways are split sequentially in their original
+     * order, so the IDs of the new ways do not depend on the parallelism.
      *
      * @param dataset the DataSet on which to execute this step on.
      */
     private void unifySplit(DataSet dataset) {
-        HashMap<Long, WayEntity> ways = new HashMap<>();
+        LongHashMap<WayEntity> ways = new LongHashMap<>(dataset.ways.size());
+
+        // get indices of split nodes
+        WayEntity[] source = dataset.ways.valuesSortedByKey().toArray(new WayEntity[dataset.ways.size()]);
+        int[][] splitpoints = new int[source.length][];
+        ParallelLoops.forEach(genprops.pool, source.length, i -> {
+            if (source[i].features.contains(streetgraph))
+                splitpoints[i] = getSplitpoints(dataset, source[i]);
+        });
 
-        for (WayEntity way : dataset.ways.values()) {
+        for (int i = 0; i < source.length; i++) {
+            WayEntity way = source[i];
 
             // if not part of streetgraph just change the id
             if (!way.features.contains(streetgraph)) {
@@ -328,17 +344,8 @@ public class OSMProcessor implements Processor {
                 continue;
             }
 
-            // get indices of split nodes
-            List<Integer> splitpoints = new ArrayList<>();
-            for (int i = 1; i < way.nodes.length - 1; i++) {
-                Long ref = way.nodes[i];
-
-                // if another way references this node, split the way
-                if (dataset.nodes.get(ref).get(GraphNodeComponent.class).ways.count() > 1) { splitpoints.add(i); }
-            }
-
             // split the way
-            WayEntity[] splits = Ways.split(dataset, way, ArrayUtils.toArray(splitpoints, null), idgenUnifyWay);
+            WayEntity[] splits = Ways.split(dataset, way, splitpoints[i], idgenUnifyWay);
             for (WayEntity split : splits) {
                 ways.put(split.id, split);
             }
@@ -347,13 +354,33 @@ public class OSMProcessor implements Processor {
         dataset.ways = ways;
     }
 
+    /**
+     * Returns the indices of the inner nodes of the given way, which are
+     * referenced by other ways.
+     *
+     * @param dataset the DataSet containing the way.
+     * @param way     the way to get the split-points for.
+     * @return the sorted indices at which the way should be split.
+     */
+    private static int[] getSplitpoints(DataSet dataset, WayEntity way) {
+        List<Integer> splitpoints = new ArrayList<>();
+        for (int i = 1; i < way.nodes.length - 1; i++) {
+            long ref = way.nodes[i];
+
+            // if another way references this node, split the way
+            if (dataset.nodes.get(ref).get(GraphNodeComponent.class).ways.count() > 1) { splitpoints.add(i); }
+        }
+
+        return ArrayUtils.toArray(splitpoints, null);
+    }
+
     /**
      * Merges adjacent Ways if they are equal in a simulation-logical way.
      *
      * @param dataset the DataSet on which to execute this step on.
      */
     private void unifyMerge(DataSet dataset) {
-        for (NodeEntity node : dataset.nodes.values()) {
+        for (NodeEntity node : dataset.nodes.valuesSortedByKey()) {
             GraphNodeComponent uc = node.get(GraphNodeComponent.class);
             if (uc == null) continue;
 
@@ -410,7 +437,8 @@ public class OSMProcessor implements Processor {
      * Clips the ways contained in the given data-set to the bounds of the given data-set, if the given properties
      * specify that such a clip-action should be performed.
      * This method may delete or split streets/ways and thus assigns new IDs. The road-network may not be preserved
-     * by this step.
+     * by this step. The intersections with the bounds are computed in parallel, the ways are clipped sequentially in
+     * their original order, so the IDs of new nodes and ways do not depend on the parallelism.
      *
      * @param dataset    the data-set to execute this method on.
      * @param properties the generator-properties used for processing/generating.
@@ -433,9 +461,14 @@ public class OSMProcessor implements Processor {
             return node;
         };
 
-        HashMap<Long, WayEntity> ways = new HashMap<>();
-        for (WayEntity way : dataset.ways.values())
-            for (WayEntity clipped : Ways.clip(dataset, bounds, way, idgenClipWay, nodeFactory))
+        WayEntity[] source = dataset.ways.valuesSortedByKey().toArray(new WayEntity[dataset.ways.size()]);
+        Ways.ClipPlan[] plans = new Ways.ClipPlan[source.length];
+        ParallelLoops.forEach(properties.pool, source.length,
+                i -> plans[i] = Ways.planClip(dataset, bounds, source[i]));
+
+        LongHashMap<WayEntity> ways = new LongHashMap<>(dataset.ways.size());
+        for (int i = 0; i < source.length; i++)
+            for (WayEntity clipped : Ways.clip(dataset, source[i], plans[i], idgenClipWay, nodeFactory))
                 ways.put(clipped.id, clipped);
 
         dataset.ways = ways;
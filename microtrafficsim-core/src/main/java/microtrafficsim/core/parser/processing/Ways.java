@@ -255,7 +255,7 @@ public class Ways {
         dataset.ways.remove(remove.id);
 
         // update other GraphNodeComponents
-        for (Long ref : remove.nodes) {
+        for (long ref : remove.nodes) {
             GraphNodeComponent iuc = dataset.nodes.get(ref).get(GraphNodeComponent.class);
             iuc.ways.removeCompletely(remove);
             iuc.ways.add(keep);
@@ -351,19 +351,45 @@ public class Ways {
         return splits;
     }
 
+    /**
+     * Clips the given {@code WayEntity} to the given bounds. This is the same as
+     * calling {@link #clip(DataSet, WayEntity, ClipPlan, LongGenerator, BiFunction)
+     * clip(dataset, way, planClip(dataset, bounds, way), wayIdGen, nodeFactory)}.
+     *
+     * @param dataset     the DataSet on which to perform this action on.
+     * @param bounds      the bounds to clip the way to.
+     * @param way         the WayEntity to clip.
+     * @param wayIdGen    the ID-Generator used to create the IDs for the
+     *                    resulting {@code WayEntities}.
+     * @param nodeFactory the factory used to create the {@code NodeEntities} at
+     *                    which the way crosses the bounds.
+     * @return the parts of the way inside the bounds.
+     */
     public static WayEntity[] clip(DataSet dataset, Bounds bounds, WayEntity way, LongGenerator wayIdGen,
                                    BiFunction<Coordinate, WayEntity, NodeEntity> nodeFactory) {
-        ArrayList<Boolean> accept      = new ArrayList<>();
-        ArrayList<Integer> splitpoints = new ArrayList<>();
+        return clip(dataset, way, planClip(dataset, bounds, way), wayIdGen, nodeFactory);
+    }
 
-        ArrayList<Long> nodes = ArrayUtils.toList(way.nodes);
+    /**
+     * Computes where the given {@code WayEntity} crosses the given bounds. This
+     * method only reads the {@code dataset} and the way, and may thus be called
+     * for multiple ways in parallel.
+     *
+     * @param dataset the DataSet containing the nodes of the way.
+     * @param bounds  the bounds to clip the way to.
+     * @param way     the WayEntity to clip.
+     * @return the plan to be applied by {@link #clip(DataSet, WayEntity, ClipPlan, LongGenerator, BiFunction)}.
+     */
+    public static ClipPlan planClip(DataSet dataset, Bounds bounds, WayEntity way) {
+        ClipPlan plan = new ClipPlan();
 
-        NodeEntity first = dataset.nodes.get(nodes.get(0));
-        accept.add(csComputeCode(bounds, first.lat, first.lon) == CS_OUTCODE_INSIDE);
+        NodeEntity first = dataset.nodes.get(way.nodes[0]);
+        plan.accept.add(csComputeCode(bounds, first.lat, first.lon) == CS_OUTCODE_INSIDE);
 
-        for (int i = 1; i < nodes.size(); i++) {
-            NodeEntity a = dataset.nodes.get(nodes.get(i-1));
-            NodeEntity b = dataset.nodes.get(nodes.get(i));
+        // i: index of the current node in the clipped way, including the inserted points
+        for (int i = 1, k = 1; k < way.nodes.length; i++, k++) {
+            NodeEntity a = dataset.nodes.get(way.nodes[k - 1]);
+            NodeEntity b = dataset.nodes.get(way.nodes[k]);
 
             double posA = 0.0;
             double latA = a.lat;
@@ -439,35 +465,59 @@ public class Ways {
                 }
 
                 if (posA != 0.0) {                              // if position of A != segment start
-                    NodeEntity n = nodeFactory.apply(new Coordinate(latA, lonA), way);
-                    dataset.nodes.put(n.id, n);
-                    nodes.add(i, n.id);
-                    splitpoints.add(i);
-                    accept.add(true);                           // out -> in: accept the newly started segment
+                    plan.points.add(new Coordinate(latA, lonA));
+                    plan.splitpoints.add(i);
+                    plan.accept.add(true);                      // out -> in: accept the newly started segment
                     i++;
                 }
 
                 if (posB != 1.0) {                              // if position of B != segment start
-                    NodeEntity n = nodeFactory.apply(new Coordinate(latB, lonB), way);
-                    dataset.nodes.put(n.id, n);
-                    nodes.add(i, n.id);
-                    splitpoints.add(i);
-                    accept.add(false);                          // in -> out: reject the newly started segment
+                    plan.points.add(new Coordinate(latB, lonB));
+                    plan.splitpoints.add(i);
+                    plan.accept.add(false);                     // in -> out: reject the newly started segment
                     i++;
                 }
             }
         }
 
-        if (!splitpoints.isEmpty()) {                           // if we have some split-points, split/filter the way
-            int keepsize = (int) accept.stream().filter(x -> x).count();
+        return plan;
+    }
+
+    /**
+     * Clips the given {@code WayEntity} according to the given plan, i.e. creates
+     * the nodes at which the way crosses the bounds, splits the way on them and
+     * removes the parts outside of the bounds. New IDs are created in order of
+     * the nodes of the way.
+     *
+     * @param dataset     the DataSet on which to perform this action on.
+     * @param way         the WayEntity to clip.
+     * @param plan        the plan created for the way by {@link #planClip(DataSet, Bounds, WayEntity)}.
+     * @param wayIdGen    the ID-Generator used to create the IDs for the
+     *                    resulting {@code WayEntities}.
+     * @param nodeFactory the factory used to create the {@code NodeEntities} at
+     *                    which the way crosses the bounds.
+     * @return the parts of the way inside the bounds.
+     */
+    public static WayEntity[] clip(DataSet dataset, WayEntity way, ClipPlan plan, LongGenerator wayIdGen,
+                                   BiFunction<Coordinate, WayEntity, NodeEntity> nodeFactory) {
+        if (!plan.splitpoints.isEmpty()) {                      // if we have some split-points, split/filter the way
+            int keepsize = (int) plan.accept.stream().filter(x -> x).count();
             WayEntity[] result = new WayEntity[keepsize];
 
+            // insert the new nodes, in order of their positions
+            ArrayList<Long> nodes = ArrayUtils.toList(way.nodes);
+            for (int i = 0; i < plan.points.size(); i++) {
+                NodeEntity n = nodeFactory.apply(plan.points.get(i), way);
+                dataset.nodes.put(n.id, n);
+                nodes.add(plan.splitpoints.get(i), n.id);
+            }
+
             way.nodes = ArrayUtils.toArray(nodes, null);
-            WayEntity[] splits = split(dataset, way, ArrayUtils.toArray(splitpoints, null), wayIdGen);
+            WayEntity[] splits = split(dataset, way, ArrayUtils.toArray(plan.splitpoints, null), wayIdGen);
 
             int index = 0;
             for (int i = 0; i < splits.length; i++) {
-                if (accept.get(i)) {
+                if (plan.accept.get(i)) {
                     result[index] = splits[i];
                     index++;
                 } else {
@@ -479,7 +529,7 @@ public class Ways {
 
             return result;
 
-        } else if (accept.get(0)) {                             // full accept
+        } else if (plan.accept.get(0)) {                        // full accept
             way.id = wayIdGen.next();
             return new WayEntity[]{ way };
 
@@ -643,6 +693,20 @@ public class Ways {
         }
     }
 
+    /**
+     * Describes where a {@code WayEntity} crosses the clipping bounds.
+     */
+    public static class ClipPlan {
+        /** the points at which the way crosses the bounds, in order along the way */
+        private final ArrayList<Coordinate> points      = new ArrayList<>();
+        /** the index of each point in the node-list of the clipped way */
+        private final ArrayList<Integer>    splitpoints = new ArrayList<>();
+        /** for each resulting segment, {@code true} if it is inside the bounds */
+        private final ArrayList<Boolean>    accept      = new ArrayList<>();
+
+        private ClipPlan() {}
+    }
+
     /**
      * Describes how and at which {@code NodeEntity} two {@code WayEntities} can be
      * merged.
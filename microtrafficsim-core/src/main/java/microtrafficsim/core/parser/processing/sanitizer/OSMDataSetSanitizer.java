@@ -16,6 +16,7 @@ import microtrafficsim.osm.parser.relations.RelationBase;
 import microtrafficsim.osm.parser.relations.restriction.RestrictionRelation;
 import microtrafficsim.osm.primitives.Primitive;
 import microtrafficsim.utils.collections.ArrayUtils;
+import microtrafficsim.utils.concurrency.ParallelLoops;
 import microtrafficsim.utils.logging.EasyMarkableLogger;
 import org.slf4j.Logger;
 
@@ -80,9 +81,8 @@ public class OSMDataSetSanitizer implements Processor {
         sanitizeRestrictionRelations(dataset);
 
         // remove sanitizer components
-        for (WayEntity way : dataset.ways.values()) {
-            way.remove(SanitizerWayComponent.class);
-        }
+        WayEntity[] ways = dataset.ways.values().toArray(new WayEntity[dataset.ways.size()]);
+        ParallelLoops.forEach(genprops.pool, ways.length, i -> ways[i].remove(SanitizerWayComponent.class));
 
         logger.info("finished sanitizer:");
         logger.debug("\tNodes: " + dataset.nodes.size());
@@ -115,19 +115,16 @@ public class OSMDataSetSanitizer implements Processor {
 
     /**
      * Sanitizes all ways of the given {@code DataSet}, removes them if necessary.
+     * The ways are sanitized independently of each other and thus in parallel.
      *
      * @param dataset the {@code DataSet} of which the {@code WayEntities} should be
      *                sanitized.
      */
     private void sanitizeWays(DataSet dataset) {
-        for (WayEntity way : dataset.ways.values())
-            sanitizeWay(way);
-
-        ArrayList<Long> remove = new ArrayList<>();
-        for (WayEntity way : dataset.ways.values())
-            if (way.nodes.length < 2) remove.add(way.id);
+        WayEntity[] ways = dataset.ways.values().toArray(new WayEntity[dataset.ways.size()]);
+        ParallelLoops.forEach(genprops.pool, ways.length, i -> sanitizeWay(ways[i]));
 
-        dataset.ways.keySet().removeAll(remove);
+        dataset.ways.values().removeIf(way -> way.nodes.length < 2);
     }
 
     /**
@@ -456,17 +453,17 @@ public class OSMDataSetSanitizer implements Processor {
             if (r.viaType == Primitive.Type.NODE && !dataset.nodes.containsKey(r.via.iterator().next())) {
                 remove.add(r.id);
                 continue;
-            } else if (r.viaType == Primitive.Type.WAY && !dataset.ways.keySet().containsAll(r.via)) {
+            } else if (r.viaType == Primitive.Type.WAY && !r.via.stream().allMatch(dataset.ways::containsKey)) {
                 remove.add(r.id);
                 continue;
             }
 
-            if (!dataset.ways.keySet().containsAll(r.from)) {
+            if (!r.from.stream().allMatch(dataset.ways::containsKey)) {
                 remove.add(r.id);
                 continue;
             }
 
-            if (!dataset.ways.keySet().containsAll(r.to)) {
+            if (!r.to.stream().allMatch(dataset.ways::containsKey)) {
                 remove.add(r.id);
                 continue;
             }
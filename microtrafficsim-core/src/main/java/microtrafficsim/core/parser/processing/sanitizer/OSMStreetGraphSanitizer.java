@@ -66,7 +66,7 @@ public class OSMStreetGraphSanitizer implements Processor {
         ArrayList<Long>      remove = new ArrayList<>();
         ArrayList<WayEntity> add    = new ArrayList<>();
 
-        for (WayEntity way : dataset.ways.values()) {
+        for (WayEntity way : dataset.ways.valuesSortedByKey()) {
             if (way.nodes.length != 3)               continue;
             if (!way.features.contains(streetgraph)) continue;
             if (way.nodes[0] != way.nodes[2])        continue;
@@ -78,7 +78,8 @@ public class OSMStreetGraphSanitizer implements Processor {
             add.addAll(Arrays.asList(splits));
         }
 
-        dataset.ways.keySet().removeAll(remove);
+        for (long id : remove)
+            dataset.ways.remove(id);
         for (WayEntity split : add)
             dataset.ways.put(split.id, split);
     }
@@ -91,7 +92,7 @@ public class OSMStreetGraphSanitizer implements Processor {
     private void removeDoubledWays(DataSet dataset) {
         HashSet<Long> remove = new HashSet<>();
 
-        for (WayEntity way : dataset.ways.values()) {
+        for (WayEntity way : dataset.ways.valuesSortedByKey()) {
             if (remove.contains(way.id))             continue;
             if (!way.features.contains(streetgraph)) continue;
 
@@ -118,7 +119,8 @@ public class OSMStreetGraphSanitizer implements Processor {
             }
         }
 
-        dataset.ways.keySet().removeAll(remove);
+        for (long id : remove)
+            dataset.ways.remove(id);
     }
 
     /**
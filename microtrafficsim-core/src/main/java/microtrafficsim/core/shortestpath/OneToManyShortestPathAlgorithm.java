@@ -0,0 +1,36 @@
+package microtrafficsim.core.shortestpath;
+
+import java.util.List;
+import java.util.Stack;
+
+
+/**
+ * <p>
+ * A {@link ShortestPathAlgorithm}, that can calculate the shortest paths from one start node to many end nodes at once,
+ * e.g. by one shortest path tree. This is much faster than independent searches if many routes share their origin,
+ * e.g. when assigning the routes of a scenario.
+ *
+ * <p>
+ * IMPORTANT: Per default, an instance of this interface can be used concurrently.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public interface OneToManyShortestPathAlgorithm<N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>>
+        extends ShortestPathAlgorithm<N, E>
+{
+    /**
+     * <p>
+     * Calculates the shortest path from {@code start} to every {@code ends.get(i)} and fills {@code
+     * shortestPaths.get(i)} with it, as {@link #findShortestPath(ShortestPathNode, ShortestPathNode, Stack)
+     * findShortestPath(...)} would do. End nodes may occur multiple times.
+     *
+     * <p>
+     * IMPORTANT: The given stacks are NOT cleared, see {@link #findShortestPath(ShortestPathNode, ShortestPathNode,
+     * Stack) findShortestPath(...)}.
+     *
+     * @param ends end nodes of the shortest paths
+     * @param shortestPaths {@code shortestPaths.get(i)} is filled with the path to {@code ends.get(i)}; it has to have
+     *                      the same size as {@code ends}
+     */
+    void findShortestPaths(N start, List<? extends N> ends, List<? extends Stack<? super E>> shortestPaths);
+}
@@ -0,0 +1,359 @@
+package microtrafficsim.core.shortestpath.alt;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.utils.collections.DoubleIntMinHeap;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+
+/**
+ * <p>
+ * Landmarks and their precomputed distance tables for the ALT heuristic (A*, landmarks, triangle inequality). For
+ * every landmark {@code l}, the distances {@code d(l, v)} and {@code d(v, l)} to and from all nodes {@code v} are
+ * stored. Due to the triangle inequality, {@code d(v, t) >= d(l, t) - d(l, v)} and
+ * {@code d(v, t) >= d(v, l) - d(t, l)}, so the maximum of these bounds over all landmarks is a lower bound of the
+ * remaining distance. It is usually much tighter than the linear distance, especially on networks with motorways.
+ *
+ * <p>
+ * This class is an estimation function for {@link microtrafficsim.core.shortestpath.astar.AStar AStar} and
+ * {@link microtrafficsim.core.shortestpath.astar.BidirectionalAStar BidirectionalAStar}, e.g. by
+ * {@link microtrafficsim.core.shortestpath.astar.AStars#landmarkAStar(Landmarks) AStars.landmarkAStar(...)}. The
+ * estimation is only admissible for the edge weight function, the landmarks have been created with; see
+ * {@link #getEdgeWeightFunction()}. The distances are calculated ignoring the nodes' connectors, which only remove
+ * paths, so the bounds stay admissible and consistent.
+ *
+ * <p>
+ * The landmarks and their tables are immutable and do not reflect changes of the graph after creation. Nodes, that
+ * are not part of the graph, are estimated with {@code 0}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class Landmarks implements ToDoubleBiFunction<Node, Node> {
+
+    private static final double UNREACHABLE = Double.POSITIVE_INFINITY;
+
+    private final CSRGraph                               graph;
+    private final ToDoubleFunction<? super DirectedEdge> edgeWeightFunction;
+    private final int[]                                  landmarks;        // node indices
+    private final double[]                               fromLandmarks;    // [v * count + l] = d(l, v)
+    private final double[]                               toLandmarks;      // [v * count + l] = d(v, l)
+
+
+    /**
+     * Selects the landmarks and calculates their distance tables. The graph must not be modified concurrently.
+     *
+     * @param edgeWeightFunction Same as the A*'s edge weight function; all weights have to be {@code >= 0}
+     * @param count number of landmarks; it is reduced to the number of nodes if needed
+     * @param seed seed for the random choices of the selection
+     *
+     * @throws IllegalArgumentException if {@code count < 1}
+     */
+    public Landmarks(Graph graph,
+                     ToDoubleFunction<? super DirectedEdge> edgeWeightFunction,
+                     int count,
+                     Selection selection,
+                     long seed)
+    {
+        if (count < 1)
+            throw new IllegalArgumentException("The number of landmarks has to be at least 1, but is " + count);
+
+        this.graph              = new CSRGraph(graph);
+        this.edgeWeightFunction = edgeWeightFunction;
+
+        int nodeCount = this.graph.getNodeCount();
+        count = Math.min(count, nodeCount);
+        landmarks     = new int[count];
+        fromLandmarks = new double[nodeCount * count];
+        toLandmarks   = new double[nodeCount * count];
+
+        double[] weights = new double[this.graph.getEdgeCount()];
+        for (int e = 0; e < weights.length; e++)
+            weights[e] = edgeWeightFunction.applyAsDouble(this.graph.getEdge(e));
+
+        new Selector(weights, seed).select(selection);
+    }
+
+
+    /*
+    |=========|
+    | getters |
+    |=========|
+    */
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the edge weight function the distances have been calculated with
+     */
+    public ToDoubleFunction<? super DirectedEdge> getEdgeWeightFunction() {
+        return edgeWeightFunction;
+    }
+
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    public Node getLandmark(int i) {
+        return graph.getNode(landmarks[i]);
+    }
+
+    /**
+     * @return {@code d(landmark i, node)} or {@link Double#POSITIVE_INFINITY} if unreachable
+     */
+    public double getDistanceFrom(int i, int node) {
+        return fromLandmarks[node * landmarks.length + i];
+    }
+
+    /**
+     * @return {@code d(node, landmark i)} or {@link Double#POSITIVE_INFINITY} if unreachable
+     */
+    public double getDistanceTo(int i, int node) {
+        return toLandmarks[node * landmarks.length + i];
+    }
+
+
+    /*
+    |==========|
+    | estimate |
+    |==========|
+    */
+    /**
+     * @return lower bound of {@code d(node, end)}
+     */
+    @Override
+    public double applyAsDouble(Node node, Node end) {
+        int v = graph.indexOf(node);
+        int t = graph.indexOf(end);
+        if (v == CSRGraph.NOT_CONTAINED || t == CSRGraph.NOT_CONTAINED)
+            return 0;
+        return estimate(v, t);
+    }
+
+    /**
+     * @return lower bound of {@code d(v, t)} using node indices of {@link #getGraph()}
+     */
+    public double estimate(int v, int t) {
+        int count = landmarks.length;
+        int vOffset = v * count;
+        int tOffset = t * count;
+
+        double bound = 0;
+        for (int l = 0; l < count; l++) {
+            // d(v, t) >= d(l, t) - d(l, v)
+            double lt = fromLandmarks[tOffset + l];
+            double lv = fromLandmarks[vOffset + l];
+            if (lt != UNREACHABLE && lv != UNREACHABLE && lt - lv > bound)
+                bound = lt - lv;
+
+            // d(v, t) >= d(v, l) - d(t, l)
+            double vl = toLandmarks[vOffset + l];
+            double tl = toLandmarks[tOffset + l];
+            if (vl != UNREACHABLE && tl != UNREACHABLE && vl - tl > bound)
+                bound = vl - tl;
+        }
+        return bound;
+    }
+
+
+    /**
+     * Strategies for selecting landmarks
+     */
+    public enum Selection {
+        /**
+         * Starting at a random node, every next landmark is the node farthest away from all landmarks selected so far.
+         * Nodes, that are not connected to any landmark, are preferred.
+         */
+        FARTHEST,
+
+        /**
+         * Every next landmark is a leaf of a shortest path tree from a random root, whose subtree is covered worst by
+         * the landmarks selected so far (Goldberg and Werneck). It usually leads to smaller search spaces than
+         * {@link #FARTHEST}.
+         */
+        AVOID
+    }
+
+
+    /**
+     * Selection state using the graph's weights
+     */
+    private class Selector {
+        private final double[]         weights;
+        private final Random           random;
+        private final DoubleIntMinHeap heap;
+
+        /* shortest path tree, see dijkstra(...) */
+        private final double[] dist;
+        private final int[]    parents;    // parent node; -1 for the root and unreachable nodes
+        private final int[]    order;      // settled nodes in settle order
+        private int            settled;
+
+        private Selector(double[] weights, long seed) {
+            int nodeCount = graph.getNodeCount();
+            this.weights = weights;
+            random       = new Random(seed);
+            heap         = new DoubleIntMinHeap();
+            dist         = new double[nodeCount];
+            parents      = new int[nodeCount];
+            order        = new int[nodeCount];
+        }
+
+        private void select(Selection selection) {
+            for (int i = 0; i < landmarks.length; i++) {
+                int landmark;
+                switch (selection) {
+                    case FARTHEST: landmark = selectFarthest(i); break;
+                    case AVOID:    landmark = selectAvoid(i);    break;
+                    default:       throw new IllegalStateException("Unknown selection " + selection);
+                }
+
+                landmarks[i] = landmark;
+                dijkstra(landmark, true);
+                for (int v = 0; v < dist.length; v++)
+                    fromLandmarks[v * landmarks.length + i] = dist[v];
+                dijkstra(landmark, false);
+                for (int v = 0; v < dist.length; v++)
+                    toLandmarks[v * landmarks.length + i] = dist[v];
+            }
+        }
+
+        /**
+         * @param selected number of landmarks selected so far
+         */
+        private int selectFarthest(int selected) {
+            if (selected == 0) {
+                // farthest node from a random node
+                dijkstra(random.nextInt(graph.getNodeCount()), true);
+                return order[settled - 1];
+            }
+
+            int best = -1;
+            double bestDist = -1;
+            for (int v = 0; v < graph.getNodeCount(); v++) {
+                // closest landmark in any direction
+                double closest = UNREACHABLE;
+                for (int l = 0; l < selected; l++) {
+                    closest = Math.min(closest, fromLandmarks[v * landmarks.length + l]);
+                    closest = Math.min(closest, toLandmarks[v * landmarks.length + l]);
+                }
+                if (closest > bestDist) {
+                    best     = v;
+                    bestDist = closest;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * @param selected number of landmarks selected so far
+         */
+        private int selectAvoid(int selected) {
+            if (selected == 0)
+                return selectFarthest(0);
+
+            int root = random.nextInt(graph.getNodeCount());
+            dijkstra(root, true);
+
+            /* sizes of the subtrees in reverse settle order, so children are done before their parents */
+            int nodeCount = graph.getNodeCount();
+            double[]  sizes        = new double[nodeCount];
+            boolean[] covered      = new boolean[nodeCount];    // subtree contains a landmark
+            int[]     bestChildren = new int[nodeCount];
+            Arrays.fill(bestChildren, -1);
+            for (int l = 0; l < selected; l++)
+                covered[landmarks[l]] = true;
+
+            for (int i = settled - 1; i >= 0; i--) {
+                int v = order[i];
+                // weight = how much the current landmarks underestimate d(root, v)
+                sizes[v] = covered[v] ? 0 : sizes[v] + dist[v] - estimate(selected, root, v);
+
+                int parent = parents[v];
+                if (parent < 0)
+                    continue;
+                if (covered[v])
+                    covered[parent] = true;
+                sizes[parent] += sizes[v];
+                if (bestChildren[parent] < 0 || sizes[v] > sizes[bestChildren[parent]])
+                    bestChildren[parent] = v;
+            }
+
+            /* descend from the largest subtree to a leaf */
+            int best = -1;
+            for (int i = 0; i < settled; i++) {
+                int v = order[i];
+                if (!covered[v] && (best < 0 || sizes[v] > sizes[best]))
+                    best = v;
+            }
+            if (best < 0)
+                return selectFarthest(selected);    // everything reachable from the root is covered
+            while (bestChildren[best] >= 0 && !covered[bestChildren[best]])
+                best = bestChildren[best];
+            return best;
+        }
+
+        /**
+         * Same as {@link Landmarks#estimate(int, int)}, but only using the first {@code selected} landmarks.
+         */
+        private double estimate(int selected, int v, int t) {
+            int count = landmarks.length;
+            double bound = 0;
+            for (int l = 0; l < selected; l++) {
+                double lt = fromLandmarks[t * count + l];
+                double lv = fromLandmarks[v * count + l];
+                if (lt != UNREACHABLE && lv != UNREACHABLE)
+                    bound = Math.max(bound, lt - lv);
+
+                double vl = toLandmarks[v * count + l];
+                double tl = toLandmarks[t * count + l];
+                if (vl != UNREACHABLE && tl != UNREACHABLE)
+                    bound = Math.max(bound, vl - tl);
+            }
+            return bound;
+        }
+
+        /**
+         * Calculates the shortest path tree of the given source into {@link #dist}, {@link #parents} and
+         * {@link #order}.
+         *
+         * @param forward if false, the distances to the source are calculated using the incoming edges
+         */
+        private void dijkstra(int source, boolean forward) {
+            Arrays.fill(dist, UNREACHABLE);
+            Arrays.fill(parents, -1);
+            settled = 0;
+
+            heap.clear();
+            dist[source] = 0;
+            heap.push(0, source);
+            while (!heap.isEmpty()) {
+                double d = heap.peekKey();
+                int v = heap.poll();
+                if (d > dist[v])
+                    continue;    // outdated
+                order[settled++] = v;
+
+                int begin = forward ? graph.getLeavingBegin(v) : graph.getIncomingBegin(v);
+                int end   = forward ? graph.getLeavingEnd(v)   : graph.getIncomingEnd(v);
+                for (int i = begin; i < end; i++) {
+                    int edge = forward ? graph.getLeavingAt(i) : graph.getIncomingAt(i);
+                    int w    = forward ? graph.getDestination(edge) : graph.getOrigin(edge);
+
+                    double newDist = d + weights[edge];
+                    if (newDist < dist[w]) {
+                        dist[w]    = newDist;
+                        parents[w] = v;
+                        heap.push(newDist, w);
+                    }
+                }
+            }
+        }
+    }
+}
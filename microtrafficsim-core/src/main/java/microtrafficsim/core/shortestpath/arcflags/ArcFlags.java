@@ -0,0 +1,413 @@
+package microtrafficsim.core.shortestpath.arcflags;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.tiles.TileId;
+import microtrafficsim.core.map.tiles.TilingScheme;
+import microtrafficsim.utils.collections.IndexedDoubleMinHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
+import java.util.function.ToDoubleFunction;
+
+
+/**
+ * <p>
+ * Arc-flags for pruning shortest path searches. The nodes are partitioned into regions by the tiles of a
+ * {@link TilingScheme} at a given level, so every tile containing at least one node is a region. For every edge and
+ * region, one bit (flag) tells whether the edge lies on a shortest path to a node of the region. A search to a node of
+ * region {@code r} only has to relax edges flagged for {@code r}, which mostly excludes edges leading away from the
+ * end node.
+ *
+ * <p>
+ * The flags of a region are calculated by one backward search per edge entering the region and every edge inside the
+ * region is flagged. Like {@link microtrafficsim.core.shortestpath.lpastar.LPAStar LPAStar}, the searches run on
+ * edges, so the turns of an edge restrict its successors. An edge is flagged, if it is the best turn of another edge
+ * or the best leaving edge of a node concerning the path to the entering edge. Edges of equal weight are flagged
+ * together, so every shortest path stays available. The regions are calculated in parallel.
+ *
+ * <p>
+ * This class is an edge filter for {@link microtrafficsim.core.shortestpath.astar.AStar AStar}, e.g. by
+ * {@link microtrafficsim.core.shortestpath.astar.AStars#arcFlagAStar(ArcFlags) AStars.arcFlagAStar(...)}. The
+ * flags are only correct for the edge weight function they have been created with; see
+ * {@link #getEdgeWeightFunction()}. They are immutable and do not reflect changes of the graph after creation. Edges
+ * or end nodes, that are not part of the graph, are never pruned. The flags can be stored with the map by
+ * {@link microtrafficsim.core.exfmt.base.ArcFlagInfo ArcFlagInfo}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ArcFlags implements BiPredicate<DirectedEdge, Node> {
+
+    private static final double TIE_TOLERANCE = 1e-9;
+
+    private final CSRGraph                               graph;
+    private final ToDoubleFunction<? super DirectedEdge> edgeWeightFunction;
+    private final TilingScheme                           scheme;
+    private final int                                    level;
+
+    /* regions */
+    private final int[] regionXs;       // by region
+    private final int[] regionYs;       // by region
+    private final int[] nodeRegions;    // by node
+
+    /* flags */
+    private final int    edgeWords;     // words per region
+    private final long[] flags;         // [region * edgeWords + (edge >>> 6)]
+
+
+    /**
+     * Partitions the nodes and calculates the flags of all regions in parallel. The graph must not be modified
+     * concurrently.
+     *
+     * @param edgeWeightFunction Same as the A*'s edge weight function; all weights have to be {@code >= 0}
+     * @param level tile level (zoom) of the regions; the number of regions grows by 4 per level
+     * @param nThreads number of threads calculating the regions' flags
+     * @throws InterruptedException if the calling thread has been interrupted while waiting for the threads
+     * @throws IllegalArgumentException if {@code nThreads < 1}
+     */
+    public ArcFlags(Graph graph,
+                    ToDoubleFunction<? super DirectedEdge> edgeWeightFunction,
+                    TilingScheme scheme,
+                    int level,
+                    int nThreads) throws InterruptedException
+    {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("The number of threads has to be at least 1, but is " + nThreads);
+
+        this.graph              = new CSRGraph(graph);
+        this.edgeWeightFunction = edgeWeightFunction;
+        this.scheme             = scheme;
+        this.level              = level;
+
+        /* regions sorted by tile (y, x) */
+        int nodeCount = this.graph.getNodeCount();
+        TileId[] tiles = new TileId[nodeCount];
+        TreeMap<Long, TileId> sorted = new TreeMap<>();
+        for (int v = 0; v < nodeCount; v++) {
+            tiles[v] = tileOf(v);
+            sorted.put(keyOf(tiles[v].x, tiles[v].y), tiles[v]);
+        }
+
+        regionXs = new int[sorted.size()];
+        regionYs = new int[sorted.size()];
+        int r = 0;
+        for (TileId tile : sorted.values()) {
+            regionXs[r] = tile.x;
+            regionYs[r] = tile.y;
+            r++;
+        }
+        nodeRegions = assignRegions();
+
+        edgeWords = (this.graph.getEdgeCount() + 63) >>> 6;
+        flags     = new long[regionXs.length * edgeWords];
+        calculateFlags(nThreads);
+    }
+
+    /**
+     * Restores flags, that have been calculated for the same graph, e.g. by
+     * {@link microtrafficsim.core.exfmt.base.ArcFlagInfo ArcFlagInfo}. The arrays are not copied.
+     *
+     * @param edgeWeightFunction has to be the edge weight function the flags have been calculated with
+     * @param regionXs tile x of every region
+     * @param regionYs tile y of every region
+     * @param flags see {@link #getFlags()}
+     * @throws IllegalArgumentException if the arrays do not fit the graph, e.g. because a node is not part of any
+     *                                  region
+     */
+    public ArcFlags(Graph graph,
+                    ToDoubleFunction<? super DirectedEdge> edgeWeightFunction,
+                    TilingScheme scheme,
+                    int level,
+                    int[] regionXs,
+                    int[] regionYs,
+                    long[] flags)
+    {
+        this.graph              = new CSRGraph(graph);
+        this.edgeWeightFunction = edgeWeightFunction;
+        this.scheme             = scheme;
+        this.level              = level;
+        this.regionXs           = regionXs;
+        this.regionYs           = regionYs;
+        this.flags              = flags;
+        edgeWords               = (this.graph.getEdgeCount() + 63) >>> 6;
+
+        if (regionXs.length != regionYs.length || flags.length != regionXs.length * edgeWords)
+            throw new IllegalArgumentException("The number of regions or flags does not fit the graph.");
+        nodeRegions = assignRegions();
+    }
+
+
+    /**
+     * @return the CSR view the edge and node indices refer to
+     */
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    public ToDoubleFunction<? super DirectedEdge> getEdgeWeightFunction() {
+        return edgeWeightFunction;
+    }
+
+    public TilingScheme getTilingScheme() {
+        return scheme;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getRegionCount() {
+        return regionXs.length;
+    }
+
+    public TileId getRegionTile(int region) {
+        return new TileId(regionXs[region], regionYs[region], level);
+    }
+
+    /**
+     * @return the region of the given node index
+     */
+    public int getRegion(int node) {
+        return nodeRegions[node];
+    }
+
+    /**
+     * @return true if the edge lies on a shortest path to a node of the region
+     */
+    public boolean isFlagged(int edge, int region) {
+        return (flags[region * edgeWords + (edge >>> 6)] & (1L << edge)) != 0;
+    }
+
+    /**
+     * @return the flags as bits {@code [region * ((edgeCount + 63) / 64) + edge / 64]}; the array must not be changed
+     */
+    public long[] getFlags() {
+        return flags;
+    }
+
+    /**
+     * @return the number of set flags divided by the number of all flags
+     */
+    public double getFlagRatio() {
+        long count = 0;
+        for (long word : flags)
+            count += Long.bitCount(word);
+        return flags.length == 0 ? 0 : (double) count / ((long) regionXs.length * graph.getEdgeCount());
+    }
+
+
+    /*
+    |=================|
+    | (i) BiPredicate |
+    |=================|
+    */
+    /**
+     * @return true if the edge is flagged for the region of the end node or if one of them is not part of the graph
+     */
+    @Override
+    public boolean test(DirectedEdge edge, Node end) {
+        int e = graph.indexOf(edge);
+        int t = graph.indexOf(end);
+        return e == CSRGraph.NOT_CONTAINED || t == CSRGraph.NOT_CONTAINED || isFlagged(e, nodeRegions[t]);
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    private TileId tileOf(int node) {
+        return scheme.getTile(new Coordinate(graph.getLat(node), graph.getLon(node)), level);
+    }
+
+    private static long keyOf(int x, int y) {
+        return ((long) y << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a node's tile is not a region
+     */
+    private int[] assignRegions() {
+        HashMap<Long, Integer> regions = new HashMap<>();
+        for (int r = 0; r < regionXs.length; r++)
+            regions.put(keyOf(regionXs[r], regionYs[r]), r);
+
+        int[] nodeRegions = new int[graph.getNodeCount()];
+        for (int v = 0; v < nodeRegions.length; v++) {
+            TileId tile = tileOf(v);
+            Integer region = regions.get(keyOf(tile.x, tile.y));
+            if (region == null)
+                throw new IllegalArgumentException("The node " + graph.getNodeId(v) + " is not part of any region.");
+            nodeRegions[v] = region;
+        }
+        return nodeRegions;
+    }
+
+    private void calculateFlags(int nThreads) throws InterruptedException {
+        int edgeCount = graph.getEdgeCount();
+        double[] weights = new double[edgeCount];
+        for (int e = 0; e < edgeCount; e++)
+            weights[e] = edgeWeightFunction.applyAsDouble(graph.getEdge(e));
+
+        /* one task per region, every thread reuses its search state */
+        ThreadLocal<Search> search = ThreadLocal.withInitial(() -> new Search(weights));
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(nThreads, Math.max(1, regionXs.length)));
+        try {
+            List<Future<?>> futures = new ArrayList<>(regionXs.length);
+            for (int r = 0; r < regionXs.length; r++) {
+                int region = r;
+                futures.add(pool.submit(() -> search.get().calculateRegion(region)));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw new RuntimeException(cause);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Backward search state of one thread. Every region only writes its own words of the flags.
+     */
+    private class Search {
+        private final double[] weights;           // by edge
+
+        private int generation;
+
+        /* by edge */
+        private final int[]    reachedStamps;     // == generation: dist is valid
+        private final int[]    settledStamps;     // == generation: settled
+        private final double[] dist;              // weight of the best path from the edge's start to the target
+        private final int[]    settled;           // edges in settling order
+        private int            settledCount;
+
+        /* by node */
+        private final int[]    nodeStamps;        // == generation: nodeDist is valid
+        private final double[] nodeDist;          // best dist of the node's leaving edges
+
+        private final IndexedDoubleMinHeap heap;
+
+
+        private Search(double[] weights) {
+            this.weights = weights;
+
+            int edgeCount = graph.getEdgeCount();
+            reachedStamps = new int[edgeCount];
+            settledStamps = new int[edgeCount];
+            dist          = new double[edgeCount];
+            settled       = new int[edgeCount];
+            nodeStamps    = new int[graph.getNodeCount()];
+            nodeDist      = new double[graph.getNodeCount()];
+            heap          = new IndexedDoubleMinHeap(edgeCount);
+        }
+
+
+        private void calculateRegion(int region) {
+            int base = region * edgeWords;
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+                if (nodeRegions[graph.getDestination(e)] != region)
+                    continue;
+
+                if (nodeRegions[graph.getOrigin(e)] == region)
+                    flag(base, e);
+                else
+                    searchFrom(base, e);
+            }
+        }
+
+        /**
+         * Flags the best turns of all edges and the best leaving edges of all nodes concerning the paths ending with
+         * the given edge, that enters the region.
+         */
+        private void searchFrom(int base, int target) {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(reachedStamps, 0);
+                Arrays.fill(settledStamps, 0);
+                Arrays.fill(nodeStamps, 0);
+                generation = 1;
+            }
+            heap.clear();
+            settledCount = 0;
+
+            /* backward edge-based Dijkstra */
+            reach(target, weights[target]);
+            while (!heap.isEmpty()) {
+                int e = heap.poll();
+                settledStamps[e] = generation;
+                settled[settledCount++] = e;
+
+                for (int i = graph.getReverseTurnBegin(e); i < graph.getReverseTurnEnd(e); i++) {
+                    int p = graph.getReverseTurnAt(i);
+                    if (settledStamps[p] != generation)
+                        reach(p, weights[p] + dist[e]);
+                }
+            }
+
+            /* best leaving edges of all nodes */
+            for (int i = 0; i < settledCount; i++) {
+                int e = settled[i];
+                int v = graph.getOrigin(e);
+                if (nodeStamps[v] != generation || dist[e] < nodeDist[v]) {
+                    nodeStamps[v] = generation;
+                    nodeDist[v]   = dist[e];
+                }
+            }
+
+            /* flag ties as well */
+            flag(base, target);
+            for (int i = 0; i < settledCount; i++) {
+                int e = settled[i];
+                if (isTie(dist[e], nodeDist[graph.getOrigin(e)]))
+                    flag(base, e);
+
+                if (e == target)
+                    continue;
+                double best = dist[e] - weights[e];
+                for (int j = graph.getTurnBegin(e); j < graph.getTurnEnd(e); j++) {
+                    int f = graph.getTurnAt(j);
+                    if (settledStamps[f] == generation && isTie(dist[f], best))
+                        flag(base, f);
+                }
+            }
+        }
+
+        private void reach(int e, double newDist) {
+            if (reachedStamps[e] != generation || newDist < dist[e]) {
+                reachedStamps[e] = generation;
+                dist[e]          = newDist;
+                heap.insertOrDecrease(e, newDist);
+            }
+        }
+
+        private boolean isTie(double value, double best) {
+            return value <= best + TIE_TOLERANCE * Math.max(1, Math.abs(best));
+        }
+
+        private void flag(int base, int edge) {
+            flags[base + (edge >>> 6)] |= 1L << edge;
+        }
+    }
+}
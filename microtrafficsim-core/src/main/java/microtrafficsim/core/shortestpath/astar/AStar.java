@@ -3,6 +3,8 @@ package microtrafficsim.core.shortestpath.astar;
 import java.util.HashMap;
 import java.util.PriorityQueue;
 import java.util.Stack;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
 import java.util.function.ToDoubleBiFunction;
 import java.util.function.ToDoubleFunction;
 
@@ -22,6 +24,8 @@ public class AStar<N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>>
 
     private final ToDoubleFunction<? super E> edgeWeightFunction;
     private final ToDoubleBiFunction<? super N, ? super N> estimationFunction;
+    private final BiPredicate<? super E, ? super N> edgeFilter;
+    private final LongAdder settledNodes;
 
     /**
      * Standard constructor which sets its edge weight and estimation function to the given ones. This constructor
@@ -47,8 +51,37 @@ public class AStar<N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>>
      */
     public AStar(ToDoubleFunction<? super E> edgeWeightFunction,
                  ToDoubleBiFunction<? super N, ? super N> estimationFunction) {
+        this(edgeWeightFunction, estimationFunction, null);
+    }
+
+    /**
+     * Same as {@link #AStar(ToDoubleFunction, ToDoubleBiFunction)}, but leaving edges are only relaxed if the given
+     * edge filter accepts them.
+     *
+     * @param edgeFilter gets a leaving edge and the end node of the search. It has to accept all edges of at least one
+     *                   shortest path to the end node, e.g. {@link microtrafficsim.core.shortestpath.arcflags.ArcFlags
+     *                   ArcFlags}; {@code null} accepts every edge.
+     */
+    public AStar(ToDoubleFunction<? super E> edgeWeightFunction,
+                 ToDoubleBiFunction<? super N, ? super N> estimationFunction,
+                 BiPredicate<? super E, ? super N> edgeFilter) {
         this.edgeWeightFunction = edgeWeightFunction;
         this.estimationFunction = estimationFunction;
+        this.edgeFilter         = edgeFilter;
+        settledNodes            = new LongAdder();
+    }
+
+
+    /**
+     * @return the number of nodes settled by all searches since creation or the last reset. Comparing it between
+     * estimation functions shows their reduction of the search space.
+     */
+    public long getSettledNodeCount() {
+        return settledNodes.sum();
+    }
+
+    public void resetSettledNodeCount() {
+        settledNodes.reset();
     }
 
 
@@ -65,6 +98,7 @@ public class AStar<N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>>
         PriorityQueue<WeightedNode<N, E>> queue = new PriorityQueue<>();
         queue.add(new WeightedNode<>(start, null, null, 0f, estimationFunction.applyAsDouble(start, end)));
 
+        int settled = 0;
         while (!queue.isEmpty()) {
             WeightedNode<N, E> current = queue.poll();
 
@@ -75,6 +109,7 @@ public class AStar<N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>>
                     current = visitedNodes.get(current.predecessor.getOrigin());
                 }
 
+                settledNodes.add(settled);
                 return;
             }
 
@@ -82,9 +117,13 @@ public class AStar<N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>>
                 continue;
 
             visitedNodes.put(current.node, current);
+            settled++;
 
             // iterate over all leaving edges
             for (E leaving : current.node.getLeavingEdges(current.predecessor)) {
+                if (edgeFilter != null && !edgeFilter.test(leaving, end))
+                    continue;
+
                 N dest = leaving.getDestination();
                 double g = current.g + edgeWeightFunction.applyAsDouble(leaving);
 
@@ -93,5 +132,6 @@ public class AStar<N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>>
                     queue.add(new WeightedNode<>(dest, leaving, null, g, estimationFunction.applyAsDouble(dest, end)));
             }
         }
+        settledNodes.add(settled);
     }
 }
@@ -1,7 +1,12 @@
 package microtrafficsim.core.shortestpath.astar;
 
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.shortestpath.ShortestPathEdge;
 import microtrafficsim.core.shortestpath.ShortestPathNode;
+import microtrafficsim.core.shortestpath.alt.Landmarks;
+import microtrafficsim.core.shortestpath.arcflags.ArcFlags;
 import microtrafficsim.math.HaversineDistanceCalculator;
 
 
@@ -69,4 +74,74 @@ public class AStars {
                     return 1000 * distanceInCells / maxCellsPerSecond;
                 });
     }
+
+    /**
+     * Create an A* algorithm using the ALT heuristic of the given landmarks.
+     *
+     * @return An A* algorithm using the landmarks' edge weight function and {@link Landmarks} as
+     * estimation function. It returns the shortest path concerning the edge weight function, the landmarks have been
+     * created with.
+     */
+    public static AStar<Node, DirectedEdge> landmarkAStar(Landmarks landmarks) {
+        return new AStar<>(landmarks.getEdgeWeightFunction(), landmarks);
+    }
+
+    /**
+     * Create Dijkstra's algorithm pruned by the given arc-flags.
+     *
+     * @return An A* algorithm using the arc-flags' edge weight function, no estimation and {@link ArcFlags} as edge
+     * filter. It returns the shortest path concerning the edge weight function, the arc-flags have been created with.
+     */
+    public static AStar<Node, DirectedEdge> arcFlagAStar(ArcFlags arcFlags) {
+        return new AStar<>(arcFlags.getEdgeWeightFunction(), (node, end) -> 0, arcFlags);
+    }
+
+    /**
+     * Create a distance-based, allocation-free A* algorithm, returning the shortest path.
+     *
+     * @return Same as {@link #shortestPathAStar(double)}, but implemented by {@link DenseAStar}, that is preprocessed
+     * for the given graph. The paths have the same length, but paths of equal length may be chosen differently.
+     */
+    public static DenseAStar denseShortestPathAStar(Graph graph, double metersPerCell) {
+        return new DenseAStar(
+                graph,
+                DirectedEdge::getLength,
+                (csr, node, end) -> HaversineDistanceCalculator.getDistance(
+                        csr.getLat(node), csr.getLon(node), csr.getLat(end), csr.getLon(end)) / metersPerCell
+        );
+    }
+
+    /**
+     * Create a time-based, allocation-free A* algorithm, returning the fastest path.
+     *
+     * @return Same as {@link #fastestPathAStar(double, double)}, but implemented by {@link DenseAStar}, that is
+     * preprocessed for the given graph. The paths have the same duration, but paths of equal duration may be chosen
+     * differently.
+     */
+    public static DenseAStar denseFastestPathAStar(Graph graph, double metersPerCell, double maxCellsPerSecond) {
+        return new DenseAStar(
+                graph,
+                DirectedEdge::getTimeCostMillis,
+                (csr, node, end) -> {
+
+                    int distanceInCells = (int) (HaversineDistanceCalculator.getDistance(
+                            csr.getLat(node), csr.getLon(node), csr.getLat(end), csr.getLon(end)) / metersPerCell);
+
+                    return 1000 * distanceInCells / maxCellsPerSecond;
+                });
+    }
+
+    /**
+     * Create an allocation-free A* algorithm using the ALT heuristic of the given landmarks.
+     *
+     * @return Same as {@link #landmarkAStar(Landmarks)}, but implemented by {@link DenseAStar}, that shares the
+     * landmarks' node indices.
+     */
+    public static DenseAStar denseLandmarkAStar(Landmarks landmarks) {
+        return new DenseAStar(
+                landmarks.getGraph(),
+                landmarks.getEdgeWeightFunction(),
+                (csr, node, end) -> landmarks.estimate(node, end)
+        );
+    }
 }
@@ -1,7 +1,10 @@
 package microtrafficsim.core.shortestpath.astar;
 
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.shortestpath.ShortestPathEdge;
 import microtrafficsim.core.shortestpath.ShortestPathNode;
+import microtrafficsim.core.shortestpath.alt.Landmarks;
 import microtrafficsim.math.HaversineDistanceCalculator;
 
 
@@ -67,4 +70,55 @@ public class BidirectionalAStars {
                                 destination.getCoordinate(), routeDestination.getCoordinate()) / metersPerCell))
         );
     }
+
+    /**
+     * Create a bidirectional A* algorithm using the ALT heuristic of the given landmarks.
+     *
+     * @return A bidirectional A* algorithm using the landmarks' edge weight function and {@link Landmarks} as
+     * estimation function. It returns the shortest path concerning the edge weight function, the landmarks have been
+     * created with.
+     */
+    public static BidirectionalAStar<Node, DirectedEdge> landmarkAStar(Landmarks landmarks) {
+        return new BidirectionalAStar<>(landmarks.getEdgeWeightFunction(), landmarks);
+    }
+
+    /**
+     * Create a distance-based bidirectional Dijkstra algorithm, whose searches run concurrently.
+     *
+     * @return Same as {@link #shortestPathDijkstra()}, but as {@link ParallelBidirectionalAStar}
+     */
+    public static <N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>> ParallelBidirectionalAStar<N, E>
+        parallelShortestPathDijkstra()
+    {
+        return new ParallelBidirectionalAStar<>(
+                edge -> (double) edge.getLength(),
+                (node, dest) -> 0.0
+        );
+    }
+
+    /**
+     * Create a time-based bidirectional A* algorithm, whose searches run concurrently.
+     *
+     * @return Same as {@link #fastestPathAStar(double, double)}, but as {@link ParallelBidirectionalAStar}
+     */
+    public static <N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>> ParallelBidirectionalAStar<N, E>
+        parallelFastestPathAStar(double metersPerCell, double maxCellsPerSec)
+    {
+        return new ParallelBidirectionalAStar<>(
+                E::getTimeCostMillis,
+                (N destination, N routeDestination) ->
+                        (1000 / maxCellsPerSec * (int) (HaversineDistanceCalculator.getDistance(
+                                destination.getCoordinate(), routeDestination.getCoordinate()) / metersPerCell))
+        );
+    }
+
+    /**
+     * Create a bidirectional A* algorithm using the ALT heuristic of the given landmarks, whose searches run
+     * concurrently.
+     *
+     * @return Same as {@link #landmarkAStar(Landmarks)}, but as {@link ParallelBidirectionalAStar}
+     */
+    public static ParallelBidirectionalAStar<Node, DirectedEdge> parallelLandmarkAStar(Landmarks landmarks) {
+        return new ParallelBidirectionalAStar<>(landmarks.getEdgeWeightFunction(), landmarks);
+    }
 }
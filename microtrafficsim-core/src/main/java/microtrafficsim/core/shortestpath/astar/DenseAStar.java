@@ -0,0 +1,357 @@
+package microtrafficsim.core.shortestpath.astar;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.OneToManyShortestPathAlgorithm;
+import microtrafficsim.utils.collections.IndexedDoubleMinHeap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+
+/**
+ * <p>
+ * A* algorithm on the dense node and edge indices of a {@link CSRGraph}. It searches like {@link AStar}: the leaving
+ * edges of a settled node are restricted by the connectors of the edge it has been reached by. But instead of maps
+ * and node objects, it uses primitive arrays and an {@link IndexedDoubleMinHeap} with decrease-key, so every node is
+ * in the queue at most once.
+ *
+ * <p>
+ * Every thread keeps one search state, that is reset by incrementing a generation counter instead of clearing its
+ * arrays. Hence queries do not create any garbage except the found path's stack entries, and an instance can be
+ * used concurrently.
+ *
+ * <p>
+ * If this instance is created for a {@link Graph}, its CSR view and edge weights are created in {@link #preprocess()}.
+ * Calling {@link #preprocess()} again recreates them, e.g. after the graph has been changed. Nodes, that are not part
+ * of the CSR view, have no path. See {@link AStars} for factory methods.
+ *
+ * <p>
+ * {@link #findShortestPaths(Node, List, List)} calculates one shortest path tree (Dijkstra without estimation), that
+ * stops as soon as all end nodes are settled.
+ *
+ * <p>
+ * Ties between paths of equal weight are broken differently than by {@link AStar}: a node keeps the first edge it has
+ * been reached by with its smallest weight, and nodes of equal priority are polled in the order of the
+ * {@link IndexedDoubleMinHeap}. The one-to-many search does not use the estimation, so its paths may differ from the
+ * paths of {@link #findShortestPath(Node, Node, Stack)} of equal weight, too. Hence replacing an {@link AStar} by
+ * this class changes the routes of seeded scenarios, though not their weights.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class DenseAStar implements OneToManyShortestPathAlgorithm<Node, DirectedEdge> {
+
+    private final Graph                                  graph;
+    private final ToDoubleFunction<? super DirectedEdge> edgeWeightFunction;
+    private final Estimation                             estimation;
+    private volatile Data                                data;
+    private final ThreadLocal<Search>                    search;
+    private final LongAdder                              settledNodes;
+
+
+    /**
+     * The CSR view and edge weights are created in {@link #preprocess()}.
+     *
+     * @param edgeWeightFunction see {@link AStar#AStar(ToDoubleFunction, java.util.function.ToDoubleBiFunction) AStar}
+     * @param estimation has to satisfy the same invariants as the estimation function of {@link AStar}
+     */
+    public DenseAStar(Graph graph,
+                      ToDoubleFunction<? super DirectedEdge> edgeWeightFunction,
+                      Estimation estimation)
+    {
+        this.graph              = graph;
+        this.edgeWeightFunction = edgeWeightFunction;
+        this.estimation         = estimation;
+        search                  = ThreadLocal.withInitial(Search::new);
+        settledNodes            = new LongAdder();
+    }
+
+    /**
+     * Uses the given, already created CSR view, e.g. to share its indices with
+     * {@link microtrafficsim.core.shortestpath.alt.Landmarks Landmarks}.
+     */
+    public DenseAStar(CSRGraph graph,
+                      ToDoubleFunction<? super DirectedEdge> edgeWeightFunction,
+                      Estimation estimation)
+    {
+        this((Graph) null, edgeWeightFunction, estimation);
+        data = new Data(graph, edgeWeightFunction);
+    }
+
+
+    /**
+     * @return the CSR view the indices of {@link Estimation} refer to; {@code null} if not preprocessed yet
+     */
+    public CSRGraph getGraph() {
+        Data data = this.data;
+        return data == null ? null : data.graph;
+    }
+
+    /**
+     * @return the number of nodes settled by all searches since creation or the last reset
+     */
+    public long getSettledNodeCount() {
+        return settledNodes.sum();
+    }
+
+    public void resetSettledNodeCount() {
+        settledNodes.reset();
+    }
+
+
+    /*
+    |===========================|
+    | (i) ShortestPathAlgorithm |
+    |===========================|
+    */
+    @Override
+    public boolean isPreprocessed() {
+        return data != null;
+    }
+
+    /**
+     * Addition to superclass: (Re-)creates the CSR view and edge weights if this instance has been created for a
+     * graph.
+     */
+    @Override
+    public synchronized void preprocess() {
+        if (graph != null)
+            data = new Data(new CSRGraph(graph), edgeWeightFunction);
+    }
+
+    /**
+     * Addition to superclass: If this instance is not preprocessed yet, {@link #preprocess()} is called.
+     */
+    @Override
+    public void findShortestPath(Node start, Node end, Stack<? super DirectedEdge> shortestPath) {
+        if (start == end)
+            return;
+
+        Data data = getData();
+        int s = data.graph.indexOf(start);
+        int t = data.graph.indexOf(end);
+        if (s == CSRGraph.NOT_CONTAINED || t == CSRGraph.NOT_CONTAINED)
+            return;
+
+        search.get().findShortestPath(data, s, t, shortestPath);
+    }
+
+
+    /*
+    |====================================|
+    | (i) OneToManyShortestPathAlgorithm |
+    |====================================|
+    */
+    /**
+     * Addition to superclass: If this instance is not preprocessed yet, {@link #preprocess()} is called.
+     */
+    @Override
+    public void findShortestPaths(Node start,
+                                  List<? extends Node> ends,
+                                  List<? extends Stack<? super DirectedEdge>> shortestPaths)
+    {
+        Data data = getData();
+        int s = data.graph.indexOf(start);
+        if (s == CSRGraph.NOT_CONTAINED)
+            return;
+
+        search.get().findShortestPaths(data, s, ends, shortestPaths);
+    }
+
+    private Data getData() {
+        Data data = this.data;
+        if (data == null) {
+            synchronized (this) {
+                if (this.data == null)
+                    preprocess();
+                data = this.data;
+            }
+        }
+        return data;
+    }
+
+
+    /**
+     * Lower bound of the remaining weight using dense node indices
+     */
+    @FunctionalInterface
+    public interface Estimation {
+        /**
+         * @return lower bound of the weight of the path from {@code node} to {@code end}, which has to be
+         * {@code >= 0}; the node indices refer to the given graph
+         */
+        double estimate(CSRGraph graph, int node, int end);
+    }
+
+
+    /**
+     * The CSR view and its edge weights
+     */
+    private static class Data {
+        private final CSRGraph graph;
+        private final double[] weights;    // by edge
+
+        private Data(CSRGraph graph, ToDoubleFunction<? super DirectedEdge> edgeWeightFunction) {
+            this.graph = graph;
+            weights    = new double[graph.getEdgeCount()];
+            for (int e = 0; e < weights.length; e++)
+                weights[e] = edgeWeightFunction.applyAsDouble(graph.getEdge(e));
+        }
+    }
+
+
+    /**
+     * Search state of one thread
+     */
+    private class Search {
+        private Data data;
+        private int  generation;
+
+        /* by node */
+        private int[]    reachedStamps;    // == generation: g, h and predecessor are valid
+        private int[]    settledStamps;    // == generation: settled
+        private int[]    targetStamps;     // == generation: end node of findShortestPaths(...)
+        private double[] g;
+        private double[] h;
+        private int[]    predecessors;     // edge the node has been reached by; -1 for the start
+
+        private IndexedDoubleMinHeap heap;
+
+
+        private void prepare(Data data) {
+            if (this.data != data) {
+                this.data = data;
+                int n = data.graph.getNodeCount();
+                reachedStamps = new int[n];
+                settledStamps = new int[n];
+                targetStamps  = new int[n];
+                g             = new double[n];
+                h             = new double[n];
+                predecessors  = new int[n];
+                heap          = new IndexedDoubleMinHeap(n);
+                generation    = 0;
+            }
+
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(reachedStamps, 0);
+                Arrays.fill(settledStamps, 0);
+                Arrays.fill(targetStamps, 0);
+                generation = 1;
+            }
+            heap.clear();
+        }
+
+        private void findShortestPath(Data data, int start, int end, Stack<? super DirectedEdge> shortestPath) {
+            prepare(data);
+            reach(start, 0, -1, end);
+
+            int settled = 0;
+            while (!heap.isEmpty()) {
+                int v = heap.poll();
+                settledStamps[v] = generation;
+                settled++;
+
+                if (v == end) { // shortest path found
+                    pushPath(end, shortestPath);
+                    break;
+                }
+
+                relax(v, end);
+            }
+
+            settledNodes.add(settled);
+        }
+
+        private void findShortestPaths(Data data,
+                                       int start,
+                                       List<? extends Node> ends,
+                                       List<? extends Stack<? super DirectedEdge>> shortestPaths)
+        {
+            prepare(data);
+            CSRGraph graph = data.graph;
+
+            /* mark ends */
+            int remaining = 0;
+            for (Node end : ends) {
+                int t = graph.indexOf(end);
+                if (t != CSRGraph.NOT_CONTAINED && t != start && targetStamps[t] != generation) {
+                    targetStamps[t] = generation;
+                    remaining++;
+                }
+            }
+
+            /* shortest path tree until all ends are settled */
+            reach(start, 0, -1, -1);
+            int settled = 0;
+            while (remaining > 0 && !heap.isEmpty()) {
+                int v = heap.poll();
+                settledStamps[v] = generation;
+                settled++;
+
+                if (targetStamps[v] == generation)
+                    remaining--;
+                relax(v, -1);
+            }
+
+            /* extract paths */
+            for (int i = 0; i < ends.size(); i++) {
+                int t = graph.indexOf(ends.get(i));
+                if (t != CSRGraph.NOT_CONTAINED && t != start && settledStamps[t] == generation)
+                    pushPath(t, shortestPaths.get(i));
+            }
+
+            settledNodes.add(settled);
+        }
+
+        /**
+         * Relaxes the leaving edges of the settled node {@code v}, which depend on the edge it has been reached by.
+         *
+         * @param end end node for the estimation; {@code -1} for no estimation
+         */
+        private void relax(int v, int end) {
+            CSRGraph graph   = data.graph;
+            double[] weights = data.weights;
+
+            int predecessor = predecessors[v];
+            int begin = predecessor < 0 ? graph.getLeavingBegin(v) : graph.getTurnBegin(predecessor);
+            int stop  = predecessor < 0 ? graph.getLeavingEnd(v)   : graph.getTurnEnd(predecessor);
+            for (int i = begin; i < stop; i++) {
+                int edge = predecessor < 0 ? graph.getLeavingAt(i) : graph.getTurnAt(i);
+                int w    = graph.getDestination(edge);
+                if (settledStamps[w] != generation)
+                    reach(w, g[v] + weights[edge], edge, end);
+            }
+        }
+
+        /**
+         * Updates node {@code v} if it is reached for the first time or with a smaller weight.
+         *
+         * @param end end node for the estimation; {@code -1} for no estimation
+         */
+        private void reach(int v, double newG, int predecessor, int end) {
+            if (reachedStamps[v] != generation) {
+                reachedStamps[v] = generation;
+                h[v]             = end < 0 ? 0 : estimation.estimate(data.graph, v, end);
+            } else if (newG >= g[v]) {
+                return;
+            }
+            g[v]            = newG;
+            predecessors[v] = predecessor;
+            heap.insertOrDecrease(v, newG + h[v]);
+        }
+
+        /**
+         * Pushes the path from the start to the settled node {@code end}, so the first edge is on top.
+         */
+        private void pushPath(int end, Stack<? super DirectedEdge> shortestPath) {
+            CSRGraph graph = data.graph;
+            for (int e = predecessors[end]; e >= 0; e = predecessors[graph.getOrigin(e)])
+                shortestPath.push(graph.getEdge(e));
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package microtrafficsim.core.shortestpath.astar;
+
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.ShortestPathEdge;
+import microtrafficsim.core.shortestpath.ShortestPathNode;
+
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * <p>
+ * Bidirectional A*, whose forward and backward search run concurrently on two threads: the calling thread searches
+ * forward and a helper thread searches backward. It is meant for single long queries, e.g. routing one vehicle on
+ * demand; for many short queries, {@link BidirectionalAStar} or {@link AStar} on several threads are faster, because
+ * handing the backward search to another thread costs more than the search itself.
+ *
+ * <p>
+ * In contrast to {@link BidirectionalAStar}, the search states are edges, so both searches respect the turns of the
+ * crossings: the forward search continues an edge by {@link ShortestPathNode#getLeavingEdges(ShortestPathEdge)
+ * getLeavingEdges(incoming)} and the backward search by
+ * {@link ShortestPathNode#getIncomingEdges(ShortestPathEdge) getIncomingEdges(leaving)}. A forward label is the
+ * weight from the start to the end of its edge and a backward label is the weight from the end of its edge to the
+ * end node, hence an edge labeled by both searches represents a path of weight {@code forward + backward}.
+ *
+ * <p>
+ * The best of these paths is shared lock-free by both searches. Both searches use the same potential
+ * {@code p(v) = (estimation(v, end) - estimation(start, v)) / 2}, so they run on the same reduced edge weights
+ * (forward key {@code g + p(v)}, backward key {@code g - p(v)}), and the stopping criterion of the bidirectional
+ * Dijkstra holds: a search stops as soon as the sum of both smallest queued keys is not smaller than the best path's
+ * weight, because every shorter path would have to pass a queued edge of both searches. Every search publishes its
+ * smallest key; reading an outdated key of the other search only delays stopping. When one search stops, the other
+ * one stops as well. Both searches only write their own labels and read the labels of the other one, so no locks are
+ * needed.
+ *
+ * <p>
+ * The estimation function has to be consistent, not only admissible, because every edge is settled only once.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ParallelBidirectionalAStar<N extends ShortestPathNode<E>, E extends ShortestPathEdge<N>>
+        implements ShortestPathAlgorithm<N, E>
+{
+    private final ToDoubleFunction<? super E> edgeWeightFunction;
+    private final ToDoubleBiFunction<? super N, ? super N> estimationFunction;
+    private final ExecutorService backwardPool;
+    private final LongAdder settledEdges;
+
+    /**
+     * The backward searches run on a cached pool of daemon threads, so this algorithm does not have to be shut down.
+     *
+     * @param edgeWeightFunction see {@link BidirectionalAStar#BidirectionalAStar(ToDoubleFunction,
+     *                           ToDoubleBiFunction) BidirectionalAStar(...)}
+     * @param estimationFunction see {@link BidirectionalAStar#BidirectionalAStar(ToDoubleFunction,
+     *                           ToDoubleBiFunction) BidirectionalAStar(...)}; in addition, it has to be consistent
+     */
+    public ParallelBidirectionalAStar(ToDoubleFunction<? super E> edgeWeightFunction,
+                                      ToDoubleBiFunction<? super N, ? super N> estimationFunction) {
+        this.edgeWeightFunction = edgeWeightFunction;
+        this.estimationFunction = estimationFunction;
+        settledEdges            = new LongAdder();
+
+        backwardPool = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, getClass().getSimpleName() + "-backward");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * @return the number of edges settled by all searches (forward and backward) since creation or the last reset
+     */
+    public long getSettledNodeCount() {
+        return settledEdges.sum();
+    }
+
+    public void resetSettledNodeCount() {
+        settledEdges.reset();
+    }
+
+
+    /*
+    |===========================|
+    | (i) ShortestPathAlgorithm |
+    |===========================|
+    */
+    /**
+     * Addition to superclass: If the calling thread is interrupted while waiting for the backward search, both
+     * searches are stopped, the result stays empty and the interrupt flag is set again.
+     */
+    @Override
+    public void findShortestPath(N start, N end, Stack<? super E> shortestPath) {
+        if (start == end)
+            return;
+
+        Query query = new Query(start, end);
+        Future<Integer> backward = backwardPool.submit(query.backward::run);
+
+        int settled = 0;
+        try {
+            settled += query.forward.run();
+            settled += backward.get();
+        } catch (InterruptedException e) {
+            query.done = true;
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            query.done = true;
+            settledEdges.add(settled);
+        }
+
+        query.createPath(shortestPath);
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    /**
+     * State of one call of {@link #findShortestPath(ShortestPathNode, ShortestPathNode, Stack)}.
+     */
+    private final class Query {
+        private final Search forward;
+        private final Search backward;
+        private final AtomicReference<Meeting<E>> best;
+        private volatile boolean done;
+
+        private Query(N start, N end) {
+            best     = new AtomicReference<>(new Meeting<>(Double.POSITIVE_INFINITY, null));
+            forward  = new Search(this, true, start, end);
+            backward = new Search(this, false, start, end);
+            forward.opposite  = backward;
+            backward.opposite = forward;
+
+            // before starting the threads, so no meeting of the first edges is missed
+            forward.init();
+            backward.init();
+        }
+
+        /**
+         * Updates the best path if the given one is shorter.
+         */
+        private void offer(double weight, E edge) {
+            Meeting<E> candidate = null;
+            while (true) {
+                Meeting<E> current = best.get();
+                if (weight >= current.weight)
+                    return;
+                if (candidate == null)
+                    candidate = new Meeting<>(weight, edge);
+                if (best.compareAndSet(current, candidate))
+                    return;
+            }
+        }
+
+        /**
+         * Pushes the best path, so its first edge is on top. Must only be called after both searches have stopped.
+         */
+        private void createPath(Stack<? super E> shortestPath) {
+            E meeting = best.get().edge;
+            if (meeting == null)
+                return;
+
+            // last part: the backward parents lead to the end
+            ArrayList<E> lastPart = new ArrayList<>();
+            for (E edge = backward.labels.get(meeting).parent; edge != null; edge = backward.labels.get(edge).parent)
+                lastPart.add(edge);
+            for (int i = lastPart.size() - 1; i >= 0; i--)
+                shortestPath.push(lastPart.get(i));
+
+            // first part: the forward parents lead to the start
+            for (E edge = meeting; edge != null; edge = forward.labels.get(edge).parent)
+                shortestPath.push(edge);
+        }
+    }
+
+    /**
+     * One direction of a {@link Query}. Only its own thread writes its labels, but the opposite search reads them.
+     */
+    private final class Search {
+        private final Query                          query;
+        private final boolean                        isForward;
+        private final N                              start;
+        private final N                              end;
+        private final ConcurrentHashMap<E, Label<E>> labels;
+        private final PriorityQueue<Entry<E>>        queue;
+        private volatile double                      minKey;    // of the queue, maybe outdated but never too big
+        private Search opposite;
+
+        private Search(Query query, boolean isForward, N start, N end) {
+            this.query     = query;
+            this.isForward = isForward;
+            this.start     = start;
+            this.end       = end;
+            labels         = new ConcurrentHashMap<>();
+            queue          = new PriorityQueue<>();
+        }
+
+        private void init() {
+            if (isForward)
+                for (E edge : start.getLeavingEdges(null))
+                    relax(edge, edgeWeightFunction.applyAsDouble(edge), null);
+            else
+                for (E edge : end.getIncomingEdges(null))
+                    relax(edge, 0, null);
+
+            minKey = queue.isEmpty() ? Double.POSITIVE_INFINITY : queue.peek().key;
+        }
+
+        /**
+         * @return number of settled edges
+         */
+        private int run() {
+            int count = 0;
+            try {
+                while (!query.done) {
+                    Entry<E> current = queue.peek();
+                    if (current == null)
+                        break;
+                    minKey = current.key;
+                    if (current.key + opposite.minKey >= query.best.get().weight)
+                        break;
+                    queue.poll();
+
+                    Label<E> label = labels.get(current.edge);
+                    if (label.settled || label.g < current.g)
+                        continue;
+                    label.settled = true;
+                    count++;
+
+                    if (isForward) {
+                        for (E edge : current.edge.getDestination().getLeavingEdges(current.edge))
+                            relax(edge, current.g + edgeWeightFunction.applyAsDouble(edge), current.edge);
+                    } else {
+                        double g = current.g + edgeWeightFunction.applyAsDouble(current.edge);
+                        for (E edge : current.edge.getOrigin().getIncomingEdges(current.edge))
+                            relax(edge, g, current.edge);
+                    }
+                }
+            } finally {
+                // the other search cannot find a shorter path anymore (or an exception has been thrown)
+                query.done = true;
+            }
+            return count;
+        }
+
+        private void relax(E edge, double g, E parent) {
+            Label<E> label = labels.get(edge);
+            if (label != null && (label.settled || label.g <= g))
+                return;
+
+            // write before read: for every edge, at least one of both searches sees both labels
+            labels.put(edge, new Label<>(g, parent));
+            N node = edge.getDestination();
+            double p = 0.5 * (estimationFunction.applyAsDouble(node, end)
+                    - estimationFunction.applyAsDouble(start, node));
+            queue.add(new Entry<>(edge, g, isForward ? g + p : g - p));
+
+            Label<E> other = opposite.labels.get(edge);
+            if (other != null)
+                query.offer(g + other.g, edge);
+        }
+    }
+
+    /**
+     * Weight of the path from the start to the end of an edge (forward) or from the end of an edge to the end node
+     * (backward). The parent is the previous (forward) or next (backward) edge of the path. Only the search owning
+     * the label reads its settled flag.
+     */
+    private static final class Label<E> {
+        private final double g;
+        private final E      parent;
+        private boolean      settled;
+
+        private Label(double g, E parent) {
+            this.g      = g;
+            this.parent = parent;
+        }
+    }
+
+    private static final class Entry<E> implements Comparable<Entry<E>> {
+        private final E      edge;
+        private final double g;
+        private final double key;
+
+        private Entry(E edge, double g, double key) {
+            this.edge = edge;
+            this.g    = g;
+            this.key  = key;
+        }
+
+        @Override
+        public int compareTo(Entry<E> o) {
+            return Double.compare(key, o.key);
+        }
+    }
+
+    private static final class Meeting<E> {
+        private final double weight;
+        private final E      edge;
+
+        private Meeting(double weight, E edge) {
+            this.weight = weight;
+            this.edge   = edge;
+        }
+    }
+}
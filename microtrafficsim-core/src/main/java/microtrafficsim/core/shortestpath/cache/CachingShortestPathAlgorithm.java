@@ -0,0 +1,167 @@
+package microtrafficsim.core.shortestpath.cache;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.routes.CompactRoute;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.OneToManyShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Stack;
+
+
+/**
+ * <p>
+ * Answers shortest path queries from a {@link RouteCache} and calculates missing paths by the wrapped scout. Missing
+ * paths of one {@link #findShortestPaths(Node, List, List) one-to-many query} are calculated by one search if the
+ * scout is an {@link OneToManyShortestPathAlgorithm} itself.
+ *
+ * <p>
+ * Besides filling stacks, {@link #findRoutes(Node, List)} returns {@link CompactRoute}s sharing the cached edges.
+ * Instances are created by {@link RouteCache#wrap(ShortestPathAlgorithm, Object)}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class CachingShortestPathAlgorithm implements OneToManyShortestPathAlgorithm<Node, DirectedEdge> {
+
+    private final RouteCache                                cache;
+    private final ShortestPathAlgorithm<Node, DirectedEdge> scout;
+    private final Object                                    metric;
+
+
+    CachingShortestPathAlgorithm(RouteCache cache, ShortestPathAlgorithm<Node, DirectedEdge> scout, Object metric) {
+        this.cache  = cache;
+        this.scout  = scout;
+        this.metric = metric;
+    }
+
+
+    public RouteCache getCache() {
+        return cache;
+    }
+
+    public ShortestPathAlgorithm<Node, DirectedEdge> getScout() {
+        return scout;
+    }
+
+    public Object getMetric() {
+        return metric;
+    }
+
+    /**
+     * @return one new route per destination, sharing the cached edges
+     */
+    public List<CompactRoute> findRoutes(Node origin, List<? extends Node> destinations) {
+        int[][] paths = findPaths(origin, destinations);
+
+        ArrayList<CompactRoute> routes = new ArrayList<>(paths.length);
+        for (int[] path : paths)
+            routes.add(new CompactRoute(cache.getGraph(), path));
+        return routes;
+    }
+
+
+    /*
+    |===========================|
+    | (i) ShortestPathAlgorithm |
+    |===========================|
+    */
+    @Override
+    public boolean isPreprocessed() {
+        return scout.isPreprocessed();
+    }
+
+    /**
+     * Addition to superclass: Preprocesses the wrapped scout. The cache is not cleared.
+     */
+    @Override
+    public void preprocess() {
+        scout.preprocess();
+    }
+
+    @Override
+    public void findShortestPath(Node start, Node end, Stack<? super DirectedEdge> shortestPath) {
+        push(findPaths(start, Collections.singletonList(end))[0], shortestPath);
+    }
+
+
+    /*
+    |====================================|
+    | (i) OneToManyShortestPathAlgorithm |
+    |====================================|
+    */
+    @Override
+    public void findShortestPaths(Node start,
+                                  List<? extends Node> ends,
+                                  List<? extends Stack<? super DirectedEdge>> shortestPaths)
+    {
+        int[][] paths = findPaths(start, ends);
+        for (int i = 0; i < paths.length; i++)
+            push(paths[i], shortestPaths.get(i));
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    /**
+     * @return the edge indices of the paths in driving order; the arrays are cached and must not be changed
+     * @throws IllegalArgumentException if the scout returns edges, that are not part of the cache's graph
+     */
+    private int[][] findPaths(Node start, List<? extends Node> ends) {
+        int[][] paths = new int[ends.size()][];
+
+        /* lookup; ends occurring multiple times are requested only once */
+        HashMap<Node, int[]> found = new HashMap<>();
+        ArrayList<Node> missing = new ArrayList<>();
+        for (Node end : ends) {
+            if (found.containsKey(end))
+                continue;
+
+            int[] path = cache.get(start, end, metric);
+            found.put(end, path);
+            if (path == null)
+                missing.add(end);
+        }
+
+        /* calculate missing paths */
+        if (!missing.isEmpty()) {
+            ArrayList<Stack<DirectedEdge>> stacks = new ArrayList<>(missing.size());
+            for (int i = 0; i < missing.size(); i++)
+                stacks.add(new Stack<>());
+
+            if (missing.size() > 1 && scout instanceof OneToManyShortestPathAlgorithm) {
+                ((OneToManyShortestPathAlgorithm<Node, DirectedEdge>) scout).findShortestPaths(start, missing, stacks);
+            } else {
+                for (int i = 0; i < missing.size(); i++)
+                    scout.findShortestPath(start, missing.get(i), stacks.get(i));
+            }
+
+            for (int i = 0; i < missing.size(); i++) {
+                int[] path = CompactRoute.indicesOfStack(cache.getGraph(), stacks.get(i));
+                Node end   = missing.get(i);
+                cache.put(start, end, metric, path);
+                found.put(end, path);
+            }
+        }
+
+        for (int i = 0; i < paths.length; i++)
+            paths[i] = found.get(ends.get(i));
+        return paths;
+    }
+
+    /**
+     * Pushes the path, so its first edge is on top.
+     */
+    private void push(int[] path, Stack<? super DirectedEdge> shortestPath) {
+        CSRGraph graph = cache.getGraph();
+        for (int i = path.length - 1; i >= 0; i--)
+            shortestPath.push(graph.getEdge(path[i]));
+    }
+}
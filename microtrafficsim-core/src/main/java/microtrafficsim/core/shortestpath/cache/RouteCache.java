@@ -0,0 +1,308 @@
+package microtrafficsim.core.shortestpath.cache;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.utils.strings.builder.LevelStringBuilder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * <p>
+ * Concurrent cache of shortest paths keyed by origin, destination and metric. The metric is any object identifying
+ * the edge weights of the scout calculating the paths (e.g. {@code "fastest"} or the scout itself), so paths of
+ * different metrics never replace each other.
+ *
+ * <p>
+ * The cached paths are immutable arrays of edge indices of the cache's {@link CSRGraph}, shared by all
+ * {@link microtrafficsim.core.logic.routes.CompactRoute CompactRoutes} created for them. The cache is bounded by the
+ * total number of cached edges (empty paths count as one) and evicts the least recently used paths first. To reduce
+ * contention, the keys are distributed over independently locked segments, each with its part of the bound, so
+ * eviction is LRU per segment.
+ *
+ * <p>
+ * Scouts are wrapped by {@link #wrap(ShortestPathAlgorithm, Object)}, so a cache can be shared by all scouts of a
+ * {@link microtrafficsim.core.simulation.scenarios.Scenario#getScoutFactory() scout factory} or even by several
+ * scenarios on the same graph. If the graph changes, a new cache has to be created.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class RouteCache {
+
+    private final CSRGraph  graph;
+    private final Segment[] segments;
+    private final long      maxEdgeCount;
+
+    /* statistics */
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+
+    /**
+     * Uses 16 segments.
+     *
+     * @see #RouteCache(CSRGraph, long, int)
+     */
+    public RouteCache(CSRGraph graph, long maxEdgeCount) {
+        this(graph, maxEdgeCount, 16);
+    }
+
+    /**
+     * @param graph the graph all cached paths are part of
+     * @param maxEdgeCount maximum number of edges of all cached paths
+     * @param concurrencyLevel number of threads expected to use this cache concurrently; it is rounded up to the
+     *                         next power of two and used as number of segments
+     * @throws IllegalArgumentException if {@code maxEdgeCount < 0} or {@code concurrencyLevel < 1}
+     */
+    public RouteCache(CSRGraph graph, long maxEdgeCount, int concurrencyLevel) {
+        if (maxEdgeCount < 0)
+            throw new IllegalArgumentException("The maximum edge count has to be >= 0.");
+        if (concurrencyLevel < 1)
+            throw new IllegalArgumentException("The concurrency level has to be >= 1.");
+
+        int segmentCount = Integer.highestOneBit(concurrencyLevel);
+        if (segmentCount < concurrencyLevel)
+            segmentCount <<= 1;
+
+        this.graph        = graph;
+        this.maxEdgeCount = maxEdgeCount;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment((maxEdgeCount + segmentCount - 1) / segmentCount);
+
+        hits      = new LongAdder();
+        misses    = new LongAdder();
+        evictions = new LongAdder();
+    }
+
+
+    /**
+     * @param scout calculates the paths missing in this cache
+     * @param metric identifies the edge weights of the scout, see {@link RouteCache}
+     * @return a scout answering from this cache if possible
+     */
+    public CachingShortestPathAlgorithm wrap(ShortestPathAlgorithm<Node, DirectedEdge> scout, Object metric) {
+        return new CachingShortestPathAlgorithm(this, scout, metric);
+    }
+
+
+    @Override
+    public String toString() {
+        LevelStringBuilder strBuilder = new LevelStringBuilder()
+                .setDefaultLevelSubString()
+                .setDefaultLevelSeparator();
+        strBuilder.appendln("<" + getClass().getSimpleName() + ">").incLevel();
+        {
+            strBuilder.appendln("paths      = " + size());
+            strBuilder.appendln("edges      = " + getEdgeCount() + " of " + maxEdgeCount);
+            strBuilder.appendln("hits       = " + getHitCount());
+            strBuilder.appendln("misses     = " + getMissCount());
+            strBuilder.appendln("hit rate   = " + getHitRate());
+            strBuilder.appendln("evictions  = " + getEvictionCount());
+        }
+        strBuilder.decLevel().append("</" + getClass().getSimpleName() + ">");
+        return strBuilder.toString();
+    }
+
+
+    /*
+    |=======|
+    | cache |
+    |=======|
+    */
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    public long getMaxEdgeCount() {
+        return maxEdgeCount;
+    }
+
+    /**
+     * @return number of cached paths
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.paths.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return number of edges of all cached paths
+     */
+    public long getEdgeCount() {
+        long edgeCount = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                edgeCount += segment.edgeCount;
+            }
+        }
+        return edgeCount;
+    }
+
+    /**
+     * Removes all paths, but keeps the statistics.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.paths.clear();
+                segment.edgeCount = 0;
+            }
+        }
+    }
+
+    /**
+     * @return the edge indices of the cached path in driving order or null; the array must not be changed
+     */
+    int[] get(Node origin, Node destination, Object metric) {
+        Key key = new Key(origin, destination, metric);
+        Segment segment = segmentOf(key);
+
+        int[] path;
+        synchronized (segment) {
+            path = segment.paths.get(key);
+        }
+
+        if (path == null)
+            misses.increment();
+        else
+            hits.increment();
+        return path;
+    }
+
+    /**
+     * Caches the path and evicts the least recently used paths of its segment if necessary. Paths exceeding the
+     * bound of a segment are not cached.
+     *
+     * @param path the edge indices of the path in driving order; the array must not be changed afterwards
+     */
+    void put(Node origin, Node destination, Object metric, int[] path) {
+        Key key = new Key(origin, destination, metric);
+        Segment segment = segmentOf(key);
+        long weight = weightOf(path);
+
+        int evicted = 0;
+        synchronized (segment) {
+            if (weight > segment.maxEdgeCount)
+                return;
+
+            int[] old = segment.paths.put(key, path);
+            segment.edgeCount += weight;
+            if (old != null)
+                segment.edgeCount -= weightOf(old);
+
+            Iterator<Map.Entry<Key, int[]>> iter = segment.paths.entrySet().iterator();
+            while (segment.edgeCount > segment.maxEdgeCount) {
+                segment.edgeCount -= weightOf(iter.next().getValue());
+                iter.remove();
+                evicted++;
+            }
+        }
+
+        if (evicted > 0)
+            evictions.add(evicted);
+    }
+
+    private Segment segmentOf(Key key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static long weightOf(int[] path) {
+        return Math.max(1, path.length);
+    }
+
+
+    /*
+    |============|
+    | statistics |
+    |============|
+    */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of paths removed to keep the bound
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return hits / (hits + misses); 0 if there has been no request yet
+     */
+    public double getHitRate() {
+        long hits     = getHitCount();
+        long requests = hits + getMissCount();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+
+    /**
+     * Part of the cache with its own lock (the segment itself) and its part of the bound
+     */
+    private static class Segment {
+        private final LinkedHashMap<Key, int[]> paths;    // access ordered, so the first entry is the LRU one
+        private final long                      maxEdgeCount;
+        private long                            edgeCount;
+
+        private Segment(long maxEdgeCount) {
+            paths             = new LinkedHashMap<>(16, 0.75f, true);
+            this.maxEdgeCount = maxEdgeCount;
+        }
+    }
+
+    private static class Key {
+        private final Node   origin;
+        private final Node   destination;
+        private final Object metric;
+
+        private Key(Node origin, Node destination, Object metric) {
+            this.origin      = origin;
+            this.destination = destination;
+            this.metric      = metric;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+
+            Key other = (Key) obj;
+            return origin.equals(other.origin)
+                    && destination.equals(other.destination)
+                    && metric.equals(other.metric);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = origin.hashCode();
+            hash = 31 * hash + destination.hashCode();
+            hash = 31 * hash + metric.hashCode();
+            return hash;
+        }
+    }
+}
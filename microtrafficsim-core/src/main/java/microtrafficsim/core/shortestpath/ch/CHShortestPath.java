@@ -0,0 +1,279 @@
+package microtrafficsim.core.shortestpath.ch;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.utils.collections.DoubleIntMinHeap;
+
+import java.util.Arrays;
+import java.util.Stack;
+
+
+/**
+ * <p>
+ * Answers shortest path queries using a {@link ContractionHierarchy}. A query is a bidirectional Dijkstra, that only
+ * relaxes upward arcs: the forward search starts at all edges leaving the start node, the backward search at all edges
+ * entering the end node. The found path is unpacked into the graph's edges, so it respects the nodes' connectors.
+ *
+ * <p>
+ * Every thread uses its own search state, so an instance can be used concurrently. The search state is reset using a
+ * generation counter instead of clearing its arrays.
+ *
+ * <p>
+ * If this instance is created for a graph instead of a hierarchy, the hierarchy is built in {@link #preprocess()}.
+ * Calling {@link #preprocess()} again rebuilds it, e.g. after the graph has been changed. Nodes, that are not part of
+ * the hierarchy's graph, have no path.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class CHShortestPath implements ShortestPathAlgorithm<Node, DirectedEdge> {
+
+    private final Graph                       graph;
+    private final ContractionHierarchy.Metric metric;
+    private volatile ContractionHierarchy     hierarchy;
+    private final ThreadLocal<Search>         search;
+
+
+    /**
+     * The hierarchy is built in {@link #preprocess()}.
+     */
+    public CHShortestPath(Graph graph, ContractionHierarchy.Metric metric) {
+        this.graph  = graph;
+        this.metric = metric;
+        search      = ThreadLocal.withInitial(Search::new);
+    }
+
+    /**
+     * Uses the given, already built hierarchy, e.g. loaded by
+     * {@link ContractionHierarchy#load(java.io.File, Graph)}.
+     */
+    public CHShortestPath(ContractionHierarchy hierarchy) {
+        this(null, hierarchy.getMetric());
+        this.hierarchy = hierarchy;
+    }
+
+
+    public ContractionHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+
+    /*
+    |===========================|
+    | (i) ShortestPathAlgorithm |
+    |===========================|
+    */
+    @Override
+    public boolean isPreprocessed() {
+        return hierarchy != null;
+    }
+
+    /**
+     * Addition to superclass: (Re-)builds the hierarchy if this instance has been created for a graph.
+     */
+    @Override
+    public synchronized void preprocess() {
+        if (graph != null)
+            hierarchy = ContractionHierarchy.build(graph, metric);
+    }
+
+    /**
+     * Addition to superclass: If this instance is not preprocessed yet, {@link #preprocess()} is called.
+     */
+    @Override
+    public void findShortestPath(Node start, Node end, Stack<? super DirectedEdge> shortestPath) {
+        if (start == end)
+            return;
+
+        ContractionHierarchy hierarchy = this.hierarchy;
+        if (hierarchy == null) {
+            synchronized (this) {
+                if (this.hierarchy == null)
+                    preprocess();
+                hierarchy = this.hierarchy;
+            }
+        }
+
+        search.get().findShortestPath(hierarchy, start, end, shortestPath);
+    }
+
+
+    /**
+     * Search state of one thread
+     */
+    private static class Search {
+        private ContractionHierarchy hierarchy;
+        private int generation;
+
+        /* by vertex */
+        private int[]    forwardStamps, backwardStamps;
+        private double[] forwardDist, backwardDist;
+        private int[]    forwardArcs, backwardArcs;    // arc the vertex has been reached by
+
+        private final DoubleIntMinHeap forwardHeap  = new DoubleIntMinHeap();
+        private final DoubleIntMinHeap backwardHeap = new DoubleIntMinHeap();
+
+        /* unpacking */
+        private int[] upward   = new int[64];
+        private int[] arcStack = new int[64];
+        private int[] path     = new int[64];
+
+
+        private void prepare(ContractionHierarchy hierarchy) {
+            if (this.hierarchy != hierarchy) {
+                this.hierarchy = hierarchy;
+                int n = hierarchy.getVertexCount();
+                forwardStamps  = new int[n];
+                backwardStamps = new int[n];
+                forwardDist    = new double[n];
+                backwardDist   = new double[n];
+                forwardArcs    = new int[n];
+                backwardArcs   = new int[n];
+                generation     = 0;
+            }
+
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(forwardStamps, 0);
+                Arrays.fill(backwardStamps, 0);
+                generation = 1;
+            }
+            forwardHeap.clear();
+            backwardHeap.clear();
+        }
+
+        private void findShortestPath(ContractionHierarchy hierarchy,
+                                      Node start, Node end,
+                                      Stack<? super DirectedEdge> shortestPath)
+        {
+            CSRGraph csr = hierarchy.getGraph();
+            int s = csr.indexOf(start);
+            int t = csr.indexOf(end);
+            if (s == CSRGraph.NOT_CONTAINED || t == CSRGraph.NOT_CONTAINED)
+                return;
+
+            prepare(hierarchy);
+
+            /* sources and targets */
+            for (int i = csr.getLeavingBegin(s); i < csr.getLeavingEnd(s); i++) {
+                int v = csr.getLeavingAt(i);
+                reach(forwardStamps, forwardDist, forwardArcs, forwardHeap,
+                        v, hierarchy.getWeight(v), ContractionHierarchy.NO_ARC);
+            }
+            for (int i = csr.getIncomingBegin(t); i < csr.getIncomingEnd(t); i++)
+                reach(backwardStamps, backwardDist, backwardArcs, backwardHeap,
+                        csr.getIncomingAt(i), 0, ContractionHierarchy.NO_ARC);
+
+
+            /* bidirectional upward search */
+            double best = Double.POSITIVE_INFINITY;
+            int meeting = -1;
+            while (true) {
+                boolean forward  = !forwardHeap.isEmpty() && forwardHeap.peekKey() < best;
+                boolean backward = !backwardHeap.isEmpty() && backwardHeap.peekKey() < best;
+                if (!forward && !backward)
+                    break;
+                if (forward && backward)
+                    forward = forwardHeap.peekKey() <= backwardHeap.peekKey();
+
+                if (forward) {
+                    double d = forwardHeap.peekKey();
+                    int v = forwardHeap.poll();
+                    if (d > forwardDist[v])
+                        continue;    // outdated
+
+                    if (backwardStamps[v] == generation && d + backwardDist[v] < best) {
+                        best    = d + backwardDist[v];
+                        meeting = v;
+                    }
+                    for (int i = hierarchy.getForwardBegin(v); i < hierarchy.getForwardEnd(v); i++) {
+                        int arc = hierarchy.getForwardArcAt(i);
+                        reach(forwardStamps, forwardDist, forwardArcs, forwardHeap,
+                                hierarchy.getArcTo(arc), d + hierarchy.getArcWeight(arc), arc);
+                    }
+                } else {
+                    double d = backwardHeap.peekKey();
+                    int v = backwardHeap.poll();
+                    if (d > backwardDist[v])
+                        continue;    // outdated
+
+                    if (forwardStamps[v] == generation && d + forwardDist[v] < best) {
+                        best    = d + forwardDist[v];
+                        meeting = v;
+                    }
+                    for (int i = hierarchy.getBackwardBegin(v); i < hierarchy.getBackwardEnd(v); i++) {
+                        int arc = hierarchy.getBackwardArcAt(i);
+                        reach(backwardStamps, backwardDist, backwardArcs, backwardHeap,
+                                hierarchy.getArcFrom(arc), d + hierarchy.getArcWeight(arc), arc);
+                    }
+                }
+            }
+
+            if (meeting < 0)
+                return;
+
+
+            /* unpack: path[0] is the first edge */
+            // forward arcs are found from the meeting vertex backwards, so they are unpacked in reverse order
+            int upwardCount = 0;
+            int v = meeting;
+            for (; forwardArcs[v] != ContractionHierarchy.NO_ARC; v = hierarchy.getArcFrom(forwardArcs[v])) {
+                if (upwardCount == upward.length)
+                    upward = Arrays.copyOf(upward, 2 * upwardCount);
+                upward[upwardCount++] = forwardArcs[v];
+            }
+
+            int pathLength = append(0, v);
+            for (int i = upwardCount - 1; i >= 0; i--)
+                pathLength = unpack(hierarchy, upward[i], pathLength);
+            for (v = meeting; backwardArcs[v] != ContractionHierarchy.NO_ARC; v = hierarchy.getArcTo(backwardArcs[v]))
+                pathLength = unpack(hierarchy, backwardArcs[v], pathLength);
+
+            for (int i = pathLength - 1; i >= 0; i--)
+                shortestPath.push(csr.getEdge(path[i]));
+        }
+
+        private void reach(int[] stamps, double[] dist, int[] arcs, DoubleIntMinHeap heap,
+                           int v, double d, int arc)
+        {
+            if (stamps[v] != generation || d < dist[v]) {
+                stamps[v] = generation;
+                dist[v]   = d;
+                arcs[v]   = arc;
+                heap.push(d, v);
+            }
+        }
+
+        /**
+         * Appends the destinations of all original arcs of the given arc to the path.
+         *
+         * @return new path length
+         */
+        private int unpack(ContractionHierarchy hierarchy, int arc, int pathLength) {
+            int top = 0;
+            arcStack[top++] = arc;
+            while (top > 0) {
+                int current = arcStack[--top];
+                if (!hierarchy.isShortcut(current)) {
+                    pathLength = append(pathLength, hierarchy.getArcTo(current));
+                    continue;
+                }
+
+                if (top + 2 > arcStack.length)
+                    arcStack = Arrays.copyOf(arcStack, 2 * arcStack.length);
+                // second child is unpacked after the first one
+                arcStack[top++] = hierarchy.getSecondChild(current);
+                arcStack[top++] = hierarchy.getFirstChild(current);
+            }
+            return pathLength;
+        }
+
+        private int append(int pathLength, int vertex) {
+            if (pathLength == path.length)
+                path = Arrays.copyOf(path, 2 * pathLength);
+            path[pathLength] = vertex;
+            return pathLength + 1;
+        }
+    }
+}
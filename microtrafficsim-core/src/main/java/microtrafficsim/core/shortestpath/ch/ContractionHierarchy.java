@@ -0,0 +1,345 @@
+package microtrafficsim.core.shortestpath.ch;
+
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.GraphGUID;
+import microtrafficsim.core.map.Bounds;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+
+/**
+ * <p>
+ * Preprocessed data of a contraction hierarchy (CH) over a {@link Graph}. The hierarchy is edge-based: its vertices
+ * are the graph's {@code DirectedEdge}s (indexed as in {@link CSRGraph}) and its original arcs are the turns allowed by
+ * the nodes' connectors. An arc {@code e -> f} costs the weight of {@code f}, so the cost of a path is the sum of its
+ * edges' weights. Therefore, every unpacked path respects the connectors, which a node-based hierarchy could not
+ * guarantee.
+ *
+ * <p>
+ * Preprocessing contracts the vertices one after another (see {@link Contractor}) and adds shortcuts, that keep the
+ * distances between the remaining vertices. A shortcut references the two arcs it is made of, so it can be unpacked
+ * recursively. Queries only relax arcs leading to higher contracted vertices ("upward"), see
+ * {@link CHShortestPath}.
+ *
+ * <p>
+ * The hierarchy is immutable and can be stored next to the map file, see {@link #getFile(File, Metric)},
+ * {@link #save(File)} and {@link #load(File, Graph)}. A stored hierarchy can only be loaded for a graph having the same
+ * {@link GraphGUID} and the same edge weights.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ContractionHierarchy {
+
+    public static final int NO_ARC = -1;
+
+    private static final int MAGIC   = 0x4d545343;    // "MTSC"
+    private static final int VERSION = 1;
+
+    private final CSRGraph graph;
+    private final Metric   metric;
+    private final double[] weights;         // by vertex
+
+    /* arcs */
+    private final int[]    arcFrom;
+    private final int[]    arcTo;
+    private final double[] arcWeights;
+    private final int[]    arcChildren;     // 2 per arc; NO_ARC for original turns
+
+    /* upward arcs */
+    private final int[] forwardOffsets;     // by vertex; arcs leaving the vertex
+    private final int[] forwardArcs;
+    private final int[] backwardOffsets;    // by vertex; arcs entering the vertex
+    private final int[] backwardArcs;
+
+
+    ContractionHierarchy(CSRGraph graph, Metric metric, double[] weights,
+                         int[] arcFrom, int[] arcTo, double[] arcWeights, int[] arcChildren,
+                         int[] forwardOffsets, int[] forwardArcs,
+                         int[] backwardOffsets, int[] backwardArcs)
+    {
+        this.graph           = graph;
+        this.metric          = metric;
+        this.weights         = weights;
+        this.arcFrom         = arcFrom;
+        this.arcTo           = arcTo;
+        this.arcWeights      = arcWeights;
+        this.arcChildren     = arcChildren;
+        this.forwardOffsets  = forwardOffsets;
+        this.forwardArcs     = forwardArcs;
+        this.backwardOffsets = backwardOffsets;
+        this.backwardArcs    = backwardArcs;
+    }
+
+    /**
+     * Contracts all edges of the given graph. The graph must not be modified concurrently.
+     */
+    public static ContractionHierarchy build(Graph graph, Metric metric) {
+        return new Contractor(new CSRGraph(graph), metric).contract();
+    }
+
+
+    /*
+    |=========|
+    | getters |
+    |=========|
+    */
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public int getVertexCount() {
+        return weights.length;
+    }
+
+    /**
+     * @return number of all arcs including the shortcuts
+     */
+    public int getArcCount() {
+        return arcTo.length;
+    }
+
+    public int getShortcutCount() {
+        int count = 0;
+        for (int arc = 0; arc < arcTo.length; arc++)
+            if (isShortcut(arc))
+                count++;
+        return count;
+    }
+
+    /**
+     * @return the weight of the vertex, which is the weight of its edge
+     */
+    public double getWeight(int vertex) {
+        return weights[vertex];
+    }
+
+    public int getArcFrom(int arc) {
+        return arcFrom[arc];
+    }
+
+    public int getArcTo(int arc) {
+        return arcTo[arc];
+    }
+
+    public double getArcWeight(int arc) {
+        return arcWeights[arc];
+    }
+
+    public boolean isShortcut(int arc) {
+        return arcChildren[2 * arc] != NO_ARC;
+    }
+
+    /**
+     * @return the first arc of the shortcut or {@link #NO_ARC} if the arc is an original turn
+     */
+    public int getFirstChild(int arc) {
+        return arcChildren[2 * arc];
+    }
+
+    /**
+     * @return the second arc of the shortcut or {@link #NO_ARC} if the arc is an original turn
+     */
+    public int getSecondChild(int arc) {
+        return arcChildren[2 * arc + 1];
+    }
+
+    public int getForwardBegin(int vertex) {
+        return forwardOffsets[vertex];
+    }
+
+    public int getForwardEnd(int vertex) {
+        return forwardOffsets[vertex + 1];
+    }
+
+    /**
+     * @return the upward arc at position {@code i} of the rows of the leaving arcs
+     */
+    public int getForwardArcAt(int i) {
+        return forwardArcs[i];
+    }
+
+    public int getBackwardBegin(int vertex) {
+        return backwardOffsets[vertex];
+    }
+
+    public int getBackwardEnd(int vertex) {
+        return backwardOffsets[vertex + 1];
+    }
+
+    /**
+     * @return the upward arc at position {@code i} of the rows of the entering arcs
+     */
+    public int getBackwardArcAt(int i) {
+        return backwardArcs[i];
+    }
+
+
+    /*
+    |=============|
+    | persistence |
+    |=============|
+    */
+    /**
+     * @return the file storing the hierarchy of the given metric next to the given map file, e.g.
+     * {@code backnang.mtsmap} -&gt; {@code backnang.mtsmap.time.ch}
+     */
+    public static File getFile(File mapFile, Metric metric) {
+        return new File(mapFile.getPath() + "." + metric.getFileSuffix() + ".ch");
+    }
+
+    public void save(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes this hierarchy to the given stream without closing it.
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(metric.name());
+
+        Bounds bounds = graph.getGUID().getBounds();
+        data.writeDouble(bounds.minlat);
+        data.writeDouble(bounds.minlon);
+        data.writeDouble(bounds.maxlat);
+        data.writeDouble(bounds.maxlon);
+        data.writeInt(graph.getGUID().getNodeHash());
+        data.writeInt(graph.getGUID().getEdgeHash());
+
+        writeArray(data, weights);
+        writeArray(data, arcFrom);
+        writeArray(data, arcTo);
+        writeArray(data, arcWeights);
+        writeArray(data, arcChildren);
+        writeArray(data, forwardOffsets);
+        writeArray(data, forwardArcs);
+        writeArray(data, backwardOffsets);
+        writeArray(data, backwardArcs);
+
+        data.flush();
+    }
+
+    /**
+     * @throws IOException if the file could not be read or does not belong to the given graph
+     */
+    public static ContractionHierarchy load(File file, Graph graph) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in, graph);
+        }
+    }
+
+    /**
+     * Reads a hierarchy from the given stream without closing it.
+     *
+     * @throws IOException if the stream could not be read or the hierarchy does not belong to the given graph
+     */
+    public static ContractionHierarchy read(InputStream in, Graph graph) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+
+        if (data.readInt() != MAGIC)
+            throw new IOException("The stream does not contain a contraction hierarchy.");
+        int version = data.readInt();
+        if (version != VERSION)
+            throw new IOException("The contraction hierarchy has version " + version + " instead of " + VERSION + ".");
+
+        Metric metric;
+        try {
+            metric = Metric.valueOf(data.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The contraction hierarchy has an unknown metric.", e);
+        }
+
+        Bounds bounds = new Bounds(data.readDouble(), data.readDouble(), data.readDouble(), data.readDouble());
+        GraphGUID guid = new GraphGUID(bounds, data.readInt(), data.readInt());
+
+        CSRGraph csr = new CSRGraph(graph);
+        double[] weights = readDoubleArray(data);
+        if (!guid.equals(csr.getGUID()) || !Arrays.equals(weights, metric.getWeights(csr)))
+            throw new IOException("The contraction hierarchy does not belong to the given graph.");
+
+        return new ContractionHierarchy(csr, metric, weights,
+                readIntArray(data), readIntArray(data), readDoubleArray(data), readIntArray(data),
+                readIntArray(data), readIntArray(data),
+                readIntArray(data), readIntArray(data));
+    }
+
+    private static void writeArray(DataOutputStream data, int[] array) throws IOException {
+        data.writeInt(array.length);
+        for (int value : array)
+            data.writeInt(value);
+    }
+
+    private static void writeArray(DataOutputStream data, double[] array) throws IOException {
+        data.writeInt(array.length);
+        for (double value : array)
+            data.writeDouble(value);
+    }
+
+    private static int[] readIntArray(DataInputStream data) throws IOException {
+        int[] array = new int[data.readInt()];
+        for (int i = 0; i < array.length; i++)
+            array[i] = data.readInt();
+        return array;
+    }
+
+    private static double[] readDoubleArray(DataInputStream data) throws IOException {
+        double[] array = new double[data.readInt()];
+        for (int i = 0; i < array.length; i++)
+            array[i] = data.readDouble();
+        return array;
+    }
+
+
+    /**
+     * Edge weights a hierarchy can be built for.
+     */
+    public enum Metric {
+        /** {@link microtrafficsim.core.logic.streets.DirectedEdge#getLength()} in cells */
+        LENGTH,
+        /** {@link microtrafficsim.core.logic.streets.DirectedEdge#getTimeCostMillis()} */
+        TIME;
+
+        public double getWeight(CSRGraph graph, int edge) {
+            switch (this) {
+                case LENGTH: return graph.getLength(edge);
+                case TIME:   return graph.getTimeCostMillis(edge);
+                default:     throw new IllegalStateException("Unknown metric " + this);
+            }
+        }
+
+        public double[] getWeights(CSRGraph graph) {
+            double[] weights = new double[graph.getEdgeCount()];
+            for (int edge = 0; edge < weights.length; edge++)
+                weights[edge] = getWeight(graph, edge);
+            return weights;
+        }
+
+        public String getFileSuffix() {
+            switch (this) {
+                case LENGTH: return "length";
+                case TIME:   return "time";
+                default:     throw new IllegalStateException("Unknown metric " + this);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package microtrafficsim.core.shortestpath.ch;
+
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.utils.collections.DoubleIntMinHeap;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+
+/**
+ * <p>
+ * Builds a {@link ContractionHierarchy} by contracting the vertices in the order of their priority. The priority of a
+ * vertex is the number of shortcuts its contraction would add minus the number of its remaining arcs plus the number
+ * of its already contracted neighbours. Priorities are updated lazily: a polled vertex is only contracted if its
+ * recalculated priority is still minimal. After every contraction, the priorities of the vertex' neighbours are
+ * recalculated.
+ *
+ * <p>
+ * Contracting vertex {@code v} adds a shortcut {@code u -> w} for every pair of arcs {@code u -> v -> w}, if a local
+ * witness search from {@code u} ignoring {@code v} does not find a path to {@code w}, that is at most as expensive.
+ * The witness search is limited by the number of settled vertices, so it may add unnecessary shortcuts, but never
+ * misses a necessary one.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+final class Contractor {
+
+    private static final int WITNESS_SETTLE_LIMIT = 128;
+    private static final int PRIORITY_OFFSET      = 1 << 30;
+
+    private final CSRGraph                    graph;
+    private final ContractionHierarchy.Metric metric;
+    private final double[]                    weights;
+    private final int                         vertexCount;
+
+    /* arcs */
+    private int      arcCount;
+    private int[]    arcFrom;
+    private int[]    arcTo;
+    private double[] arcWeights;
+    private int[]    arcChildren;
+
+    /* remaining graph */
+    private final IntList[] out;
+    private final IntList[] in;
+    private final boolean[] contracted;
+    private final int[]     contractedNeighbours;
+    private final int[]     priorities;
+    private final int[]     ranks;
+
+    /* witness search */
+    private final double[]         dist;
+    private final int[]            stamps;
+    private int                    generation;
+    private final DoubleIntMinHeap heap;
+
+
+    Contractor(CSRGraph graph, ContractionHierarchy.Metric metric) {
+        this.graph  = graph;
+        this.metric = metric;
+        weights     = metric.getWeights(graph);
+        vertexCount = graph.getEdgeCount();
+
+        arcFrom     = new int[16];
+        arcTo       = new int[16];
+        arcWeights  = new double[16];
+        arcChildren = new int[32];
+
+        out = new IntList[vertexCount];
+        in  = new IntList[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            out[v] = new IntList();
+            in[v]  = new IntList();
+        }
+        contracted           = new boolean[vertexCount];
+        contractedNeighbours = new int[vertexCount];
+        priorities           = new int[vertexCount];
+        ranks                = new int[vertexCount];
+
+        dist   = new double[vertexCount];
+        stamps = new int[vertexCount];
+        heap   = new DoubleIntMinHeap();
+
+        /* original turns */
+        for (int v = 0; v < vertexCount; v++)
+            for (int i = graph.getTurnBegin(v); i < graph.getTurnEnd(v); i++) {
+                int w = graph.getTurnAt(i);
+                if (w != v)
+                    addArc(v, w, weights[w], ContractionHierarchy.NO_ARC, ContractionHierarchy.NO_ARC);
+            }
+    }
+
+
+    ContractionHierarchy contract() {
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int v = 0; v < vertexCount; v++) {
+            priorities[v] = calcPriority(v);
+            queue.add(encode(priorities[v], v));
+        }
+
+        int[] neighbourStamps = new int[vertexCount];
+        int rank = 0;
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int v = (int) entry;
+            if (contracted[v] || decodePriority(entry) != priorities[v])
+                continue;    // outdated
+
+            int priority = calcPriority(v);
+            if (priority > priorities[v] && !queue.isEmpty() && priority > decodePriority(queue.peek())) {
+                priorities[v] = priority;
+                queue.add(encode(priority, v));
+                continue;
+            }
+
+            findShortcuts(v, true);
+            contracted[v] = true;
+            ranks[v] = rank++;
+
+            /* update neighbours */
+            for (int i = 0; i < out[v].size; i++)
+                updateNeighbour(arcTo[out[v].data[i]], rank, neighbourStamps, queue);
+            for (int i = 0; i < in[v].size; i++)
+                updateNeighbour(arcFrom[in[v].data[i]], rank, neighbourStamps, queue);
+        }
+
+        return createHierarchy();
+    }
+
+    /**
+     * Recalculates the priority of the remaining neighbour {@code x} once per contraction.
+     */
+    private void updateNeighbour(int x, int rank, int[] neighbourStamps, PriorityQueue<Long> queue) {
+        if (contracted[x] || neighbourStamps[x] == rank)
+            return;
+        neighbourStamps[x] = rank;
+
+        contractedNeighbours[x]++;
+        int priority = calcPriority(x);
+        if (priority != priorities[x]) {
+            priorities[x] = priority;
+            queue.add(encode(priority, x));
+        }
+    }
+
+    private ContractionHierarchy createHierarchy() {
+        int[] forwardOffsets  = new int[vertexCount + 1];
+        int[] backwardOffsets = new int[vertexCount + 1];
+        IntList forwardArcs  = new IntList();
+        IntList backwardArcs = new IntList();
+
+        for (int v = 0; v < vertexCount; v++) {
+            for (int i = 0; i < out[v].size; i++) {
+                int arc = out[v].data[i];
+                if (ranks[arcTo[arc]] > ranks[v])
+                    forwardArcs.add(arc);
+            }
+            forwardOffsets[v + 1] = forwardArcs.size;
+
+            for (int i = 0; i < in[v].size; i++) {
+                int arc = in[v].data[i];
+                if (ranks[arcFrom[arc]] > ranks[v])
+                    backwardArcs.add(arc);
+            }
+            backwardOffsets[v + 1] = backwardArcs.size;
+        }
+
+        return new ContractionHierarchy(graph, metric, weights,
+                Arrays.copyOf(arcFrom, arcCount),
+                Arrays.copyOf(arcTo, arcCount),
+                Arrays.copyOf(arcWeights, arcCount),
+                Arrays.copyOf(arcChildren, 2 * arcCount),
+                forwardOffsets, forwardArcs.toArray(),
+                backwardOffsets, backwardArcs.toArray());
+    }
+
+
+    /*
+    |==========|
+    | priority |
+    |==========|
+    */
+    private int calcPriority(int v) {
+        int degree = 0;
+        for (int i = 0; i < out[v].size; i++)
+            if (!contracted[arcTo[out[v].data[i]]])
+                degree++;
+        for (int i = 0; i < in[v].size; i++)
+            if (!contracted[arcFrom[in[v].data[i]]])
+                degree++;
+
+        return findShortcuts(v, false) - degree + contractedNeighbours[v];
+    }
+
+    private static long encode(int priority, int v) {
+        return ((long) (priority + PRIORITY_OFFSET) << 32) | v;
+    }
+
+    private static int decodePriority(long entry) {
+        return (int) (entry >>> 32) - PRIORITY_OFFSET;
+    }
+
+
+    /*
+    |===========|
+    | shortcuts |
+    |===========|
+    */
+    /**
+     * @param add if false, the shortcuts are only counted
+     * @return the number of shortcuts needed for contracting {@code v}
+     */
+    private int findShortcuts(int v, boolean add) {
+        int count = 0;
+
+        for (int i = 0; i < in[v].size; i++) {
+            int first = in[v].data[i];
+            int u = arcFrom[first];
+            if (contracted[u] || u == v)
+                continue;
+
+            double maxWeight = -1;
+            for (int j = 0; j < out[v].size; j++) {
+                int w = arcTo[out[v].data[j]];
+                if (!contracted[w] && w != v && w != u)
+                    maxWeight = Math.max(maxWeight, arcWeights[out[v].data[j]]);
+            }
+            if (maxWeight < 0)
+                continue;
+
+            searchWitnesses(u, v, arcWeights[first] + maxWeight);
+
+            for (int j = 0; j < out[v].size; j++) {
+                int second = out[v].data[j];
+                int w = arcTo[second];
+                if (contracted[w] || w == v || w == u)
+                    continue;
+
+                double weight = arcWeights[first] + arcWeights[second];
+                if (stamps[w] == generation && dist[w] <= weight)
+                    continue;    // witness found
+
+                count++;
+                if (add)
+                    addShortcut(u, w, weight, first, second);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Dijkstra from {@code source} in the remaining graph without {@code ignored}, that stops at {@code maxDist} or
+     * after {@link #WITNESS_SETTLE_LIMIT} settled vertices.
+     */
+    private void searchWitnesses(int source, int ignored, double maxDist) {
+        generation++;
+        heap.clear();
+        stamps[source] = generation;
+        dist[source]   = 0;
+        heap.push(0, source);
+
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            double d = heap.peekKey();
+            int x = heap.poll();
+            if (d > dist[x])
+                continue;    // outdated
+            if (d > maxDist || ++settled > WITNESS_SETTLE_LIMIT)
+                break;
+
+            for (int i = 0; i < out[x].size; i++) {
+                int arc = out[x].data[i];
+                int y = arcTo[arc];
+                if (contracted[y] || y == ignored)
+                    continue;
+
+                double newDist = d + arcWeights[arc];
+                if (stamps[y] != generation || newDist < dist[y]) {
+                    stamps[y] = generation;
+                    dist[y]   = newDist;
+                    heap.push(newDist, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the shortcut or replaces an existing, more expensive arc {@code u -> w}.
+     */
+    private void addShortcut(int u, int w, double weight, int first, int second) {
+        for (int i = 0; i < out[u].size; i++) {
+            int arc = out[u].data[i];
+            if (arcTo[arc] != w)
+                continue;
+            if (arcWeights[arc] <= weight)
+                return;
+
+            int shortcut = newArc(u, w, weight, first, second);
+            out[u].data[i] = shortcut;
+            in[w].replace(arc, shortcut);
+            return;
+        }
+
+        addArc(u, w, weight, first, second);
+    }
+
+    private void addArc(int from, int to, double weight, int first, int second) {
+        int arc = newArc(from, to, weight, first, second);
+        out[from].add(arc);
+        in[to].add(arc);
+    }
+
+    private int newArc(int from, int to, double weight, int first, int second) {
+        if (arcCount == arcTo.length) {
+            arcFrom     = Arrays.copyOf(arcFrom, 2 * arcCount);
+            arcTo       = Arrays.copyOf(arcTo, 2 * arcCount);
+            arcWeights  = Arrays.copyOf(arcWeights, 2 * arcCount);
+            arcChildren = Arrays.copyOf(arcChildren, 4 * arcCount);
+        }
+
+        int arc = arcCount++;
+        arcFrom[arc]             = from;
+        arcTo[arc]               = to;
+        arcWeights[arc]          = weight;
+        arcChildren[2 * arc]     = first;
+        arcChildren[2 * arc + 1] = second;
+        return arc;
+    }
+
+
+    private static final class IntList {
+        private int[] data = new int[4];
+        private int   size;
+
+        private void add(int value) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, 2 * size);
+            data[size++] = value;
+        }
+
+        private void replace(int oldValue, int newValue) {
+            for (int i = 0; i < size; i++)
+                if (data[i] == oldValue) {
+                    data[i] = newValue;
+                    return;
+                }
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package microtrafficsim.core.shortestpath.lpastar;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.utils.collections.IndexedDoubleMinHeap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+
+/**
+ * <p>
+ * Incremental shortest path search (Lifelong Planning A*) on the edges of a {@link CSRGraph}, whose edge weights may
+ * change at any time. Instead of searching from scratch after a change, only the part of a search affected by the
+ * change is repaired.
+ *
+ * <p>
+ * The search runs backwards from a destination node and keeps one {@link Tree} per destination. A search state is an
+ * edge, so the turns of an edge restrict its successors like in
+ * {@link microtrafficsim.core.shortestpath.astar.DenseAStar DenseAStar}. The distance of an edge is its own weight
+ * plus the distance of its best turn, or only its own weight if it leads to the destination. Because the start of a
+ * backward search does not matter for its distances, vehicles moving towards the same destination share one tree,
+ * which is what D* Lite achieves for a moving start. The heuristic is zero, so the trees are exact shortest path
+ * trees as far as they have been expanded.
+ *
+ * <p>
+ * {@link #setWeight(int, double)} updates all live trees at once, so a tree does not have to remember the changes
+ * since its last query. The number of trees is bounded and the least recently used one is dropped first. Queries can
+ * be limited by a number of expansions, so the work per simulation step can be bounded; an interrupted query continues
+ * where it has stopped.
+ *
+ * <p>
+ * In contrast to most shortest path algorithms, this class is not thread safe.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class LPAStar implements ShortestPathAlgorithm<Node, DirectedEdge> {
+
+    private final CSRGraph  graph;
+    private final double[]  weights;                    // by edge
+    private final int       maxTreeCount;
+    private final LinkedHashMap<Integer, Tree> trees;   // by destination node; access ordered
+    private final LongAdder expansions;
+
+
+    /**
+     * @param edgeWeightFunction initial edge weights, which have to be {@code >= 0}
+     * @param maxTreeCount maximum number of trees (one per destination) kept at the same time; every tree needs
+     *                     {@link #getTreeSize(CSRGraph)} bytes
+     * @throws IllegalArgumentException if {@code maxTreeCount < 1}
+     */
+    public LPAStar(CSRGraph graph, ToDoubleFunction<? super DirectedEdge> edgeWeightFunction, int maxTreeCount) {
+        if (maxTreeCount < 1)
+            throw new IllegalArgumentException("The maximum tree count has to be >= 1.");
+
+        this.graph        = graph;
+        this.maxTreeCount = maxTreeCount;
+        trees             = new LinkedHashMap<>(16, 0.75f, true);
+        expansions        = new LongAdder();
+
+        int edgeCount = graph.getEdgeCount();
+        weights = new double[edgeCount];
+        for (int e = 0; e < edgeCount; e++)
+            weights[e] = edgeWeightFunction.applyAsDouble(graph.getEdge(e));
+    }
+
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the approximate number of bytes a tree of the given graph needs
+     */
+    public static long getTreeSize(CSRGraph graph) {
+        return 32L * graph.getEdgeCount();
+    }
+
+    public double getWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Changes the edge's weight and updates all live trees, so their next queries repair their paths.
+     *
+     * @param weight has to be {@code >= 0}
+     */
+    public void setWeight(int edge, double weight) {
+        if (weights[edge] == weight)
+            return;
+
+        weights[edge] = weight;
+        for (Tree tree : trees.values())
+            tree.updateState(edge);
+    }
+
+    /**
+     * @return the tree of the given destination node; it is created if it does not exist (anymore)
+     */
+    public Tree getTree(int destination) {
+        Tree tree = trees.get(destination);
+        if (tree == null) {
+            if (trees.size() >= maxTreeCount) {
+                Iterator<Map.Entry<Integer, Tree>> iter = trees.entrySet().iterator();
+                iter.next();
+                iter.remove();
+            }
+            tree = new Tree(destination);
+            trees.put(destination, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * @return number of trees kept at the moment
+     */
+    public int getTreeCount() {
+        return trees.size();
+    }
+
+    /**
+     * @return the number of states expanded by all trees since creation or the last reset
+     */
+    public long getExpansionCount() {
+        return expansions.sum();
+    }
+
+    public void resetExpansionCount() {
+        expansions.reset();
+    }
+
+
+    /*
+    |===========================|
+    | (i) ShortestPathAlgorithm |
+    |===========================|
+    */
+    /**
+     * Addition to superclass: Without an edge the vehicle is coming from, all leaving edges of the start are
+     * possible first edges. The query is not limited.
+     */
+    @Override
+    public void findShortestPath(Node start, Node end, Stack<? super DirectedEdge> shortestPath) {
+        if (start == end)
+            return;
+
+        int s = graph.indexOf(start);
+        int t = graph.indexOf(end);
+        if (s == CSRGraph.NOT_CONTAINED || t == CSRGraph.NOT_CONTAINED)
+            return;
+
+        Tree tree  = getTree(t);
+        int  first = -1;
+        for (int i = graph.getLeavingBegin(s); i < graph.getLeavingEnd(s); i++) {
+            int edge = graph.getLeavingAt(i);
+            tree.computeShortestPath(edge, Integer.MAX_VALUE);
+            if (first < 0 || tree.getDistance(edge) < tree.getDistance(first))
+                first = edge;
+        }
+
+        int[] path = first < 0 ? null : tree.getPath(first);
+        if (path != null)
+            for (int i = path.length - 1; i >= 0; i--)
+                shortestPath.push(graph.getEdge(path[i]));
+    }
+
+
+    /**
+     * <p>
+     * Backward search state of one destination node. {@link #getDistance(int) Distances} and
+     * {@link #getPath(int) paths} of an edge are only valid if {@link #isSolved(int)} returns true for it.
+     *
+     * <p>
+     * A tree is valid as long as it is returned by {@link LPAStar#getTree(int)}; dropped trees are not updated
+     * anymore.
+     */
+    public final class Tree {
+        private final int                  destination;
+        private final double[]             g;      // distance as of the last expansion; by edge
+        private final double[]             rhs;    // distance by the successors' g; by edge
+        private final IndexedDoubleMinHeap heap;   // inconsistent edges (g != rhs) by min(g, rhs)
+
+        private Tree(int destination) {
+            this.destination = destination;
+
+            int edgeCount = graph.getEdgeCount();
+            g    = new double[edgeCount];
+            rhs  = new double[edgeCount];
+            heap = new IndexedDoubleMinHeap(edgeCount);
+            Arrays.fill(g, Double.POSITIVE_INFINITY);
+            Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+
+            for (int i = graph.getIncomingBegin(destination); i < graph.getIncomingEnd(destination); i++)
+                updateState(graph.getIncomingAt(i));
+        }
+
+
+        public int getDestination() {
+            return destination;
+        }
+
+        /**
+         * Expands inconsistent states until the distance of the given edge is known or the given number of
+         * expansions is reached.
+         *
+         * @return number of expanded states
+         */
+        public int computeShortestPath(int edge, int maxExpansions) {
+            int expanded = 0;
+            while (expanded < maxExpansions && !isSolved(edge)) {
+                int u = heap.poll();
+                expanded++;
+
+                if (g[u] > rhs[u]) {
+                    g[u] = rhs[u];
+                } else {
+                    g[u] = Double.POSITIVE_INFINITY;
+                    updateState(u);
+                }
+                for (int i = graph.getReverseTurnBegin(u); i < graph.getReverseTurnEnd(u); i++)
+                    updateState(graph.getReverseTurnAt(i));
+            }
+
+            expansions.add(expanded);
+            return expanded;
+        }
+
+        /**
+         * @return true if the distance of the given edge is known
+         */
+        public boolean isSolved(int edge) {
+            return heap.isEmpty() || (g[edge] == rhs[edge] && heap.peekKey() >= g[edge]);
+        }
+
+        /**
+         * @return the weight of the shortest path starting with the given edge and ending at the destination;
+         * {@link Double#POSITIVE_INFINITY} if there is none
+         */
+        public double getDistance(int edge) {
+            return g[edge];
+        }
+
+        /**
+         * @return the edge indices of the shortest path starting with the given edge in driving order; {@code null}
+         * if there is none
+         */
+        public int[] getPath(int edge) {
+            if (g[edge] == Double.POSITIVE_INFINITY)
+                return null;
+
+            int[] path = new int[16];
+            int   size = 0;
+            while (true) {
+                if (size == path.length)
+                    path = Arrays.copyOf(path, 2 * size);
+                path[size++] = edge;
+
+                if (graph.getDestination(edge) == destination)
+                    break;
+                if (size > graph.getEdgeCount())  // only possible for unsolved edges
+                    return null;
+
+                edge = bestTurn(edge);
+                if (edge < 0)
+                    return null;
+            }
+
+            return Arrays.copyOf(path, size);
+        }
+
+        /**
+         * Recalculates the edge's rhs and updates its heap entry.
+         */
+        private void updateState(int edge) {
+            rhs[edge] = weights[edge];
+            if (graph.getDestination(edge) != destination) {
+                int best = bestTurn(edge);
+                rhs[edge] += best < 0 ? Double.POSITIVE_INFINITY : g[best];
+            }
+
+            if (g[edge] != rhs[edge])
+                heap.insertOrUpdate(edge, Math.min(g[edge], rhs[edge]));
+            else
+                heap.remove(edge);
+        }
+
+        /**
+         * @return the turn of the edge with the smallest finite distance; the smallest index on ties; {@code -1} if
+         * there is none
+         */
+        private int bestTurn(int edge) {
+            int best = -1;
+            for (int i = graph.getTurnBegin(edge); i < graph.getTurnEnd(edge); i++) {
+                int turn = graph.getTurnAt(i);
+                if (g[turn] < Double.POSITIVE_INFINITY && (best < 0 || g[turn] < g[best]))
+                    best = turn;
+            }
+            return best;
+        }
+    }
+}
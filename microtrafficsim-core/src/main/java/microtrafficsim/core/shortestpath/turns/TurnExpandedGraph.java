@@ -0,0 +1,356 @@
+package microtrafficsim.core.shortestpath.turns;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.shortestpath.ShortestPathEdge;
+import microtrafficsim.core.shortestpath.ShortestPathNode;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * <p>
+ * Edge-based (turn-expanded) view of a {@link Graph}, on which every {@link ShortestPathNode}-based algorithm respects
+ * the turns of the crossings without asking the crossings. Every directed edge is a {@link Vertex} and every allowed
+ * turn from an edge to a leaving edge is a {@link Turn}, so the successors of a vertex do not depend on how it has
+ * been reached. The turns are taken from the {@link CSRGraph#getTurnBegin(int) turn rows} of the CSR view, hence
+ * restrictions and u-turns are exactly the ones of the lanes' connectors created by the
+ * {@link microtrafficsim.core.parser.features.streetgraph.StreetGraphGenerator StreetGraphGenerator}.
+ *
+ * <p>
+ * In addition, every node gets a departure vertex, whose turns enter its leaving edges, and an arrival vertex, which
+ * is reached from its incoming edges for free. Hence a path between two nodes is a path from the start's departure to
+ * the end's arrival; see {@link TurnExpandedShortestPath}.
+ *
+ * <p>
+ * A turn has the length and time cost of the edge it enters, so edge weight functions like
+ * {@link ShortestPathEdge#getTimeCostMillis()} keep their meaning. The coordinate of an edge's vertex is the one of
+ * its destination node, so linear distance estimations stay consistent. All successor and predecessor sets are
+ * created once and immutable, so querying them is lock-free and allocation-free (except for their iterators).
+ *
+ * <p>
+ * Changes of the graph after creation are not reflected by this class.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TurnExpandedGraph {
+
+    private final CSRGraph graph;
+    private final Vertex[] edgeVertices;    // by edge
+    private final Vertex[] departures;      // by node
+    private final Vertex[] arrivals;        // by node
+    private final int      turnCount;
+
+
+    /**
+     * Creates the CSR view of the given graph first. The graph must not be modified concurrently.
+     */
+    public TurnExpandedGraph(Graph graph) {
+        this(new CSRGraph(graph));
+    }
+
+    public TurnExpandedGraph(CSRGraph graph) {
+        this.graph = graph;
+
+        int nodeCount = graph.getNodeCount();
+        int edgeCount = graph.getEdgeCount();
+
+        /* vertices */
+        Coordinate[] coordinates = new Coordinate[nodeCount];
+        for (int n = 0; n < nodeCount; n++)
+            coordinates[n] = new Coordinate(graph.getLat(n), graph.getLon(n));
+
+        edgeVertices = new Vertex[edgeCount];
+        departures   = new Vertex[nodeCount];
+        arrivals     = new Vertex[nodeCount];
+        for (int e = 0; e < edgeCount; e++)
+            edgeVertices[e] = new Vertex(e, e, graph.getDestination(e), coordinates[graph.getDestination(e)]);
+        for (int n = 0; n < nodeCount; n++) {
+            departures[n] = new Vertex(edgeCount + 2 * n, -1, n, coordinates[n]);
+            arrivals[n]   = new Vertex(edgeCount + 2 * n + 1, -1, n, coordinates[n]);
+        }
+
+
+        /* turns: the allowed turns and the arrival of every edge, the departures of every node */
+        List<List<Turn>> leaving  = new ArrayList<>(edgeCount + 2 * nodeCount);
+        List<List<Turn>> incoming = new ArrayList<>(edgeCount + 2 * nodeCount);
+        for (int v = 0; v < edgeCount + 2 * nodeCount; v++) {
+            leaving.add(new ArrayList<>(4));
+            incoming.add(new ArrayList<>(4));
+        }
+
+        int id = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            for (int i = graph.getTurnBegin(e); i < graph.getTurnEnd(e); i++) {
+                int next = graph.getTurnAt(i);
+                addTurn(new Turn(id++, edgeVertices[e], edgeVertices[next]), leaving, incoming);
+            }
+            addTurn(new Turn(id++, edgeVertices[e], arrivals[graph.getDestination(e)]), leaving, incoming);
+        }
+        for (int n = 0; n < nodeCount; n++)
+            for (int i = graph.getLeavingBegin(n); i < graph.getLeavingEnd(n); i++)
+                addTurn(new Turn(id++, departures[n], edgeVertices[graph.getLeavingAt(i)]), leaving, incoming);
+        turnCount = id;
+
+        for (Vertex vertex : edgeVertices)
+            vertex.setTurns(leaving, incoming);
+        for (int n = 0; n < nodeCount; n++) {
+            departures[n].setTurns(leaving, incoming);
+            arrivals[n].setTurns(leaving, incoming);
+        }
+    }
+
+    private static void addTurn(Turn turn, List<List<Turn>> leaving, List<List<Turn>> incoming) {
+        leaving.get(turn.origin.id).add(turn);
+        incoming.get(turn.destination.id).add(turn);
+    }
+
+
+    /**
+     * @return the CSR view the edge and node indices refer to
+     */
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return number of vertices (edges, departures and arrivals)
+     */
+    public int getVertexCount() {
+        return edgeVertices.length + departures.length + arrivals.length;
+    }
+
+    /**
+     * @return number of turns (allowed turns, departures and arrivals)
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * @return the vertex of the given edge index
+     */
+    public Vertex getVertex(int edge) {
+        return edgeVertices[edge];
+    }
+
+    /**
+     * @return the vertex of the given edge; null if it is not part of the graph
+     */
+    public Vertex getVertex(DirectedEdge edge) {
+        int index = graph.indexOf(edge);
+        return index == CSRGraph.NOT_CONTAINED ? null : edgeVertices[index];
+    }
+
+    /**
+     * @return the vertex, whose turns enter the leaving edges of the given node; null if the node is not part of the
+     * graph
+     */
+    public Vertex getDeparture(Node node) {
+        int index = graph.indexOf(node);
+        return index == CSRGraph.NOT_CONTAINED ? null : departures[index];
+    }
+
+    /**
+     * @return the vertex, that is reached from the incoming edges of the given node; null if the node is not part of
+     * the graph
+     */
+    public Vertex getArrival(Node node) {
+        int index = graph.indexOf(node);
+        return index == CSRGraph.NOT_CONTAINED ? null : arrivals[index];
+    }
+
+
+    /**
+     * A directed edge of the graph or the departure or arrival of a node.
+     */
+    public final class Vertex implements ShortestPathNode<Turn> {
+        private final int id;
+        private final int edge;    // -1 for departures and arrivals
+        private final int node;    // destination of the edge
+        private final Coordinate coordinate;
+        private Set<Turn> leaving;
+        private Set<Turn> incoming;
+
+        private Vertex(int id, int edge, int node, Coordinate coordinate) {
+            this.id         = id;
+            this.edge       = edge;
+            this.node       = node;
+            this.coordinate = coordinate;
+        }
+
+        private void setTurns(List<List<Turn>> leaving, List<List<Turn>> incoming) {
+            this.leaving  = new ArraySet<>(leaving.get(id).toArray(new Turn[0]));
+            this.incoming = new ArraySet<>(incoming.get(id).toArray(new Turn[0]));
+        }
+
+        /**
+         * @return the edge index of this vertex; {@code -1} if this vertex is a departure or arrival
+         */
+        public int getEdgeIndex() {
+            return edge;
+        }
+
+        /**
+         * @return the edge of this vertex; null if this vertex is a departure or arrival
+         */
+        public DirectedEdge getEdge() {
+            return edge < 0 ? null : graph.getEdge(edge);
+        }
+
+        /**
+         * @return the node index of this vertex, which is the destination of its edge
+         */
+        public int getNodeIndex() {
+            return node;
+        }
+
+        /**
+         * Addition to superclass: The turns do not depend on the incoming turn, which is ignored.
+         */
+        @Override
+        public Set<Turn> getLeavingEdges(Turn incoming) {
+            return leaving;
+        }
+
+        /**
+         * Addition to superclass: The turns do not depend on the leaving turn, which is ignored.
+         */
+        @Override
+        public Set<Turn> getIncomingEdges(Turn leaving) {
+            return incoming;
+        }
+
+        @Override
+        public Coordinate getCoordinate() {
+            return coordinate;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            if (edge >= 0)
+                return "Vertex(edge " + graph.getEdgeId(edge) + ")";
+            return (this == departures[node] ? "Departure" : "Arrival") + "(node " + graph.getNodeId(node) + ")";
+        }
+    }
+
+    /**
+     * A turn into the edge of its destination vertex, or the arrival at a node.
+     */
+    public final class Turn implements ShortestPathEdge<Vertex> {
+        private final int    id;
+        private final Vertex origin;
+        private final Vertex destination;
+
+        private Turn(int id, Vertex origin, Vertex destination) {
+            this.id          = id;
+            this.origin      = origin;
+            this.destination = destination;
+        }
+
+        /**
+         * @return the entered edge; null if this turn is an arrival
+         */
+        public DirectedEdge getEdge() {
+            return destination.getEdge();
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * @return the length of the entered edge; 0 for arrivals
+         */
+        @Override
+        public int getLength() {
+            return destination.edge < 0 ? 0 : graph.getLength(destination.edge);
+        }
+
+        /**
+         * @return the time cost of the entered edge; 0 for arrivals
+         */
+        @Override
+        public double getTimeCostMillis() {
+            return destination.edge < 0 ? 0 : graph.getTimeCostMillis(destination.edge);
+        }
+
+        @Override
+        public Vertex getOrigin() {
+            return origin;
+        }
+
+        @Override
+        public Vertex getDestination() {
+            return destination;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "Turn(" + origin + " -> " + destination + ")";
+        }
+    }
+
+
+    /**
+     * Immutable set of few, distinct elements backed by an array.
+     */
+    private static final class ArraySet<T> extends AbstractSet<T> {
+        private final T[] elements;
+
+        private ArraySet(T[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            for (T element : elements)
+                if (element == o)
+                    return true;
+            return false;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < elements.length;
+                }
+
+                @Override
+                public T next() {
+                    if (next >= elements.length)
+                        throw new NoSuchElementException();
+                    return elements[next++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package microtrafficsim.core.shortestpath.turns;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+
+import java.util.Stack;
+
+
+/**
+ * <p>
+ * Runs any shortest path algorithm on the {@link TurnExpandedGraph} of a graph and translates its results back to
+ * {@link DirectedEdge}s, so e.g. {@link microtrafficsim.core.shortestpath.astar.AStars#fastestPathAStar(double,
+ * double) AStars.fastestPathAStar(...)} can be used unchanged. The path between two nodes is searched from the
+ * start's departure vertex to the end's arrival vertex.
+ *
+ * <p>
+ * In contrast to searching on {@link Node}s directly, the turns are respected exactly (every edge is settled instead
+ * of every node) and the search never calls {@link Node#getLeavingEdges(DirectedEdge)}.
+ *
+ * <p>
+ * If this instance is created for a {@link Graph}, its turn-expanded graph is created in {@link #preprocess()}.
+ * Calling {@link #preprocess()} again recreates it, e.g. after the graph has been changed.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TurnExpandedShortestPath implements ShortestPathAlgorithm<Node, DirectedEdge> {
+
+    private final Graph graph;
+    private final ShortestPathAlgorithm<TurnExpandedGraph.Vertex, TurnExpandedGraph.Turn> algorithm;
+    private volatile TurnExpandedGraph turnGraph;
+
+
+    /**
+     * The turn-expanded graph is created in {@link #preprocess()}.
+     *
+     * @param algorithm runs on the turn-expanded graph; it is preprocessed in {@link #preprocess()} as well
+     */
+    public TurnExpandedShortestPath(Graph graph,
+                                    ShortestPathAlgorithm<TurnExpandedGraph.Vertex, TurnExpandedGraph.Turn> algorithm)
+    {
+        this.graph     = graph;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Uses the given, already created turn-expanded graph.
+     */
+    public TurnExpandedShortestPath(TurnExpandedGraph turnGraph,
+                                    ShortestPathAlgorithm<TurnExpandedGraph.Vertex, TurnExpandedGraph.Turn> algorithm)
+    {
+        this((Graph) null, algorithm);
+        this.turnGraph = turnGraph;
+    }
+
+
+    /**
+     * @return the turn-expanded graph; {@code null} if not preprocessed yet
+     */
+    public TurnExpandedGraph getTurnExpandedGraph() {
+        return turnGraph;
+    }
+
+    public ShortestPathAlgorithm<TurnExpandedGraph.Vertex, TurnExpandedGraph.Turn> getAlgorithm() {
+        return algorithm;
+    }
+
+
+    /*
+    |===========================|
+    | (i) ShortestPathAlgorithm |
+    |===========================|
+    */
+    @Override
+    public boolean isPreprocessed() {
+        return turnGraph != null && algorithm.isPreprocessed();
+    }
+
+    /**
+     * Addition to superclass: (Re-)creates the turn-expanded graph if this instance has been created for a graph and
+     * preprocesses the algorithm.
+     */
+    @Override
+    public synchronized void preprocess() {
+        if (graph != null)
+            turnGraph = new TurnExpandedGraph(graph);
+        algorithm.preprocess();
+    }
+
+    /**
+     * Addition to superclass: If this instance is not preprocessed yet, {@link #preprocess()} is called.
+     */
+    @Override
+    public void findShortestPath(Node start, Node end, Stack<? super DirectedEdge> shortestPath) {
+        if (start == end)
+            return;
+
+        TurnExpandedGraph turnGraph = this.turnGraph;
+        if (turnGraph == null) {
+            preprocess();
+            turnGraph = this.turnGraph;
+        }
+
+        TurnExpandedGraph.Vertex departure = turnGraph.getDeparture(start);
+        TurnExpandedGraph.Vertex arrival   = turnGraph.getArrival(end);
+        if (departure == null || arrival == null)
+            return;
+
+        Stack<TurnExpandedGraph.Turn> turns = new Stack<>();
+        algorithm.findShortestPath(departure, arrival, turns);
+
+        // from bottom (arrival) to top (departure), so the first edge ends up on top
+        for (TurnExpandedGraph.Turn turn : turns) {
+            DirectedEdge edge = turn.getEdge();
+            if (edge != null)
+                shortestPath.push(edge);
+        }
+    }
+}
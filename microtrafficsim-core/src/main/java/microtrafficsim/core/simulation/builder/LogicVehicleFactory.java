@@ -3,11 +3,16 @@ package microtrafficsim.core.simulation.builder;
 import microtrafficsim.core.logic.routes.Route;
 import microtrafficsim.core.logic.vehicles.driver.BasicDriver;
 import microtrafficsim.core.logic.vehicles.driver.Driver;
+import microtrafficsim.core.logic.vehicles.driver.StoredDriver;
+import microtrafficsim.core.logic.vehicles.machines.StoredVehicle;
 import microtrafficsim.core.logic.vehicles.machines.Vehicle;
 import microtrafficsim.core.logic.vehicles.machines.impl.Car;
 import microtrafficsim.core.logic.vehicles.machines.impl.MonitoredCar;
+import microtrafficsim.core.logic.vehicles.machines.impl.MonitoredStoredCar;
+import microtrafficsim.core.logic.vehicles.machines.impl.StoredCar;
 import microtrafficsim.core.simulation.configs.SimulationConfig;
 import microtrafficsim.core.simulation.scenarios.Scenario;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
 
 /**
  * @author Dominic Parga Cacheiro
@@ -35,4 +40,36 @@ public interface LogicVehicleFactory {
 
         return vehicle;
     }
+
+    /**
+     * Creates the same vehicles as {@link #defaultCreation(long, long, Scenario, Route)}, but their dynamic state is
+     * stored in the scenario's vehicle container, which has to be a {@link VehicleStateStore}.
+     *
+     * @throws IllegalArgumentException if the scenario's vehicle container is no {@code VehicleStateStore}
+     */
+    static Vehicle storedCreation(long id, long seed, Scenario scenario, Route metaRoute) {
+        if (!(scenario.getVehicleContainer() instanceof VehicleStateStore))
+            throw new IllegalArgumentException("The scenario's vehicle container is no "
+                    + VehicleStateStore.class.getSimpleName() + ".");
+
+        SimulationConfig config = scenario.getConfig();
+        VehicleStateStore store = (VehicleStateStore) scenario.getVehicleContainer();
+
+        StoredVehicle vehicle;
+        if (metaRoute.isMonitored()) {
+            vehicle = new MonitoredStoredCar(id, config.visualization.style, store);
+        } else {
+            vehicle = new StoredCar(id, config.visualization.style, store);
+        }
+        BasicDriver.InitSetup setup = new BasicDriver.InitSetup(seed);
+        setup.spawnDelay = metaRoute.getSpawnDelay();
+        Driver driver = new StoredDriver(setup, vehicle);
+        driver.setRoute(metaRoute);
+        driver.setVehicle(vehicle);
+        vehicle.setDriver(driver);
+
+        // the store gets state changes directly from its vehicles
+
+        return vehicle;
+    }
 }
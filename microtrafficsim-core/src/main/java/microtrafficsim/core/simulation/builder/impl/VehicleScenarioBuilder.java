@@ -3,12 +3,16 @@ package microtrafficsim.core.simulation.builder.impl;
 import microtrafficsim.core.entities.vehicle.VehicleEntity;
 import microtrafficsim.core.entities.vehicle.VisualizationVehicleEntity;
 import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.routes.CompactRoute;
 import microtrafficsim.core.logic.routes.MetaRoute;
 import microtrafficsim.core.logic.routes.Route;
-import microtrafficsim.core.logic.routes.StackRoute;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
 import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.shortestpath.OneToManyShortestPathAlgorithm;
 import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.cache.CachingShortestPathAlgorithm;
 import microtrafficsim.core.simulation.builder.LogicVehicleFactory;
 import microtrafficsim.core.simulation.builder.ScenarioBuilder;
 import microtrafficsim.core.simulation.configs.SimulationConfig;
@@ -24,8 +28,15 @@ import microtrafficsim.utils.progressable.ProgressListener;
 import microtrafficsim.utils.strings.StringUtils;
 import org.slf4j.Logger;
 
-import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Stack;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * @author Dominic Parga Cacheiro
@@ -156,7 +167,7 @@ public class VehicleScenarioBuilder implements ScenarioBuilder, Seeded, Resettab
     private void multiThreadedVehicleRouteAssignment(Scenario scenario, ProgressListener listener)
             throws InterruptedException {
         lastPercentage = 0;
-        TreeMap<Long, ShortestPathAlgorithm<Node, DirectedEdge>> vehicleScouts = new TreeMap<>();
+        RouteBatches batches = new RouteBatches(scenario.getGraph());
 
         // create vehicles with empty routes and add them to the scenario (sequentially for determinism)
         for (Route metaRoute : scenario.getRoutes()) {  // "synchronized"
@@ -166,58 +177,66 @@ public class VehicleScenarioBuilder implements ScenarioBuilder, Seeded, Resettab
             Vehicle vehicle = createVehicle(scenario, metaRoute.clone());
             scenario.getVehicleContainer().addVehicle(vehicle);
 
-            vehicleScouts.put(vehicle.getId(), scenario.getScoutFactory().get());
+            ShortestPathAlgorithm<Node, DirectedEdge> scout = scenario.getScoutFactory().get();
+            if (metaRoute instanceof MetaRoute)
+                batches.add(scout, metaRoute, vehicle);
+            else
+                vehicle.registerInGraph();
         }
 
-        // calculate routes multithreaded
+        // calculate routes multithreaded, one task per scout and origin
         final SimulationConfig config = scenario.getConfig();
         final AtomicInteger finishedVehiclesCount = new AtomicInteger(0);
         ThreadDelegator delegator = new StaticThreadDelegator(config.multiThreading.nThreads);
         delegator.doTask(
-                vehicle -> {
-                    Route metaRoute = vehicle.getDriver().getRoute();
-                    if (metaRoute instanceof MetaRoute) {
-                        StackRoute route = new StackRoute(metaRoute.getSpawnDelay());
-                        route.setMonitored(metaRoute.isMonitored());
-
-                        ShortestPathAlgorithm<Node, DirectedEdge> scout = vehicleScouts.get(vehicle.getId());
-                        scout.findShortestPath(metaRoute.getOrigin(), metaRoute.getDestination(), route);
-
-                        vehicle.getDriver().setRoute(route);
+                batch -> {
+                    batch.findRoutes();
+                    for (int i = 0; i < batch.size(); i++) {
+                        Vehicle vehicle = batch.vehicles.get(i);
+                        vehicle.getDriver().setRoute(batch.routes.get(i));
+                        vehicle.registerInGraph();
                     }
 
-                    vehicle.registerInGraph();
-                    int bla = finishedVehiclesCount.incrementAndGet();
-                    logProgress(bla, config.maxVehicleCount, listener);
+                    int finished = finishedVehiclesCount.addAndGet(batch.size());
+                    logProgress(finished, config.maxVehicleCount, listener);
                 },
-                scenario.getVehicleContainer().getVehicles().iterator(),
-                config.multiThreading.vehiclesPerRunnable);
+                batches.iterator(),
+                1);
     }
 
     private void singleThreadedVehicleRouteAssignment(Scenario scenario, ProgressListener listener)
             throws InterruptedException {
         lastPercentage = 0;
+        RouteBatches batches = new RouteBatches(scenario.getGraph());
 
-        int vehicleCount = 0;
+        // collect routes, meta routes are replaced by the routes calculated below
+        ArrayList<Supplier<Route>> routes = new ArrayList<>(scenario.getRoutes().size());
         for (Route metaRoute : scenario.getRoutes()) {
             if (Thread.interrupted())
                 throw new InterruptedException();
 
-            if (metaRoute instanceof MetaRoute) {
-                StackRoute route = new StackRoute(metaRoute.getSpawnDelay());
-                route.setMonitored(metaRoute.isMonitored());
+            if (metaRoute instanceof MetaRoute)
+                routes.add(batches.add(scenario.getScoutFactory().get(), metaRoute, null));
+            else
+                routes.add(() -> metaRoute);
+        }
 
-                ShortestPathAlgorithm<Node, DirectedEdge> scout = scenario.getScoutFactory().get();
-                scout.findShortestPath(metaRoute.getOrigin(), metaRoute.getDestination(), route);
+        // calculate routes, one search per scout and origin if supported
+        int finishedRoutesCount = 0;
+        for (RouteBatch batch : batches) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
 
-                metaRoute = route;
-            }
-            Vehicle vehicle = createVehicle(scenario, metaRoute.clone());
+            batch.findRoutes();
+            finishedRoutesCount += batch.size();
+            logProgress(finishedRoutesCount, scenario.getConfig().maxVehicleCount, listener);
+        }
+
+        // create vehicles in the order of the routes
+        for (Supplier<Route> route : routes) {
+            Vehicle vehicle = createVehicle(scenario, route.get().clone());
             scenario.getVehicleContainer().addVehicle(vehicle);
             vehicle.registerInGraph();
-            logProgress(vehicleCount, scenario.getConfig().maxVehicleCount, listener);
-
-            vehicleCount++;
         }
     }
 
@@ -269,4 +288,116 @@ public class VehicleScenarioBuilder implements ScenarioBuilder, Seeded, Resettab
     public long getSeed() {
         return seedGenerator.getSeed();
     }
+
+
+    /**
+     * Groups the routes by their scout and origin, so routes sharing both can be calculated by one search of a
+     * {@link OneToManyShortestPathAlgorithm}. The groups keep the order of their first route.
+     */
+    private static class RouteBatches implements Iterable<RouteBatch> {
+        private final LinkedHashMap<ShortestPathAlgorithm<Node, DirectedEdge>, LinkedHashMap<Node, RouteBatch>> batches
+                = new LinkedHashMap<>();
+        private final Graph graph;
+        private CSRGraph    csrGraph;
+
+        private RouteBatches(Graph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * @return the view the {@link CompactRoute}s of non-caching scouts refer to; it is created on first call
+         */
+        private synchronized CSRGraph getCSRGraph() {
+            if (csrGraph == null)
+                csrGraph = new CSRGraph(graph);
+            return csrGraph;
+        }
+
+        /**
+         * @param vehicle the vehicle getting the route; may be null
+         * @return the route, that is available after {@link RouteBatch#findRoutes()}
+         */
+        private Supplier<Route> add(ShortestPathAlgorithm<Node, DirectedEdge> scout, Route metaRoute, Vehicle vehicle) {
+            RouteBatch batch = batches
+                    .computeIfAbsent(scout, key -> new LinkedHashMap<>())
+                    .computeIfAbsent(metaRoute.getOrigin(), origin -> new RouteBatch(this, scout, origin));
+
+            int index = batch.size();
+            batch.metaRoutes.add(metaRoute);
+            batch.vehicles.add(vehicle);
+            return () -> batch.routes.get(index);
+        }
+
+        @Override
+        public Iterator<RouteBatch> iterator() {
+            return batches.values().stream()
+                    .flatMap(originBatches -> originBatches.values().stream())
+                    .iterator();
+        }
+    }
+
+    /**
+     * Routes sharing their scout and origin
+     */
+    private static class RouteBatch {
+        private final RouteBatches                              batches;
+        private final ShortestPathAlgorithm<Node, DirectedEdge> scout;
+        private final Node                                      origin;
+        private final ArrayList<Route>   metaRoutes = new ArrayList<>();
+        private final ArrayList<Vehicle> vehicles   = new ArrayList<>();
+        private List<CompactRoute>       routes;
+
+        private RouteBatch(RouteBatches batches, ShortestPathAlgorithm<Node, DirectedEdge> scout, Node origin) {
+            this.batches = batches;
+            this.scout   = scout;
+            this.origin  = origin;
+        }
+
+        private int size() {
+            return metaRoutes.size();
+        }
+
+        /**
+         * Calculates the routes of the meta routes. Routes with the same destination share their edges; caching scouts
+         * share them even between batches.
+         */
+        private void findRoutes() {
+            ArrayList<Node> destinations = new ArrayList<>(size());
+            for (Route metaRoute : metaRoutes)
+                destinations.add(metaRoute.getDestination());
+
+            if (scout instanceof CachingShortestPathAlgorithm) {
+                routes = ((CachingShortestPathAlgorithm) scout).findRoutes(origin, destinations);
+            } else {
+                ArrayList<Node> distinct = new ArrayList<>(new LinkedHashSet<>(destinations));
+                ArrayList<Stack<DirectedEdge>> paths = new ArrayList<>(distinct.size());
+                for (int i = 0; i < distinct.size(); i++)
+                    paths.add(new Stack<>());
+
+                if (distinct.size() > 1 && scout instanceof OneToManyShortestPathAlgorithm) {
+                    ((OneToManyShortestPathAlgorithm<Node, DirectedEdge>) scout)
+                            .findShortestPaths(origin, distinct, paths);
+                } else {
+                    for (int i = 0; i < distinct.size(); i++)
+                        scout.findShortestPath(origin, distinct.get(i), paths.get(i));
+                }
+
+                CSRGraph graph = batches.getCSRGraph();
+                HashMap<Node, int[]> edges = new HashMap<>();
+                for (int i = 0; i < distinct.size(); i++)
+                    edges.put(distinct.get(i), CompactRoute.indicesOfStack(graph, paths.get(i)));
+
+                routes = new ArrayList<>(size());
+                for (Node destination : destinations)
+                    routes.add(new CompactRoute(graph, edges.get(destination)));
+            }
+
+            for (int i = 0; i < size(); i++) {
+                Route route     = routes.get(i);
+                Route metaRoute = metaRoutes.get(i);
+                route.setSpawnDelay(metaRoute.getSpawnDelay());
+                route.setMonitored(metaRoute.isMonitored());
+            }
+        }
+    }
 }
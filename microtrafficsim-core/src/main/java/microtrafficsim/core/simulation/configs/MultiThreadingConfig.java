@@ -10,6 +10,7 @@ public final class MultiThreadingConfig {
     public int nThreads;
     public int vehiclesPerRunnable;
     public int nodesPerThread;
+    public StepExecutorType stepExecutorType;
 
     /**
      * Just calls {@link #setup()}.
@@ -25,6 +26,7 @@ public final class MultiThreadingConfig {
         nThreads            = 8;
         vehiclesPerRunnable = 300;
         nodesPerThread      = 500;
+        stepExecutorType    = StepExecutorType.THREAD_DELEGATION;
     }
 
     /**
@@ -36,5 +38,25 @@ public final class MultiThreadingConfig {
         nThreads            = config.nThreads;
         vehiclesPerRunnable = config.vehiclesPerRunnable;
         nodesPerThread      = config.nodesPerThread;
+        stepExecutorType    = config.stepExecutorType;
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Defines how the simulation steps are distributed on {@link #nThreads} threads. If {@code nThreads == 1}, the
+     * simulation steps are executed single-threaded anyway.
+     */
+    public enum StepExecutorType {
+        /**
+         * Every phase of a simulation step is split into tasks of {@link #vehiclesPerRunnable} vehicles or
+         * {@link #nodesPerThread} nodes, which are submitted to a thread pool.
+         */
+        THREAD_DELEGATION,
+
+        /**
+         * Worker threads live as long as the scenario. Every worker executes a fixed slice of all vehicles or nodes
+         * and the phases are separated by a barrier.
+         */
+        PHASE_BARRIER
+    }
+}
@@ -0,0 +1,70 @@
+package microtrafficsim.core.simulation.configs;
+
+
+/**
+ * This class contains configurations for rerouting vehicles while they are driving, see
+ * {@link microtrafficsim.core.simulation.rerouting.Rerouter Rerouter}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public final class ReroutingConfig {
+    public boolean enabled;
+    public int     updateInterval;
+    public double  smoothingFactor;
+    public double  minVelocityFactor;
+    public double  changeThreshold;
+    public int     expansionsPerStep;
+    public long    maxSearchTreeMemory;
+    public double  minImprovement;
+
+    /**
+     * Just calls {@link #setup()}.
+     */
+    public ReroutingConfig() {
+        setup();
+    }
+
+    /**
+     * <p>
+     * Setup the parameters of this config file.<br>
+     * &bull; {@link #enabled} rerouting is disabled per default <br>
+     * &bull; {@link #updateInterval} number of simulation steps between two updates of the travel time estimates <br>
+     * &bull; {@link #smoothingFactor} weight of a new travel time sample in the exponential smoothing, in (0, 1] <br>
+     * &bull; {@link #minVelocityFactor} lower bound of the estimated velocity relative to the free-flow velocity, so
+     * jammed edges stay passable <br>
+     * &bull; {@link #changeThreshold} relative difference between estimate and edge weight, that causes replanning
+     * <br>
+     * &bull; {@link #expansionsPerStep} maximum number of search states expanded for replanning per simulation step
+     * <br>
+     * &bull; {@link #maxSearchTreeMemory} maximum memory in megabytes of the search trees kept for repairing; there
+     * is one tree per destination <br>
+     * &bull; {@link #minImprovement} relative improvement of the remaining travel time, that a new route needs to
+     * replace the old one
+     */
+    public void setup() {
+        enabled             = false;
+        updateInterval      = 10;
+        smoothingFactor     = 0.5;
+        minVelocityFactor   = 0.05;
+        changeThreshold     = 0.2;
+        expansionsPerStep   = 100000;
+        maxSearchTreeMemory = 256;
+        minImprovement      = 0.1;
+    }
+
+    /**
+     * Updates the parameter of this config file.
+     *
+     * @param config All values of the new config instance are set to this config-values.
+     */
+    public void update(ReroutingConfig config) {
+        enabled             = config.enabled;
+        updateInterval      = config.updateInterval;
+        smoothingFactor     = config.smoothingFactor;
+        minVelocityFactor   = config.minVelocityFactor;
+        changeThreshold     = config.changeThreshold;
+        expansionsPerStep   = config.expansionsPerStep;
+        maxSearchTreeMemory = config.maxSearchTreeMemory;
+        minImprovement      = config.minImprovement;
+    }
+}
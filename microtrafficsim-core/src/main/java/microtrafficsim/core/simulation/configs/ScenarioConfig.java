@@ -11,11 +11,18 @@ import java.util.HashMap;
  * This class isolates the scenario attributes from the other config
  * parameters to guarantee better overview.
  *
+ * <p>
+ * {@link #batchRouting} lets the random scenarios route with dense A*s,
+ * that calculate one shortest path tree per origin. This speeds up the
+ * preparation of scenarios with many routes, but changes the routes a
+ * seed produces, because paths of equal weight are chosen differently.
+ *
  * @author Dominic Parga Cacheiro
  */
 public final class ScenarioConfig {
     public boolean showAreasWhileSimulating;
     public boolean nodesAreWeightedUniformly;
+    public boolean batchRouting;
     public final HashMap<Class<? extends Scenario>, Descriptor<Class<? extends Scenario>>> supportedClasses;
     public Descriptor<Class<? extends Scenario>> selectedClass;
 
@@ -33,6 +40,7 @@ public final class ScenarioConfig {
     private void setup() {
         showAreasWhileSimulating = false;
         nodesAreWeightedUniformly = true;
+        batchRouting = false;
     }
 
     /**
@@ -43,6 +51,7 @@ public final class ScenarioConfig {
     public void update(ScenarioConfig config) {
         showAreasWhileSimulating = config.showAreasWhileSimulating;
         nodesAreWeightedUniformly = config.nodesAreWeightedUniformly;
+        batchRouting = config.batchRouting;
 
         supportedClasses.clear();
         supportedClasses.putAll(config.supportedClasses);
@@ -1,5 +1,7 @@
 package microtrafficsim.core.simulation.configs;
 
+import microtrafficsim.core.logic.streets.LaneContainer;
+import microtrafficsim.core.logic.streets.NavigableSkipListLaneContainer;
 import microtrafficsim.core.map.StreetType;
 import microtrafficsim.math.random.distributions.impl.Random;
 
@@ -11,13 +13,16 @@ import java.util.HashMap;
  * This class contains the following simulation parameters/constants like the street priorities. <br>
  * &bull; {@link #speedup} a simple factor defining, how many steps should be calculated per second (depending on the cpu etc.,
  * the real speedup could be less) <br>
- * &bull; {@link #seed} this seed should be used for random variables and similar tasks
+ * &bull; {@link #seed} this seed should be used for random variables and similar tasks. The routes it produces also
+ * depend on {@link ScenarioConfig#batchRouting} <br>
  * &bull; {@link #scenario} This configuration object contains attributes about the scenario <br>
  * &bull; {@link #crossingLogic} This configuration object contains attributes relevant for the crossing logic <br>
  * &bull; {@link #visualization} This configuration object contains attributes relevant for the visualization <br>
  * &bull; {@link #maxVehicleCount} The initial number of vehicles on the streetgraph <br>
  * &bull; {@link #streetPriorityLevel} This is a function returning the street priority depending on the street type <br>
- * &bull; {@link #multiThreading} This configuration object contains attributes relevant for multi-threading
+ * &bull; {@link #laneContainerFactory} This factory creates the data structure storing the vehicles of one edge <br>
+ * &bull; {@link #multiThreading} This configuration object contains attributes relevant for multi-threading <br>
+ * &bull; {@link #rerouting} This configuration object contains attributes relevant for rerouting while driving
  *
  * @author Jan-Oliver Schmidt, Dominic Parga Cacheiro
  */
@@ -43,9 +48,15 @@ public final class SimulationConfig {
     /* street type priorities */
     public StreetPriorityFunction streetPriorityLevel;
 
+    /* lanes */
+    public LaneContainer.Factory laneContainerFactory;
+
     /* multithreading */
     public final MultiThreadingConfig multiThreading;
 
+    /* rerouting */
+    public final ReroutingConfig rerouting;
+
     /**
      * Just calls {@link #setup()}.
      */
@@ -55,6 +66,7 @@ public final class SimulationConfig {
         crossingLogic   = new CrossingLogicConfig();
         visualization   = new VisualizationConfig();
         multiThreading  = new MultiThreadingConfig();
+        rerouting       = new ReroutingConfig();
         setup();
     }
 
@@ -72,7 +84,8 @@ public final class SimulationConfig {
      * Resets the parameter of this config file. This method keeps references of<br>
      * &bull; {@link VisualizationConfig}<br>
      * &bull; {@link CrossingLogicConfig}<br>
-     * &bull; {@link MultiThreadingConfig}
+     * &bull; {@link MultiThreadingConfig}<br>
+     * &bull; {@link ReroutingConfig}
      */
     private void setup() {
         // 1/3,6 = 25/90 = 0,277... => 0,277 m/cell means 1 cell/s = 1 km/h
@@ -84,6 +97,8 @@ public final class SimulationConfig {
         maxVehicleCount = 100;
         // street type priorities
         streetPriorityLevel = new DefaultStreetPriorityFunction();
+        // lanes
+        laneContainerFactory = (nLanes, nCells) -> new NavigableSkipListLaneContainer(nLanes);
     }
 
     /**
@@ -91,6 +106,7 @@ public final class SimulationConfig {
      * &bull; {@link VisualizationConfig}<br>
      * &bull; {@link CrossingLogicConfig}<br>
      * &bull; {@link MultiThreadingConfig}<br>
+     * &bull; {@link ReroutingConfig}<br>
      *
      * @param config All values of the new config instance are set to this config-values.
      */
@@ -110,8 +126,12 @@ public final class SimulationConfig {
         maxVehicleCount = config.maxVehicleCount;
         /* street type priorities */
         streetPriorityLevel = config.streetPriorityLevel;
+        /* lanes */
+        laneContainerFactory = config.laneContainerFactory;
         /* multithreading */
         multiThreading.update(config.multiThreading);
+        /* rerouting */
+        rerouting.update(config.rerouting);
     }
 
 
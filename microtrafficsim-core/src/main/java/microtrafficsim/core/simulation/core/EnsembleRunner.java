@@ -0,0 +1,123 @@
+package microtrafficsim.core.simulation.core;
+
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.StreetGraphTopology;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.simulation.scenarios.Scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * <p>
+ * Runs the same scenario with many seeds concurrently on one map, e.g. to get confidence intervals. The map is given
+ * as {@link StreetGraphTopology}, so it is parsed only once; every run gets its own graph instance created by
+ * {@link StreetGraphTopology#instantiate(SimulationConfig)} holding the run's dynamic state.
+ *
+ * <p>
+ * Every run uses a copy of the given config with its own seed. The runs themselves are the unit of parallelism, so
+ * every run is simulated single-threaded ({@code multiThreading.nThreads = 1}) and the runs are distributed over
+ * {@code nThreads} threads. Hence, the result of every seed is the same as running it alone single-threaded.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class EnsembleRunner {
+
+    private final StreetGraphTopology topology;
+    private final SimulationConfig    config;
+    private final ScenarioFactory     scenarioFactory;
+    private final int                 nThreads;
+
+
+    /**
+     * @param config template for the config of every run; it is copied, so later changes have no effect
+     * @param nThreads number of runs executed concurrently
+     */
+    public EnsembleRunner(StreetGraphTopology topology,
+                          SimulationConfig config,
+                          ScenarioFactory scenarioFactory,
+                          int nThreads)
+    {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("The ensemble runner needs at least one thread.");
+
+        this.topology        = topology;
+        this.config          = new SimulationConfig(config);
+        this.scenarioFactory = scenarioFactory;
+        this.nThreads        = nThreads;
+    }
+
+
+    /**
+     * Runs {@code steps} simulation steps for every seed and blocks until all runs have finished.
+     *
+     * @return the results of all runs in the order of the given seeds
+     * @throws InterruptedException if the calling thread has been interrupted; all runs are cancelled
+     */
+    public EnsembleSummary run(long[] seeds, int steps) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(nThreads, Math.max(1, seeds.length)));
+        try {
+            long start = System.nanoTime();
+
+            List<Future<EnsembleSummary.SeedRun>> futures = new ArrayList<>(seeds.length);
+            for (long seed : seeds)
+                futures.add(pool.submit(() -> runSeed(seed, steps)));
+
+            List<EnsembleSummary.SeedRun> runs = new ArrayList<>(seeds.length);
+            for (Future<EnsembleSummary.SeedRun> future : futures) {
+                try {
+                    runs.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw new RuntimeException(cause);
+                }
+            }
+
+            return new EnsembleSummary(runs, System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private EnsembleSummary.SeedRun runSeed(long seed, int steps) throws InterruptedException {
+        SimulationConfig runConfig = new SimulationConfig(config);
+        runConfig.seed                    = seed;
+        runConfig.multiThreading.nThreads = 1;
+
+        Graph graph = topology.instantiate(runConfig);
+        Scenario scenario = scenarioFactory.create(runConfig, graph);
+
+        VehicleSimulation simulation = new VehicleSimulation();
+        simulation.setAndInitPreparedScenario(scenario);
+        RunSummary summary = simulation.runSteps(steps);
+        int remainingVehicles = scenario.getVehicleContainer().getVehicleCount();
+        simulation.removeCurrentScenario();
+
+        return new EnsembleSummary.SeedRun(seed, summary, remainingVehicles);
+    }
+
+
+    /**
+     * Creates the scenario of one run.
+     */
+    @FunctionalInterface
+    public interface ScenarioFactory {
+
+        /**
+         * @param config the run's config containing its seed
+         * @param graph the run's own graph instance
+         * @return a prepared scenario
+         * @throws InterruptedException if the preparation has been interrupted
+         */
+        Scenario create(SimulationConfig config, Graph graph) throws InterruptedException;
+    }
+}
@@ -0,0 +1,134 @@
+package microtrafficsim.core.simulation.core;
+
+import microtrafficsim.utils.strings.StringUtils;
+import microtrafficsim.utils.strings.builder.LevelStringBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Result of {@link EnsembleRunner#run(long[], int)}: the results of every seed and the aggregate throughput of all
+ * runs. All times are in nanoseconds.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class EnsembleSummary {
+    private final List<SeedRun> runs;
+    private final long          wallTime;
+    private final long          steps;
+    private final long          vehicleSteps;
+
+    /**
+     * @param runs results of every seed
+     * @param wallTime duration of the whole ensemble in ns
+     */
+    public EnsembleSummary(List<SeedRun> runs, long wallTime) {
+        this.runs     = Collections.unmodifiableList(new ArrayList<>(runs));
+        this.wallTime = wallTime;
+
+        long steps        = 0;
+        long vehicleSteps = 0;
+        for (SeedRun run : runs) {
+            steps        += run.getSummary().getSteps();
+            vehicleSteps += run.getSummary().getVehicleSteps();
+        }
+        this.steps        = steps;
+        this.vehicleSteps = vehicleSteps;
+    }
+
+
+    public List<SeedRun> getRuns() {
+        return runs;
+    }
+
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * @return sum of the executed steps over all runs
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return sum of the vehicle steps over all runs
+     */
+    public long getVehicleSteps() {
+        return vehicleSteps;
+    }
+
+    /**
+     * @return simulation steps of all runs per second of the ensemble's wall time
+     */
+    public double getStepsPerSecond() {
+        return perSecond(steps);
+    }
+
+    /**
+     * @return vehicle steps of all runs per second of the ensemble's wall time
+     */
+    public double getVehicleStepsPerSecond() {
+        return perSecond(vehicleSteps);
+    }
+
+    private double perSecond(long count) {
+        return wallTime == 0 ? 0 : count * 1e9 / wallTime;
+    }
+
+
+    @Override
+    public String toString() {
+        LevelStringBuilder strBuilder = new LevelStringBuilder()
+                .setDefaultLevelSubString()
+                .setDefaultLevelSeparator();
+        strBuilder.appendln("<" + getClass().getSimpleName() + ">").incLevel();
+        {
+            strBuilder.appendln("runs              = " + runs.size());
+            strBuilder.appendln(StringUtils.buildTimeString("wall time         = ", wallTime, "ns").toString());
+            strBuilder.appendln(String.format("steps/s           = %.2f", getStepsPerSecond()));
+            strBuilder.appendln(String.format("vehicle steps/s   = %.2f", getVehicleStepsPerSecond()));
+            strBuilder.appendln("<seeds>").incLevel();
+            for (SeedRun run : runs)
+                strBuilder.appendln(String.format("%d: vehicle steps = %d, remaining vehicles = %d",
+                        run.getSeed(), run.getSummary().getVehicleSteps(), run.getRemainingVehicles()));
+            strBuilder.decLevel().appendln("</seeds>");
+        }
+        strBuilder.decLevel().append("</" + getClass().getSimpleName() + ">");
+        return strBuilder.toString();
+    }
+
+
+    /**
+     * Result of the run of one seed
+     */
+    public static class SeedRun {
+        private final long       seed;
+        private final RunSummary summary;
+        private final int        remainingVehicles;
+
+        /**
+         * @param remainingVehicles number of vehicles, that have not despawned at the end of the run
+         */
+        public SeedRun(long seed, RunSummary summary, int remainingVehicles) {
+            this.seed              = seed;
+            this.summary           = summary;
+            this.remainingVehicles = remainingVehicles;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public RunSummary getSummary() {
+            return summary;
+        }
+
+        public int getRemainingVehicles() {
+            return remainingVehicles;
+        }
+    }
+}
@@ -7,7 +7,6 @@ import java.util.List;
 import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.logic.vehicles.machines.MonitoredVehicle;
 import microtrafficsim.core.logic.vehicles.machines.Vehicle;
-import microtrafficsim.core.simulation.scenarios.Scenario;
 import microtrafficsim.utils.Resettable;
 
 /**
@@ -19,28 +18,6 @@ public class MonitoringVehicleSimulation extends VehicleSimulation implements Re
     private List<VehicleStamp> vehicleStamps = new LinkedList<>();
 
 
-    @Override
-    protected void unsecureDoRunOneStep() {
-        long time = System.nanoTime();
-        willRunOneStep();
-
-        Scenario scenario = getScenario();
-        if (scenario.isPrepared()) {
-            vehicleStepExecutor.accelerateAll(scenario);
-            vehicleStepExecutor.willChangeLaneAll(scenario);
-            vehicleStepExecutor.changeLaneAll(scenario);
-            vehicleStepExecutor.brakeAll(scenario);
-            vehicleStepExecutor.moveAll(scenario);
-            vehicleStepExecutor.didMoveAll(scenario);
-            vehicleStepExecutor.spawnAll(scenario);
-            vehicleStepExecutor.updateNodes(scenario);
-            incAge();
-        }
-
-        didRunOneStep();
-        time = System.nanoTime() - time;
-    }
-
     @Override
     public void didRunOneStep() {
         super.didRunOneStep();
@@ -0,0 +1,83 @@
+package microtrafficsim.core.simulation.core;
+
+import microtrafficsim.utils.strings.StringUtils;
+import microtrafficsim.utils.strings.builder.LevelStringBuilder;
+
+import java.util.Arrays;
+
+
+/**
+ * Result of a batch run of {@link VehicleSimulation#runSteps(int)} or
+ * {@link VehicleSimulation#runUntil(java.util.function.Predicate)}. All times are in nanoseconds.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class RunSummary {
+    private final int    steps;
+    private final long   wallTime;
+    private final long   vehicleSteps;
+    private final long[] phaseTimes;
+
+    /**
+     * @param steps number of executed simulation steps
+     * @param wallTime duration of the whole run in ns, including step listeners
+     * @param vehicleSteps sum of the spawned vehicles over all executed steps
+     * @param phaseTimes duration of every {@link StepPhase} in ns, indexed by its ordinal
+     */
+    public RunSummary(int steps, long wallTime, long vehicleSteps, long[] phaseTimes) {
+        this.steps        = steps;
+        this.wallTime     = wallTime;
+        this.vehicleSteps = vehicleSteps;
+        this.phaseTimes   = Arrays.copyOf(phaseTimes, StepPhase.values().length);
+    }
+
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    public long getVehicleSteps() {
+        return vehicleSteps;
+    }
+
+    public long getPhaseTime(StepPhase phase) {
+        return phaseTimes[phase.ordinal()];
+    }
+
+    public double getStepsPerSecond() {
+        return perSecond(steps);
+    }
+
+    public double getVehicleStepsPerSecond() {
+        return perSecond(vehicleSteps);
+    }
+
+    private double perSecond(long count) {
+        return wallTime == 0 ? 0 : count * 1e9 / wallTime;
+    }
+
+
+    @Override
+    public String toString() {
+        LevelStringBuilder strBuilder = new LevelStringBuilder()
+                .setDefaultLevelSubString()
+                .setDefaultLevelSeparator();
+        strBuilder.appendln("<" + getClass().getSimpleName() + ">").incLevel();
+        {
+            strBuilder.appendln("steps             = " + steps);
+            strBuilder.appendln(StringUtils.buildTimeString("wall time         = ", wallTime, "ns").toString());
+            strBuilder.appendln(String.format("steps/s           = %.2f", getStepsPerSecond()));
+            strBuilder.appendln(String.format("vehicle steps/s   = %.2f", getVehicleStepsPerSecond()));
+            strBuilder.appendln("<phases>").incLevel();
+            for (StepPhase phase : StepPhase.values())
+                strBuilder.appendln(StringUtils.buildTimeString(phase + " = ", getPhaseTime(phase), "ns").toString());
+            strBuilder.decLevel().appendln("</phases>");
+        }
+        strBuilder.decLevel().append("</" + getClass().getSimpleName() + ">");
+        return strBuilder.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package microtrafficsim.core.simulation.core;
+
+import microtrafficsim.core.simulation.core.stepexecutors.VehicleStepExecutor;
+import microtrafficsim.core.simulation.scenarios.Scenario;
+
+
+/**
+ * The phases of one simulation step in the order they are executed by {@link VehicleSimulation}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public enum StepPhase {
+    ACCELERATE("accelerate()"),
+    WILL_CHANGE_LANE("willChangeLane()"),
+    CHANGE_LANE("changeLane()"),
+    BRAKE("brake() and dawdle()"),
+    MOVE("move()"),
+    DID_MOVE("didMove()"),
+    SPAWN("spawn()"),
+    UPDATE_NODES("updateNodes()"),
+    APPLY_STATE_CHANGES("applyStateChanges()");
+
+    private final String label;
+
+    StepPhase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Executes this phase for all vehicles (or nodes) of the given scenario.
+     */
+    public void execute(VehicleStepExecutor executor, Scenario scenario) {
+        switch (this) {
+            case ACCELERATE:
+                executor.accelerateAll(scenario);
+                break;
+            case WILL_CHANGE_LANE:
+                executor.willChangeLaneAll(scenario);
+                break;
+            case CHANGE_LANE:
+                executor.changeLaneAll(scenario);
+                break;
+            case BRAKE:
+                executor.brakeAll(scenario);
+                break;
+            case MOVE:
+                executor.moveAll(scenario);
+                break;
+            case DID_MOVE:
+                executor.didMoveAll(scenario);
+                break;
+            case SPAWN:
+                executor.spawnAll(scenario);
+                break;
+            case UPDATE_NODES:
+                executor.updateNodes(scenario);
+                break;
+            case APPLY_STATE_CHANGES:
+                scenario.getVehicleContainer().applyStateChanges();
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
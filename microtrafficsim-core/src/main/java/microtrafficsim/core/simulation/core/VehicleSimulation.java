@@ -1,10 +1,15 @@
 package microtrafficsim.core.simulation.core;
 
 import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.simulation.configs.MultiThreadingConfig;
 import microtrafficsim.core.simulation.core.stepexecutors.MultiThreadedVehicleStepExecutor;
+import microtrafficsim.core.simulation.core.stepexecutors.PhaseBarrierVehicleStepExecutor;
 import microtrafficsim.core.simulation.core.stepexecutors.SingleThreadedVehicleStepExecutor;
+import microtrafficsim.core.simulation.core.stepexecutors.StoredVehicleStepExecutor;
 import microtrafficsim.core.simulation.core.stepexecutors.VehicleStepExecutor;
+import microtrafficsim.core.simulation.rerouting.Rerouter;
 import microtrafficsim.core.simulation.scenarios.Scenario;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
 import microtrafficsim.utils.logging.EasyMarkableLogger;
 import microtrafficsim.utils.strings.StringUtils;
 import org.slf4j.Logger;
@@ -15,6 +20,7 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 
 /**
@@ -27,9 +33,10 @@ public class VehicleSimulation implements Simulation {
 
     private Scenario scenario;
     protected VehicleStepExecutor vehicleStepExecutor;
+    private Rerouter rerouter;
 
     // simulation steps
-    private boolean            paused;
+    private volatile boolean   paused;
     private TimerTask          timerTask;
     private final Lock         executionLock;
     private int                age;
@@ -82,15 +89,37 @@ public class VehicleSimulation implements Simulation {
         age = 0;
         this.scenario = scenario;
         addStepListener(scenario);
-        int nThreads = scenario.getConfig().multiThreading.nThreads;
-        vehicleStepExecutor =
-                nThreads > 1 ?
-                        new MultiThreadedVehicleStepExecutor(nThreads) :
-                        new SingleThreadedVehicleStepExecutor();
+        if (scenario.getConfig().rerouting.enabled) {
+            rerouter = new Rerouter(scenario);
+            addStepListener(rerouter);
+        }
+        vehicleStepExecutor = createVehicleStepExecutor(scenario);
 
         vehicleStepExecutor.updateNodes(this.scenario);
     }
 
+    /**
+     * @return a single-threaded executor if {@code nThreads <= 1}; otherwise the multi-threaded executor defined by
+     * {@link MultiThreadingConfig#stepExecutorType}. If the scenario's vehicles are stored in a
+     * {@link VehicleStateStore}, the single-threaded executor runs over the store's arrays.
+     */
+    protected VehicleStepExecutor createVehicleStepExecutor(Scenario scenario) {
+        MultiThreadingConfig config = scenario.getConfig().multiThreading;
+        if (config.nThreads <= 1) {
+            if (scenario.getVehicleContainer() instanceof VehicleStateStore)
+                return new StoredVehicleStepExecutor();
+            return new SingleThreadedVehicleStepExecutor();
+        }
+
+        switch (config.stepExecutorType) {
+            case PHASE_BARRIER:
+                return new PhaseBarrierVehicleStepExecutor(config.nThreads);
+            case THREAD_DELEGATION:
+            default:
+                return new MultiThreadedVehicleStepExecutor(config.nThreads);
+        }
+    }
+
     @Override
     public void removeCurrentScenario() {
         if (!isPaused())
@@ -102,9 +131,14 @@ public class VehicleSimulation implements Simulation {
         do
             stepListeners.remove(scenario);
         while (stepListeners.contains(scenario));
+        if (rerouter != null) {
+            stepListeners.remove(rerouter);
+            rerouter = null;
+        }
 
         scenario = null;
         age = -1;
+        vehicleStepExecutor.shutdown();
         vehicleStepExecutor = null;
     }
 
@@ -130,6 +164,14 @@ public class VehicleSimulation implements Simulation {
         stepListeners.remove(stepListener);
     }
 
+    /**
+     * @return the rerouter of the current scenario; {@code null} if there is no scenario or rerouting is disabled in
+     * its config
+     */
+    public Rerouter getRerouter() {
+        return rerouter;
+    }
+
     @Override
     public int getAge() {
         return age;
@@ -149,6 +191,64 @@ public class VehicleSimulation implements Simulation {
         }
     }
 
+    /**
+     * <p>
+     * Executes the given number of simulation steps on the calling thread without any timer, so the steps are executed
+     * as fast as possible. Step listeners are still informed after every step. The run stops earlier if the
+     * simulation is cancelled (e.g. by a step listener) or its scenario is not prepared anymore.
+     *
+     * <p>
+     * The simulation has to be paused for this call and is paused again afterwards.
+     *
+     * @param steps number of simulation steps being executed
+     * @return summary of the run containing e.g. the duration of every {@link StepPhase}
+     */
+    public RunSummary runSteps(int steps) {
+        return runBatch(steps, simulation -> false);
+    }
+
+    /**
+     * Does the same as {@link #runSteps(int)}, but runs until the given predicate is true. The predicate is tested
+     * before every step, so no step is executed if it is true from the beginning.
+     *
+     * @param isFinished gets this simulation and returns true if the run should stop
+     * @return summary of the run containing e.g. the duration of every {@link StepPhase}
+     */
+    public RunSummary runUntil(Predicate<? super VehicleSimulation> isFinished) {
+        return runBatch(Integer.MAX_VALUE, isFinished);
+    }
+
+    private RunSummary runBatch(int maxSteps, Predicate<? super VehicleSimulation> isFinished) {
+        if (!isPaused())
+            throw new RuntimeException("The simulation starts a batch run but is not paused.");
+        if (scenario == null || !scenario.isPrepared())
+            throw new RuntimeException("The simulation starts a batch run but has no prepared scenario.");
+
+        long[] phaseTimes   = new long[StepPhase.values().length];
+        int    steps        = 0;
+        long   vehicleSteps = 0;
+
+        paused = false;
+        long start = System.nanoTime();
+        try {
+            while (!paused && steps < maxSteps && scenario != null && scenario.isPrepared()
+                    && !isFinished.test(this)) {
+                executionLock.lock();
+                try {
+                    vehicleSteps += scenario.getVehicleContainer().getSpawnedCount();
+                    unsecureDoRunOneStep(phaseTimes);
+                } finally {
+                    executionLock.unlock();
+                }
+                steps++;
+            }
+        } finally {
+            paused = true;
+        }
+
+        return new RunSummary(steps, System.nanoTime() - start, vehicleSteps, phaseTimes);
+    }
+
     @Override
     public void willRunOneStep() {
         for (StepListener stepListener : stepListeners)
@@ -183,70 +283,40 @@ public class VehicleSimulation implements Simulation {
      * Not thread safe!
      */
     protected void unsecureDoRunOneStep() {
-        willRunOneStep();
-
-        if (scenario.isPrepared()) {
-            if (logger.isTraceEnabled()) {
-                time = System.nanoTime();
-                vehicleStepExecutor.accelerateAll(scenario);
-                logger.trace(
-                        StringUtils.buildTimeString(
-                                "time accelerate() and changeLane() = ",
-                                System.nanoTime() - time, "ns").toString()
-                );
-
-                long stamp = System.nanoTime();
-                vehicleStepExecutor.willChangeLaneAll(scenario);
-                logger.trace(
-                        StringUtils.buildTimeString("time willChangeLane() etc. = ", System.nanoTime() - stamp, "ns")
-                                .toString()
-                );
-
-                stamp = System.nanoTime();
-                vehicleStepExecutor.changeLaneAll(scenario);
+        if (logger.isTraceEnabled()) {
+            long[] phaseTimes = new long[StepPhase.values().length];
+            unsecureDoRunOneStep(phaseTimes);
+            for (StepPhase phase : StepPhase.values())
                 logger.trace(
-                        StringUtils.buildTimeString("time changeLane() etc. = ", System.nanoTime() - stamp, "ns")
+                        StringUtils.buildTimeString("time " + phase + " = ", phaseTimes[phase.ordinal()], "ns")
                                 .toString()
                 );
+        } else {
+            unsecureDoRunOneStep(null);
+        }
+    }
 
-                stamp = System.nanoTime();
-                vehicleStepExecutor.brakeAll(scenario);
-                logger.trace(
-                        StringUtils.buildTimeString("time brake() etc. = ", System.nanoTime() - stamp, "ns").toString()
-                );
-
-                stamp = System.nanoTime();
-                vehicleStepExecutor.moveAll(scenario);
-                logger.trace(
-                        StringUtils.buildTimeString("time move() = ", System.nanoTime() - stamp, "ns").toString()
-                );
-
-                stamp = System.nanoTime();
-                vehicleStepExecutor.didMoveAll(scenario);
-                logger.trace(
-                        StringUtils.buildTimeString("time didMove() = ", System.nanoTime() - stamp, "ns").toString()
-                );
-
-                stamp = System.nanoTime();
-                vehicleStepExecutor.spawnAll(scenario);
-                logger.trace(
-                        StringUtils.buildTimeString("time spawn() = ", System.nanoTime() - stamp, "ns").toString()
-                );
+    /**
+     * Not thread safe! Does one simulation step and adds the duration of every phase to the given array, if it is not
+     * {@code null}.
+     *
+     * @param phaseTimes indexed by {@link StepPhase#ordinal()}; may be {@code null}
+     */
+    protected final void unsecureDoRunOneStep(long[] phaseTimes) {
+        willRunOneStep();
 
-                stamp = System.nanoTime();
-                vehicleStepExecutor.updateNodes(scenario);
-                logger.trace(
-                        StringUtils.buildTimeString("time updateNodes() = ", System.nanoTime() - stamp, "ns").toString()
-                );
+        if (scenario.isPrepared()) {
+            if (phaseTimes == null) {
+                for (StepPhase phase : StepPhase.values())
+                    phase.execute(vehicleStepExecutor, scenario);
             } else {
-                vehicleStepExecutor.accelerateAll(scenario);
-                vehicleStepExecutor.willChangeLaneAll(scenario);
-                vehicleStepExecutor.changeLaneAll(scenario);
-                vehicleStepExecutor.brakeAll(scenario);
-                vehicleStepExecutor.moveAll(scenario);
-                vehicleStepExecutor.didMoveAll(scenario);
-                vehicleStepExecutor.spawnAll(scenario);
-                vehicleStepExecutor.updateNodes(scenario);
+                long stamp = System.nanoTime();
+                for (StepPhase phase : StepPhase.values()) {
+                    phase.execute(vehicleStepExecutor, scenario);
+                    long now = System.nanoTime();
+                    phaseTimes[phase.ordinal()] += now - stamp;
+                    stamp = now;
+                }
             }
             incAge();
         }
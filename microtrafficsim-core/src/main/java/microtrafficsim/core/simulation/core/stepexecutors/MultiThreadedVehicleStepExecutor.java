@@ -1,6 +1,7 @@
 package microtrafficsim.core.simulation.core.stepexecutors;
 
 import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.vehicles.VehicleState;
 import microtrafficsim.core.logic.vehicles.machines.Vehicle;
 import microtrafficsim.core.simulation.scenarios.Scenario;
 import microtrafficsim.utils.concurrency.delegation.StaticThreadDelegator;
@@ -92,10 +93,18 @@ public class MultiThreadedVehicleStepExecutor implements VehicleStepExecutor {
         }
     }
 
+    /**
+     * Addition to superclass: Vehicles, that have despawned in {@link #moveAll(Scenario)}, are skipped, because
+     * containers may apply state changes at the end of a step.
+     */
     @Override
     public void didMoveAll(final Scenario scenario) {
         try {
-            delegator.doTask(Vehicle::didMove,
+            delegator.doTask(
+                    vehicle -> {
+                        if (vehicle.getState() == VehicleState.SPAWNED)
+                            vehicle.didMove();
+                    },
                     scenario.getVehicleContainer().getSpawnedVehicles().iterator(),
                     scenario.getConfig().multiThreading.vehiclesPerRunnable
             );
@@ -121,7 +130,7 @@ public class MultiThreadedVehicleStepExecutor implements VehicleStepExecutor {
         try {
             delegator.doTask(
                     Node::update,
-                    scenario.getGraph().getNodes().iterator(),
+                    scenario.getGraph().getActiveNodes().iterator(),
                     scenario.getConfig().multiThreading.nodesPerThread);
         } catch (InterruptedException e) {
             e.printStackTrace();
@@ -0,0 +1,238 @@
+package microtrafficsim.core.simulation.core.stepexecutors;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.vehicles.VehicleState;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.simulation.scenarios.Scenario;
+
+import java.util.Collection;
+import java.util.concurrent.Phaser;
+import java.util.function.Consumer;
+
+
+/**
+ * <p>
+ * A multi-threaded implementation of {@link VehicleStepExecutor} keeping its worker threads alive for the lifetime of
+ * the executed scenario. In contrast to {@link MultiThreadedVehicleStepExecutor}, no tasks are created or submitted
+ * per phase. Instead, the elements of one phase are stored in an array and every worker processes its own, fixed
+ * slice of this array. The phases are separated by a {@link Phaser} acting as barrier between all workers.
+ *
+ * <p>
+ * The calling thread works off the first slice itself, so {@code nThreads - 1} additional threads are created.
+ *
+ * <p>
+ * The spawned vehicles are collected once per step in {@link #accelerateAll(Scenario)} and used for all following
+ * phases until {@link #didMoveAll(Scenario)}. Thus, these phases have to be called in the order given by
+ * {@link VehicleStepExecutor}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class PhaseBarrierVehicleStepExecutor implements VehicleStepExecutor {
+
+    private final int      nThreads;
+    private final Phaser   barrier;
+    private final Thread[] workers;
+
+    /* current phase */
+    private Object[]         elements;
+    private int              elementCount;
+    private Consumer<Object> elementTask;
+    private Throwable        failure;
+
+    /* cached elements */
+    private Vehicle[] spawnedVehicles;
+    private int       spawnedCount;
+    private Vehicle[] notSpawnedVehicles;
+    private int       notSpawnedCount;
+    private Node[]    nodes;
+
+
+    /**
+     * Starts {@code nThreads - 1} worker threads, which are waiting for tasks until {@link #shutdown()} is called.
+     *
+     * @param nThreads number of threads working off one phase, including the calling thread
+     */
+    public PhaseBarrierVehicleStepExecutor(int nThreads) {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads < 1");
+
+        this.nThreads = nThreads;
+        barrier = new Phaser(nThreads);
+
+        spawnedVehicles    = new Vehicle[0];
+        notSpawnedVehicles = new Vehicle[0];
+        nodes              = new Node[0];
+
+        workers = new Thread[nThreads - 1];
+        for (int i = 0; i < workers.length; i++) {
+            final int sliceIdx = i + 1;
+            workers[i] = new Thread(() -> work(sliceIdx), getClass().getSimpleName() + "-worker-" + sliceIdx);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+
+    /*
+    |=========================|
+    | (i) VehicleStepExecutor |
+    |=========================|
+    */
+    @Override
+    public void accelerateAll(Scenario scenario) {
+        spawnedCount = collect(scenario.getVehicleContainer().getSpawnedVehicles(), true);
+        execute(Vehicle::accelerate, spawnedVehicles, spawnedCount);
+    }
+
+    @Override
+    public void willChangeLaneAll(Scenario scenario) {
+        execute(Vehicle::willChangeLane, spawnedVehicles, spawnedCount);
+    }
+
+    @Override
+    public void changeLaneAll(Scenario scenario) {
+        execute(Vehicle::changeLane, spawnedVehicles, spawnedCount);
+    }
+
+    @Override
+    public void brakeAll(Scenario scenario) {
+        execute(
+                (Vehicle vehicle) -> {
+                    vehicle.brake();
+                    vehicle.dawdle();
+                },
+                spawnedVehicles,
+                spawnedCount);
+    }
+
+    @Override
+    public void moveAll(Scenario scenario) {
+        execute(Vehicle::move, spawnedVehicles, spawnedCount);
+    }
+
+    /**
+     * Addition to superclass: Vehicles, that have despawned in {@link #moveAll(Scenario)}, are skipped.
+     */
+    @Override
+    public void didMoveAll(Scenario scenario) {
+        execute(
+                (Vehicle vehicle) -> {
+                    if (vehicle.getState() == VehicleState.SPAWNED)
+                        vehicle.didMove();
+                },
+                spawnedVehicles,
+                spawnedCount);
+    }
+
+    @Override
+    public void spawnAll(Scenario scenario) {
+        notSpawnedCount = collect(scenario.getVehicleContainer().getNotSpawnedVehicles(), false);
+        execute(Vehicle::spawn, notSpawnedVehicles, notSpawnedCount);
+    }
+
+    @Override
+    public void updateNodes(Scenario scenario) {
+        Collection<Node> activeNodes = scenario.getGraph().getActiveNodes();
+        nodes = activeNodes.toArray(nodes);
+        execute(Node::update, nodes, activeNodes.size());
+    }
+
+    /**
+     * Terminates the barrier, so all worker threads stop after finishing their current slice. This executor must
+     * not be used afterwards.
+     */
+    @Override
+    public void shutdown() {
+        barrier.forceTermination();
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    /**
+     * Copies the given vehicles into the respective cached array, growing it if needed.
+     *
+     * @return number of collected vehicles
+     */
+    private int collect(Collection<Vehicle> vehicles, boolean spawned) {
+        Vehicle[] array = spawned ? spawnedVehicles : notSpawnedVehicles;
+
+        if (array.length < vehicles.size()) {
+            array = new Vehicle[Math.max(vehicles.size(), 2 * array.length)];
+            if (spawned)
+                spawnedVehicles = array;
+            else
+                notSpawnedVehicles = array;
+        }
+
+        int count = 0;
+        for (Vehicle vehicle : vehicles)
+            array[count++] = vehicle;
+
+        // release references of vehicles, that have been removed since the last step
+        for (int i = count; i < array.length && array[i] != null; i++)
+            array[i] = null;
+
+        return count;
+    }
+
+    /**
+     * Executes the given task for every element in {@code elements[0..count)}. The calling thread works off the
+     * first slice and returns after all workers have finished their slices.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void execute(Consumer<T> task, T[] elements, int count) {
+        if (count == 0)
+            return;
+
+        if (barrier.isTerminated())
+            throw new IllegalStateException(getClass().getSimpleName() + " has already been shut down.");
+
+        this.elementTask  = (Consumer<Object>) task;
+        this.elements     = elements;
+        this.elementCount = count;
+        this.failure      = null;
+
+        barrier.arriveAndAwaitAdvance();    // start phase
+        runSlice(0);
+        barrier.arriveAndAwaitAdvance();    // wait for all slices
+
+        this.elementTask = null;
+        this.elements    = null;
+
+        if (failure != null)
+            throw new RuntimeException(failure);
+    }
+
+    private void work(int sliceIdx) {
+        while (true) {
+            barrier.arriveAndAwaitAdvance();    // wait for phase start
+            if (barrier.isTerminated())
+                return;
+
+            runSlice(sliceIdx);
+
+            barrier.arriveAndAwaitAdvance();    // signal slice finished
+            if (barrier.isTerminated())
+                return;
+        }
+    }
+
+    private void runSlice(int sliceIdx) {
+        int from = (int) ((long) elementCount * sliceIdx / nThreads);
+        int to   = (int) ((long) elementCount * (sliceIdx + 1) / nThreads);
+
+        try {
+            for (int i = from; i < to; i++)
+                elementTask.accept(elements[i]);
+        } catch (Throwable t) {
+            synchronized (this) {
+                if (failure == null)
+                    failure = t;
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package microtrafficsim.core.simulation.core.stepexecutors;
 
 import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.vehicles.VehicleState;
 import microtrafficsim.core.logic.vehicles.machines.Vehicle;
 import microtrafficsim.core.simulation.scenarios.Scenario;
 
@@ -47,10 +48,15 @@ public class SingleThreadedVehicleStepExecutor implements VehicleStepExecutor {
             vehicle.move();
     }
 
+    /**
+     * Addition to superclass: Vehicles, that have despawned in {@link #moveAll(Scenario)}, are skipped, because
+     * containers may apply state changes at the end of a step.
+     */
     @Override
     public void didMoveAll(final Scenario scenario) {
         for (Vehicle vehicle : scenario.getVehicleContainer().getSpawnedVehicles())
-            vehicle.didMove();
+            if (vehicle.getState() == VehicleState.SPAWNED)
+                vehicle.didMove();
     }
 
     @Override
@@ -61,7 +67,7 @@ public class SingleThreadedVehicleStepExecutor implements VehicleStepExecutor {
 
     @Override
     public void updateNodes(final Scenario scenario) {
-        for (Node node : scenario.getGraph().getNodes())
+        for (Node node : scenario.getGraph().getActiveNodes())
             node.update();
     }
 }
@@ -0,0 +1,118 @@
+package microtrafficsim.core.simulation.core.stepexecutors;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.simulation.scenarios.Scenario;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
+
+
+/**
+ * <p>
+ * A single-threaded implementation of {@link VehicleStepExecutor} for scenarios, whose vehicle container is a
+ * {@link VehicleStateStore}. Instead of copying the spawned vehicles into a new collection in every phase, this
+ * executor runs over the dense indices of the store and skips them by their state. Acceleration is executed on the
+ * store's arrays only, without touching the vehicle views. The phases are executed in the same order as in
+ * {@link SingleThreadedVehicleStepExecutor}.
+ *
+ * <p>
+ * Phases that need the neighbourhood of a vehicle (lane changing, braking, moving) are still delegated to the
+ * vehicles, because they access the lanes.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class StoredVehicleStepExecutor implements VehicleStepExecutor {
+
+    /*
+    |=========================|
+    | (i) VehicleStepExecutor |
+    |=========================|
+    */
+    /**
+     * Addition to superclass: As in {@link SingleThreadedVehicleStepExecutor#accelerateAll(Scenario)}, every vehicle
+     * additionally calls {@link microtrafficsim.core.logic.vehicles.machines.Vehicle#willChangeLane()
+     * willChangeLane()}. This consumes the same random numbers, so seeded runs of both executors are equal.
+     */
+    @Override
+    public void accelerateAll(Scenario scenario) {
+        VehicleStateStore store = getStore(scenario);
+        int size = store.size();
+        for (int idx = 0; idx < size; idx++) {
+            if (store.isSpawned(idx)) {
+                store.accelerate(idx);
+                store.getVehicle(idx).willChangeLane();
+            }
+        }
+    }
+
+    @Override
+    public void willChangeLaneAll(Scenario scenario) {
+        VehicleStateStore store = getStore(scenario);
+        int size = store.size();
+        for (int idx = 0; idx < size; idx++)
+            if (store.isSpawned(idx))
+                store.getVehicle(idx).willChangeLane();
+    }
+
+    @Override
+    public void changeLaneAll(Scenario scenario) {
+        VehicleStateStore store = getStore(scenario);
+        int size = store.size();
+        for (int idx = 0; idx < size; idx++)
+            if (store.isSpawned(idx))
+                store.getVehicle(idx).changeLane();
+    }
+
+    @Override
+    public void brakeAll(Scenario scenario) {
+        VehicleStateStore store = getStore(scenario);
+        int size = store.size();
+        for (int idx = 0; idx < size; idx++) {
+            if (store.isSpawned(idx)) {
+                store.getVehicle(idx).brake();
+                store.getVehicle(idx).dawdle();
+            }
+        }
+    }
+
+    @Override
+    public void moveAll(Scenario scenario) {
+        VehicleStateStore store = getStore(scenario);
+        int size = store.size();
+        for (int idx = 0; idx < size; idx++)
+            if (store.isSpawned(idx))
+                store.getVehicle(idx).move();
+    }
+
+    @Override
+    public void didMoveAll(Scenario scenario) {
+        VehicleStateStore store = getStore(scenario);
+        int size = store.size();
+        for (int idx = 0; idx < size; idx++)
+            if (store.isSpawned(idx))
+                store.getVehicle(idx).didMove();
+    }
+
+    @Override
+    public void spawnAll(Scenario scenario) {
+        VehicleStateStore store = getStore(scenario);
+        int size = store.size();
+        for (int idx = 0; idx < size; idx++)
+            if (store.isNotSpawned(idx))
+                store.getVehicle(idx).spawn();
+    }
+
+    @Override
+    public void updateNodes(Scenario scenario) {
+        for (Node node : scenario.getGraph().getActiveNodes())
+            node.update();
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    private VehicleStateStore getStore(Scenario scenario) {
+        return (VehicleStateStore) scenario.getVehicleContainer();
+    }
+}
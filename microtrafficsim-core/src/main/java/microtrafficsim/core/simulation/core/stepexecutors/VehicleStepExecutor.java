@@ -1,5 +1,6 @@
 package microtrafficsim.core.simulation.core.stepexecutors;
 
+import microtrafficsim.core.logic.streetgraph.Graph;
 import microtrafficsim.core.simulation.scenarios.Scenario;
 
 
@@ -50,9 +51,16 @@ public interface VehicleStepExecutor {
 
     /**
      * After executing all vehicle tasks, the nodes has to update their priority lists and other logical stuff (e.g.
-     * traffic lights if implemented).
+     * traffic lights if implemented). Only the graph's active nodes ({@link Graph#getActiveNodes()}) have to be
+     * updated.
      *
      * @param scenario The scenario holding the {@code StreetGraph} and {@code SimulationConfig}
      */
     void updateNodes(Scenario scenario);
+
+    /**
+     * Releases all resources (e.g. threads) held by this executor. It is called when the executed scenario is
+     * removed from the simulation. The default implementation does nothing.
+     */
+    default void shutdown() {}
 }
\ No newline at end of file
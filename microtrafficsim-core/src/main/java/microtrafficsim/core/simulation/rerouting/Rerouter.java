@@ -0,0 +1,305 @@
+package microtrafficsim.core.simulation.rerouting;
+
+import microtrafficsim.core.logic.routes.CompactRoute;
+import microtrafficsim.core.logic.routes.Route;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.vehicles.VehicleState;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.shortestpath.lpastar.LPAStar;
+import microtrafficsim.core.simulation.configs.ReroutingConfig;
+import microtrafficsim.core.simulation.core.Simulation;
+import microtrafficsim.core.simulation.core.StepListener;
+import microtrafficsim.core.simulation.scenarios.Scenario;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * <p>
+ * Reroutes the vehicles of a scenario while they are driving. It is added as {@link StepListener} by
+ * {@link microtrafficsim.core.simulation.core.VehicleSimulation VehicleSimulation} if
+ * {@link ReroutingConfig#enabled} is set.
+ *
+ * <p>
+ * Every {@link ReroutingConfig#updateInterval} steps, the {@link TravelTimeEstimator travel time estimates} are
+ * updated. Edges, whose estimate differs from their current edge weight by more than
+ * {@link ReroutingConfig#changeThreshold}, get the estimate as new weight. Only vehicles, whose remaining route
+ * contains an edge changed since the vehicle has been replanned last, are queued for replanning. Their routes are
+ * repaired by {@link LPAStar}, which keeps one search tree per destination, and at most
+ * {@link ReroutingConfig#expansionsPerStep} search states are expanded per step. The queued vehicles are grouped by
+ * their destination, so every tree is created or repaired once for all of its vehicles.
+ *
+ * <p>
+ * The queue is replaced at every update, so it is never older than {@link ReroutingConfig#updateInterval} steps.
+ * Vehicles, that have not been replanned until then, are queued again if they are still affected; the vehicles
+ * waiting longest are replanned first. The number of trees is the number of the routes' destinations, but at most
+ * as many as fit into {@link ReroutingConfig#maxSearchTreeMemory}, so trees are dropped rarely.
+ *
+ * <p>
+ * The next edge of a vehicle is never changed, because the vehicle's lane and its registration at the next crossing
+ * depend on it. Hence the new route starts with the same edge and is calculated from its end. It replaces the old
+ * route only if it is faster by at least {@link ReroutingConfig#minImprovement}. Only {@link CompactRoute}s of the
+ * scenario's graph are rerouted, which are all routes created by the
+ * {@link microtrafficsim.core.simulation.builder.impl.VehicleScenarioBuilder VehicleScenarioBuilder}.
+ *
+ * <p>
+ * The vehicles are visited in the order of the scenario's vehicle container, so rerouting is deterministic if the
+ * container's order is.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class Rerouter implements StepListener {
+
+    private final Scenario            scenario;
+    private final ReroutingConfig     config;
+    private final CSRGraph            graph;
+    private final TravelTimeEstimator estimator;
+    private final LPAStar             search;
+
+    /* replanning */
+    private int                                               round;           // number of weight updates
+    private final int[]                                       changedRounds;   // round of the last change; by edge
+    private IdentityHashMap<Vehicle, Integer>                 replannedRounds; // round of the last replanning
+    private final LinkedHashMap<Integer, ArrayDeque<Vehicle>> candidates;      // by destination node
+    private int                                               pendingCount;
+
+    /* statistics */
+    private long changedEdgeCount;
+    private long reroutedCount;
+
+
+    /**
+     * Creates the CSR view of the scenario's graph and uses the scenario's {@link ReroutingConfig}. The number of
+     * search trees depends on the destinations of the vehicles' routes, so the scenario has to be prepared.
+     */
+    public Rerouter(Scenario scenario) {
+        this.scenario = scenario;
+        config        = scenario.getConfig().rerouting;
+        graph         = new CSRGraph(scenario.getGraph());
+        estimator     = new TravelTimeEstimator(graph, config.smoothingFactor, config.minVelocityFactor);
+        search        = new LPAStar(graph, DirectedEdge::getTimeCostMillis, getMaxTreeCount());
+
+        round           = 0;
+        changedRounds   = new int[graph.getEdgeCount()];
+        replannedRounds = new IdentityHashMap<>();
+        candidates      = new LinkedHashMap<>();
+    }
+
+    /**
+     * @return the number of destinations of the vehicles' routes, but at least 1 and at most as many as fit into
+     * {@link ReroutingConfig#maxSearchTreeMemory}
+     */
+    private int getMaxTreeCount() {
+        HashSet<Integer> destinations = new HashSet<>();
+        for (Vehicle vehicle : scenario.getVehicleContainer().getVehicles()) {
+            CompactRoute route = getReroutableRoute(vehicle);
+            if (route != null)
+                destinations.add(destinationOf(route));
+        }
+
+        long maxCount = (config.maxSearchTreeMemory << 20) / Math.max(1, LPAStar.getTreeSize(graph));
+        return (int) Math.max(1, Math.min(destinations.size(), maxCount));
+    }
+
+
+    public TravelTimeEstimator getEstimator() {
+        return estimator;
+    }
+
+    public LPAStar getSearch() {
+        return search;
+    }
+
+    /**
+     * @return number of vehicles waiting for replanning
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * @return number of edge weight changes since creation
+     */
+    public long getChangedEdgeCount() {
+        return changedEdgeCount;
+    }
+
+    /**
+     * @return number of replaced routes since creation
+     */
+    public long getReroutedCount() {
+        return reroutedCount;
+    }
+
+
+    /*
+    |==================|
+    | (i) StepListener |
+    |==================|
+    */
+    @Override
+    public void didOneStep(Simulation simulation) {
+        if (simulation.getAge() % config.updateInterval == 0 && updateWeights())
+            queueAffectedVehicles();
+        replan(config.expansionsPerStep);
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    /**
+     * @return true if at least one edge weight has changed
+     */
+    private boolean updateWeights() {
+        estimator.update();
+        round++;
+
+        int changed = 0;
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            double estimate = estimator.getTravelTimeMillis(e);
+            double weight   = search.getWeight(e);
+            if (Math.abs(estimate - weight) > config.changeThreshold * weight) {
+                search.setWeight(e, estimate);
+                changedRounds[e] = round;
+                changed++;
+            }
+        }
+
+        changedEdgeCount += changed;
+        return changed > 0;
+    }
+
+    /**
+     * Replaces the queue by all vehicles, whose remaining route behind their next edge contains an edge changed since
+     * their last replanning. The vehicles waiting longest come first, otherwise the container's order is kept.
+     */
+    private void queueAffectedVehicles() {
+        IdentityHashMap<Vehicle, Integer> rounds   = new IdentityHashMap<>();
+        ArrayList<Vehicle>                affected = new ArrayList<>();
+
+        for (Vehicle vehicle : scenario.getVehicleContainer().getVehicles()) {
+            CompactRoute route = getReroutableRoute(vehicle);
+            if (route == null)
+                continue;
+
+            // vehicles, that are not reroutable anymore, are dropped from the map
+            int replanned = replannedRounds.getOrDefault(vehicle, 0);
+            rounds.put(vehicle, replanned);
+
+            for (int i = 1; i < route.size(); i++) {
+                if (changedRounds[route.getEdgeIndex(i)] > replanned) {
+                    affected.add(vehicle);
+                    break;
+                }
+            }
+        }
+        replannedRounds = rounds;
+
+        affected.sort(Comparator.comparingInt(rounds::get));    // stable
+        candidates.clear();
+        for (Vehicle vehicle : affected) {
+            int destination = destinationOf(getReroutableRoute(vehicle));
+            candidates.computeIfAbsent(destination, key -> new ArrayDeque<>()).add(vehicle);
+        }
+        pendingCount = affected.size();
+    }
+
+    /**
+     * Replans the queued vehicles until the given number of expansions is reached. The vehicles of one destination
+     * are replanned one after another, so their tree is created or repaired only once.
+     */
+    private void replan(int maxExpansions) {
+        Iterator<Map.Entry<Integer, ArrayDeque<Vehicle>>> groups = candidates.entrySet().iterator();
+        while (maxExpansions > 0 && groups.hasNext()) {
+            Map.Entry<Integer, ArrayDeque<Vehicle>> group = groups.next();
+            ArrayDeque<Vehicle> vehicles = group.getValue();
+            LPAStar.Tree        tree     = search.getTree(group.getKey());
+
+            while (!vehicles.isEmpty()) {
+                Vehicle      vehicle = vehicles.peek();
+                CompactRoute route   = getReroutableRoute(vehicle);
+                if (route != null) {
+                    int next = route.getEdgeIndex(0);
+                    if (!tree.isSolved(next)) {
+                        if (maxExpansions <= 0)
+                            return; // continued in the next step
+                        maxExpansions -= tree.computeShortestPath(next, maxExpansions);
+                        if (!tree.isSolved(next))
+                            return; // continued in the next step
+                    }
+
+                    reroute(vehicle, route, tree);
+                    replannedRounds.put(vehicle, round);
+                }
+
+                vehicles.poll();
+                pendingCount--;
+            }
+            groups.remove();
+        }
+    }
+
+    /**
+     * Replaces the vehicle's route if the tree's path is sufficiently faster.
+     */
+    private void reroute(Vehicle vehicle, CompactRoute route, LPAStar.Tree tree) {
+        double oldTime = 0;
+        for (int i = 0; i < route.size(); i++)
+            oldTime += search.getWeight(route.getEdgeIndex(i));
+
+        int next = route.getEdgeIndex(0);
+        if (tree.getDistance(next) >= (1 - config.minImprovement) * oldTime)
+            return;
+
+        int[] path = tree.getPath(next);
+        if (path == null)
+            return;
+
+        CompactRoute newRoute = new CompactRoute(graph, path, route.getSpawnDelay());
+        newRoute.setMonitored(route.isMonitored());
+        vehicle.getDriver().setRoute(newRoute);
+        reroutedCount++;
+    }
+
+    /**
+     * @return index of the route's destination node
+     */
+    private int destinationOf(CompactRoute route) {
+        return graph.getDestination(route.getEdgeIndex(route.size() - 1));
+    }
+
+    /**
+     * @return the vehicle's route if it is a {@link CompactRoute} of this rerouter's graph, that has more edges than
+     * the vehicle's next one; otherwise {@code null}
+     */
+    private CompactRoute getReroutableRoute(Vehicle vehicle) {
+        if (vehicle.getState() == VehicleState.DESPAWNED)
+            return null;
+
+        Route route = vehicle.getDriver().getRoute();
+        if (!(route instanceof CompactRoute))
+            return null;
+
+        CompactRoute compact = (CompactRoute) route;
+        if (compact.size() < 2)
+            return null;
+
+        // the indices of CSR views only depend on the graph's content
+        CSRGraph other = compact.getGraph();
+        if (other != graph && !other.getGUID().equals(graph.getGUID()))
+            return null;
+
+        return compact;
+    }
+}
@@ -0,0 +1,84 @@
+package microtrafficsim.core.simulation.rerouting;
+
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+
+
+/**
+ * <p>
+ * Estimates the current travel time of every edge of a {@link CSRGraph} from the occupancy of its lanes. The density
+ * of an edge is its number of vehicles per cell, which is in {@code [0, 1]} because every cell holds at most one
+ * vehicle. Following Greenshields' model, the velocity decreases linearly with the density, so a sample of the travel
+ * time is {@code freeFlowTime / max(1 - density, minVelocityFactor)}.
+ *
+ * <p>
+ * The samples are smoothed exponentially, so single vehicles passing an edge do not change its estimate immediately.
+ * Before the first {@link #update()}, the estimates are the free-flow travel times, which are the edge weights of the
+ * fastest path search, see {@link CSRGraph#getTimeCostMillis(int)}.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TravelTimeEstimator {
+
+    private final CSRGraph graph;
+    private final double   smoothingFactor;
+    private final double   minVelocityFactor;
+    private final double[] freeFlowTimes;    // by edge
+    private final double[] estimates;        // by edge
+
+
+    /**
+     * @param smoothingFactor weight of a new sample, in {@code (0, 1]}
+     * @param minVelocityFactor lower bound of the velocity relative to the free-flow velocity, in {@code (0, 1]}
+     * @throws IllegalArgumentException if a factor is not in {@code (0, 1]}
+     */
+    public TravelTimeEstimator(CSRGraph graph, double smoothingFactor, double minVelocityFactor) {
+        if (!(smoothingFactor > 0 && smoothingFactor <= 1))
+            throw new IllegalArgumentException("The smoothing factor has to be in (0, 1].");
+        if (!(minVelocityFactor > 0 && minVelocityFactor <= 1))
+            throw new IllegalArgumentException("The minimum velocity factor has to be in (0, 1].");
+
+        this.graph             = graph;
+        this.smoothingFactor   = smoothingFactor;
+        this.minVelocityFactor = minVelocityFactor;
+
+        int edgeCount = graph.getEdgeCount();
+        freeFlowTimes = new double[edgeCount];
+        estimates     = new double[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            freeFlowTimes[e] = graph.getTimeCostMillis(e);
+            estimates[e]     = freeFlowTimes[e];
+        }
+    }
+
+
+    public CSRGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Samples the occupancy of all edges and smoothes the estimates. It must not be called during a simulation step.
+     */
+    public void update() {
+        for (int e = 0; e < estimates.length; e++) {
+            double cells   = Math.max(1.0, (double) graph.getNumberOfLanes(e) * graph.getLength(e));
+            double density = Math.min(1, graph.getEdge(e).getVehicleCount() / cells);
+            double sample  = freeFlowTimes[e] / Math.max(1 - density, minVelocityFactor);
+
+            estimates[e] += smoothingFactor * (sample - estimates[e]);
+        }
+    }
+
+    /**
+     * @return the estimated time needed to pass the edge in milliseconds
+     */
+    public double getTravelTimeMillis(int edge) {
+        return estimates[edge];
+    }
+
+    /**
+     * @return the time needed to pass the empty edge at max velocity in milliseconds
+     */
+    public double getFreeFlowTimeMillis(int edge) {
+        return freeFlowTimes[edge];
+    }
+}
@@ -80,6 +80,14 @@ public interface VehicleContainer extends VehicleStateListener, Iterable<Vehicle
      */
     Collection<Vehicle> getNotSpawnedVehicles();
 
+    /**
+     * Is called by the simulation at the end of every simulation step. Containers deferring the state changes of
+     * their vehicles (see {@link #stateChanged(Vehicle)}) apply them here. Per default, nothing is done.
+     */
+    default void applyStateChanges() {
+
+    }
+
     // probably unused :(
     //	/**
     //	 * Returns the index of the list of the greatest size less than or equal to
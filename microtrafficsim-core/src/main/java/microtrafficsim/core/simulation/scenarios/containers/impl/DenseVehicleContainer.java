@@ -0,0 +1,358 @@
+package microtrafficsim.core.simulation.scenarios.containers.impl;
+
+import microtrafficsim.core.logic.vehicles.VehicleState;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.simulation.scenarios.containers.VehicleContainer;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+
+/**
+ * <p>
+ * This implementation of {@code VehicleContainer} stores its vehicles in dense arrays, one for all vehicles and one
+ * per vehicle state. Removing a vehicle from one of these arrays swaps the last vehicle into its place, so every
+ * change is done in O(1).
+ *
+ * <p>
+ * The getters do not copy anything, but return read-only views onto these arrays. The views implement
+ * {@link RandomAccess}, so they can be iterated by index or split into partitions using {@link List#subList(int, int)}
+ * without further copying. To keep the views valid for a whole simulation step, state changes reported by
+ * {@link #stateChanged(Vehicle)} are only collected during a step. They are applied in one batch when the simulation
+ * calls {@link #applyStateChanges()} at the end of the step. Thus, e.g. vehicles despawning in
+ * {@code moveAll} are still contained in the spawned vehicles until the step has finished, so step executors have to
+ * check the vehicle's state if needed. The changes are applied sorted by the order the vehicles have been added, so
+ * the order of the vehicles is deterministic even if the state changes are reported concurrently.
+ *
+ * <p>
+ * Adding vehicles is applied immediately and must not be done during a simulation step. Copying a view (e.g. by
+ * {@link java.util.ArrayList#ArrayList(java.util.Collection) new ArrayList(view)}) is synchronized with applying the
+ * changes, so other threads (e.g. the visualization) get consistent copies.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class DenseVehicleContainer implements VehicleContainer {
+
+    private static final Comparator<Entry> BY_SEQ = Comparator.comparingLong(entry -> entry.seq);
+
+    private final IdentityHashMap<Vehicle, Entry> entries;
+    private final EntryList all, spawned, notSpawned;
+    private final List<Vehicle> allView, spawnedView, notSpawnedView;
+    private long nextSeq;
+
+    /* state changes of the current step */
+    private final Object pendingLock = new Object();
+    private Entry[] pending;
+    private int     pendingCount;
+
+
+    /**
+     * Default constructor.
+     */
+    public DenseVehicleContainer() {
+        entries    = new IdentityHashMap<>();
+        all        = new EntryList(true);
+        spawned    = new EntryList(false);
+        notSpawned = new EntryList(false);
+
+        allView        = new View(all);
+        spawnedView    = new View(spawned);
+        notSpawnedView = new View(notSpawned);
+
+        pending = new Entry[16];
+    }
+
+
+    /*
+    |======================|
+    | (i) VehicleContainer |
+    |======================|
+    */
+    @Override
+    public synchronized void addVehicle(Vehicle vehicle) {
+        if (entries.containsKey(vehicle))
+            return;
+
+        Entry entry = new Entry(vehicle, nextSeq++);
+        entries.put(vehicle, entry);
+        all.add(entry);
+        move(entry, vehicle.getState());
+    }
+
+    @Override
+    public synchronized void clearAll() {
+        entries.clear();
+        all.clear();
+        spawned.clear();
+        notSpawned.clear();
+        synchronized (pendingLock) {
+            Arrays.fill(pending, 0, pendingCount, null);
+            pendingCount = 0;
+        }
+    }
+
+    @Override
+    public int getVehicleCount() {
+        return all.size;
+    }
+
+    @Override
+    public int getSpawnedCount() {
+        return spawned.size;
+    }
+
+    @Override
+    public int getNotSpawnedCount() {
+        return notSpawned.size;
+    }
+
+    /**
+     * Addition to superclass: Returns a read-only view, that is valid until the next call of
+     * {@link #applyStateChanges()}.
+     */
+    @Override
+    public List<Vehicle> getVehicles() {
+        return allView;
+    }
+
+    /**
+     * Addition to superclass: Returns a read-only view, that is valid until the next call of
+     * {@link #applyStateChanges()}. Vehicles, that have despawned in the current step, are still contained.
+     */
+    @Override
+    public List<Vehicle> getSpawnedVehicles() {
+        return spawnedView;
+    }
+
+    /**
+     * Addition to superclass: Returns a read-only view, that is valid until the next call of
+     * {@link #applyStateChanges()}. Vehicles, that have spawned in the current step, are still contained.
+     */
+    @Override
+    public List<Vehicle> getNotSpawnedVehicles() {
+        return notSpawnedView;
+    }
+
+    /**
+     * Moves all vehicles, whose state has changed since the last call, into the list of their new state. Despawned
+     * vehicles are removed.
+     */
+    @Override
+    public synchronized void applyStateChanges() {
+        Entry[] changed;
+        int changedCount;
+        synchronized (pendingLock) {
+            changed      = pending;
+            changedCount = pendingCount;
+            pendingCount = 0;
+        }
+        if (changedCount == 0)
+            return;
+
+        Arrays.sort(changed, 0, changedCount, BY_SEQ);
+        for (int i = 0; i < changedCount; i++) {
+            Entry entry = changed[i];
+            changed[i] = null;
+            entry.isPending = false;
+
+            if (entries.get(entry.vehicle) != entry)
+                continue;    // cleared meanwhile
+
+            VehicleState state = entry.vehicle.getState();
+            if (state == VehicleState.DESPAWNED) {
+                move(entry, null);
+                all.remove(entry);
+                entries.remove(entry.vehicle);
+            } else {
+                move(entry, state);
+            }
+        }
+    }
+
+
+    /*
+    |==========================|
+    | (i) VehicleStateListener |
+    |==========================|
+    */
+    /**
+     * Addition to superclass: The change is applied in {@link #applyStateChanges()}.
+     */
+    @Override
+    public void stateChanged(Vehicle vehicle) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(vehicle);
+        }
+        if (entry == null)
+            return;
+
+        synchronized (pendingLock) {
+            if (entry.isPending)
+                return;
+            entry.isPending = true;
+
+            if (pendingCount == pending.length)
+                pending = Arrays.copyOf(pending, 2 * pending.length);
+            pending[pendingCount++] = entry;
+        }
+    }
+
+
+    /*
+    |==============|
+    | (i) Iterable |
+    |==============|
+    */
+    @Override
+    public Iterator<Vehicle> iterator() {
+        return allView.iterator();
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    /**
+     * Moves the given entry from its current state list into the list of the given state. {@code null} or
+     * {@code DESPAWNED} remove it from all state lists.
+     */
+    private void move(Entry entry, VehicleState state) {
+        EntryList target;
+        if (state == VehicleState.SPAWNED)
+            target = spawned;
+        else if (state == VehicleState.NOT_SPAWNED)
+            target = notSpawned;
+        else
+            target = null;
+
+        if (entry.stateList == target)
+            return;
+        if (entry.stateList != null)
+            entry.stateList.remove(entry);
+        if (target != null)
+            target.add(entry);
+    }
+
+
+    private static class Entry {
+        private final Vehicle vehicle;
+        private final long    seq;
+
+        private int       allIdx;
+        private EntryList stateList;
+        private int       stateIdx;
+        private boolean   isPending;
+
+        private Entry(Vehicle vehicle, long seq) {
+            this.vehicle = vehicle;
+            this.seq     = seq;
+        }
+    }
+
+    /**
+     * Dense array of entries with O(1) swap-remove. The vehicles are stored in a parallel array for the views.
+     */
+    private static class EntryList {
+        private final boolean isAll;
+        private Entry[]   entries;
+        private Vehicle[] vehicles;
+        private int       size;
+
+        private EntryList(boolean isAll) {
+            this.isAll = isAll;
+            entries  = new Entry[16];
+            vehicles = new Vehicle[16];
+        }
+
+        private void add(Entry entry) {
+            if (size == entries.length) {
+                entries  = Arrays.copyOf(entries, 2 * size);
+                vehicles = Arrays.copyOf(vehicles, 2 * size);
+            }
+
+            setIdx(entry, size);
+            entries[size]  = entry;
+            vehicles[size] = entry.vehicle;
+            size++;
+        }
+
+        private void remove(Entry entry) {
+            int idx  = getIdx(entry);
+            int last = --size;
+
+            Entry moved = entries[last];
+            entries[idx]  = moved;
+            vehicles[idx] = moved.vehicle;
+            setIdx(moved, idx);
+
+            entries[last]  = null;
+            vehicles[last] = null;
+            if (!isAll)
+                entry.stateList = null;
+        }
+
+        private void clear() {
+            Arrays.fill(entries, 0, size, null);
+            Arrays.fill(vehicles, 0, size, null);
+            size = 0;
+        }
+
+        private int getIdx(Entry entry) {
+            return isAll ? entry.allIdx : entry.stateIdx;
+        }
+
+        private void setIdx(Entry entry, int idx) {
+            if (isAll) {
+                entry.allIdx = idx;
+            } else {
+                entry.stateIdx  = idx;
+                entry.stateList = this;
+            }
+        }
+    }
+
+    /**
+     * Read-only view onto an {@code EntryList}
+     */
+    private class View extends AbstractList<Vehicle> implements RandomAccess {
+        private final EntryList list;
+
+        private View(EntryList list) {
+            this.list = list;
+        }
+
+        @Override
+        public Vehicle get(int index) {
+            if (index >= list.size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + list.size);
+            return list.vehicles[index];
+        }
+
+        @Override
+        public int size() {
+            return list.size;
+        }
+
+        @Override
+        public Object[] toArray() {
+            synchronized (DenseVehicleContainer.this) {
+                return Arrays.copyOf(list.vehicles, list.size, Object[].class);
+            }
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a) {
+            synchronized (DenseVehicleContainer.this) {
+                return super.toArray(a);
+            }
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package microtrafficsim.core.simulation.scenarios.containers.impl;
+
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.vehicles.VehicleState;
+import microtrafficsim.core.logic.vehicles.machines.StoredVehicle;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.simulation.scenarios.containers.VehicleContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+
+/**
+ * <p>
+ * This implementation of {@code VehicleContainer} stores the dynamic state of its vehicles as structure of arrays.
+ * Every vehicle gets a dense index by {@link #allocate(StoredVehicle, int)} and its state (velocity, cell position,
+ * lane, lane change direction, anger, travelling time etc.) is stored at this index in primitive arrays. The vehicles
+ * itself are instances of {@link StoredVehicle}, which are only views onto these arrays.
+ *
+ * <p>
+ * Hence iterating over all vehicles of one phase is a linear pass over a few arrays instead of chasing the references
+ * of vehicle objects. The vehicle step executor doing this is
+ * {@link microtrafficsim.core.simulation.core.stepexecutors.StoredVehicleStepExecutor StoredVehicleStepExecutor}.
+ *
+ * <p>
+ * Indices are never reused until {@link #clearAll()}, so despawned vehicles leave gaps that are skipped by their
+ * state. Vehicles must only be allocated while no simulation step is running, because the arrays are replaced when
+ * they grow. State changes are synchronized, all other accesses of one index are only done by its vehicle or by the
+ * single-threaded executor.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class VehicleStateStore implements VehicleContainer {
+
+    private static final byte NOT_SPAWNED = (byte) VehicleState.NOT_SPAWNED.ordinal();
+    private static final byte SPAWNED     = (byte) VehicleState.SPAWNED.ordinal();
+    private static final byte DESPAWNED   = (byte) VehicleState.DESPAWNED.ordinal();
+    private static final VehicleState[] STATES = VehicleState.values();
+    private static final Vehicle.LaneChangeDirection[] DIRECTIONS = Vehicle.LaneChangeDirection.values();
+
+
+    /* general */
+    private int size;
+    private int vehicleCount, spawnedCount, notSpawnedCount;
+
+    /* views */
+    private StoredVehicle[] vehicles;
+    private boolean[]       contained;
+
+    /* variable information */
+    private DirectedEdge.Lane[] lane;
+    private int[]               laneMaxVelocity;
+    private int[]               outermostTurningLaneIndex;
+    private boolean[]           laneIsCorrect;
+    private byte[]              laneChangeDirection;
+
+    /* dynamic information */
+    private byte[]    state;
+    private int[]     cellPosition;
+    private int[]     velocity;
+    private boolean[] lastVelocityZero;
+    private int[]     anger;
+    private int[]     totalAnger;
+    private int[]     travellingTime;
+
+    /* fix information */
+    private int[] maxVelocity;
+
+
+    /**
+     * Calls {@link #VehicleStateStore(int) VehicleStateStore(16)}
+     */
+    public VehicleStateStore() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity number of vehicles this store can hold before its arrays have to grow
+     */
+    public VehicleStateStore(int initialCapacity) {
+        allocateArrays(Math.max(1, initialCapacity));
+        size = 0;
+    }
+
+
+    /**
+     * Reserves a new dense index for the given vehicle and initializes its state as not spawned. The vehicle is not
+     * contained in this container until {@link #addVehicle(Vehicle)} is called.
+     *
+     * @param vehicle     the view onto the new index
+     * @param maxVelocity the 'physical' max velocity of the vehicle
+     * @return the dense index of the given vehicle
+     */
+    public synchronized int allocate(StoredVehicle vehicle, int maxVelocity) {
+        if (size == vehicles.length)
+            growArrays(2 * size);
+
+        int idx = size++;
+        vehicles[idx] = vehicle;
+        contained[idx] = false;
+
+        lane[idx]                      = null;
+        laneMaxVelocity[idx]           = Integer.MAX_VALUE;
+        outermostTurningLaneIndex[idx] = 0;
+        laneIsCorrect[idx]             = false;
+        laneChangeDirection[idx]       = (byte) Vehicle.LaneChangeDirection.NONE.ordinal();
+
+        state[idx]            = NOT_SPAWNED;
+        cellPosition[idx]     = -1;
+        velocity[idx]         = 0;
+        lastVelocityZero[idx] = false;
+        anger[idx]            = 0;
+        totalAnger[idx]       = 0;
+        travellingTime[idx]   = 0;
+
+        this.maxVelocity[idx] = maxVelocity;
+
+        return idx;
+    }
+
+    /**
+     * @return number of allocated indices including the ones of despawned vehicles; every index in
+     * {@code [0, size())} is valid
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the vehicle viewing onto the given index
+     */
+    public StoredVehicle getVehicle(int idx) {
+        return vehicles[idx];
+    }
+
+
+    /*
+    |==================|
+    | state operations |
+    |==================|
+    */
+    /**
+     * @return true if the vehicle at the given index has been added and is spawned
+     */
+    public boolean isSpawned(int idx) {
+        return state[idx] == SPAWNED && contained[idx];
+    }
+
+    /**
+     * @return true if the vehicle at the given index has been added and is not spawned yet
+     */
+    public boolean isNotSpawned(int idx) {
+        return state[idx] == NOT_SPAWNED && contained[idx];
+    }
+
+    /**
+     * Nagel-Schreckenberg acceleration: {@code v = min(v + 1, vMax)} where {@code vMax} is the minimum of the
+     * vehicle's max velocity and its lane's max velocity.
+     */
+    public void accelerate(int idx) {
+        int v = velocity[idx] + 1;
+        velocity[idx] = Math.max(0, Math.min(v, getMaxVelocity(idx)));
+    }
+
+
+    /*
+    |=========|
+    | getters |
+    |=========|
+    */
+    public VehicleState getState(int idx) {
+        return STATES[state[idx]];
+    }
+
+    /**
+     * Sets the state of the vehicle at the given index and updates the counters of this container. Despawned
+     * vehicles are removed from this container.
+     */
+    public synchronized void setState(int idx, VehicleState newState) {
+        byte old = state[idx];
+        state[idx] = (byte) newState.ordinal();
+
+        if (!contained[idx] || old == state[idx])
+            return;
+
+        if (old == NOT_SPAWNED)
+            notSpawnedCount--;
+        else if (old == SPAWNED)
+            spawnedCount--;
+
+        if (state[idx] == NOT_SPAWNED) {
+            notSpawnedCount++;
+        } else if (state[idx] == SPAWNED) {
+            spawnedCount++;
+        } else {
+            contained[idx] = false;
+            vehicleCount--;
+        }
+    }
+
+    public DirectedEdge.Lane getLane(int idx) {
+        return lane[idx];
+    }
+
+    public void setLane(int idx, DirectedEdge.Lane lane) {
+        this.lane[idx] = lane;
+        laneMaxVelocity[idx] = lane == null ? Integer.MAX_VALUE : lane.getMaxVelocity();
+    }
+
+    /**
+     * @return the lane's max velocity or {@code Integer.MAX_VALUE} if the vehicle is not on a lane
+     */
+    public int getLaneMaxVelocity(int idx) {
+        return laneMaxVelocity[idx];
+    }
+
+    /**
+     * @return minimum of the vehicle's max velocity and its lane's max velocity
+     */
+    public int getMaxVelocity(int idx) {
+        return Math.min(maxVelocity[idx], laneMaxVelocity[idx]);
+    }
+
+    public int getOutermostTurningLaneIndex(int idx) {
+        return outermostTurningLaneIndex[idx];
+    }
+
+    public void setOutermostTurningLaneIndex(int idx, int laneIdx) {
+        outermostTurningLaneIndex[idx] = laneIdx;
+    }
+
+    public boolean isLaneCorrect(int idx) {
+        return laneIsCorrect[idx];
+    }
+
+    public void setLaneIsCorrect(int idx, boolean laneIsCorrect) {
+        this.laneIsCorrect[idx] = laneIsCorrect;
+    }
+
+    public Vehicle.LaneChangeDirection getLaneChangeDirection(int idx) {
+        return DIRECTIONS[laneChangeDirection[idx]];
+    }
+
+    public void setLaneChangeDirection(int idx, Vehicle.LaneChangeDirection direction) {
+        laneChangeDirection[idx] = (byte) direction.ordinal();
+    }
+
+    public int getCellPosition(int idx) {
+        return cellPosition[idx];
+    }
+
+    public void setCellPosition(int idx, int cellPosition) {
+        this.cellPosition[idx] = cellPosition;
+    }
+
+    public int getVelocity(int idx) {
+        return velocity[idx];
+    }
+
+    public void setVelocity(int idx, int velocity) {
+        this.velocity[idx] = velocity;
+    }
+
+    public boolean isLastVelocityZero(int idx) {
+        return lastVelocityZero[idx];
+    }
+
+    public void setLastVelocityZero(int idx, boolean wasZero) {
+        lastVelocityZero[idx] = wasZero;
+    }
+
+    public int getAnger(int idx) {
+        return anger[idx];
+    }
+
+    public void setAnger(int idx, int anger) {
+        this.anger[idx] = anger;
+    }
+
+    public int getTotalAnger(int idx) {
+        return totalAnger[idx];
+    }
+
+    public void setTotalAnger(int idx, int totalAnger) {
+        this.totalAnger[idx] = totalAnger;
+    }
+
+    public int getTravellingTime(int idx) {
+        return travellingTime[idx];
+    }
+
+    public void setTravellingTime(int idx, int travellingTime) {
+        this.travellingTime[idx] = travellingTime;
+    }
+
+
+    /*
+    |======================|
+    | (i) VehicleContainer |
+    |======================|
+    */
+    /**
+     * Addition to superclass: The vehicle has to be a {@link StoredVehicle} allocated in this store.
+     */
+    @Override
+    public synchronized void addVehicle(Vehicle vehicle) {
+        if (!(vehicle instanceof StoredVehicle) || ((StoredVehicle) vehicle).getStore() != this)
+            throw new IllegalArgumentException("The vehicle " + vehicle.getId() + " is not allocated in this store.");
+
+        int idx = ((StoredVehicle) vehicle).getIndex();
+        if (contained[idx] || state[idx] == DESPAWNED)
+            return;
+
+        contained[idx] = true;
+        vehicleCount++;
+        if (state[idx] == SPAWNED)
+            spawnedCount++;
+        else
+            notSpawnedCount++;
+    }
+
+    @Override
+    public synchronized void clearAll() {
+        Arrays.fill(vehicles, 0, size, null);
+        Arrays.fill(lane, 0, size, null);
+        Arrays.fill(contained, 0, size, false);
+        size            = 0;
+        vehicleCount    = 0;
+        spawnedCount    = 0;
+        notSpawnedCount = 0;
+    }
+
+    @Override
+    public synchronized int getVehicleCount() {
+        return vehicleCount;
+    }
+
+    @Override
+    public synchronized int getSpawnedCount() {
+        return spawnedCount;
+    }
+
+    @Override
+    public synchronized int getNotSpawnedCount() {
+        return notSpawnedCount;
+    }
+
+    /**
+     * Addition to superclass: This method returns a shallow copy sorted by the vehicles' dense indices.
+     */
+    @Override
+    public synchronized Collection<Vehicle> getVehicles() {
+        ArrayList<Vehicle> list = new ArrayList<>(vehicleCount);
+        for (int idx = 0; idx < size; idx++)
+            if (contained[idx])
+                list.add(vehicles[idx]);
+        return list;
+    }
+
+    /**
+     * Addition to superclass: This method returns a shallow copy sorted by the vehicles' dense indices.
+     */
+    @Override
+    public synchronized Collection<Vehicle> getSpawnedVehicles() {
+        ArrayList<Vehicle> list = new ArrayList<>(spawnedCount);
+        for (int idx = 0; idx < size; idx++)
+            if (isSpawned(idx))
+                list.add(vehicles[idx]);
+        return list;
+    }
+
+    /**
+     * Addition to superclass: This method returns a shallow copy sorted by the vehicles' dense indices.
+     */
+    @Override
+    public synchronized Collection<Vehicle> getNotSpawnedVehicles() {
+        ArrayList<Vehicle> list = new ArrayList<>(notSpawnedCount);
+        for (int idx = 0; idx < size; idx++)
+            if (isNotSpawned(idx))
+                list.add(vehicles[idx]);
+        return list;
+    }
+
+
+    /*
+    |==========================|
+    | (i) VehicleStateListener |
+    |==========================|
+    */
+    /**
+     * Addition to superclass: The state of a {@link StoredVehicle} is written into this store directly by
+     * {@link StoredVehicle#setState(VehicleState)}, so there is nothing left to do for them. Other vehicles are not
+     * supported.
+     */
+    @Override
+    public void stateChanged(Vehicle vehicle) {
+
+    }
+
+
+    /*
+    |==============|
+    | (i) Iterable |
+    |==============|
+    */
+    @Override
+    public Iterator<Vehicle> iterator() {
+        return getVehicles().iterator();
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    private void allocateArrays(int capacity) {
+        vehicles  = new StoredVehicle[capacity];
+        contained = new boolean[capacity];
+
+        lane                      = new DirectedEdge.Lane[capacity];
+        laneMaxVelocity           = new int[capacity];
+        outermostTurningLaneIndex = new int[capacity];
+        laneIsCorrect             = new boolean[capacity];
+        laneChangeDirection       = new byte[capacity];
+
+        state            = new byte[capacity];
+        cellPosition     = new int[capacity];
+        velocity         = new int[capacity];
+        lastVelocityZero = new boolean[capacity];
+        anger            = new int[capacity];
+        totalAnger       = new int[capacity];
+        travellingTime   = new int[capacity];
+
+        maxVelocity = new int[capacity];
+    }
+
+    private void growArrays(int capacity) {
+        vehicles  = Arrays.copyOf(vehicles, capacity);
+        contained = Arrays.copyOf(contained, capacity);
+
+        lane                      = Arrays.copyOf(lane, capacity);
+        laneMaxVelocity           = Arrays.copyOf(laneMaxVelocity, capacity);
+        outermostTurningLaneIndex = Arrays.copyOf(outermostTurningLaneIndex, capacity);
+        laneIsCorrect             = Arrays.copyOf(laneIsCorrect, capacity);
+        laneChangeDirection       = Arrays.copyOf(laneChangeDirection, capacity);
+
+        state            = Arrays.copyOf(state, capacity);
+        cellPosition     = Arrays.copyOf(cellPosition, capacity);
+        velocity         = Arrays.copyOf(velocity, capacity);
+        lastVelocityZero = Arrays.copyOf(lastVelocityZero, capacity);
+        anger            = Arrays.copyOf(anger, capacity);
+        totalAnger       = Arrays.copyOf(totalAnger, capacity);
+        travellingTime   = Arrays.copyOf(travellingTime, capacity);
+
+        maxVelocity = Arrays.copyOf(maxVelocity, capacity);
+    }
+}
@@ -5,6 +5,7 @@ import microtrafficsim.core.logic.streetgraph.Graph;
 import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
 import microtrafficsim.core.shortestpath.astar.AStars;
+import microtrafficsim.core.simulation.configs.ScenarioConfig;
 import microtrafficsim.core.simulation.configs.SimulationConfig;
 import microtrafficsim.core.simulation.scenarios.containers.VehicleContainer;
 import microtrafficsim.core.simulation.scenarios.containers.impl.ConcurrentVehicleContainer;
@@ -17,8 +18,17 @@ import org.slf4j.Logger;
 import java.util.function.Supplier;
 
 /**
+ * <p>
  * The type of scenario represented by this class chooses start and end nodes randomly out of node-collections.
  *
+ * <p>
+ * The routes are calculated by {@link AStars#fastestPathAStar(double, double)} and
+ * {@link AStars#shortestPathAStar(double)}. If {@link ScenarioConfig#batchRouting} is enabled, they are calculated
+ * by {@link AStars#denseFastestPathAStar(Graph, double, double)} and
+ * {@link AStars#denseShortestPathAStar(Graph, double)} instead, which calculate one shortest path tree per origin.
+ * These find paths of the same weight, but choose differently between paths of equal weight. Hence a seed only
+ * reproduces the routes of runs using the same setting.
+ *
  * @author Dominic Parga Cacheiro
  */
 public abstract class BasicRandomScenario extends BasicScenario implements Seeded {
@@ -59,8 +69,15 @@ public abstract class BasicRandomScenario extends BasicScenario implements Seede
         fastestWayProbability = 0.7f;
 
         /* scout factory */
-        fastestPathAlg = AStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity);
-        shortestPathAlg = AStars.shortestPathAStar(config.metersPerCell);
+        // dense A*s support one shortest path tree per origin (see VehicleScenarioBuilder), but break ties
+        // between paths of equal weight differently than the non-dense A*s
+        if (config.scenario.batchRouting) {
+            fastestPathAlg = AStars.denseFastestPathAStar(graph, config.metersPerCell, config.globalMaxVelocity);
+            shortestPathAlg = AStars.denseShortestPathAStar(graph, config.metersPerCell);
+        } else {
+            fastestPathAlg = AStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity);
+            shortestPathAlg = AStars.shortestPathAStar(config.metersPerCell);
+        }
     }
 
     public abstract void redefineMetaRoutes();
@@ -1,10 +1,12 @@
 package microtrafficsim.core.simulation.scenarios.impl;
 
 import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
 import microtrafficsim.core.logic.streetgraph.Graph;
 import microtrafficsim.core.logic.streets.DirectedEdge;
 import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
 import microtrafficsim.core.shortestpath.astar.AStars;
+import microtrafficsim.core.shortestpath.cache.RouteCache;
 import microtrafficsim.core.simulation.builder.ScenarioBuilder;
 import microtrafficsim.core.simulation.configs.SimulationConfig;
 import microtrafficsim.core.simulation.core.Simulation;
@@ -15,11 +17,15 @@ import java.util.function.Supplier;
 
 /**
  * This scenario defines different scenarios in a queue, which can be executed after each other. The scenarios are
- * getting prepared/calculated on the fly, so this class is made only for small scenarios due to runtime.
+ * getting prepared/calculated on the fly, so this class is made only for small scenarios due to runtime. The routes
+ * are cached in a {@link RouteCache}, so looping through the queue does not calculate them again.
  *
  * @author Dominic Parga Cacheiro
  */
 public class QueueScenarioSmall extends BasicScenario {
+    /** maximum number of edges of all cached routes */
+    private static final long ROUTE_CACHE_EDGE_COUNT = 1 << 20;
+
     private final ShortestPathAlgorithm<Node, DirectedEdge> scout;
     private ArrayList<RouteContainer> routeContainers;
     private int curIdx;
@@ -29,7 +35,8 @@ public class QueueScenarioSmall extends BasicScenario {
 
     protected QueueScenarioSmall(SimulationConfig config, Graph graph, ScenarioBuilder scenarioBuilder) {
         super(config, graph);
-        scout = AStars.shortestPathAStar(config.metersPerCell);
+        scout = new RouteCache(new CSRGraph(graph), ROUTE_CACHE_EDGE_COUNT).wrap(
+                AStars.shortestPathAStar(config.metersPerCell), "shortest");
         routeContainers = new ArrayList<>();
         curIdx = -1;
         isLooping = false;
@@ -31,11 +31,20 @@ public class HaversineDistanceCalculator {
      * @return the distance between {@code a} and {@code b} in meter.
      */
     public static double getDistance(Coordinate a, Coordinate b) {
-        double deltalat = Math.toRadians(b.lat - a.lat);
-        double deltalon = Math.toRadians(b.lon - a.lon);
+        return getDistance(a.lat, a.lon, b.lat, b.lon);
+    }
+
+    /**
+     * Same as {@link #getDistance(Coordinate, Coordinate)}, but without creating coordinates.
+     *
+     * @return the distance between {@code (alat, alon)} and {@code (blat, blon)} in meter.
+     */
+    public static double getDistance(double alat, double alon, double blat, double blon) {
+        double deltalat = Math.toRadians(blat - alat);
+        double deltalon = Math.toRadians(blon - alon);
 
-        double alatr = Math.toRadians(a.lat);
-        double blatr = Math.toRadians(b.lat);
+        double alatr = Math.toRadians(alat);
+        double blatr = Math.toRadians(blat);
 
         double slat = Math.sin(deltalat / 2);
         double slon = Math.sin(deltalon / 2);
@@ -2,12 +2,15 @@ package microtrafficsim.osm.parser;
 
 import microtrafficsim.osm.parser.base.DataSet;
 import microtrafficsim.osm.parser.base.MultiPassParserBaseEventHandler;
+import microtrafficsim.osm.parser.base.NodeCoordinateStore;
 import microtrafficsim.osm.parser.base.ParserBase;
+import microtrafficsim.osm.parser.base.PbfParserBase;
 import microtrafficsim.osm.parser.ecs.entities.NodeEntityManager;
 import microtrafficsim.osm.parser.ecs.entities.WayEntityManager;
 import microtrafficsim.osm.parser.features.FeatureSystem;
 import microtrafficsim.osm.parser.relations.RelationBase;
 import microtrafficsim.osm.parser.relations.RelationManager;
+import microtrafficsim.osm.primitives.TagDictionary;
 import microtrafficsim.utils.logging.EasyMarkableLogger;
 import org.slf4j.Logger;
 
@@ -15,10 +18,12 @@ import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 
 
 /**
- * OpenStreetMap XML parser.
+ * OpenStreetMap XML and PBF parser.
  * This framework-class provides the base to build a customized OSM parser, it
  * does not contain any predefined {@code FeatureGenerator}s or other rule-sets
  * for creating and/or modifying data. For a functional parser these rule-sets
@@ -38,6 +43,8 @@ public class Parser {
 
     private Processor processor;
 
+    private boolean singlePass;
+
 
     /**
      * Create a new Parser with the specified {@code Processor} which is used
@@ -53,6 +60,8 @@ public class Parser {
         nodeManager = new NodeEntityManager();
         wayManager  = new WayEntityManager();
         relations   = new RelationManager();
+
+        singlePass = true;
     }
 
 
@@ -100,8 +109,47 @@ public class Parser {
 
 
     /**
-     * Parse the specified OpenStreetMap XML file in multiple passes and
-     * execute the parsers {@code Processor}.
+     * Enable or disable the single-pass mode. In single-pass mode (which is
+     * the default), the coordinates of all nodes are recorded in a {@code
+     * NodeCoordinateStore} during the first pass, from which the nodes
+     * required by ways and relations are created afterwards. The input is
+     * then only read again if relations require ways which are not matched by
+     * any feature. Otherwise, the input is read again until all transitive
+     * dependencies have been parsed.
+     *
+     * @param enabled {@code true} to enable the single-pass mode.
+     */
+    public void setSinglePass(boolean enabled) {
+        this.singlePass = enabled;
+    }
+
+    /**
+     * Checks if the single-pass mode is enabled.
+     *
+     * @return {@code true} if the single-pass mode is enabled.
+     * @see #setSinglePass(boolean)
+     */
+    public boolean isSinglePass() {
+        return singlePass;
+    }
+
+
+    /**
+     * Tests if the given file is an OpenStreetMap PBF file (instead of an
+     * XML file), based on its file-extension.
+     *
+     * @param file the file to test.
+     * @return {@code true} if the file ends with {@code .pbf}.
+     */
+    public static boolean isPbfFile(File file) {
+        return file.getName().toLowerCase().endsWith(".pbf");
+    }
+
+
+    /**
+     * Parse the specified OpenStreetMap XML or PBF file in multiple passes and
+     * execute the parsers {@code Processor}. PBF files are detected by their
+     * file-extension, see {@link #isPbfFile(File)}.
      *
      * @param file the file to be parsed.
      * @throws XMLStreamException if the XML-file is malformed.
@@ -130,22 +178,43 @@ public class Parser {
      * Extract, abstract and store the required OpenStreetMap elements from the
      * given file. The parsers {@code FeatureSystem} determines which elements
      * are required and which are not. This method runs multiple passes over
-     * the given file to extract transitive dependencies.
+     * the given file to extract transitive dependencies, unless they can be
+     * resolved after the first pass (see {@link #setSinglePass(boolean)}).
      *
      * @param file the file to be parsed.
      * @return a {@code DataSet} object containing all required and parsed
      * elements.
      * @throws XMLStreamException if the XML-file is malformed.
-     * @throws IOException        if the specified file cannot be read.
+     * @throws IOException        if the specified file cannot be read or the
+     *                            PBF-file is malformed.
      */
     private DataSet extract(File file) throws XMLStreamException, IOException, InterruptedException {
+        NodeCoordinateStore nodeStore = singlePass ? new NodeCoordinateStore() : null;
+
+        try {
+            return extract(file, nodeStore);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (nodeStore != null)
+                nodeStore.close();
+        }
+    }
+
+    private DataSet extract(File file, NodeCoordinateStore nodeStore)
+            throws XMLStreamException, IOException, InterruptedException {
         DataSet datastore = new DataSet();
 
-        // initialize the ParserBase
-        MultiPassParserBaseEventHandler handler
-                = new MultiPassParserBaseEventHandler(datastore, features, nodeManager, wayManager, relations);
+        // initialize the ParserBase, all passes share the same tag-codes
+        MultiPassParserBaseEventHandler handler = new MultiPassParserBaseEventHandler(
+                datastore, features, nodeManager, wayManager, relations, nodeStore);
+        TagDictionary dictionary = new TagDictionary();
 
-        ParserBase base = new ParserBase(handler);
+        PassParser base;
+        if (isPbfFile(file))
+            base = new PbfParserBase(handler, dictionary)::parse;
+        else
+            base = new ParserBase(handler, dictionary)::parse;
 
         // pass 1: parse all directly specified features
         logger.info("parsing: pass 1");
@@ -153,12 +222,17 @@ public class Parser {
         base.parse(in);
         in.close();
 
+        if (nodeStore != null)
+            logger.debug("recorded " + nodeStore.size() + " node coordinates"
+                    + (nodeStore.isMapped() ? " (memory-mapped)" : ""));
+        logger.debug("tag-dictionary contains " + dictionary.size() + " distinct keys and values");
+
         // setup check for datastore change
         int elementsPrev  = 0;
         int elementsAfter = datastore.nodes.size() + datastore.ways.size() + datastore.relations.size();
 
         // pass 2 to n: parse indirectly needed data (until either no changes occur or all that is needed is parsed)
-        for (int i = 0; (elementsPrev != elementsAfter) && (!handler.hasRequiredPrimitives()); i++) {
+        for (int i = 0; (elementsPrev != elementsAfter) && handler.isAnotherPassRequired(); i++) {
             logger.info("parsing: pass " + (2 + i));
             in = new FileInputStream(file);
             base.parse(in);
@@ -173,4 +247,13 @@ public class Parser {
 
         return datastore;
     }
+
+
+    /**
+     * Common interface of the {@code ParserBase} and {@code PbfParserBase}
+     * parse-methods, used to run a single pass over the input.
+     */
+    private interface PassParser {
+        void parse(InputStream in) throws XMLStreamException, IOException, InterruptedException;
+    }
 }
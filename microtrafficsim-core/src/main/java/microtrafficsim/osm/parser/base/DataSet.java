@@ -4,8 +4,7 @@ import microtrafficsim.core.map.Bounds;
 import microtrafficsim.osm.parser.ecs.entities.NodeEntity;
 import microtrafficsim.osm.parser.ecs.entities.WayEntity;
 import microtrafficsim.osm.parser.relations.RelationCollection;
-
-import java.util.HashMap;
+import microtrafficsim.utils.collections.LongHashMap;
 
 
 /**
@@ -15,8 +14,8 @@ import java.util.HashMap;
  */
 public class DataSet {
     public Bounds bounds;
-    public HashMap<Long, NodeEntity> nodes;
-    public HashMap<Long, WayEntity>  ways;
+    public LongHashMap<NodeEntity> nodes;
+    public LongHashMap<WayEntity>  ways;
     public RelationCollection relations;
 
     /**
@@ -24,8 +23,8 @@ public class DataSet {
      */
     public DataSet() {
         this.bounds    = null;
-        this.nodes     = new HashMap<>();
-        this.ways      = new HashMap<>();
+        this.nodes     = new LongHashMap<>();
+        this.ways      = new LongHashMap<>();
         this.relations = new RelationCollection();
     }
 }
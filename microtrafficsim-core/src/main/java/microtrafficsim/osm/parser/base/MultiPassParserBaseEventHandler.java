@@ -1,6 +1,7 @@
 package microtrafficsim.osm.parser.base;
 
 import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
 import microtrafficsim.osm.parser.ecs.EntityFactory;
 import microtrafficsim.osm.parser.ecs.entities.NodeEntity;
 import microtrafficsim.osm.parser.ecs.entities.WayEntity;
@@ -10,10 +11,15 @@ import microtrafficsim.osm.parser.relations.RelationBase;
 import microtrafficsim.osm.parser.relations.RelationFactory;
 import microtrafficsim.osm.primitives.Node;
 import microtrafficsim.osm.primitives.Relation;
+import microtrafficsim.osm.primitives.Tags;
 import microtrafficsim.osm.primitives.Way;
 import microtrafficsim.utils.Resettable;
+import microtrafficsim.utils.collections.LongHashSet;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashSet;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 
 
@@ -22,6 +28,11 @@ import java.util.Set;
  * feature-tagging and abstracting OpenStreetMap primitives in multiple passes.
  * This implementation only keeps elements tagged by the {@code FeatureMatcher}
  * and transitive dependencies of such elements.
+ * <p>
+ * If a {@code NodeCoordinateStore} is given, the coordinates of all nodes are
+ * recorded in the first pass and the nodes required by ways and relations are
+ * created from this store at the end of each pass. Thus further passes are
+ * only required for ways needed by relations but not matched by any feature.
  *
  * @author Maximilian Luz
  */
@@ -34,8 +45,10 @@ public class MultiPassParserBaseEventHandler implements ParserBaseEventHandler,
     private EntityFactory<WayEntity, Way>   wayFactory;
     private RelationFactory relationFactory;
 
-    private HashSet<Long> requiredNodes;
-    private HashSet<Long> requiredWays;
+    private NodeCoordinateStore nodeStore;
+
+    private LongHashSet requiredNodes;
+    private LongHashSet requiredWays;
 
     private int pass;
 
@@ -52,6 +65,24 @@ public class MultiPassParserBaseEventHandler implements ParserBaseEventHandler,
     public MultiPassParserBaseEventHandler(DataSet datastore, FeatureMatcher matcher,
                                            EntityFactory<NodeEntity, Node>   nodeFactory,
                                            EntityFactory<WayEntity, Way> wayFactory, RelationFactory relationFactory) {
+        this(datastore, matcher, nodeFactory, wayFactory, relationFactory, null);
+    }
+
+    /**
+     * Constructs a new {@code MultiPassParserBaseEventHandler} based on the given properties.
+     *
+     * @param datastore       the {@code DataSet} to be used as storage.
+     * @param matcher         the {@code FeatureMatcher} to select the features that should be parsed.
+     * @param nodeFactory     the factory creating the new node-entities.
+     * @param wayFactory      the factory creating the new way-entities.
+     * @param relationFactory the factory creating the new relations
+     * @param nodeStore       the store used to record the coordinates of all nodes in the first pass, may be
+     *                        {@code null} to parse required nodes in further passes instead.
+     */
+    public MultiPassParserBaseEventHandler(DataSet datastore, FeatureMatcher matcher,
+                                           EntityFactory<NodeEntity, Node>   nodeFactory,
+                                           EntityFactory<WayEntity, Way> wayFactory, RelationFactory relationFactory,
+                                           NodeCoordinateStore nodeStore) {
         this.datastore = datastore;
         this.matcher   = matcher;
 
@@ -59,8 +90,10 @@ public class MultiPassParserBaseEventHandler implements ParserBaseEventHandler,
         this.wayFactory      = wayFactory;
         this.relationFactory = relationFactory;
 
-        this.requiredNodes = new HashSet<>();
-        this.requiredWays  = new HashSet<>();
+        this.nodeStore = nodeStore;
+
+        this.requiredNodes = new LongHashSet();
+        this.requiredWays  = new LongHashSet();
 
         this.pass = 0;
     }
@@ -77,6 +110,14 @@ public class MultiPassParserBaseEventHandler implements ParserBaseEventHandler,
 
         // early return if node is not required or already parsed
         if (pass == 0) {
+            if (nodeStore != null) {
+                try {
+                    nodeStore.put(n.id, n.lat, n.lon);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
             features = matcher.getFeatures(n);
             if (features == null || features.isEmpty()) return;
         } else if (requiredNodes.contains(n.id)) {
@@ -141,11 +182,41 @@ public class MultiPassParserBaseEventHandler implements ParserBaseEventHandler,
 
     @Override
     public void onEnd() {
-        requiredNodes.removeAll(datastore.nodes.keySet());
-        requiredWays.removeAll(datastore.ways.keySet());
+        requiredNodes.removeIf(datastore.nodes::containsKey);
+        requiredWays.removeIf(datastore.ways::containsKey);
+
+        if (nodeStore != null)
+            resolveRequiredNodes();
+
         pass++;
     }
 
+    /**
+     * Creates the required nodes from the {@code NodeCoordinateStore}. Nodes
+     * missing in the store stay required.
+     */
+    private void resolveRequiredNodes() {
+        PrimitiveIterator.OfLong iter = requiredNodes.iterator();
+        while (iter.hasNext()) {
+            long id = iter.nextLong();
+
+            Coordinate c;
+            try {
+                c = nodeStore.get(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if (c == null) continue;
+
+            // nodes without features only need their coordinates, as no components are initialized
+            NodeEntity entity = nodeFactory.create(new Node(id, c.lat, c.lon, true, Tags.EMPTY), new HashSet<>());
+
+            datastore.nodes.put(entity.id, entity);
+            iter.remove();
+        }
+    }
+
 
     /**
      * Checks if all transitive dependencies of elements in the internal {@code
@@ -158,6 +229,21 @@ public class MultiPassParserBaseEventHandler implements ParserBaseEventHandler,
         return requiredNodes.isEmpty() && requiredWays.isEmpty();
     }
 
+    /**
+     * Checks if another pass over the input may parse missing transitive
+     * dependencies. If a {@code NodeCoordinateStore} is used, nodes missing in
+     * the store are also missing in the input, so only missing ways require
+     * another pass.
+     *
+     * @return {@code true} if another pass should be run.
+     */
+    public boolean isAnotherPassRequired() {
+        if (nodeStore != null)
+            return !requiredWays.isEmpty();
+        else
+            return !hasRequiredPrimitives();
+    }
+
 
     /**
      * Resets the internal storage except for the {@code DataSet}, which has to
@@ -0,0 +1,390 @@
+package microtrafficsim.osm.parser.base;
+
+import microtrafficsim.core.map.Coordinate;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/**
+ * Compact store for the coordinates of all nodes of an OpenStreetMap file,
+ * used to resolve the nodes required by ways and relations without parsing
+ * the file again.
+ *
+ * <p>
+ * Every node takes 16 bytes: its id and its coordinate, packed as two 32 bit
+ * fixed-point numbers with a precision of {@code 1e-7} degrees, which is the
+ * precision of OpenStreetMap itself. The nodes are stored in chunks, each
+ * sorted by id, so lookups are binary searches. As OpenStreetMap files are
+ * usually sorted by id, the chunks usually do not overlap and a lookup only
+ * searches a single chunk.
+ *
+ * <p>
+ * Chunks are kept on the heap until the given heap threshold is exceeded,
+ * further chunks are written to a temporary file and memory-mapped. The
+ * temporary file is deleted on {@link #close()}.
+ *
+ * @author Maximilian Luz
+ */
+public class NodeCoordinateStore implements Closeable {
+
+    private static final int  DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int  BYTES_PER_NODE     = 2 * Long.BYTES;
+    private static final long FIXED_POINT_SCALE  = 10_000_000L;
+
+    private final long maxHeapBytes;
+    private final int  chunkSize;
+
+    private final ArrayList<Chunk> chunks;
+    private boolean disjoint;       // chunks are sorted by id and do not overlap
+    private long    heapBytes;
+    private long    size;
+
+    private long[]  ids;            // the current, open chunk
+    private long[]  coords;
+    private int     count;
+    private boolean sorted;
+
+    private File             file;
+    private RandomAccessFile raf;
+    private FileChannel      channel;
+
+
+    /**
+     * Constructs a new {@code NodeCoordinateStore}, using at most a quarter of
+     * the maximum heap size before memory-mapping further nodes.
+     */
+    public NodeCoordinateStore() {
+        this(Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * Constructs a new {@code NodeCoordinateStore}.
+     *
+     * @param maxHeapBytes the number of bytes used on the heap, before further
+     *                     nodes are stored in a memory-mapped temporary file.
+     */
+    public NodeCoordinateStore(long maxHeapBytes) {
+        this(maxHeapBytes, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code NodeCoordinateStore}.
+     *
+     * @param maxHeapBytes the number of bytes used on the heap, before further
+     *                     nodes are stored in a memory-mapped temporary file.
+     * @param chunkSize    the number of nodes per chunk.
+     */
+    public NodeCoordinateStore(long maxHeapBytes, int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+
+        this.maxHeapBytes = maxHeapBytes;
+        this.chunkSize    = chunkSize;
+
+        this.chunks    = new ArrayList<>();
+        this.disjoint  = true;
+        this.heapBytes = 0;
+        this.size      = 0;
+
+        this.ids    = null;
+        this.coords = null;
+        this.count  = 0;
+        this.sorted = true;
+    }
+
+
+    /**
+     * Stores the coordinate of the given node. If a node is stored multiple
+     * times, any of its coordinates may be returned by {@link #get(long)}.
+     *
+     * @param id  the id of the node.
+     * @param lat the latitude of the node.
+     * @param lon the longitude of the node.
+     * @throws IOException if the node cannot be written to the temporary file.
+     */
+    public void put(long id, double lat, double lon) throws IOException {
+        if (ids == null) {
+            ids    = new long[chunkSize];
+            coords = new long[chunkSize];
+        }
+
+        if (count > 0 && ids[count - 1] > id)
+            sorted = false;
+
+        ids[count]    = id;
+        coords[count] = pack(lat, lon);
+        count++;
+        size++;
+
+        if (count == chunkSize)
+            seal();
+    }
+
+    /**
+     * Returns the coordinate of the given node.
+     *
+     * @param id the id of the node.
+     * @return the coordinate of the node or {@code null} if it has not been
+     * stored.
+     * @throws IOException if the last nodes cannot be written to the temporary
+     *                     file.
+     */
+    public Coordinate get(long id) throws IOException {
+        if (count > 0)
+            seal();
+
+        if (disjoint) {
+            // binary search for the first chunk whose last id is not smaller than the given id
+            int lo = 0;
+            int hi = chunks.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (chunks.get(mid).last < id)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+
+            if (lo < chunks.size())
+                return chunks.get(lo).get(id);
+
+        } else {
+            for (Chunk chunk : chunks) {
+                Coordinate c = chunk.get(id);
+                if (c != null)
+                    return c;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of stored nodes.
+     *
+     * @return the number of stored nodes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Tests if nodes have been stored in a memory-mapped temporary file.
+     *
+     * @return {@code true} if the heap threshold has been exceeded.
+     */
+    public boolean isMapped() {
+        return file != null;
+    }
+
+    /**
+     * Removes all nodes and deletes the temporary file. This store may be
+     * re-used afterwards.
+     *
+     * @throws IOException if the temporary file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        disjoint  = true;
+        heapBytes = 0;
+        size      = 0;
+
+        ids    = null;
+        coords = null;
+        count  = 0;
+        sorted = true;
+
+        if (file != null) {
+            try {
+                channel.close();
+                raf.close();
+            } finally {
+                // mapped buffers are released on garbage-collection, file deletion may fail on some platforms
+                if (!file.delete())
+                    file.deleteOnExit();
+
+                file    = null;
+                raf     = null;
+                channel = null;
+            }
+        }
+    }
+
+
+    /**
+     * Sorts the open chunk and adds it to the sealed chunks, either on the heap
+     * or in the temporary file.
+     *
+     * @throws IOException if the chunk cannot be written to the temporary file.
+     */
+    private void seal() throws IOException {
+        if (!sorted)
+            sort(ids, coords, 0, count - 1);
+
+        long first = ids[0];
+        long last  = ids[count - 1];
+        if (!chunks.isEmpty() && chunks.get(chunks.size() - 1).last >= first)
+            disjoint = false;
+
+        long bytes = (long) count * BYTES_PER_NODE;
+        if (heapBytes + bytes <= maxHeapBytes) {
+            // partial chunks (sealed by a lookup) are trimmed
+            LongBuffer idbuf    = LongBuffer.wrap(count < ids.length ? Arrays.copyOf(ids, count) : ids);
+            LongBuffer coordbuf = LongBuffer.wrap(count < coords.length ? Arrays.copyOf(coords, count) : coords);
+            chunks.add(new Chunk(first, last, idbuf, coordbuf));
+            heapBytes += bytes;
+
+            ids    = null;
+            coords = null;
+        } else {
+            chunks.add(spill(first, last));
+            // the arrays are re-used for the next chunk
+        }
+
+        count  = 0;
+        sorted = true;
+    }
+
+    /**
+     * Writes the open chunk to the temporary file and maps it.
+     *
+     * @param first the first id of the chunk.
+     * @param last  the last id of the chunk.
+     * @return the mapped chunk.
+     * @throws IOException if the chunk cannot be written.
+     */
+    private Chunk spill(long first, long last) throws IOException {
+        if (file == null) {
+            file    = File.createTempFile("microtrafficsim-nodes", ".bin");
+            raf     = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+            file.deleteOnExit();
+        }
+
+        long offset = channel.size();
+        long bytes  = (long) count * BYTES_PER_NODE;
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes);
+        buffer.asLongBuffer().put(ids, 0, count).put(coords, 0, count);
+
+        long position = offset;
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+
+        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes);
+        LongBuffer data   = mapped.asLongBuffer();
+
+        data.limit(count);
+        LongBuffer idbuf = data.slice();
+        data.limit(2 * count).position(count);
+        LongBuffer coordbuf = data.slice();
+
+        return new Chunk(first, last, idbuf, coordbuf);
+    }
+
+
+    private static long pack(double lat, double lon) {
+        long la = Math.round(lat * FIXED_POINT_SCALE);
+        long lo = Math.round(lon * FIXED_POINT_SCALE);
+        return (la << 32) | (lo & 0xFFFFFFFFL);
+    }
+
+    private static Coordinate unpack(long packed) {
+        // division instead of multiplication, to get the same result as parsing a decimal with 7 digits
+        int la = (int) (packed >> 32);
+        int lo = (int) packed;
+        return new Coordinate(la / (double) FIXED_POINT_SCALE, lo / (double) FIXED_POINT_SCALE);
+    }
+
+    /**
+     * Sorts the given range of both arrays by the ids.
+     */
+    private static void sort(long[] ids, long[] coords, int lo, int hi) {
+        while (hi - lo > 16) {
+            long pivot = ids[(lo + hi) >>> 1];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (ids[i] < pivot) i++;
+                while (ids[j] > pivot) j--;
+                if (i <= j) {
+                    swap(ids, coords, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            // recurse into the smaller part, so the stack depth is logarithmic
+            if (j - lo < hi - i) {
+                sort(ids, coords, lo, j);
+                lo = i;
+            } else {
+                sort(ids, coords, i, hi);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++)
+            for (int j = i; j > lo && ids[j - 1] > ids[j]; j--)
+                swap(ids, coords, j - 1, j);
+    }
+
+    private static void swap(long[] ids, long[] coords, int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+
+        long coord = coords[i];
+        coords[i] = coords[j];
+        coords[j] = coord;
+    }
+
+
+    /**
+     * A sorted chunk of nodes, either on the heap or memory-mapped.
+     */
+    private static class Chunk {
+        final long       first;
+        final long       last;
+        final LongBuffer ids;
+        final LongBuffer coords;
+
+        Chunk(long first, long last, LongBuffer ids, LongBuffer coords) {
+            this.first  = first;
+            this.last   = last;
+            this.ids    = ids;
+            this.coords = coords;
+        }
+
+        Coordinate get(long id) {
+            if (id < first || id > last)
+                return null;
+
+            int lo = 0;
+            int hi = ids.limit() - 1;
+            while (lo <= hi) {
+                int  mid = (lo + hi) >>> 1;
+                long cur = ids.get(mid);
+
+                if (cur < id)
+                    lo = mid + 1;
+                else if (cur > id)
+                    hi = mid - 1;
+                else
+                    return unpack(coords.get(mid));
+            }
+
+            return null;
+        }
+    }
+}
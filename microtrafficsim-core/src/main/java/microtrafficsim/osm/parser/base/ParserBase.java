@@ -8,8 +8,6 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 
 
 /**
@@ -21,14 +19,28 @@ import java.util.Map;
 public class ParserBase {
 
     private ParserBaseEventHandler handler;
+    private Tags.Builder tags;
 
     /**
-     * Constructs a new {@code ParserBase} using the specified handler.
+     * Constructs a new {@code ParserBase} using the specified handler and a
+     * new {@code TagDictionary}.
      *
      * @param handler the handler to be used for handling the parser-events.
      */
     public ParserBase(ParserBaseEventHandler handler) {
+        this(handler, new TagDictionary());
+    }
+
+    /**
+     * Constructs a new {@code ParserBase} using the specified handler.
+     *
+     * @param handler    the handler to be used for handling the parser-events.
+     * @param dictionary the dictionary to which the keys and values of all
+     *                   parsed tags are added.
+     */
+    public ParserBase(ParserBaseEventHandler handler, TagDictionary dictionary) {
         this.handler = handler;
+        this.tags    = new Tags.Builder(dictionary);
     }
 
 
@@ -104,14 +116,12 @@ public class ParserBase {
         double  lon     = Double.parseDouble(reader.getAttributeValue(null, "lon"));
         boolean visible = parseOptionalBoolean(reader.getAttributeValue(null, "visible"), true);
 
-        HashMap<String, String> tags = new HashMap<>();
-
         int level = 1;
         while (reader.hasNext() && level > 0) {
             switch (reader.next()) {
             case XMLStreamReader.START_ELEMENT:
                 level++;
-                if (reader.getLocalName().equals("tag")) parseTag(reader, tags);
+                if (reader.getLocalName().equals("tag")) parseTag(reader);
                 break;
 
             case XMLStreamReader.END_ELEMENT: level--; break;
@@ -120,7 +130,7 @@ public class ParserBase {
             }
         }
 
-        handler.onPrimitiveParsed(new Node(id, lat, lon, visible, tags));
+        handler.onPrimitiveParsed(new Node(id, lat, lon, visible, tags.build()));
     }
 
     /**
@@ -135,7 +145,6 @@ public class ParserBase {
         boolean visible = parseOptionalBoolean(reader.getAttributeValue(null, "visible"), true);
 
         ArrayList<Long> nodes = new ArrayList<>();
-        HashMap<String, String> tags = new HashMap<>();
 
         int level = 0;
         while (reader.hasNext() && level >= 0) {
@@ -147,7 +156,7 @@ public class ParserBase {
                 if (name.equals("nd"))
                     nodes.add(Long.parseLong(reader.getAttributeValue(null, "ref")));
                 else if (name.equals("tag"))
-                    parseTag(reader, tags);
+                    parseTag(reader);
 
                 break;
 
@@ -155,7 +164,7 @@ public class ParserBase {
             }
         }
 
-        handler.onPrimitiveParsed(new Way(id, visible, nodes, tags));
+        handler.onPrimitiveParsed(new Way(id, visible, nodes, tags.build()));
     }
 
     /**
@@ -170,7 +179,6 @@ public class ParserBase {
         boolean visible = parseOptionalBoolean(reader.getAttributeValue(null, "visible"), true);
 
         ArrayList<RelationMember> members = new ArrayList<>();
-        HashMap<String, String> tags = new HashMap<>();
 
         int level = 0;
         while (reader.hasNext() && level >= 0) {
@@ -182,7 +190,7 @@ public class ParserBase {
                 if (name.equals("member"))
                     members.add(parseRelationMember(reader));
                 else if (name.equals("tag"))
-                    parseTag(reader, tags);
+                    parseTag(reader);
 
                 break;
 
@@ -190,7 +198,7 @@ public class ParserBase {
             }
         }
 
-        handler.onPrimitiveParsed(new Relation(id, visible, members, tags));
+        handler.onPrimitiveParsed(new Relation(id, visible, members, tags.build()));
     }
 
 
@@ -220,16 +228,18 @@ public class ParserBase {
 
     /**
      * Parse a OpenStreetMap tag from the given {@code XMLStreamReader} and
-     * insert it in the given {@code Map}.
+     * add it to the tags of the current primitive. Incomplete tags are
+     * ignored.
      *
      * @param reader the {@code XMLStreamReader} from which to read.
-     * @param tags   the {@code Map} in which to insert the tag.
      * @throws XMLStreamException
      */
-    private void parseTag(XMLStreamReader reader, Map<String, String> tags) throws XMLStreamException {
+    private void parseTag(XMLStreamReader reader) throws XMLStreamException {
         String k = reader.getAttributeValue(null, "k");
         String v = reader.getAttributeValue(null, "v");
-        tags.put(k, v);
+
+        if (k != null && v != null)
+            tags.add(k, v);
     }
 
 
@@ -0,0 +1,745 @@
+package microtrafficsim.osm.parser.base;
+
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.osm.primitives.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+/**
+ * A OpenStreetMap PBF parser base, providing functionality for extracting
+ * OpenStreetMap primitives (elements) from the binary PBF format. This class
+ * calls the same callbacks of the {@code ParserBaseEventHandler} in the same
+ * order as {@link ParserBase} does for the equivalent XML file.
+ *
+ * <p>
+ * A PBF file is a sequence of independently compressed file-blocks. The blocks
+ * are read sequentially by the calling thread and decoded concurrently on a
+ * thread pool, the decoded primitives are passed to the handler in file-order
+ * by the calling thread. Thus the handler does not need to be thread-safe.
+ * The keys and values of tags are added to a shared {@code TagDictionary},
+ * each string of a block's string-table at most once.
+ *
+ * <p>
+ * The file format is described at
+ * {@code https://wiki.openstreetmap.org/wiki/PBF_Format}. Only
+ * zlib-compressed and uncompressed blocks are supported, as these are the
+ * only ones written by the common tools.
+ *
+ * @author Maximilian Luz
+ */
+public class PbfParserBase {
+
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    private static final int MAX_BLOB_SIZE   = 32 * 1024 * 1024;
+
+    private static final String FEATURE_SCHEMA      = "OsmSchema-V0.6";
+    private static final String FEATURE_DENSE_NODES = "DenseNodes";
+
+    private ParserBaseEventHandler handler;
+    private int nThreads;
+    private TagDictionary dictionary;
+
+
+    /**
+     * Constructs a new {@code PbfParserBase} using the specified handler and
+     * one decoding thread per available processor.
+     *
+     * @param handler the handler to be used for handling the parser-events.
+     */
+    public PbfParserBase(ParserBaseEventHandler handler) {
+        this(handler, new TagDictionary());
+    }
+
+    /**
+     * Constructs a new {@code PbfParserBase} using the specified handler and
+     * one decoding thread per available processor.
+     *
+     * @param handler    the handler to be used for handling the parser-events.
+     * @param dictionary the dictionary to which the keys and values of all
+     *                   decoded tags are added.
+     */
+    public PbfParserBase(ParserBaseEventHandler handler, TagDictionary dictionary) {
+        this(handler, Runtime.getRuntime().availableProcessors(), dictionary);
+    }
+
+    /**
+     * Constructs a new {@code PbfParserBase} using the specified handler and
+     * a new {@code TagDictionary}.
+     *
+     * @param handler  the handler to be used for handling the parser-events.
+     * @param nThreads the number of threads used for decoding the file-blocks.
+     */
+    public PbfParserBase(ParserBaseEventHandler handler, int nThreads) {
+        this(handler, nThreads, new TagDictionary());
+    }
+
+    /**
+     * Constructs a new {@code PbfParserBase} using the specified handler.
+     *
+     * @param handler    the handler to be used for handling the parser-events.
+     * @param nThreads   the number of threads used for decoding the file-blocks.
+     * @param dictionary the dictionary to which the keys and values of all
+     *                   decoded tags are added.
+     */
+    public PbfParserBase(ParserBaseEventHandler handler, int nThreads, TagDictionary dictionary) {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads must be at least 1");
+
+        this.handler    = handler;
+        this.nThreads   = nThreads;
+        this.dictionary = dictionary;
+    }
+
+
+    /**
+     * Parses the input stream to extract OpenStreetMap primitives and call the
+     * callback functions. The given stream is not closed.
+     *
+     * @param in the {@code InputStream} to parse.
+     * @throws IOException if the given PBF-File is malformed or cannot be read.
+     */
+    public void parse(InputStream in) throws IOException, InterruptedException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads, runnable -> {
+            Thread thread = new Thread(runnable, PbfParserBase.class.getSimpleName() + "-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // limits the number of decoded but not yet handled blocks kept in memory
+        int maxPending = 2 * nThreads;
+        ArrayDeque<Future<ArrayList<Object>>> pending = new ArrayDeque<>(maxPending);
+
+        handler.onStart();
+
+        try {
+            boolean header = true;
+            FileBlock block;
+            while ((block = readFileBlock(data)) != null) {
+                byte[] blob = block.blob;
+
+                if (header) {
+                    if (!block.type.equals("OSMHeader"))
+                        throw new IOException("Malformed PBF file: first block is not a header block");
+                    pending.add(pool.submit(() -> decodeHeaderBlock(decompress(blob))));
+                    header = false;
+
+                } else if (block.type.equals("OSMData")) {
+                    pending.add(pool.submit(() -> decodePrimitiveBlock(decompress(blob), dictionary)));
+                }
+                // other block types are unknown extensions and have to be ignored
+
+                if (pending.size() >= maxPending)
+                    emit(pending.poll());
+
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+            }
+
+            while (!pending.isEmpty())
+                emit(pending.poll());
+
+        } finally {
+            pool.shutdownNow();
+        }
+
+        handler.onEnd();
+    }
+
+    /**
+     * Waits for the given block to be decoded and passes its primitives to the
+     * handler.
+     *
+     * @param block the decoding block.
+     * @throws IOException if the block is malformed.
+     */
+    private void emit(Future<ArrayList<Object>> block) throws IOException, InterruptedException {
+        ArrayList<Object> primitives;
+        try {
+            primitives = block.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+
+        for (Object primitive : primitives) {
+            if (primitive instanceof Node)
+                handler.onPrimitiveParsed((Node) primitive);
+            else if (primitive instanceof Way)
+                handler.onPrimitiveParsed((Way) primitive);
+            else if (primitive instanceof Relation)
+                handler.onPrimitiveParsed((Relation) primitive);
+            else if (primitive instanceof Bounds)
+                handler.onPrimitiveParsed((Bounds) primitive);
+        }
+    }
+
+
+    /**
+     * Reads the next file-block, consisting of its {@code BlobHeader} and its
+     * (still encoded) {@code Blob}.
+     *
+     * @param data the stream from which to read.
+     * @return the read block or {@code null} if the end of the stream has been
+     * reached.
+     * @throws IOException if the block is malformed or cannot be read.
+     */
+    private FileBlock readFileBlock(DataInputStream data) throws IOException {
+        int headerSize;
+        try {
+            headerSize = data.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        if (headerSize < 0 || headerSize > MAX_HEADER_SIZE)
+            throw new IOException("Malformed PBF file: invalid blob-header size " + headerSize);
+
+        byte[] buffer = new byte[headerSize];
+        data.readFully(buffer);
+
+        // BlobHeader
+        String type     = null;
+        long   blobSize = -1;
+
+        ProtobufReader reader = new ProtobufReader(buffer);
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  type     = reader.readString(); break;
+            case 3:  blobSize = reader.readVarint(); break;
+            default: reader.skip();                  break;
+            }
+        }
+
+        if (type == null || blobSize < 0 || blobSize > MAX_BLOB_SIZE)
+            throw new IOException("Malformed PBF file: invalid blob-header");
+
+        byte[] blob = new byte[(int) blobSize];
+        data.readFully(blob);
+
+        return new FileBlock(type, blob);
+    }
+
+    /**
+     * Decodes a {@code Blob} and returns its uncompressed content.
+     *
+     * @param blob the encoded {@code Blob}.
+     * @return the uncompressed data of the given blob.
+     * @throws IOException if the blob is malformed or uses an unsupported
+     *                     compression.
+     */
+    private static byte[] decompress(byte[] blob) throws IOException {
+        byte[] raw     = null;
+        byte[] zlib    = null;
+        int    rawSize = -1;
+
+        ProtobufReader reader = new ProtobufReader(blob);
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  raw     = reader.readBytes();         break;
+            case 2:  rawSize = (int) reader.readVarint();  break;
+            case 3:  zlib    = reader.readBytes();         break;
+            case 4:
+            case 5:
+            case 6:
+            case 7:
+                throw new IOException("Unsupported PBF blob compression (only zlib is supported)");
+            default: reader.skip();                        break;
+            }
+        }
+
+        if (raw != null)
+            return raw;
+
+        if (zlib == null || rawSize < 0 || rawSize > MAX_BLOB_SIZE)
+            throw new IOException("Malformed PBF file: invalid blob");
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(zlib);
+
+            byte[] data = new byte[rawSize];
+            int    size = 0;
+            while (size < rawSize) {
+                int n = inflater.inflate(data, size, rawSize - size);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                size += n;
+            }
+
+            if (size != rawSize)
+                throw new IOException("Malformed PBF file: invalid uncompressed blob size");
+
+            return data;
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed PBF file: invalid zlib data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+
+    /**
+     * Decodes a {@code HeaderBlock}, checks its required features and returns
+     * its bounding box (if present).
+     *
+     * @param data the uncompressed {@code HeaderBlock}.
+     * @return the list containing the {@code Bounds} of the file or an empty
+     * list, if none are specified.
+     * @throws IOException if the block is malformed or requires unsupported
+     *                     features.
+     */
+    private static ArrayList<Object> decodeHeaderBlock(byte[] data) throws IOException {
+        ArrayList<Object> primitives = new ArrayList<>(1);
+
+        ProtobufReader reader = new ProtobufReader(data);
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:
+                primitives.add(decodeBounds(reader.readMessage()));
+                break;
+
+            case 4:
+                String feature = reader.readString();
+                if (!feature.equals(FEATURE_SCHEMA) && !feature.equals(FEATURE_DENSE_NODES))
+                    throw new IOException("Unsupported required PBF feature '" + feature + "'");
+                break;
+
+            default:
+                reader.skip();
+                break;
+            }
+        }
+
+        return primitives;
+    }
+
+    /**
+     * Decodes a {@code HeaderBBox}.
+     *
+     * @param reader the reader for the {@code HeaderBBox} message.
+     * @return the decoded bounds.
+     * @throws IOException if the message is malformed.
+     */
+    private static Bounds decodeBounds(ProtobufReader reader) throws IOException {
+        long left = 0, right = 0, top = 0, bottom = 0;
+
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  left   = reader.readSignedVarint(); break;
+            case 2:  right  = reader.readSignedVarint(); break;
+            case 3:  top    = reader.readSignedVarint(); break;
+            case 4:  bottom = reader.readSignedVarint(); break;
+            default: reader.skip();                      break;
+            }
+        }
+
+        return new Bounds(bottom / 1e9, left / 1e9, top / 1e9, right / 1e9);
+    }
+
+
+    /**
+     * Decodes a {@code PrimitiveBlock}.
+     *
+     * @param data       the uncompressed {@code PrimitiveBlock}.
+     * @param dictionary the dictionary to which the keys and values of tags
+     *                   should be added.
+     * @return the decoded primitives in file-order.
+     * @throws IOException if the block is malformed.
+     */
+    private static ArrayList<Object> decodePrimitiveBlock(byte[] data, TagDictionary dictionary)
+            throws IOException {
+        String[] strings = null;
+        ArrayList<ProtobufReader> groups = new ArrayList<>();
+
+        BlockInfo info = new BlockInfo(dictionary);
+
+        // the granularity and offsets are stored after the groups, so the groups can only be decoded afterwards
+        ProtobufReader reader = new ProtobufReader(data);
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  strings          = decodeStringTable(reader.readMessage()); break;
+            case 2:  groups.add(reader.readMessage());                           break;
+            case 17: info.granularity = reader.readVarint();                     break;
+            case 19: info.latOffset   = reader.readVarint();                     break;
+            case 20: info.lonOffset   = reader.readVarint();                     break;
+            default: reader.skip();                                              break;
+            }
+        }
+
+        info.setStrings(strings != null ? strings : new String[0]);
+
+        ArrayList<Object> primitives = new ArrayList<>();
+        for (ProtobufReader group : groups)
+            decodePrimitiveGroup(group, info, primitives);
+
+        return primitives;
+    }
+
+    /**
+     * Decodes a {@code StringTable}.
+     *
+     * @param reader the reader for the {@code StringTable} message.
+     * @return the strings of the table.
+     * @throws IOException if the message is malformed.
+     */
+    private static String[] decodeStringTable(ProtobufReader reader) throws IOException {
+        ArrayList<String> strings = new ArrayList<>();
+
+        while (reader.next()) {
+            if (reader.getFieldNumber() == 1)
+                strings.add(reader.readString());
+            else
+                reader.skip();
+        }
+
+        return strings.toArray(new String[strings.size()]);
+    }
+
+    /**
+     * Decodes a {@code PrimitiveGroup} and adds its primitives to the given
+     * list.
+     *
+     * @param reader     the reader for the {@code PrimitiveGroup} message.
+     * @param info       the properties of the surrounding block.
+     * @param primitives the list to which the decoded primitives should be
+     *                   added.
+     * @throws IOException if the message is malformed.
+     */
+    private static void decodePrimitiveGroup(ProtobufReader reader, BlockInfo info, ArrayList<Object> primitives)
+            throws IOException {
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  primitives.add(decodeNode(reader.readMessage(), info));     break;
+            case 2:  decodeDenseNodes(reader.readMessage(), info, primitives);   break;
+            case 3:  primitives.add(decodeWay(reader.readMessage(), info));      break;
+            case 4:  primitives.add(decodeRelation(reader.readMessage(), info)); break;
+            default: reader.skip();                                              break;
+            }
+        }
+    }
+
+    /**
+     * Decodes a (non-dense) {@code Node}.
+     *
+     * @param reader the reader for the {@code Node} message.
+     * @param info   the properties of the surrounding block.
+     * @return the decoded node.
+     * @throws IOException if the message is malformed.
+     */
+    private static Node decodeNode(ProtobufReader reader, BlockInfo info) throws IOException {
+        long    id      = 0;
+        long    lat     = 0;
+        long    lon     = 0;
+        long[]  keys    = null;
+        long[]  vals    = null;
+        boolean visible = true;
+
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  id      = reader.readSignedVarint();                break;
+            case 2:  keys    = reader.readRepeatedVarints(keys, false);  break;
+            case 3:  vals    = reader.readRepeatedVarints(vals, false);  break;
+            case 4:  visible = decodeVisibility(reader.readMessage());   break;
+            case 8:  lat     = reader.readSignedVarint();                break;
+            case 9:  lon     = reader.readSignedVarint();                break;
+            default: reader.skip();                                      break;
+            }
+        }
+
+        return new Node(id, info.lat(lat), info.lon(lon), visible, decodeTags(keys, vals, info));
+    }
+
+    /**
+     * Decodes {@code DenseNodes} and adds the nodes to the given list.
+     *
+     * @param reader     the reader for the {@code DenseNodes} message.
+     * @param info       the properties of the surrounding block.
+     * @param primitives the list to which the decoded nodes should be added.
+     * @throws IOException if the message is malformed.
+     */
+    private static void decodeDenseNodes(ProtobufReader reader, BlockInfo info, ArrayList<Object> primitives)
+            throws IOException {
+        long[] ids      = null;
+        long[] lats     = null;
+        long[] lons     = null;
+        long[] keyvals  = null;
+        long[] visible  = null;
+
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  ids     = reader.readRepeatedVarints(ids, true);       break;
+            case 5:  visible = decodeDenseVisibility(reader.readMessage()); break;
+            case 8:  lats    = reader.readRepeatedVarints(lats, true);      break;
+            case 9:  lons    = reader.readRepeatedVarints(lons, true);      break;
+            case 10: keyvals = reader.readRepeatedVarints(keyvals, false);  break;
+            default: reader.skip();                                         break;
+            }
+        }
+
+        if (ids == null)
+            return;
+
+        if (lats == null || lons == null || lats.length != ids.length || lons.length != ids.length
+                || (visible != null && visible.length != ids.length))
+            throw new IOException("Malformed PBF file: inconsistent dense nodes");
+
+        long id  = 0;
+        long lat = 0;
+        long lon = 0;
+        int  kv  = 0;
+
+        for (int i = 0; i < ids.length; i++) {
+            // ids and coordinates are delta-encoded
+            id  += ids[i];
+            lat += lats[i];
+            lon += lons[i];
+
+            // tags of all nodes are concatenated, each node's tags are terminated by 0
+            if (keyvals != null) {
+                while (kv < keyvals.length && keyvals[kv] != 0) {
+                    if (kv + 1 >= keyvals.length)
+                        throw new IOException("Malformed PBF file: inconsistent dense node tags");
+
+                    info.tags.add(info.code(keyvals[kv]), info.code(keyvals[kv + 1]));
+                    kv += 2;
+                }
+                kv++;
+            }
+
+            boolean v = visible == null || visible[i] != 0;
+            primitives.add(new Node(id, info.lat(lat), info.lon(lon), v, info.tags.build()));
+        }
+    }
+
+    /**
+     * Decodes a {@code Way}.
+     *
+     * @param reader the reader for the {@code Way} message.
+     * @param info   the properties of the surrounding block.
+     * @return the decoded way.
+     * @throws IOException if the message is malformed.
+     */
+    private static Way decodeWay(ProtobufReader reader, BlockInfo info) throws IOException {
+        long    id      = 0;
+        long[]  keys    = null;
+        long[]  vals    = null;
+        long[]  refs    = null;
+        boolean visible = true;
+
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  id      = reader.readVarint();                     break;
+            case 2:  keys    = reader.readRepeatedVarints(keys, false); break;
+            case 3:  vals    = reader.readRepeatedVarints(vals, false); break;
+            case 4:  visible = decodeVisibility(reader.readMessage());  break;
+            case 8:  refs    = reader.readRepeatedVarints(refs, true);  break;
+            default: reader.skip();                                     break;
+            }
+        }
+
+        ArrayList<Long> nodes = new ArrayList<>(refs != null ? refs.length : 0);
+        if (refs != null) {
+            long ref = 0;
+            for (long delta : refs) {
+                ref += delta;
+                nodes.add(ref);
+            }
+        }
+
+        return new Way(id, visible, nodes, decodeTags(keys, vals, info));
+    }
+
+    /**
+     * Decodes a {@code Relation}.
+     *
+     * @param reader the reader for the {@code Relation} message.
+     * @param info   the properties of the surrounding block.
+     * @return the decoded relation.
+     * @throws IOException if the message is malformed.
+     */
+    private static Relation decodeRelation(ProtobufReader reader, BlockInfo info) throws IOException {
+        long    id      = 0;
+        long[]  keys    = null;
+        long[]  vals    = null;
+        long[]  roles   = null;
+        long[]  memids  = null;
+        long[]  types   = null;
+        boolean visible = true;
+
+        while (reader.next()) {
+            switch (reader.getFieldNumber()) {
+            case 1:  id      = reader.readVarint();                       break;
+            case 2:  keys    = reader.readRepeatedVarints(keys, false);   break;
+            case 3:  vals    = reader.readRepeatedVarints(vals, false);   break;
+            case 4:  visible = decodeVisibility(reader.readMessage());    break;
+            case 8:  roles   = reader.readRepeatedVarints(roles, false);  break;
+            case 9:  memids  = reader.readRepeatedVarints(memids, true);  break;
+            case 10: types   = reader.readRepeatedVarints(types, false);  break;
+            default: reader.skip();                                       break;
+            }
+        }
+
+        int count = memids != null ? memids.length : 0;
+        if ((roles != null ? roles.length : 0) != count || (types != null ? types.length : 0) != count)
+            throw new IOException("Malformed PBF file: inconsistent relation members");
+
+        ArrayList<RelationMember> members = new ArrayList<>(count);
+        long ref = 0;
+        for (int i = 0; i < count; i++) {
+            ref += memids[i];
+
+            Primitive.Type type;
+            switch ((int) types[i]) {
+            case 1:  type = Primitive.Type.WAY;      break;
+            case 2:  type = Primitive.Type.RELATION; break;
+            case 0:
+            default: type = Primitive.Type.NODE;     break;
+            }
+
+            members.add(new RelationMember(type, ref, info.string(roles[i])));
+        }
+
+        return new Relation(id, visible, members, decodeTags(keys, vals, info));
+    }
+
+
+    /**
+     * Decodes the visibility of an {@code Info} message.
+     *
+     * @param reader the reader for the {@code Info} message.
+     * @return the visibility, {@code true} if not specified.
+     * @throws IOException if the message is malformed.
+     */
+    private static boolean decodeVisibility(ProtobufReader reader) throws IOException {
+        boolean visible = true;
+
+        while (reader.next()) {
+            if (reader.getFieldNumber() == 6)
+                visible = reader.readVarint() != 0;
+            else
+                reader.skip();
+        }
+
+        return visible;
+    }
+
+    /**
+     * Decodes the visibilities of a {@code DenseInfo} message.
+     *
+     * @param reader the reader for the {@code DenseInfo} message.
+     * @return the visibilities or {@code null} if not specified.
+     * @throws IOException if the message is malformed.
+     */
+    private static long[] decodeDenseVisibility(ProtobufReader reader) throws IOException {
+        long[] visible = null;
+
+        while (reader.next()) {
+            if (reader.getFieldNumber() == 6)
+                visible = reader.readRepeatedVarints(visible, false);
+            else
+                reader.skip();
+        }
+
+        return visible;
+    }
+
+    /**
+     * Creates the tags from the given string-table indices.
+     *
+     * @param keys the indices of the keys.
+     * @param vals the indices of the values.
+     * @param info the properties of the surrounding block.
+     * @return the tags.
+     * @throws IOException if the indices are invalid.
+     */
+    private static Tags decodeTags(long[] keys, long[] vals, BlockInfo info) throws IOException {
+        int count = keys != null ? keys.length : 0;
+        if ((vals != null ? vals.length : 0) != count)
+            throw new IOException("Malformed PBF file: inconsistent tags");
+
+        for (int i = 0; i < count; i++)
+            info.tags.add(info.code(keys[i]), info.code(vals[i]));
+
+        return info.tags.build();
+    }
+
+
+    /**
+     * A file-block, consisting of the type specified in its {@code BlobHeader}
+     * and its still encoded {@code Blob}.
+     */
+    private static class FileBlock {
+        final String type;
+        final byte[] blob;
+
+        FileBlock(String type, byte[] blob) {
+            this.type = type;
+            this.blob = blob;
+        }
+    }
+
+    /**
+     * The properties of a {@code PrimitiveBlock} needed to decode its groups.
+     */
+    private static class BlockInfo {
+        final Tags.Builder tags;
+        String[] strings;
+        int[]    codes;                 // dictionary-codes of the strings, added on first use
+        long granularity = 100;
+        long latOffset   = 0;
+        long lonOffset   = 0;
+
+        BlockInfo(TagDictionary dictionary) {
+            this.tags = new Tags.Builder(dictionary);
+        }
+
+        void setStrings(String[] strings) {
+            this.strings = strings;
+            this.codes   = new int[strings.length];
+            Arrays.fill(codes, TagDictionary.NOT_FOUND);
+        }
+
+        String string(long index) throws IOException {
+            return strings[checkIndex(index)];
+        }
+
+        int code(long index) throws IOException {
+            int i = checkIndex(index);
+            if (codes[i] == TagDictionary.NOT_FOUND)
+                codes[i] = tags.getDictionary().code(strings[i]);
+            return codes[i];
+        }
+
+        private int checkIndex(long index) throws IOException {
+            if (index < 0 || index >= strings.length)
+                throw new IOException("Malformed PBF file: invalid string-table index " + index);
+            return (int) index;
+        }
+
+        // division instead of multiplication, to get the same result as parsing the decimal value
+        double lat(long lat) {
+            return (latOffset + granularity * lat) / 1e9;
+        }
+
+        double lon(long lon) {
+            return (lonOffset + granularity * lon) / 1e9;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package microtrafficsim.osm.parser.base;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Minimal reader for the Protocol Buffers wire format, providing exactly the
+ * functionality needed to decode the messages of OpenStreetMap PBF files. A
+ * reader operates on a range of a byte-array; nested messages and packed
+ * fields are read by creating a new reader for their range (see
+ * {@link #readMessage()}), which does not copy any data.
+ *
+ * @author Maximilian Luz
+ */
+class ProtobufReader {
+
+    static final int WIRETYPE_VARINT           = 0;
+    static final int WIRETYPE_FIXED64          = 1;
+    static final int WIRETYPE_LENGTH_DELIMITED = 2;
+    static final int WIRETYPE_FIXED32          = 5;
+
+    private final byte[] buffer;
+    private final int    end;
+    private int pos;
+    private int tag;
+
+
+    /**
+     * Constructs a new {@code ProtobufReader} for the whole given buffer.
+     *
+     * @param buffer the buffer containing the encoded message.
+     */
+    ProtobufReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Constructs a new {@code ProtobufReader} for the given range of the
+     * given buffer.
+     *
+     * @param buffer the buffer containing the encoded message.
+     * @param offset the offset of the message in the buffer.
+     * @param length the length of the message in bytes.
+     */
+    ProtobufReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.pos    = offset;
+        this.end    = offset + length;
+    }
+
+
+    /**
+     * Reads the key of the next field.
+     *
+     * @return {@code true} if a field has been read, {@code false} if the end
+     * of the message has been reached.
+     * @throws IOException if the key is malformed.
+     */
+    boolean next() throws IOException {
+        if (pos >= end)
+            return false;
+
+        tag = (int) readVarint();
+        if ((tag >>> 3) == 0)
+            throw new IOException("Malformed protobuf message: invalid field number");
+        return true;
+    }
+
+    /**
+     * Returns the field number of the field read by {@link #next()}.
+     *
+     * @return the current field number.
+     */
+    int getFieldNumber() {
+        return tag >>> 3;
+    }
+
+    /**
+     * Returns the wire-type of the field read by {@link #next()}.
+     *
+     * @return the current wire-type.
+     */
+    int getWireType() {
+        return tag & 0x7;
+    }
+
+    /**
+     * Tests if more data is available in this message, used to iterate over
+     * packed fields.
+     *
+     * @return {@code true} if the end of the message has not been reached.
+     */
+    boolean hasRemaining() {
+        return pos < end;
+    }
+
+
+    /**
+     * Skips the value of the current field.
+     *
+     * @throws IOException if the wire-type is not supported.
+     */
+    void skip() throws IOException {
+        switch (getWireType()) {
+        case WIRETYPE_VARINT:           readVarint();                 break;
+        case WIRETYPE_FIXED64:          advance(8);                   break;
+        case WIRETYPE_LENGTH_DELIMITED: advance(readLength());        break;
+        case WIRETYPE_FIXED32:          advance(4);                   break;
+        default:
+            throw new IOException("Malformed protobuf message: unsupported wire-type " + getWireType());
+        }
+    }
+
+    /**
+     * Reads a variable-length encoded integer ({@code int32}, {@code int64},
+     * {@code uint32}, {@code uint64}, {@code bool} or {@code enum}).
+     *
+     * @return the read value.
+     * @throws IOException if the value is malformed.
+     */
+    long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos >= end)
+                throw new IOException("Malformed protobuf message: truncated varint");
+
+            byte b = buffer[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IOException("Malformed protobuf message: varint too long");
+    }
+
+    /**
+     * Reads a zig-zag encoded integer ({@code sint32} or {@code sint64}).
+     *
+     * @return the read value.
+     * @throws IOException if the value is malformed.
+     */
+    long readSignedVarint() throws IOException {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a length-delimited UTF-8 string.
+     *
+     * @return the read string.
+     * @throws IOException if the value is malformed.
+     */
+    String readString() throws IOException {
+        int length = readLength();
+        String s = new String(buffer, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return s;
+    }
+
+    /**
+     * Reads a length-delimited byte-array by copying it.
+     *
+     * @return the read bytes.
+     * @throws IOException if the value is malformed.
+     */
+    byte[] readBytes() throws IOException {
+        int length = readLength();
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, pos, bytes, 0, length);
+        pos += length;
+        return bytes;
+    }
+
+    /**
+     * Reads a length-delimited value (a nested message or packed repeated
+     * field) by returning a reader for its range.
+     *
+     * @return a reader for the nested message.
+     * @throws IOException if the value is malformed.
+     */
+    ProtobufReader readMessage() throws IOException {
+        int length = readLength();
+        ProtobufReader reader = new ProtobufReader(buffer, pos, length);
+        pos += length;
+        return reader;
+    }
+
+
+    /**
+     * Reads the value(s) of a repeated variable-length integer field and
+     * appends them to the given array. Both packed and non-packed encodings
+     * are supported, as required by the Protocol Buffers specification.
+     *
+     * @param previous the values of previous occurrences of this field, may be
+     *                 {@code null}.
+     * @param zigzag   {@code true} if the values are zig-zag encoded ({@code
+     *                 sint32} or {@code sint64}).
+     * @return the concatenation of the previous and the read values.
+     * @throws IOException if the values are malformed.
+     */
+    long[] readRepeatedVarints(long[] previous, boolean zigzag) throws IOException {
+        int offset = previous != null ? previous.length : 0;
+
+        if (getWireType() != WIRETYPE_LENGTH_DELIMITED) {
+            long[] values = previous != null ? Arrays.copyOf(previous, offset + 1) : new long[1];
+            values[offset] = zigzag ? readSignedVarint() : readVarint();
+            return values;
+        }
+
+        ProtobufReader packed = readMessage();
+
+        // every value takes at least one byte, each terminated by a byte with the MSB cleared
+        int count = 0;
+        for (int i = packed.pos; i < packed.end; i++)
+            if (buffer[i] >= 0)
+                count++;
+
+        long[] values = previous != null ? Arrays.copyOf(previous, offset + count) : new long[count];
+        for (int i = offset; i < values.length; i++)
+            values[i] = zigzag ? packed.readSignedVarint() : packed.readVarint();
+
+        return values;
+    }
+
+
+    private int readLength() throws IOException {
+        long length = readVarint();
+        if (length < 0 || length > end - pos)
+            throw new IOException("Malformed protobuf message: invalid length " + length);
+        return (int) length;
+    }
+
+    private void advance(int n) throws IOException {
+        if (n > end - pos)
+            throw new IOException("Malformed protobuf message: truncated field");
+        pos += n;
+    }
+}
@@ -6,6 +6,7 @@ import microtrafficsim.osm.parser.ecs.Component;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -49,6 +50,12 @@ public interface FeatureGenerator {
          * Whether to parse and output multiple lanes per street or limit the lanes to one per direction.
          */
         public boolean multilane = true;
+
+        /**
+         * The pool used to process independent ways in parallel, {@code null} to process them sequentially. The
+         * generated data does not depend on this property.
+         */
+        public ForkJoinPool pool = ForkJoinPool.commonPool();
     }
 
     /**
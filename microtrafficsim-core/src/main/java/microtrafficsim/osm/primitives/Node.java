@@ -1,7 +1,5 @@
 package microtrafficsim.osm.primitives;
 
-import java.util.Map;
-
 
 /**
  * Represents the OpenStreetMap {@code node} element (e.g. xml-element).
@@ -11,7 +9,7 @@ import java.util.Map;
 public class Node extends Primitive {
     public double lat;    // latitude
     public double lon;    // longitude
-    public Map<String, String> tags;
+    public Tags tags;
 
     /**
      * Constructs a new node with the given properties.
@@ -20,9 +18,9 @@ public class Node extends Primitive {
      * @param lat     the latitude of the node.
      * @param lon     the longitude of the node
      * @param visible the visibility of the node ({@code true} means visible).
-     * @param tags    the tags describing this node.
+     * @param tags    the tags describing this node, see {@link Tags}.
      */
-    public Node(long id, double lat, double lon, boolean visible, Map<String, String> tags) {
+    public Node(long id, double lat, double lon, boolean visible, Tags tags) {
         super(id, visible);
         this.lat     = lat;
         this.lon     = lon;
@@ -1,7 +1,6 @@
 package microtrafficsim.osm.primitives;
 
 import java.util.ArrayList;
-import java.util.Map;
 
 
 /**
@@ -11,7 +10,7 @@ import java.util.Map;
  */
 public class Relation extends Primitive {
     public ArrayList<RelationMember> members;
-    public Map<String, String> tags;
+    public Tags tags;
 
     /**
      * Constructs a new Relation with the given properties.
@@ -19,9 +18,9 @@ public class Relation extends Primitive {
      * @param id      the id of the node.
      * @param visible the visibility of the node ({@code true} means visible).
      * @param members the members of this relation.
-     * @param tags    the tags describing this relation.
+     * @param tags    the tags describing this relation, see {@link Tags}.
      */
-    public Relation(long id, boolean visible, ArrayList<RelationMember> members, Map<String, String> tags) {
+    public Relation(long id, boolean visible, ArrayList<RelationMember> members, Tags tags) {
         super(id, visible);
         this.members = members;
         this.tags    = tags;
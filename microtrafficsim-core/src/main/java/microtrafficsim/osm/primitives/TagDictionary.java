@@ -0,0 +1,100 @@
+package microtrafficsim.osm.primitives;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Dictionary mapping the keys and values of OpenStreetMap tags to {@code int}
+ * codes. Each distinct string is stored only once and is assigned a code in
+ * the order of insertion, which allows {@link Tags} to store the tags of a
+ * primitive as packed {@code int[]}. Codes are only valid for the dictionary
+ * that created them.
+ *
+ * <p>
+ * This class is thread-safe, strings may be added concurrently (e.g. by
+ * decoding threads) while codes are being resolved.
+ *
+ * @author Maximilian Luz
+ */
+public class TagDictionary {
+
+    /**
+     * The code returned for strings not contained in the dictionary.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private final ConcurrentHashMap<String, Integer> codes;
+    private volatile String[] strings;
+    private int size;                   // guarded by this
+
+
+    /**
+     * Creates a new, empty {@code TagDictionary}.
+     */
+    public TagDictionary() {
+        this.codes   = new ConcurrentHashMap<>();
+        this.strings = new String[256];
+        this.size    = 0;
+    }
+
+
+    /**
+     * Returns the code of the given string, adding the string to this
+     * dictionary if it is not already contained.
+     *
+     * @param string the string to get the code for.
+     * @return the code of the given string.
+     */
+    public int code(String string) {
+        Integer code = codes.get(string);
+        if (code != null)
+            return code;
+
+        synchronized (this) {
+            code = codes.get(string);
+            if (code != null)
+                return code;
+
+            if (size == strings.length)
+                strings = Arrays.copyOf(strings, 2 * size);
+
+            // store the string before publishing its code
+            strings[size] = string;
+            codes.put(string, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the code of the given string without adding it to this
+     * dictionary.
+     *
+     * @param string the string to look up.
+     * @return the code of the given string or {@link #NOT_FOUND} if it is not
+     * contained in this dictionary.
+     */
+    public int lookup(String string) {
+        Integer code = codes.get(string);
+        return code != null ? code : NOT_FOUND;
+    }
+
+    /**
+     * Returns the string associated with the given code.
+     *
+     * @param code the code, obtained from this dictionary.
+     * @return the string associated with the given code.
+     */
+    public String string(int code) {
+        return strings[code];
+    }
+
+    /**
+     * Returns the number of strings in this dictionary.
+     *
+     * @return the number of strings in this dictionary.
+     */
+    public int size() {
+        return codes.size();
+    }
+}
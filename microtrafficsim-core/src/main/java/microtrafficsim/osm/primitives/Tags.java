@@ -0,0 +1,245 @@
+package microtrafficsim.osm.primitives;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * The tags of an OpenStreetMap primitive, stored as packed {@code int[]} of
+ * key- and value-codes of a {@link TagDictionary}. This class implements a
+ * read-only {@code Map}, lookups by string resolve the key via the dictionary
+ * once and compare codes afterwards. Returned keys and values are the
+ * instances stored in the dictionary, i.e. equal strings of the same
+ * dictionary are identical.
+ *
+ * @author Maximilian Luz
+ */
+public class Tags extends AbstractMap<String, String> {
+
+    /**
+     * Tags without any entry.
+     */
+    public static final Tags EMPTY = new Tags(null, new int[0]);
+
+    private final TagDictionary dictionary;
+    private final int[] codes;           // key0, value0, key1, value1, ...
+
+
+    /**
+     * Creates new {@code Tags} from the given codes.
+     *
+     * @param dictionary the dictionary of the codes.
+     * @param codes      the codes, alternating key and value, without
+     *                   duplicate keys.
+     */
+    public Tags(TagDictionary dictionary, int[] codes) {
+        if ((codes.length & 1) != 0)
+            throw new IllegalArgumentException("codes must contain pairs of keys and values");
+
+        this.dictionary = dictionary;
+        this.codes      = codes;
+    }
+
+
+    /**
+     * Returns the dictionary of the codes of these tags.
+     *
+     * @return the dictionary of these tags, {@code null} for {@link #EMPTY}.
+     */
+    public TagDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the value-code associated with the given key-code.
+     *
+     * @param key the code of the key.
+     * @return the code of the value associated with the given key or
+     * {@link TagDictionary#NOT_FOUND} if there is none.
+     */
+    public int getCode(int key) {
+        for (int i = 0; i < codes.length; i += 2)
+            if (codes[i] == key)
+                return codes[i + 1];
+
+        return TagDictionary.NOT_FOUND;
+    }
+
+    /**
+     * Checks if these tags contain the given key with the given value. In
+     * contrast to comparing the value returned by {@link #get(Object)}, both
+     * strings are resolved to codes first.
+     *
+     * @param key   the key of the tag.
+     * @param value the value of the tag.
+     * @return {@code true} if the given key is associated with the given value.
+     */
+    public boolean contains(String key, String value) {
+        if (codes.length == 0)
+            return false;
+
+        int k = dictionary.lookup(key);
+        if (k == TagDictionary.NOT_FOUND)
+            return false;
+
+        int v = getCode(k);
+        return v != TagDictionary.NOT_FOUND && v == dictionary.lookup(value);
+    }
+
+
+    @Override
+    public int size() {
+        return codes.length >>> 1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return codes.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return code(key) != TagDictionary.NOT_FOUND;
+    }
+
+    @Override
+    public String get(Object key) {
+        int v = code(key);
+        return v != TagDictionary.NOT_FOUND ? dictionary.string(v) : null;
+    }
+
+    private int code(Object key) {
+        if (codes.length == 0 || !(key instanceof String))
+            return TagDictionary.NOT_FOUND;
+
+        int k = dictionary.lookup((String) key);
+        return k != TagDictionary.NOT_FOUND ? getCode(k) : TagDictionary.NOT_FOUND;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return Tags.this.size();
+            }
+        };
+    }
+
+
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+            return next < codes.length;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            String key   = dictionary.string(codes[next]);
+            String value = dictionary.string(codes[next + 1]);
+            next += 2;
+
+            return new SimpleImmutableEntry<>(key, value);
+        }
+    }
+
+
+    /**
+     * Builder for {@code Tags}, collecting the codes of a single primitive.
+     * The builder is reset by {@link #build()} and can thus be re-used for
+     * subsequent primitives. Instances are not thread-safe.
+     */
+    public static class Builder {
+        private final TagDictionary dictionary;
+        private int[] codes;
+        private int   length;
+
+        /**
+         * Creates a new {@code Builder} adding its strings to the given
+         * dictionary.
+         *
+         * @param dictionary the dictionary to be used.
+         */
+        public Builder(TagDictionary dictionary) {
+            this.dictionary = dictionary;
+            this.codes      = new int[16];
+            this.length     = 0;
+        }
+
+        /**
+         * Returns the dictionary used by this builder.
+         *
+         * @return the dictionary used by this builder.
+         */
+        public TagDictionary getDictionary() {
+            return dictionary;
+        }
+
+        /**
+         * Adds the given tag, replacing the value of a previously added tag
+         * with the same key.
+         *
+         * @param key   the key of the tag.
+         * @param value the value of the tag.
+         * @return this builder.
+         */
+        public Builder add(String key, String value) {
+            return add(dictionary.code(key), dictionary.code(value));
+        }
+
+        /**
+         * Adds the given tag, replacing the value of a previously added tag
+         * with the same key.
+         *
+         * @param key   the code of the key, obtained from the dictionary of
+         *              this builder.
+         * @param value the code of the value, obtained from the dictionary of
+         *              this builder.
+         * @return this builder.
+         */
+        public Builder add(int key, int value) {
+            for (int i = 0; i < length; i += 2) {
+                if (codes[i] == key) {
+                    codes[i + 1] = value;
+                    return this;
+                }
+            }
+
+            if (length == codes.length)
+                codes = Arrays.copyOf(codes, 2 * length);
+
+            codes[length++] = key;
+            codes[length++] = value;
+            return this;
+        }
+
+        /**
+         * Creates the {@code Tags} containing all tags added since the last
+         * call and resets this builder.
+         *
+         * @return the created {@code Tags}.
+         */
+        public Tags build() {
+            if (length == 0)
+                return EMPTY;
+
+            Tags tags = new Tags(dictionary, Arrays.copyOf(codes, length));
+            length = 0;
+            return tags;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package microtrafficsim.osm.primitives;
 
 import java.util.ArrayList;
-import java.util.Map;
 
 
 /**
@@ -11,7 +10,7 @@ import java.util.Map;
  */
 public class Way extends Primitive {
     public ArrayList<Long> nodes;
-    public Map<String, String> tags;
+    public Tags tags;
 
     /**
      * Constructs a new way using the given properties.
@@ -19,9 +18,9 @@ public class Way extends Primitive {
      * @param id      the id of the way.
      * @param visible the visibility of the node ({@code true} means visible).
      * @param nodes   the nodes (in order) that are a part of this way.
-     * @param tags    the tags describing this way.
+     * @param tags    the tags describing this way, see {@link Tags}.
      */
-    public Way(long id, boolean visible, ArrayList<Long> nodes, Map<String, String> tags) {
+    public Way(long id, boolean visible, ArrayList<Long> nodes, Tags tags) {
         super(id, visible);
         this.nodes = nodes;
         this.tags  = tags;
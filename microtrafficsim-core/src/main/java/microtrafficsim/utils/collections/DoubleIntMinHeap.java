@@ -0,0 +1,88 @@
+package microtrafficsim.utils.collections;
+
+import java.util.Arrays;
+
+
+/**
+ * Binary min-heap of (key, value) pairs stored in primitive arrays. It has no decrease-key; instead, a value is pushed
+ * again and outdated entries have to be skipped when polled (lazy deletion). Dijkstra-like searches over primitive
+ * graph arrays use it to avoid boxing.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public final class DoubleIntMinHeap {
+    private double[] keys;
+    private int[]    values;
+    private int      size;
+
+    public DoubleIntMinHeap() {
+        keys   = new double[64];
+        values = new int[64];
+    }
+
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void push(double key, int value) {
+        if (size == keys.length) {
+            keys   = Arrays.copyOf(keys, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+
+        /* sift up */
+        int idx = size++;
+        while (idx > 0) {
+            int parent = (idx - 1) >>> 1;
+            if (keys[parent] <= key)
+                break;
+            keys[idx]   = keys[parent];
+            values[idx] = values[parent];
+            idx = parent;
+        }
+        keys[idx]   = key;
+        values[idx] = value;
+    }
+
+    /**
+     * The heap must not be empty.
+     */
+    public double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Removes the minimum. The heap must not be empty.
+     *
+     * @return the value of the removed minimum
+     */
+    public int poll() {
+        int result = values[0];
+
+        double key   = keys[--size];
+        int    value = values[size];
+
+        /* sift down */
+        int idx = 0;
+        int half = size >>> 1;
+        while (idx < half) {
+            int child = 2 * idx + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child])
+                child++;
+            if (key <= keys[child])
+                break;
+            keys[idx]   = keys[child];
+            values[idx] = values[child];
+            idx = child;
+        }
+        keys[idx]   = key;
+        values[idx] = value;
+
+        return result;
+    }
+}
@@ -0,0 +1,171 @@
+package microtrafficsim.utils.collections;
+
+/**
+ * <p>
+ * Binary min-heap of the values {@code [0, capacity)} with {@code double} keys, that supports changing and removing
+ * keys. Every value is contained at most once, so searches do not have to skip outdated entries and the heap never
+ * grows beyond its capacity.
+ *
+ * <p>
+ * The position of every value is stored in an array indexed by the value. Positions of removed values are not reset;
+ * instead, {@link #contains(int)} checks whether the heap entry at the stored position is still the value. Therefore,
+ * {@link #clear()} runs in constant time and the heap can be reused for many searches without any allocation.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public final class IndexedDoubleMinHeap {
+    private final double[] keys;         // by heap position
+    private final int[]    values;       // by heap position
+    private final int[]    positions;    // by value
+    private int            size;
+
+    /**
+     * @param capacity values have to be in {@code [0, capacity)}
+     */
+    public IndexedDoubleMinHeap(int capacity) {
+        keys      = new double[capacity];
+        values    = new int[capacity];
+        positions = new int[capacity];
+    }
+
+
+    public int capacity() {
+        return positions.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int value) {
+        int position = positions[value];
+        return position < size && values[position] == value;
+    }
+
+    /**
+     * Inserts the value or decreases its key. If the value is already contained with a key {@code <= key}, nothing
+     * happens.
+     *
+     * @return true if the value has been inserted or its key has been decreased
+     */
+    public boolean insertOrDecrease(int value, double key) {
+        int position;
+        if (contains(value)) {
+            position = positions[value];
+            if (keys[position] <= key)
+                return false;
+        } else {
+            position = size++;
+        }
+
+        siftUp(position, value, key);
+        return true;
+    }
+
+    /**
+     * Inserts the value or changes its key, which may increase it as well.
+     */
+    public void insertOrUpdate(int value, double key) {
+        if (!contains(value)) {
+            siftUp(size++, value, key);
+            return;
+        }
+
+        int position = positions[value];
+        if (key < keys[position])
+            siftUp(position, value, key);
+        else
+            siftDown(position, value, key);
+    }
+
+    /**
+     * @return true if the value has been contained
+     */
+    public boolean remove(int value) {
+        if (!contains(value))
+            return false;
+
+        int position = positions[value];
+        if (--size > position) {
+            int lastValue  = values[size];
+            double lastKey = keys[size];
+            if (lastKey < keys[position])
+                siftUp(position, lastValue, lastKey);
+            else
+                siftDown(position, lastValue, lastKey);
+        }
+        return true;
+    }
+
+    /**
+     * The heap must not be empty.
+     */
+    public double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * The heap must not be empty.
+     */
+    public int peek() {
+        return values[0];
+    }
+
+    /**
+     * Removes the minimum. The heap must not be empty.
+     *
+     * @return the removed value
+     */
+    public int poll() {
+        int result = values[0];
+        if (--size > 0)
+            siftDown(0, values[size], keys[size]);
+        return result;
+    }
+
+
+    private void siftUp(int position, int value, double key) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key)
+                break;
+            move(parent, position);
+            position = parent;
+        }
+        set(position, value, key);
+    }
+
+    private void siftDown(int position, int value, double key) {
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child])
+                child++;
+            if (key <= keys[child])
+                break;
+            move(child, position);
+            position = child;
+        }
+        set(position, value, key);
+    }
+
+    private void move(int from, int to) {
+        keys[to]   = keys[from];
+        values[to] = values[from];
+        positions[values[to]] = to;
+    }
+
+    private void set(int position, int value, double key) {
+        keys[position]   = key;
+        values[position] = value;
+        positions[value] = position;
+    }
+}
@@ -0,0 +1,285 @@
+package microtrafficsim.utils.collections;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+
+/**
+ * Hash map from primitive {@code long} keys to non-null values, using open addressing with linear probing. Keys are
+ * stored in a plain {@code long[]} next to the values, so an entry takes 12 to 16 bytes per slot instead of a boxed
+ * {@code Long} plus a {@code HashMap.Node}. Removed entries are marked and reused on the next rehash.
+ *
+ * <p>
+ * The map must not be modified while iterating over its {@link #values()}, except by the iterator itself.
+ *
+ * @param <V> the type of the values.
+ * @author Maximilian Luz
+ */
+public class LongHashMap<V> {
+    private static final Object REMOVED = new Object();
+    private static final int    MIN_CAPACITY = 16;
+
+    private long[]   keys;
+    private Object[] values;       // null: free slot, REMOVED: removed entry
+    private int      size;
+    private int      used;         // occupied slots, i.e. entries and removed entries
+    private int      mask;
+
+
+    /**
+     * Creates a new, empty {@code LongHashMap}.
+     */
+    public LongHashMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a new, empty {@code LongHashMap} able to hold the given number of entries without rehashing.
+     *
+     * @param expectedSize the expected number of entries.
+     */
+    public LongHashMap(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize must not be negative");
+
+        allocate(capacityFor(expectedSize));
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * @param key the key to look up.
+     * @return the value associated with the given key or {@code null} if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = find(key);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    /**
+     * Associates the given value with the given key.
+     *
+     * @param key   the key.
+     * @param value the value, must not be {@code null}.
+     * @return the previous value associated with the given key or {@code null} if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "LongHashMap does not support null values");
+
+        int slot    = mix(key) & mask;
+        int removed = -1;
+        while (values[slot] != null) {
+            if (values[slot] == REMOVED) {
+                if (removed < 0) removed = slot;
+            } else if (keys[slot] == key) {
+                V old = (V) values[slot];
+                values[slot] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (removed >= 0) {
+            slot = removed;
+        } else {
+            used++;
+        }
+
+        keys[slot]   = key;
+        values[slot] = value;
+        size++;
+
+        if (2 * used > keys.length)
+            rehash(capacityFor(size));
+
+        return null;
+    }
+
+    /**
+     * Removes the entry of the given key.
+     *
+     * @param key the key.
+     * @return the value associated with the given key or {@code null} if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = find(key);
+        if (slot < 0)
+            return null;
+
+        V old = (V) values[slot];
+        values[slot] = REMOVED;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * @return a new array containing all keys of this map, in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++)
+            if (values[slot] != null && values[slot] != REMOVED)
+                result[i++] = keys[slot];
+
+        return result;
+    }
+
+    /**
+     * Returns the values of this map ordered by their keys. In contrast to {@link #values()}, this order does not
+     * depend on the hashing of the keys, which should be used wherever the order of the values determines an output
+     * (e.g. generated IDs).
+     *
+     * @return a new list containing all values of this map, in ascending order of their keys.
+     */
+    public ArrayList<V> valuesSortedByKey() {
+        long[] sorted = keys();
+        Arrays.sort(sorted);
+
+        ArrayList<V> result = new ArrayList<>(sorted.length);
+        for (long key : sorted)
+            result.add(get(key));
+
+        return result;
+    }
+
+    /**
+     * @return a view of the values contained in this map. Values can be removed via its iterator, but not added.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (values[slot] != REMOVED && keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[]   oldKeys   = keys;
+        Object[] oldValues = values;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null || oldValues[i] == REMOVED)
+                continue;
+
+            int slot = mix(oldKeys[i]) & mask;
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+
+            keys[slot]   = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+        used = size;
+    }
+
+    private void allocate(int capacity) {
+        keys   = new long[capacity];
+        values = new Object[capacity];
+        mask   = capacity - 1;
+    }
+
+    /**
+     * @return the smallest power of two being at least twice the given size.
+     */
+    static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * (long) size)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Spreads the bits of the key, as OpenStreetMap ids are mostly dense and sequential.
+     */
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+
+    private class ValueIterator implements Iterator<V> {
+        private int next;
+        private int last;
+
+        ValueIterator() {
+            this.next = advance(0);
+            this.last = -1;
+        }
+
+        private int advance(int slot) {
+            while (slot < keys.length && (values[slot] == null || values[slot] == REMOVED))
+                slot++;
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            last = next;
+            next = advance(next + 1);
+            return (V) values[last];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+
+            values[last] = REMOVED;
+            size--;
+            last = -1;
+        }
+    }
+}
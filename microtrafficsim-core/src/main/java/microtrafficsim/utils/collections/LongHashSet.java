@@ -0,0 +1,264 @@
+package microtrafficsim.utils.collections;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongPredicate;
+
+
+/**
+ * Hash set of primitive {@code long} values, using open addressing with linear probing. This is the set-counterpart of
+ * {@link LongHashMap}, storing its elements without boxing.
+ *
+ * <p>
+ * The set must not be modified while iterating over it, except by the iterator itself.
+ *
+ * @author Maximilian Luz
+ */
+public class LongHashSet {
+    private static final byte FREE    = 0;
+    private static final byte FULL    = 1;
+    private static final byte REMOVED = 2;
+
+    private long[] elements;
+    private byte[] states;
+    private int    size;
+    private int    used;          // occupied slots, i.e. elements and removed elements
+    private int    mask;
+
+
+    /**
+     * Creates a new, empty {@code LongHashSet}.
+     */
+    public LongHashSet() {
+        this(0);
+    }
+
+    /**
+     * Creates a new, empty {@code LongHashSet} able to hold the given number of elements without rehashing.
+     *
+     * @param expectedSize the expected number of elements.
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize must not be negative");
+
+        allocate(LongHashMap.capacityFor(expectedSize));
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long element) {
+        return find(element) >= 0;
+    }
+
+    /**
+     * @param element the element to add.
+     * @return {@code true} if this set did not already contain the given element.
+     */
+    public boolean add(long element) {
+        int slot    = LongHashMap.mix(element) & mask;
+        int removed = -1;
+        while (states[slot] != FREE) {
+            if (states[slot] == REMOVED) {
+                if (removed < 0) removed = slot;
+            } else if (elements[slot] == element) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (removed >= 0) {
+            slot = removed;
+        } else {
+            used++;
+        }
+
+        elements[slot] = element;
+        states[slot]   = FULL;
+        size++;
+
+        if (2 * used > elements.length)
+            rehash(LongHashMap.capacityFor(size));
+
+        return true;
+    }
+
+    /**
+     * @param c the elements to add.
+     * @return {@code true} if this set has been changed.
+     */
+    public boolean addAll(Collection<Long> c) {
+        boolean changed = false;
+        for (long element : c)
+            changed |= add(element);
+        return changed;
+    }
+
+    /**
+     * @param element the element to remove.
+     * @return {@code true} if this set contained the given element.
+     */
+    public boolean remove(long element) {
+        int slot = find(element);
+        if (slot < 0)
+            return false;
+
+        states[slot] = REMOVED;
+        size--;
+        return true;
+    }
+
+    /**
+     * @param filter the predicate returning {@code true} for all elements to remove.
+     * @return {@code true} if any element has been removed.
+     */
+    public boolean removeIf(LongPredicate filter) {
+        int before = size;
+        for (int slot = 0; slot < elements.length; slot++) {
+            if (states[slot] == FULL && filter.test(elements[slot])) {
+                states[slot] = REMOVED;
+                size--;
+            }
+        }
+        return size != before;
+    }
+
+    public void clear() {
+        Arrays.fill(states, FREE);
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * @return a new array containing all elements of this set, in no particular order.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+
+        int i = 0;
+        for (int slot = 0; slot < elements.length; slot++)
+            if (states[slot] == FULL)
+                result[i++] = elements[slot];
+
+        return result;
+    }
+
+    /**
+     * @return an iterator over the elements of this set, supporting {@code remove()}.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new Iter();
+    }
+
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof LongHashSet)) return false;
+
+        LongHashSet other = (LongHashSet) obj;
+        if (size != other.size) return false;
+
+        for (int slot = 0; slot < elements.length; slot++)
+            if (states[slot] == FULL && !other.contains(elements[slot]))
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int slot = 0; slot < elements.length; slot++)
+            if (states[slot] == FULL)
+                hash += Long.hashCode(elements[slot]);
+        return hash;
+    }
+
+
+    private int find(long element) {
+        int slot = LongHashMap.mix(element) & mask;
+        while (states[slot] != FREE) {
+            if (states[slot] == FULL && elements[slot] == element)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldElements = elements;
+        byte[] oldStates   = states;
+
+        allocate(capacity);
+        for (int i = 0; i < oldElements.length; i++) {
+            if (oldStates[i] != FULL)
+                continue;
+
+            int slot = LongHashMap.mix(oldElements[i]) & mask;
+            while (states[slot] != FREE)
+                slot = (slot + 1) & mask;
+
+            elements[slot] = oldElements[i];
+            states[slot]   = FULL;
+        }
+        used = size;
+    }
+
+    private void allocate(int capacity) {
+        elements = new long[capacity];
+        states   = new byte[capacity];
+        mask     = capacity - 1;
+    }
+
+
+    private class Iter implements PrimitiveIterator.OfLong {
+        private int next;
+        private int last;
+
+        Iter() {
+            this.next = advance(0);
+            this.last = -1;
+        }
+
+        private int advance(int slot) {
+            while (slot < elements.length && states[slot] != FULL)
+                slot++;
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < elements.length;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            last = next;
+            next = advance(next + 1);
+            return elements[last];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+
+            states[last] = REMOVED;
+            size--;
+            last = -1;
+        }
+    }
+}
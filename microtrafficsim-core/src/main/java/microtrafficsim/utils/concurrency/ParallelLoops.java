@@ -0,0 +1,72 @@
+package microtrafficsim.utils.concurrency;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+
+/**
+ * Fork-join based parallel loops over index ranges. The range is split recursively into chunks of roughly equal size,
+ * so work-stealing balances iterations of different cost. Callers must make sure that iterations are independent of
+ * each other; results are usually written to an array at the index of the iteration, so their order does not depend
+ * on the scheduling.
+ *
+ * @author Maximilian Luz
+ */
+public final class ParallelLoops {
+    private ParallelLoops() {}
+
+    /**
+     * The minimum number of iterations processed by a single task.
+     */
+    private static final int MIN_CHUNK_SIZE = 256;
+
+
+    /**
+     * Calls {@code body} for every index in {@code [0, size)} and returns after all calls have finished. Exceptions
+     * thrown by {@code body} are re-thrown by this method.
+     *
+     * @param pool the pool to execute the loop on, {@code null} to execute it sequentially on the calling thread.
+     * @param size the number of iterations.
+     * @param body the body of the loop, called with the index of the iteration.
+     */
+    public static void forEach(ForkJoinPool pool, int size, IntConsumer body) {
+        if (pool == null || pool.getParallelism() < 2 || size <= MIN_CHUNK_SIZE) {
+            for (int i = 0; i < size; i++)
+                body.accept(i);
+            return;
+        }
+
+        // a few chunks per worker, so that work-stealing can balance uneven iterations
+        int chunk = Math.max(MIN_CHUNK_SIZE, size / (8 * pool.getParallelism()));
+        pool.invoke(new Range(body, 0, size, chunk));
+    }
+
+
+    private static class Range extends RecursiveAction {
+        private static final long serialVersionUID = 4381216582964031522L;
+
+        private final IntConsumer body;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        Range(IntConsumer body, int from, int to, int chunk) {
+            this.body  = body;
+            this.from  = from;
+            this.to    = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                for (int i = from; i < to; i++)
+                    body.accept(i);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Range(body, from, mid, chunk), new Range(body, mid, to, chunk));
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import microtrafficsim.core.convenience.parser.DefaultParserConfig;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.map.MapProperties;
+import microtrafficsim.core.parser.OSMParser;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.utils.resources.PackagedResource;
+import testhelper.ResourceClassLinks;
+
+import java.io.File;
+
+/**
+ * Utilities shared by the benchmarks in this package. The benchmarks are no unit tests, but executables printing
+ * their measurements.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public final class BenchmarkUtils {
+    private BenchmarkUtils() {}
+
+    /**
+     * @param osmFile path to an osm-file; if {@code null}, the packaged test map is used
+     * @return the parsed streetgraph
+     */
+    public static Graph parseGraph(String osmFile, SimulationConfig config) throws Exception {
+        File file;
+        if (osmFile != null)
+            file = new File(osmFile);
+        else
+            file = new PackagedResource(BenchmarkUtils.class, ResourceClassLinks.BACKNANG_MAP_PATH).asTemporaryFile();
+
+        OSMParser parser = DefaultParserConfig.get(config).build();
+        return parser.parse(file, new MapProperties(config.crossingLogic.drivingOnTheRight)).streetgraph;
+    }
+
+    /**
+     * @return {@code args[idx]} if existing, {@code fallback} otherwise
+     */
+    public static String arg(String[] args, int idx, String fallback) {
+        return args.length > idx ? args[idx] : fallback;
+    }
+
+    /**
+     * @return (count / durationNs) per second
+     */
+    public static double perSecond(long count, long durationNs) {
+        return durationNs > 0 ? count * 1e9 / durationNs : 0;
+    }
+}
@@ -0,0 +1,123 @@
+package benchmarks;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.astar.AStars;
+import microtrafficsim.core.shortestpath.astar.BidirectionalAStars;
+import microtrafficsim.core.shortestpath.ch.CHShortestPath;
+import microtrafficsim.core.shortestpath.ch.ContractionHierarchy;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.utils.logging.LoggingLevel;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Stack;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * <p>
+ * Compares the query throughput of {@link CHShortestPath} with the A* variants on the same random node pairs. The
+ * preprocessing time and the number of shortcuts are printed as well. Every query of a hierarchy is checked against
+ * the corresponding A* for the same path cost.
+ *
+ * <p>
+ * Arguments (all optional): {@code [osm-file] [queries]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ContractionHierarchyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        LoggingLevel.setEnabledGlobally(false, false, false, true, true);
+
+        String osmFile = BenchmarkUtils.arg(args, 0, null);
+        int queries    = Integer.parseInt(BenchmarkUtils.arg(args, 1, "2000"));
+
+        SimulationConfig config = new SimulationConfig();
+        config.seed = 42;
+        Graph graph = BenchmarkUtils.parseGraph(osmFile, config);
+
+        ArrayList<Node> nodes = new ArrayList<>(graph.getNodes());
+        Random random = new Random(config.seed);
+        Node[] starts = new Node[queries];
+        Node[] ends   = new Node[queries];
+        for (int i = 0; i < queries; i++) {
+            starts[i] = nodes.get(random.nextInt(nodes.size()));
+            ends[i]   = nodes.get(random.nextInt(nodes.size()));
+        }
+
+
+        /* preprocessing */
+        CHShortestPath shortestCH = preprocess(graph, ContractionHierarchy.Metric.LENGTH);
+        CHShortestPath fastestCH  = preprocess(graph, ContractionHierarchy.Metric.TIME);
+
+
+        /* queries */
+        System.out.println("algorithm                      queries/s");
+        double[] shortest = run("A* (length)", AStars.shortestPathAStar(config.metersPerCell),
+                starts, ends, DirectedEdge::getLength);
+        run("bidirectional A* (length)", BidirectionalAStars.shortestPathAStar(config.metersPerCell),
+                starts, ends, DirectedEdge::getLength);
+        double[] shortestByCH = run("CH (length)", shortestCH, starts, ends, DirectedEdge::getLength);
+
+        double[] fastest = run("A* (time)",
+                AStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity),
+                starts, ends, DirectedEdge::getTimeCostMillis);
+        run("bidirectional A* (time)",
+                BidirectionalAStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity),
+                starts, ends, DirectedEdge::getTimeCostMillis);
+        double[] fastestByCH = run("CH (time)", fastestCH, starts, ends, DirectedEdge::getTimeCostMillis);
+
+        compare("length", shortest, shortestByCH);
+        compare("time", fastest, fastestByCH);
+    }
+
+    private static CHShortestPath preprocess(Graph graph, ContractionHierarchy.Metric metric) {
+        CHShortestPath ch = new CHShortestPath(graph, metric);
+
+        long time = System.nanoTime();
+        ch.preprocess();
+        time = System.nanoTime() - time;
+
+        ContractionHierarchy hierarchy = ch.getHierarchy();
+        System.out.println(String.format("CH (%s): preprocessing %.1f ms, %d vertices, %d shortcuts",
+                metric.getFileSuffix(), time / 1e6, hierarchy.getVertexCount(), hierarchy.getShortcutCount()));
+        return ch;
+    }
+
+    /**
+     * @return the cost of every found path; {@code -1} if there is no path
+     */
+    private static double[] run(String name,
+                                ShortestPathAlgorithm<Node, DirectedEdge> algorithm,
+                                Node[] starts, Node[] ends,
+                                ToDoubleFunction<DirectedEdge> cost)
+    {
+        double[] costs = new double[starts.length];
+        Stack<DirectedEdge> path = new Stack<>();
+
+        long time = System.nanoTime();
+        for (int i = 0; i < starts.length; i++) {
+            path.clear();
+            algorithm.findShortestPath(starts[i], ends[i], path);
+
+            costs[i] = path.isEmpty() && starts[i] != ends[i] ? -1 : 0;
+            for (DirectedEdge edge : path)
+                costs[i] += cost.applyAsDouble(edge);
+        }
+        time = System.nanoTime() - time;
+
+        System.out.println(String.format("%-27s%13.1f", name, BenchmarkUtils.perSecond(starts.length, time)));
+        return costs;
+    }
+
+    private static void compare(String metric, double[] expected, double[] actual) {
+        int mismatches = 0;
+        for (int i = 0; i < expected.length; i++)
+            if (actual[i] > expected[i] + 1e-6 || (actual[i] < 0) != (expected[i] < 0))
+                mismatches++;
+        System.out.println("CH (" + metric + "): " + mismatches + " paths more expensive than A*'s");
+    }
+}
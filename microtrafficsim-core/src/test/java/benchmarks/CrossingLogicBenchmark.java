@@ -0,0 +1,162 @@
+package benchmarks;
+
+import microtrafficsim.core.logic.nodes.ConflictTable;
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.math.Vec2d;
+import microtrafficsim.math.random.distributions.impl.Random;
+import microtrafficsim.utils.collections.Tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Compares the vehicle comparison of the crossing logic with and without {@link ConflictTable} on large junctions.
+ * Every comparison of two turns is done as in {@code Node.update()}: without the table, the leaving lanes and all four
+ * crossing indices are looked up and the conflict is calculated by {@code IndicesCalculator}; with the table, both
+ * turns are looked up and the conflict is read from the table.
+ *
+ * <p>
+ * Every junction has arms with one incoming and one leaving edge each. Every incoming lane is connected to every
+ * other arm.
+ *
+ * <p>
+ * Arguments (all optional): {@code [comparisons]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class CrossingLogicBenchmark {
+
+    /* prevents the JIT from removing the comparisons */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int comparisons = Integer.parseInt(BenchmarkUtils.arg(args, 0, "5000000"));
+
+        System.out.println("junction                      turns   indices cmp/s     table cmp/s");
+        for (int i = 0; i < 2; i++) {   // first run is warmup
+            boolean print = i == 1;
+            run("roundabout entry", 3, 2, comparisons, print);
+            run("plus crossroad", 4, 3, comparisons, print);
+            run("large crossroad", 6, 4, comparisons, print);
+        }
+    }
+
+    private static void run(String label, int arms, int nLanes, int comparisons, boolean print) {
+        SimulationConfig config = new SimulationConfig();
+        Node center = createJunction(config, arms, nLanes);
+
+        /* collect turns as (incoming lane, leaving edge) */
+        List<DirectedEdge.Lane> incoming = new ArrayList<>();
+        List<DirectedEdge>      leaving  = new ArrayList<>();
+        for (Map.Entry<DirectedEdge.Lane, TreeMap<DirectedEdge, DirectedEdge.Lane>> connector
+                : center.getConnectors().entrySet()) {
+            for (DirectedEdge edge : connector.getValue().keySet()) {
+                // lanes are created on demand, so the vehicles' lanes are not the connectors' keys
+                incoming.add(connector.getKey().getEdge().getLane(connector.getKey().getIndex()));
+                leaving.add(edge);
+            }
+        }
+        int turnCount = incoming.size();
+
+        Random random = new Random(42);
+        int[] pairs = new int[2 * comparisons];
+        for (int i = 0; i < pairs.length; i++)
+            pairs[i] = random.nextInt(turnCount);
+
+
+        /* without table */
+        Tuple<TreeMap<DirectedEdge.Lane, Byte>, TreeMap<DirectedEdge.Lane, Byte>> indices
+                = center.calcCrossingIndices();
+        TreeMap<DirectedEdge.Lane, Byte> leavingLanes  = indices.obj0;
+        TreeMap<DirectedEdge.Lane, Byte> incomingLanes = indices.obj1;
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < comparisons; i++) {
+            int turn1 = pairs[2 * i];
+            int turn2 = pairs[2 * i + 1];
+            DirectedEdge.Lane lane1 = incoming.get(turn1);
+            DirectedEdge.Lane lane2 = incoming.get(turn2);
+            byte origin1      = incomingLanes.get(lane1);
+            byte destination1 = leavingLanes.get(center.getLeavingLane(lane1, leaving.get(turn1)));
+            byte origin2      = incomingLanes.get(lane2);
+            byte destination2 = leavingLanes.get(center.getLeavingLane(lane2, leaving.get(turn2)));
+            checksum += ConflictTable.calcConflict(origin1, destination1, origin2, destination2);
+        }
+        long indicesDuration = System.nanoTime() - start;
+
+
+        /* with table */
+        ConflictTable table = new ConflictTable(center.getConnectors(), incomingLanes, leavingLanes);
+
+        start = System.nanoTime();
+        for (int i = 0; i < comparisons; i++) {
+            int turn1 = pairs[2 * i];
+            int turn2 = pairs[2 * i + 1];
+            int tableTurn1 = table.getTurn(incoming.get(turn1), leaving.get(turn1));
+            int tableTurn2 = table.getTurn(incoming.get(turn2), leaving.get(turn2));
+            checksum -= table.getConflict(tableTurn1, tableTurn2);
+        }
+        long tableDuration = System.nanoTime() - start;
+
+        if (checksum != 0)
+            throw new IllegalStateException("The conflict table differs from the crossing indices.");
+        sink += checksum;
+
+
+        if (print)
+            System.out.println(String.format("%-28s%7d%16.0f%16.0f",
+                    label + " (" + arms + "x" + nLanes + ")", turnCount,
+                    BenchmarkUtils.perSecond(comparisons, indicesDuration),
+                    BenchmarkUtils.perSecond(comparisons, tableDuration)));
+    }
+
+    /**
+     * @return the center node of a junction with the given number of arms evenly distributed around it
+     */
+    private static Node createJunction(SimulationConfig config, int arms, int nLanes) {
+        float maxVelocity = config.globalMaxVelocity * 3.6f * config.metersPerCell;
+        SimulationConfig.StreetPriorityFunction priority = new SimulationConfig.DefaultStreetPriorityFunction();
+
+        Node center = new Node(0, new Coordinate(0, 0), config.crossingLogic);
+        DirectedEdge[] incoming = new DirectedEdge[arms];
+        DirectedEdge[] leaving  = new DirectedEdge[arms];
+        for (int arm = 0; arm < arms; arm++) {
+            double angle = 2 * Math.PI * arm / arms;
+            Vec2d direction = new Vec2d(Math.cos(angle), Math.sin(angle));
+            Node outer = new Node(arm + 1, new Coordinate(direction.y, direction.x), config.crossingLogic);
+
+            leaving[arm] = new DirectedEdge(2 * arm, 100,
+                    new Vec2d(direction), new Vec2d(direction),
+                    Orientation.FORWARD,
+                    center, outer,
+                    new StreetType(StreetType.ROAD),
+                    nLanes, maxVelocity, config.metersPerCell, priority);
+            incoming[arm] = new DirectedEdge(2 * arm + 1, 100,
+                    Vec2d.mul(direction, -1), Vec2d.mul(direction, -1),
+                    Orientation.FORWARD,
+                    outer, center,
+                    new StreetType(StreetType.ROAD),
+                    nLanes, maxVelocity, config.metersPerCell, priority);
+            center.addLeavingEdge(leaving[arm]);
+            center.addIncomingEdge(incoming[arm]);
+        }
+
+        for (int from = 0; from < arms; from++)
+            for (int to = 0; to < arms; to++)
+                if (from != to)
+                    for (int laneNo = 0; laneNo < nLanes; laneNo++)
+                        center.addConnector(incoming[from].getLane(laneNo), leaving[to].getLane(laneNo));
+
+        center.updateCrossingIndices();
+        return center;
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import microtrafficsim.core.logic.streetgraph.StreetGraphTopology;
+import microtrafficsim.core.simulation.builder.impl.VehicleScenarioBuilder;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.simulation.core.EnsembleRunner;
+import microtrafficsim.core.simulation.core.EnsembleSummary;
+import microtrafficsim.core.simulation.scenarios.impl.AreaScenario;
+import microtrafficsim.core.simulation.scenarios.impl.RandomRouteScenario;
+import microtrafficsim.utils.logging.LoggingLevel;
+
+/**
+ * <p>
+ * Runs the same scenario with many seeds on one parsed map using the {@link EnsembleRunner} and compares the aggregate
+ * throughput of one thread with the throughput of {@code nThreads} threads. The map is parsed only once.
+ *
+ * <p>
+ * Arguments (all optional): {@code [osm-file] [seeds] [vehicle count] [steps] [nThreads]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class EnsembleBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        LoggingLevel.setEnabledGlobally(false, false, false, true, true);
+
+        String osmFile = BenchmarkUtils.arg(args, 0, null);
+        int seedCount  = Integer.parseInt(BenchmarkUtils.arg(args, 1, "16"));
+        int vehicles   = Integer.parseInt(BenchmarkUtils.arg(args, 2, "2000"));
+        int steps      = Integer.parseInt(BenchmarkUtils.arg(args, 3, "300"));
+        int nThreads   = Integer.parseInt(BenchmarkUtils.arg(args, 4, "" + Runtime.getRuntime().availableProcessors()));
+
+        SimulationConfig config = new SimulationConfig();
+        config.speedup         = Integer.MAX_VALUE;
+        config.seed            = 42;
+        config.maxVehicleCount = vehicles;
+        StreetGraphTopology topology = new StreetGraphTopology(BenchmarkUtils.parseGraph(osmFile, config));
+
+        long[] seeds = new long[seedCount];
+        for (int i = 0; i < seedCount; i++)
+            seeds[i] = config.seed + i;
+
+        EnsembleRunner.ScenarioFactory scenarioFactory = (runConfig, graph) -> {
+            AreaScenario scenario = new RandomRouteScenario(runConfig.seed, runConfig, graph);
+            scenario.redefineMetaRoutes();
+            new VehicleScenarioBuilder(runConfig.seed).prepare(scenario);
+            return scenario;
+        };
+
+        System.out.println("threads    runs    steps/s    vehicle-steps/s");
+        EnsembleSummary sequential = new EnsembleRunner(topology, config, scenarioFactory, 1).run(seeds, steps);
+        print(1, sequential);
+        EnsembleSummary parallel = new EnsembleRunner(topology, config, scenarioFactory, nThreads).run(seeds, steps);
+        print(nThreads, parallel);
+
+        for (int i = 0; i < seedCount; i++)
+            if (sequential.getRuns().get(i).getSummary().getVehicleSteps()
+                    != parallel.getRuns().get(i).getSummary().getVehicleSteps())
+                throw new IllegalStateException("Seed " + seeds[i] + " differs between sequential and parallel run.");
+    }
+
+    private static void print(int nThreads, EnsembleSummary summary) {
+        System.out.println(String.format("%7d%8d%11.1f%19.0f",
+                nThreads, summary.getRuns().size(),
+                summary.getStepsPerSecond(), summary.getVehicleStepsPerSecond()));
+    }
+}
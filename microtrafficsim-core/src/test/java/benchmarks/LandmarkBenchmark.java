@@ -0,0 +1,111 @@
+package benchmarks;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.alt.Landmarks;
+import microtrafficsim.core.shortestpath.astar.AStar;
+import microtrafficsim.core.shortestpath.astar.AStars;
+import microtrafficsim.core.shortestpath.astar.BidirectionalAStar;
+import microtrafficsim.core.shortestpath.astar.BidirectionalAStars;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.utils.logging.LoggingLevel;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Stack;
+
+/**
+ * <p>
+ * Compares the fastest path search of the A* family using the linear distance with the ALT heuristic of
+ * {@link Landmarks} on the same random node pairs. For every algorithm, the queries per second and the average number
+ * of settled nodes per query are printed, which shows the reduction of the search space.
+ *
+ * <p>
+ * Arguments (all optional): {@code [osm-file] [queries] [landmarks]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class LandmarkBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        LoggingLevel.setEnabledGlobally(false, false, false, true, true);
+
+        String osmFile    = BenchmarkUtils.arg(args, 0, null);
+        int queries       = Integer.parseInt(BenchmarkUtils.arg(args, 1, "2000"));
+        int landmarkCount = Integer.parseInt(BenchmarkUtils.arg(args, 2, "16"));
+
+        SimulationConfig config = new SimulationConfig();
+        config.seed = 42;
+        Graph graph = BenchmarkUtils.parseGraph(osmFile, config);
+
+        ArrayList<Node> nodes = new ArrayList<>(graph.getNodes());
+        Random random = new Random(config.seed);
+        Node[] starts = new Node[queries];
+        Node[] ends   = new Node[queries];
+        for (int i = 0; i < queries; i++) {
+            starts[i] = nodes.get(random.nextInt(nodes.size()));
+            ends[i]   = nodes.get(random.nextInt(nodes.size()));
+        }
+
+
+        /* preprocessing */
+        Landmarks farthest = createLandmarks(graph, landmarkCount, Landmarks.Selection.FARTHEST, config.seed);
+        Landmarks avoid    = createLandmarks(graph, landmarkCount, Landmarks.Selection.AVOID, config.seed);
+
+
+        /* queries */
+        System.out.println("algorithm                          queries/s    settled nodes/query");
+        run("A* (linear distance)",
+                AStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity), starts, ends);
+        run("A* (farthest landmarks)", AStars.landmarkAStar(farthest), starts, ends);
+        run("A* (avoid landmarks)", AStars.landmarkAStar(avoid), starts, ends);
+        run("bidirectional A* (linear distance)",
+                BidirectionalAStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity), starts, ends);
+        run("bidirectional A* (farthest)", BidirectionalAStars.landmarkAStar(farthest), starts, ends);
+        run("bidirectional A* (avoid)", BidirectionalAStars.landmarkAStar(avoid), starts, ends);
+    }
+
+    private static Landmarks createLandmarks(Graph graph, int count, Landmarks.Selection selection, long seed) {
+        long time = System.nanoTime();
+        Landmarks landmarks = new Landmarks(graph, DirectedEdge::getTimeCostMillis, count, selection, seed);
+        time = System.nanoTime() - time;
+
+        System.out.println(String.format("%d landmarks (%s): preprocessing %.1f ms",
+                landmarks.getLandmarkCount(), selection, time / 1e6));
+        return landmarks;
+    }
+
+    private static void run(String name, AStar<Node, DirectedEdge> algorithm, Node[] starts, Node[] ends) {
+        long time = query(algorithm::findShortestPath, starts, ends);
+        print(name, starts.length, time, algorithm.getSettledNodeCount());
+    }
+
+    private static void run(String name, BidirectionalAStar<Node, DirectedEdge> algorithm, Node[] starts, Node[] ends) {
+        long time = query(algorithm::findShortestPath, starts, ends);
+        print(name, starts.length, time, algorithm.getSettledNodeCount());
+    }
+
+    /**
+     * @return duration in ns
+     */
+    private static long query(Query query, Node[] starts, Node[] ends) {
+        Stack<DirectedEdge> path = new Stack<>();
+
+        long time = System.nanoTime();
+        for (int i = 0; i < starts.length; i++) {
+            path.clear();
+            query.findShortestPath(starts[i], ends[i], path);
+        }
+        return System.nanoTime() - time;
+    }
+
+    private static void print(String name, int queries, long time, long settledNodes) {
+        System.out.println(String.format("%-35s%11.1f%23.1f",
+                name, BenchmarkUtils.perSecond(queries, time), (double) settledNodes / queries));
+    }
+
+    private interface Query {
+        void findShortestPath(Node start, Node end, Stack<DirectedEdge> shortestPath);
+    }
+}
@@ -0,0 +1,142 @@
+package benchmarks;
+
+import microtrafficsim.core.logic.streets.ArrayListLaneContainer;
+import microtrafficsim.core.logic.streets.CellArrayLaneContainer;
+import microtrafficsim.core.logic.streets.LaneContainer;
+import microtrafficsim.core.logic.streets.NavigableMapLaneContainer;
+import microtrafficsim.core.logic.streets.NavigableSkipListLaneContainer;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.logic.vehicles.machines.impl.Car;
+import microtrafficsim.math.random.distributions.impl.Random;
+
+/**
+ * <p>
+ * Compares all implementations of {@link LaneContainer} on dense and sparse lanes. Every access is surrounded by
+ * locking and unlocking the lane as it is done by {@code DirectedEdge.Lane}.
+ *
+ * <p>
+ * Two workloads are measured:<br>
+ * &bull; lookups: for every vehicle, the vehicle in front, the outer and the inner neighbour (as in lane changing)<br>
+ * &bull; updates: every vehicle is removed and inserted again (as in moving)
+ *
+ * <p>
+ * Arguments (all optional): {@code [cells per lane] [rounds]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class LaneContainerBenchmark {
+
+    private static final int nLanes = 3;
+
+    /* prevents the JIT from removing the lookups */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int nCells = Integer.parseInt(BenchmarkUtils.arg(args, 0, "500"));
+        int rounds = Integer.parseInt(BenchmarkUtils.arg(args, 1, "2000"));
+
+        System.out.println("container                       density    lookups/s    updates/s");
+        for (float density : new float[]{0.7f, 0.03f}) {
+            for (int i = 0; i < 2; i++) {   // first run is warmup
+                boolean print = i == 1;
+                run("ArrayListLaneContainer", new ArrayListLaneContainer(nLanes),
+                        density, nCells, rounds, print);
+                run("NavigableMapLaneContainer", new NavigableMapLaneContainer(nLanes),
+                        density, nCells, rounds, print);
+                run("NavigableSkipListLaneContainer", new NavigableSkipListLaneContainer(nLanes),
+                        density, nCells, rounds, print);
+                run("CellArrayLaneContainer", new CellArrayLaneContainer(nLanes, nCells),
+                        density, nCells, rounds, print);
+            }
+        }
+    }
+
+    private static void run(String label,
+                            LaneContainer container,
+                            float density,
+                            int nCells,
+                            int rounds,
+                            boolean print)
+    {
+        /* fill lanes */
+        Random random = new Random(42);
+        int[] laneNos = new int[nLanes * nCells];
+        int[] cellNos = new int[nLanes * nCells];
+        int count = 0;
+        for (int laneNo = 0; laneNo < nLanes; laneNo++) {
+            for (int cellNo = 0; cellNo < nCells; cellNo++) {
+                if (random.nextFloat() < density) {
+                    container.set(new Car(count, null), laneNo, cellNo);
+                    laneNos[count] = laneNo;
+                    cellNos[count] = cellNo;
+                    count++;
+                }
+            }
+        }
+
+
+        /* lookups */
+        long checksum = 0;
+        long lookups  = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < count; i++) {
+                int laneNo = laneNos[i];
+                int cellNo = cellNos[i];
+
+                container.lockLane(laneNo);
+                if (container.getNextOf(laneNo, cellNo) != null)
+                    checksum++;
+                container.unlockLane(laneNo);
+                lookups++;
+
+                if (laneNo > 0) {
+                    container.lockLane(laneNo - 1);
+                    Vehicle outer = container.get(laneNo - 1, cellNo);
+                    if (outer == null)
+                        outer = container.getPrevOf(laneNo - 1, cellNo);
+                    if (outer != null)
+                        checksum++;
+                    container.unlockLane(laneNo - 1);
+                    lookups++;
+                }
+
+                if (laneNo < nLanes - 1) {
+                    container.lockLane(laneNo + 1);
+                    Vehicle inner = container.get(laneNo + 1, cellNo);
+                    if (inner == null)
+                        inner = container.getPrevOf(laneNo + 1, cellNo);
+                    if (inner != null)
+                        checksum++;
+                    container.unlockLane(laneNo + 1);
+                    lookups++;
+                }
+            }
+        }
+        long lookupDuration = System.nanoTime() - start;
+        sink += checksum;
+
+
+        /* updates */
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < count; i++) {
+                int laneNo = laneNos[i];
+                int cellNo = cellNos[i];
+
+                container.lockLane(laneNo);
+                Vehicle vehicle = container.remove(laneNo, cellNo);
+                container.set(vehicle, laneNo, cellNo);
+                container.unlockLane(laneNo);
+            }
+        }
+        long updateDuration = System.nanoTime() - start;
+
+
+        if (print)
+            System.out.println(String.format("%-32s%7.2f%13.0f%13.0f",
+                    label, density,
+                    BenchmarkUtils.perSecond(lookups, lookupDuration),
+                    BenchmarkUtils.perSecond((long) count * rounds, updateDuration)));
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import microtrafficsim.core.convenience.parser.DefaultParserConfig;
+import microtrafficsim.core.map.MapProperties;
+import microtrafficsim.core.parser.OSMParser;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.utils.logging.LoggingLevel;
+import microtrafficsim.utils.resources.PackagedResource;
+import testhelper.ResourceClassLinks;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * <p>
+ * Measures parsing and processing an osm-file with the default parser configuration, which is dominated by the
+ * parser-internal {@code DataSet}. For every run, the duration and the peak heap usage while parsing (summed over
+ * all heap memory pools) are printed; the first run includes warm-up.
+ *
+ * <p>
+ * Arguments (all optional): {@code [osm-file] [runs]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class OSMParserBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        LoggingLevel.setEnabledGlobally(false, false, false, true, true);
+
+        String osmFile = BenchmarkUtils.arg(args, 0, null);
+        int runs       = Integer.parseInt(BenchmarkUtils.arg(args, 1, "5"));
+
+        File file;
+        if (osmFile != null)
+            file = new File(osmFile);
+        else
+            file = new PackagedResource(OSMParserBenchmark.class, ResourceClassLinks.BACKNANG_MAP_PATH)
+                    .asTemporaryFile();
+
+        SimulationConfig config = new SimulationConfig();
+        OSMParser parser = DefaultParserConfig.get(config).build();
+        MapProperties properties = new MapProperties(config.crossingLogic.drivingOnTheRight);
+
+        System.out.println("run    duration [ms]    peak heap [MiB]");
+        long total = 0;
+        for (int run = 0; run < runs; run++) {
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+                pool.resetPeakUsage();
+
+            long start = System.nanoTime();
+            parser.parse(file, properties);
+            long duration = System.nanoTime() - start;
+
+            if (run > 0)
+                total += duration;
+
+            System.out.println(String.format("%3d    %13.1f    %15.1f", run, duration / 1e6,
+                    peakHeap() / (1024.0 * 1024.0)));
+        }
+
+        if (runs > 1)
+            System.out.println(String.format("average without warm-up: %.1f ms", total / 1e6 / (runs - 1)));
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+}
@@ -0,0 +1,120 @@
+package benchmarks;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.astar.BidirectionalAStar;
+import microtrafficsim.core.shortestpath.astar.BidirectionalAStars;
+import microtrafficsim.core.shortestpath.astar.ParallelBidirectionalAStar;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.math.HaversineDistanceCalculator;
+import microtrafficsim.utils.logging.LoggingLevel;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Stack;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>
+ * Compares {@link ParallelBidirectionalAStar} with the sequential {@link BidirectionalAStar} on long-distance queries,
+ * which are the longest (linear distance) of many random node pairs. For every algorithm, the queries per second, the
+ * average number of settled nodes (edges for the parallel version) and the average path length are printed. The
+ * parallel version respects turns and never stops before the best path is known, so its paths may differ.
+ *
+ * <p>
+ * Arguments (all optional): {@code [osm-file] [queries] [candidates per query]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ParallelBidirectionalAStarBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        LoggingLevel.setEnabledGlobally(false, false, false, true, true);
+
+        String osmFile = BenchmarkUtils.arg(args, 0, null);
+        int queries    = Integer.parseInt(BenchmarkUtils.arg(args, 1, "500"));
+        int candidates = Integer.parseInt(BenchmarkUtils.arg(args, 2, "20"));
+
+        SimulationConfig config = new SimulationConfig();
+        config.seed = 42;
+        Graph graph = BenchmarkUtils.parseGraph(osmFile, config);
+
+
+        /* long-distance queries: the longest of some random pairs */
+        ArrayList<Node> nodes = new ArrayList<>(graph.getNodes());
+        Random random = new Random(config.seed);
+        Node[] starts = new Node[queries];
+        Node[] ends   = new Node[queries];
+        for (int i = 0; i < queries; i++) {
+            double maxDistance = -1;
+            for (int k = 0; k < candidates; k++) {
+                Node start = nodes.get(random.nextInt(nodes.size()));
+                Node end   = nodes.get(random.nextInt(nodes.size()));
+                double distance = HaversineDistanceCalculator.getDistance(start.getCoordinate(), end.getCoordinate());
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    starts[i]   = start;
+                    ends[i]     = end;
+                }
+            }
+        }
+
+
+        /* warm up */
+        query(BidirectionalAStars.shortestPathDijkstra(), starts, ends);
+        query(BidirectionalAStars.parallelShortestPathDijkstra(), starts, ends);
+
+
+        /* queries */
+        System.out.println("algorithm                                   queries/s    settled/query    length/query");
+        BidirectionalAStar<Node, DirectedEdge> dijkstra = BidirectionalAStars.shortestPathDijkstra();
+        run("bidirectional Dijkstra", dijkstra, dijkstra::getSettledNodeCount, starts, ends);
+
+        ParallelBidirectionalAStar<Node, DirectedEdge> parallelDijkstra =
+                BidirectionalAStars.parallelShortestPathDijkstra();
+        run("parallel bidirectional Dijkstra", parallelDijkstra, parallelDijkstra::getSettledNodeCount, starts, ends);
+
+        BidirectionalAStar<Node, DirectedEdge> astar =
+                BidirectionalAStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity);
+        run("bidirectional A* (linear distance)", astar, astar::getSettledNodeCount, starts, ends);
+
+        ParallelBidirectionalAStar<Node, DirectedEdge> parallelAStar =
+                BidirectionalAStars.parallelFastestPathAStar(config.metersPerCell, config.globalMaxVelocity);
+        run("parallel bidirectional A* (linear distance)",
+                parallelAStar, parallelAStar::getSettledNodeCount, starts, ends);
+    }
+
+    private static void run(String name,
+                            ShortestPathAlgorithm<Node, DirectedEdge> algorithm,
+                            LongSupplier settledNodes,
+                            Node[] starts,
+                            Node[] ends) {
+        long settledBefore = settledNodes.getAsLong();
+        long time = System.nanoTime();
+        double weight = query(algorithm, starts, ends);
+        time = System.nanoTime() - time;
+
+        System.out.println(String.format("%-44s%9.1f%17.1f%16.1f",
+                name,
+                BenchmarkUtils.perSecond(starts.length, time),
+                (double) (settledNodes.getAsLong() - settledBefore) / starts.length,
+                weight / starts.length));
+    }
+
+    /**
+     * @return sum of the found paths' lengths
+     */
+    private static double query(ShortestPathAlgorithm<Node, DirectedEdge> algorithm, Node[] starts, Node[] ends) {
+        Stack<DirectedEdge> path = new Stack<>();
+        double weight = 0;
+        for (int i = 0; i < starts.length; i++) {
+            path.clear();
+            algorithm.findShortestPath(starts[i], ends[i], path);
+            for (DirectedEdge edge : path)
+                weight += edge.getLength();
+        }
+        return weight;
+    }
+}
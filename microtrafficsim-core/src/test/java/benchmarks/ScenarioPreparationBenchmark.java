@@ -0,0 +1,92 @@
+package benchmarks;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.routes.Route;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.simulation.builder.impl.VehicleScenarioBuilder;
+import microtrafficsim.core.simulation.configs.ScenarioConfig;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.simulation.scenarios.impl.AreaScenario;
+import microtrafficsim.core.simulation.scenarios.impl.RandomRouteScenario;
+import microtrafficsim.utils.logging.LoggingLevel;
+
+import java.util.HashSet;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Measures the preparation of a {@link RandomRouteScenario} by the {@link VehicleScenarioBuilder} with one shortest
+ * path tree per origin and with one point-to-point search per vehicle. Both use the dense scouts of
+ * {@link ScenarioConfig#batchRouting}; for the latter, the scenario's scouts are wrapped, so they do not support
+ * one-to-many searches anymore.
+ *
+ * <p>
+ * Arguments (all optional): {@code [osm-file] [vehicle count] [nThreads]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class ScenarioPreparationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        LoggingLevel.setEnabledGlobally(false, false, false, true, true);
+
+        String osmFile = BenchmarkUtils.arg(args, 0, null);
+        int vehicles   = Integer.parseInt(BenchmarkUtils.arg(args, 1, "10000"));
+        int nThreads   = Integer.parseInt(BenchmarkUtils.arg(args, 2, "" + Runtime.getRuntime().availableProcessors()));
+
+        SimulationConfig config = new SimulationConfig();
+        config.seed                  = 42;
+        config.maxVehicleCount       = vehicles;
+        config.scenario.batchRouting = true;
+        Graph graph = BenchmarkUtils.parseGraph(osmFile, config);
+
+        System.out.println("routing                 threads    origins    routes    duration in ms");
+        for (int threads : new int[]{ 1, nThreads }) {
+            config.multiThreading.nThreads = threads;
+            run("point-to-point", false, config, graph);
+            run("tree per origin", true, config, graph);
+        }
+    }
+
+    private static void run(String label, boolean oneToMany, SimulationConfig config, Graph graph)
+            throws InterruptedException
+    {
+        graph.reset();
+        graph.setSeed(config.seed);
+        AreaScenario scenario = oneToMany
+                ? new RandomRouteScenario(config.seed, config, graph)
+                : new PointToPointScenario(config, graph);
+        scenario.redefineMetaRoutes();
+
+        HashSet<Node> origins = new HashSet<>();
+        for (Route route : scenario.getRoutes())
+            origins.add(route.getOrigin());
+
+        long time = System.nanoTime();
+        new VehicleScenarioBuilder(config.seed).prepare(scenario);
+        time = System.nanoTime() - time;
+
+        System.out.println(String.format("%-24s%7d%11d%10d%18.1f",
+                label, config.multiThreading.nThreads, origins.size(), scenario.getRoutes().size(), time / 1e6));
+    }
+
+    /**
+     * Hides the one-to-many search of the scouts
+     */
+    private static class PointToPointScenario extends RandomRouteScenario {
+        private PointToPointScenario(SimulationConfig config, Graph graph) {
+            super(config.seed, config, graph);
+        }
+
+        @Override
+        public Supplier<ShortestPathAlgorithm<Node, DirectedEdge>> getScoutFactory() {
+            Supplier<ShortestPathAlgorithm<Node, DirectedEdge>> scoutFactory = super.getScoutFactory();
+            return () -> {
+                ShortestPathAlgorithm<Node, DirectedEdge> scout = scoutFactory.get();
+                return scout::findShortestPath;
+            };
+        }
+    }
+}
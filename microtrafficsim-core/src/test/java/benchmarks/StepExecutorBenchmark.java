@@ -0,0 +1,100 @@
+package benchmarks;
+
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.simulation.builder.LogicVehicleFactory;
+import microtrafficsim.core.simulation.builder.impl.VehicleScenarioBuilder;
+import microtrafficsim.core.simulation.configs.MultiThreadingConfig;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.simulation.core.RunSummary;
+import microtrafficsim.core.simulation.core.VehicleSimulation;
+import microtrafficsim.core.simulation.scenarios.containers.VehicleContainer;
+import microtrafficsim.core.simulation.scenarios.containers.impl.ConcurrentVehicleContainer;
+import microtrafficsim.core.simulation.scenarios.containers.impl.DenseVehicleContainer;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
+import microtrafficsim.core.simulation.scenarios.impl.AreaScenario;
+import microtrafficsim.core.simulation.scenarios.impl.RandomRouteScenario;
+import microtrafficsim.utils.logging.LoggingLevel;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Compares the simulation steps per second of all vehicle step executors on the same scenario. The single-threaded
+ * executor is measured with {@code nThreads = 1}. Every executor is measured with the default
+ * {@link ConcurrentVehicleContainer} and with the {@link DenseVehicleContainer}; the single-threaded executor also
+ * with vehicles stored in a {@link VehicleStateStore}.
+ *
+ * <p>
+ * Arguments (all optional): {@code [osm-file] [vehicle count] [steps] [nThreads]}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class StepExecutorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        LoggingLevel.setEnabledGlobally(false, false, false, true, true);
+
+        String osmFile  = BenchmarkUtils.arg(args, 0, null);
+        int vehicles    = Integer.parseInt(BenchmarkUtils.arg(args, 1, "10000"));
+        int steps       = Integer.parseInt(BenchmarkUtils.arg(args, 2, "500"));
+        int nThreads    = Integer.parseInt(
+                BenchmarkUtils.arg(args, 3, "" + Runtime.getRuntime().availableProcessors()));
+        int warmupSteps = steps / 10;
+
+        SimulationConfig config = new SimulationConfig();
+        config.speedup         = Integer.MAX_VALUE;
+        config.seed            = 42;
+        config.maxVehicleCount = vehicles;
+        Graph graph = BenchmarkUtils.parseGraph(osmFile, config);
+
+        System.out.println("executor                    threads    steps/s    vehicle-steps/s");
+        run("single-threaded", 1, MultiThreadingConfig.StepExecutorType.THREAD_DELEGATION,
+                ConcurrentVehicleContainer::new, LogicVehicleFactory::defaultCreation,
+                config, graph, warmupSteps, steps);
+        run("dense container", 1, MultiThreadingConfig.StepExecutorType.THREAD_DELEGATION,
+                DenseVehicleContainer::new, LogicVehicleFactory::defaultCreation,
+                config, graph, warmupSteps, steps);
+        run("state store", 1, MultiThreadingConfig.StepExecutorType.THREAD_DELEGATION,
+                () -> new VehicleStateStore(config.maxVehicleCount), LogicVehicleFactory::storedCreation,
+                config, graph, warmupSteps, steps);
+        for (MultiThreadingConfig.StepExecutorType type : MultiThreadingConfig.StepExecutorType.values()) {
+            run(type.name(), nThreads, type,
+                    ConcurrentVehicleContainer::new, LogicVehicleFactory::defaultCreation,
+                    config, graph, warmupSteps, steps);
+            run(type.name() + " (dense)", nThreads, type,
+                    DenseVehicleContainer::new, LogicVehicleFactory::defaultCreation,
+                    config, graph, warmupSteps, steps);
+        }
+    }
+
+    private static void run(String label,
+                            int nThreads,
+                            MultiThreadingConfig.StepExecutorType type,
+                            Supplier<VehicleContainer> containerFactory,
+                            LogicVehicleFactory vehicleFactory,
+                            SimulationConfig config,
+                            Graph graph,
+                            int warmupSteps,
+                            int steps) throws InterruptedException
+    {
+        config.multiThreading.nThreads         = nThreads;
+        config.multiThreading.stepExecutorType = type;
+
+        graph.reset();
+        graph.setSeed(config.seed);
+        AreaScenario scenario = new RandomRouteScenario(config.seed, config, graph, containerFactory.get());
+        scenario.redefineMetaRoutes();
+        new VehicleScenarioBuilder(config.seed, vehicleFactory).prepare(scenario);
+
+        VehicleSimulation simulation = new VehicleSimulation();
+        simulation.setAndInitPreparedScenario(scenario);
+
+        simulation.runSteps(warmupSteps);
+        RunSummary summary = simulation.runSteps(steps);
+
+        simulation.removeCurrentScenario();
+
+        System.out.println(String.format("%-28s%7d%11.1f%19.0f",
+                label, nThreads, summary.getStepsPerSecond(), summary.getVehicleStepsPerSecond()));
+    }
+}
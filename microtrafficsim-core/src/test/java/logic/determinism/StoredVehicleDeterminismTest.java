@@ -0,0 +1,214 @@
+package logic.determinism;
+
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.parser.features.streetgraph.StreetGraphGenerator;
+import microtrafficsim.core.parser.processing.OSMProcessor;
+import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponent;
+import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponentFactory;
+import microtrafficsim.core.simulation.builder.LogicVehicleFactory;
+import microtrafficsim.core.simulation.builder.impl.VehicleScenarioBuilder;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.simulation.core.VehicleSimulation;
+import microtrafficsim.core.simulation.core.stepexecutors.SingleThreadedVehicleStepExecutor;
+import microtrafficsim.core.simulation.core.stepexecutors.StoredVehicleStepExecutor;
+import microtrafficsim.core.simulation.scenarios.containers.VehicleContainer;
+import microtrafficsim.core.simulation.scenarios.containers.impl.ConcurrentVehicleContainer;
+import microtrafficsim.core.simulation.scenarios.containers.impl.VehicleStateStore;
+import microtrafficsim.core.simulation.scenarios.impl.AreaScenario;
+import microtrafficsim.core.simulation.scenarios.impl.RandomRouteScenario;
+import microtrafficsim.osm.parser.Parser;
+import microtrafficsim.osm.parser.features.FeatureDefinition;
+import microtrafficsim.osm.parser.features.FeatureDependency;
+import microtrafficsim.osm.parser.features.FeatureGenerator;
+import microtrafficsim.osm.parser.features.streets.StreetComponent;
+import microtrafficsim.osm.parser.features.streets.StreetComponentFactory;
+import microtrafficsim.osm.parser.relations.restriction.RestrictionRelationFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that vehicles stored in a {@link VehicleStateStore} and executed by the {@link StoredVehicleStepExecutor}
+ * behave exactly like the default vehicles executed by the {@link SingleThreadedVehicleStepExecutor}. Both runs
+ * simulate the same seeded scenario on the same graph and the state of every vehicle is compared after every step.
+ */
+public class StoredVehicleDeterminismTest {
+
+    private static final int SIZE  = 12;       // nodes per row and column of the grid
+    private static final int STEPS = 300;
+
+    private static SimulationConfig config;
+    private static Graph            graph;
+
+
+    @BeforeClass
+    public static void parseGraph() throws Exception {
+        config = new SimulationConfig();
+        config.speedup                    = Integer.MAX_VALUE;
+        config.seed                       = 1337;
+        config.maxVehicleCount            = 600;
+        config.multiThreading.nThreads    = 1;
+
+        File file = File.createTempFile("microtrafficsim-grid", ".osm");
+        try {
+            Files.write(file.toPath(), createGrid().getBytes(StandardCharsets.UTF_8));
+            graph = parse(file, config);
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+
+    @Test
+    public void testEqualsBasicVehicles() throws Exception {
+        List<TreeMap<Long, String>> expected = run(ConcurrentVehicleContainer::new,
+                LogicVehicleFactory::defaultCreation, SingleThreadedVehicleStepExecutor.class);
+        List<TreeMap<Long, String>> actual = run(() -> new VehicleStateStore(config.maxVehicleCount),
+                LogicVehicleFactory::storedCreation, StoredVehicleStepExecutor.class);
+
+        // the scenario has to be non-trivial
+        assertFalse(expected.get(0).isEmpty());
+        assertTrue("No vehicle has moved.", expected.stream().anyMatch(step -> step.values().stream()
+                .anyMatch(stamp -> !stamp.endsWith(" 0 NOT_SPAWNED") && !stamp.contains(" v=0 "))));
+
+        assertEquals(expected.size(), actual.size());
+        for (int step = 0; step < expected.size(); step++)
+            assertEquals("Different vehicles after step " + step, expected.get(step), actual.get(step));
+    }
+
+    /**
+     * @return for every step: vehicle id -> stamp of the vehicle
+     */
+    private static List<TreeMap<Long, String>> run(Supplier<VehicleContainer> containerFactory,
+                                                   LogicVehicleFactory vehicleFactory,
+                                                   Class<?> expectedExecutor) throws Exception {
+        graph.reset();
+        graph.setSeed(config.seed);
+        AreaScenario scenario = new RandomRouteScenario(config.seed, config, graph, containerFactory.get());
+        scenario.redefineMetaRoutes();
+        new VehicleScenarioBuilder(config.seed, vehicleFactory).prepare(scenario);
+
+        TestSimulation simulation = new TestSimulation();
+        simulation.setAndInitPreparedScenario(scenario);
+
+        List<TreeMap<Long, String>> stamps = new ArrayList<>();
+        try {
+            stamps.add(stamp(scenario.getVehicleContainer()));
+            for (int step = 0; step < STEPS; step++) {
+                simulation.runOneStep();
+                stamps.add(stamp(scenario.getVehicleContainer()));
+            }
+            assertSame("Unexpected step executor.", expectedExecutor, simulation.getExecutorType());
+        } finally {
+            simulation.removeCurrentScenario();
+        }
+
+        return stamps;
+    }
+
+    private static class TestSimulation extends VehicleSimulation {
+        Class<?> getExecutorType() {
+            return vehicleStepExecutor.getClass();
+        }
+    }
+
+    private static TreeMap<Long, String> stamp(VehicleContainer vehicles) {
+        TreeMap<Long, String> stamps = new TreeMap<>();
+        for (Vehicle vehicle : vehicles) {
+            DirectedEdge.Lane lane = vehicle.getLane();
+            String position = lane == null ? "-" : lane.getEdge().getId() + "/" + lane.getIndex();
+            stamps.put(vehicle.getId(), position + " v=" + vehicle.getVelocity() + " "
+                    + vehicle.getCellPosition() + " " + vehicle.getState());
+        }
+        return stamps;
+    }
+
+
+    /*
+    |=======|
+    | input |
+    |=======|
+    */
+    private static Graph parse(File file, SimulationConfig config) throws Exception {
+        StreetGraphGenerator sggen = new StreetGraphGenerator(config);
+        FeatureDefinition streetgraph = new FeatureDefinition("streetgraph",
+                new FeatureDependency(OSMProcessor.PLACEHOLDER_UNIFICATION, null), sggen, n -> false,
+                w -> w.tags.containsKey("highway"));
+
+        FeatureGenerator.Properties properties = new FeatureGenerator.Properties();
+        properties.clip = FeatureGenerator.Properties.BoundaryManagement.NONE;
+
+        Parser parser = new Parser(new OSMProcessor(properties, streetgraph));
+        parser.getWayEntityManager().putInitializer(StreetComponent.class, new StreetComponentFactory());
+        parser.getWayEntityManager().putInitializer(SanitizerWayComponent.class, new SanitizerWayComponentFactory());
+        parser.getRelationManager().putFactory("restriction", new RestrictionRelationFactory());
+
+        parser.getFeatureSystem().putFeature(OSMProcessor.PLACEHOLDER_UNIFICATION);
+        parser.getFeatureSystem().putFeature(streetgraph);
+
+        parser.parse(file);
+        return sggen.getStreetGraph();
+    }
+
+    /**
+     * @return a grid of streets, every third street is a multi-lane primary to provoke lane changes
+     */
+    private static String createGrid() {
+        StringBuilder xml = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<osm version=\"0.6\">\n");
+        xml.append("<bounds minlat=\"48.0\" minlon=\"9.0\" maxlat=\"").append(lat(SIZE - 1))
+                .append("\" maxlon=\"").append(lon(SIZE - 1)).append("\"/>\n");
+
+        for (int row = 0; row < SIZE; row++)
+            for (int col = 0; col < SIZE; col++)
+                xml.append("<node id=\"").append(nodeId(row, col)).append("\" lat=\"").append(lat(row))
+                        .append("\" lon=\"").append(lon(col)).append("\"/>\n");
+
+        long way = 1;
+        for (int line = 0; line < SIZE; line++) {
+            xml.append("<way id=\"").append(way++).append("\">");
+            for (int col = 0; col < SIZE; col++)
+                xml.append("<nd ref=\"").append(nodeId(line, col)).append("\"/>");
+            appendTags(xml, line);
+            xml.append("</way>\n");
+
+            xml.append("<way id=\"").append(way++).append("\">");
+            for (int row = 0; row < SIZE; row++)
+                xml.append("<nd ref=\"").append(nodeId(row, line)).append("\"/>");
+            appendTags(xml, line + 1);
+            xml.append("</way>\n");
+        }
+
+        return xml.append("</osm>\n").toString();
+    }
+
+    private static void appendTags(StringBuilder xml, int line) {
+        if (line % 3 == 0)
+            xml.append("<tag k=\"highway\" v=\"primary\"/><tag k=\"lanes\" v=\"4\"/>");
+        else
+            xml.append("<tag k=\"highway\" v=\"residential\"/>");
+    }
+
+    private static double lat(int row) {
+        return 48.0 + row * 0.002;
+    }
+
+    private static double lon(int col) {
+        return 9.0 + col * 0.002;
+    }
+
+    private static long nodeId(int row, int col) {
+        return 1 + row * SIZE + col;
+    }
+}
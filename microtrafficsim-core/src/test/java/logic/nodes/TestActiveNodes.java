@@ -0,0 +1,71 @@
+package logic.nodes;
+
+import microtrafficsim.core.logic.nodes.ActiveNodes;
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.logic.vehicles.machines.impl.Car;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.simulation.configs.CrossingLogicConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests whether {@link ActiveNodes} contains exactly the nodes, that have to be updated.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestActiveNodes {
+
+    private ActiveNodes activeNodes;
+    private Node        node0, node1, node2;
+
+
+    @Before
+    public void prepareForTest() {
+        CrossingLogicConfig config = new CrossingLogicConfig();
+        node0 = new Node(0, new Coordinate(0, 0), config);
+        node1 = new Node(1, new Coordinate(0, 1), config);
+        node2 = new Node(2, new Coordinate(0, 2), config);
+
+        activeNodes = new ActiveNodes();
+        node2.setActiveNodes(activeNodes);
+        node0.setActiveNodes(activeNodes);
+        node1.setActiveNodes(activeNodes);
+    }
+
+
+    @Test
+    public void testInitiallyAllActive() {
+        assertEquals(Arrays.asList(node0, node1, node2), activeNodes.poll());
+        assertEquals(Collections.emptyList(), activeNodes.poll());
+    }
+
+    @Test
+    public void testRegisteredNodesStayActive() {
+        activeNodes.poll();
+
+        Vehicle vehicle = new Car(0, null);
+        node1.registerVehicle(vehicle);
+        assertEquals(Collections.singletonList(node1), activeNodes.poll());
+        assertEquals(Collections.singletonList(node1), activeNodes.poll());
+
+        // node has changed => updated once more
+        node1.unregisterVehicle(vehicle);
+        assertEquals(Collections.singletonList(node1), activeNodes.poll());
+        assertEquals(Collections.emptyList(), activeNodes.poll());
+    }
+
+    @Test
+    public void testSortedOrder() {
+        activeNodes.poll();
+
+        node2.registerVehicle(new Car(0, null));
+        node0.registerVehicle(new Car(1, null));
+        assertEquals(Arrays.asList(node0, node2), activeNodes.poll());
+    }
+}
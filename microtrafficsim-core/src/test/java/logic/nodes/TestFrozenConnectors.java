@@ -0,0 +1,84 @@
+package logic.nodes;
+
+import logic.crossinglogic.MultilaneTestGraph;
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests whether a frozen {@link Node} returns the same connectors as before freezing.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestFrozenConnectors {
+
+    private MultilaneTestGraph testGraph;
+
+
+    @Before
+    public void prepareForTest() {
+        testGraph = new MultilaneTestGraph(new SimulationConfig());
+    }
+
+
+    @Test
+    public void testFrozenEqualsUnfrozen() {
+        for (Node node : testGraph.graph.getNodes()) {
+            assertFalse(node.isFrozen());
+            List<Object> expected = collectConnectors(node);
+
+            node.freeze();
+            assertTrue(node.isFrozen());
+            assertEquals("Node " + node.getId(), expected, collectConnectors(node));
+        }
+    }
+
+    @Test
+    public void testAddingConnectorUnfreezes() {
+        for (Node node : testGraph.graph.getNodes()) {
+            node.freeze();
+
+            DirectedEdge incoming = node.getIncomingEdges().iterator().next();
+            DirectedEdge leaving  = node.getLeavingEdges().iterator().next();
+            node.addConnector(incoming.getLane(0), leaving.getLane(0));
+            assertFalse(node.isFrozen());
+            List<Object> expected = collectConnectors(node);
+            assertEquals(leaving.getLane(0).getIndex(), node.getLeavingLane(incoming.getLane(0), leaving).getIndex());
+
+            node.freeze();
+            assertEquals("Node " + node.getId(), expected, collectConnectors(node));
+        }
+    }
+
+
+    /**
+     * @return all results of the node's connector lookups in a deterministic order
+     */
+    private List<Object> collectConnectors(Node node) {
+        List<Object> connectors = new ArrayList<>();
+
+        connectors.add(new ArrayList<>(node.getLeavingEdges()));
+        connectors.add(new ArrayList<>(node.getIncomingEdges()));
+        for (DirectedEdge incoming : testGraph.graph.getEdges()) {
+            connectors.add(new ArrayList<>(node.getLeavingEdges(incoming)));
+            connectors.add(new ArrayList<>(node.getIncomingEdges(incoming)));
+
+            for (DirectedEdge leaving : testGraph.graph.getEdges()) {
+                connectors.add(node.findOutermostTurningLaneIndex(incoming, leaving));
+                for (int laneNo = 0; laneNo < incoming.getNumberOfLanes(); laneNo++) {
+                    DirectedEdge.Lane leavingLane = node.getLeavingLane(incoming.getLane(laneNo), leaving);
+                    connectors.add(leavingLane == null ? "none" : leavingLane.getEdge() + "_" + leavingLane.getIndex());
+                }
+            }
+        }
+
+        return connectors;
+    }
+}
@@ -0,0 +1,149 @@
+package logic.shortestpath;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.map.tiles.QuadTreeTilingScheme;
+import microtrafficsim.core.map.tiles.TilingScheme;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.arcflags.ArcFlags;
+import microtrafficsim.core.shortestpath.astar.AStar;
+import microtrafficsim.core.shortestpath.astar.AStars;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.vis.map.projections.MercatorProjection;
+import microtrafficsim.math.Vec2d;
+import microtrafficsim.math.random.distributions.impl.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Stack;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link ArcFlags} on a grid with random edge weights, whose nodes are spread over several tiles, against an
+ * {@link AStar} without estimation and without pruning.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestArcFlags {
+    private final SimulationConfig config = new SimulationConfig();
+    private final TilingScheme     scheme = new QuadTreeTilingScheme(new MercatorProjection());
+    private final int              level  = 14;
+    private final int              width  = 12;
+    private final Random           random = new Random(42);
+
+    private Node[] nodes;
+    private Graph  graph;
+    private HashMap<DirectedEdge, Double> weights;
+
+
+    @Before
+    public void setup() {
+        random.reset();
+
+        graph = new StreetGraph(new Bounds(50, 8, 50 + 0.01 * width, 8 + 0.01 * width));
+        nodes = new Node[width * width];
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                nodes[i] = new Node(i, new Coordinate(50 + 0.01 * y, 8 + 0.01 * x), config.crossingLogic);
+                graph.addNode(nodes[i]);
+            }
+        }
+
+        weights = new HashMap<>();
+        long id = 0;
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x + 1 < width) {
+                    addEdge(id++, nodes[y * width + x], nodes[y * width + x + 1]);
+                    addEdge(id++, nodes[y * width + x + 1], nodes[y * width + x]);
+                }
+                if (y + 1 < width) {
+                    addEdge(id++, nodes[y * width + x], nodes[(y + 1) * width + x]);
+                    addEdge(id++, nodes[(y + 1) * width + x], nodes[y * width + x]);
+                }
+            }
+        }
+
+        for (Node node : nodes)
+            for (DirectedEdge incoming : node.getIncomingEdges())
+                for (DirectedEdge leaving : node.getLeavingEdges())
+                    node.addConnector(incoming.getLane(0), leaving.getLane(0));
+    }
+
+    @Test
+    public void testPrunedPathsAreShortest() throws InterruptedException {
+        ArcFlags arcFlags = new ArcFlags(graph, weights::get, scheme, level, 4);
+        assertTrue("Expected several regions, got " + arcFlags.getRegionCount() + ".", arcFlags.getRegionCount() > 4);
+        assertTrue("Flags do not prune anything.", arcFlags.getFlagRatio() < 1);
+
+        ShortestPathAlgorithm<Node, DirectedEdge> pruned   = AStars.arcFlagAStar(arcFlags);
+        ShortestPathAlgorithm<Node, DirectedEdge> dijkstra = new AStar<>(weights::get, (node, end) -> 0);
+        for (int i = 0; i < 200; i++) {
+            Node start = nodes[random.nextInt(nodes.length)];
+            Node end   = nodes[random.nextInt(nodes.length)];
+
+            Stack<DirectedEdge> expected = new Stack<>();
+            dijkstra.findShortestPath(start, end, expected);
+            Stack<DirectedEdge> actual = new Stack<>();
+            pruned.findShortestPath(start, end, actual);
+
+            assertEquals(start == end, actual.isEmpty());
+            assertEquals("Pruned path is not the shortest one.", weightOf(expected), weightOf(actual), 1e-9);
+            if (!actual.isEmpty()) {
+                assertEquals(start, actual.peek().getOrigin());
+                assertEquals(end, actual.firstElement().getDestination());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelAndRestoredFlagsAreEqual() throws InterruptedException {
+        ArcFlags sequential = new ArcFlags(graph, weights::get, scheme, level, 1);
+        ArcFlags parallel   = new ArcFlags(graph, weights::get, scheme, level, 4);
+        assertArrayEquals(sequential.getFlags(), parallel.getFlags());
+
+        int[] regionXs = new int[parallel.getRegionCount()];
+        int[] regionYs = new int[parallel.getRegionCount()];
+        for (int r = 0; r < regionXs.length; r++) {
+            regionXs[r] = parallel.getRegionTile(r).x;
+            regionYs[r] = parallel.getRegionTile(r).y;
+        }
+        ArcFlags restored = new ArcFlags(graph, weights::get, scheme, level, regionXs, regionYs, parallel.getFlags());
+
+        for (int v = 0; v < nodes.length; v++)
+            assertEquals(parallel.getRegion(v), restored.getRegion(v));
+        for (int e = 0; e < parallel.getGraph().getEdgeCount(); e++)
+            for (int r = 0; r < parallel.getRegionCount(); r++)
+                assertEquals(parallel.isFlagged(e, r), restored.isFlagged(e, r));
+    }
+
+
+    private void addEdge(long id, Node origin, Node destination) {
+        Vec2d vector = new Vec2d(1, 1);
+        DirectedEdge edge = new DirectedEdge(
+                id, config.metersPerCell, vector, vector, Orientation.FORWARD, origin, destination,
+                new StreetType(StreetType.UNCLASSIFIED), 1, 1, config.metersPerCell, type -> (byte) 0);
+        origin.addLeavingEdge(edge);
+        destination.addIncomingEdge(edge);
+        graph.addEdge(edge);
+        weights.put(edge, 1.0 + random.nextInt(100));
+    }
+
+    private double weightOf(Stack<DirectedEdge> path) {
+        double weight = 0;
+        for (DirectedEdge edge : path)
+            weight += weights.get(edge);
+        return weight;
+    }
+}
@@ -0,0 +1,203 @@
+package logic.shortestpath;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.parser.features.streetgraph.StreetGraphGenerator;
+import microtrafficsim.core.parser.processing.OSMProcessor;
+import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponent;
+import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponentFactory;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.astar.AStars;
+import microtrafficsim.core.shortestpath.astar.DenseAStar;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.osm.parser.Parser;
+import microtrafficsim.osm.parser.features.FeatureDefinition;
+import microtrafficsim.osm.parser.features.FeatureDependency;
+import microtrafficsim.osm.parser.features.FeatureGenerator;
+import microtrafficsim.osm.parser.features.streets.StreetComponent;
+import microtrafficsim.osm.parser.features.streets.StreetComponentFactory;
+import microtrafficsim.osm.parser.relations.restriction.RestrictionRelationFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that the {@link DenseAStar}s replacing the {@link microtrafficsim.core.shortestpath.astar.AStar}s in the
+ * random scenarios find paths of the same weight, point-to-point as well as one-to-many. The graph is a regular grid,
+ * so there are many paths of equal weight and the chosen paths themselves may differ.
+ */
+public class TestDenseAStar {
+
+    private static final int SIZE = 10;    // nodes per row and column of the grid
+
+    private static SimulationConfig config;
+    private static Graph            graph;
+    private static List<Node>       nodes;
+
+
+    @BeforeClass
+    public static void parseGraph() throws Exception {
+        config = new SimulationConfig();
+
+        File file = File.createTempFile("microtrafficsim-grid", ".osm");
+        try {
+            Files.write(file.toPath(), createGrid().getBytes(StandardCharsets.UTF_8));
+            graph = parse(file, config);
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+        nodes = new ArrayList<>(graph.getNodes());
+    }
+
+
+    @Test
+    public void testShortestPathWeights() {
+        testWeights(AStars.shortestPathAStar(config.metersPerCell),
+                AStars.denseShortestPathAStar(graph, config.metersPerCell),
+                DirectedEdge::getLength);
+    }
+
+    @Test
+    public void testFastestPathWeights() {
+        testWeights(AStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity),
+                AStars.denseFastestPathAStar(graph, config.metersPerCell, config.globalMaxVelocity),
+                DirectedEdge::getTimeCostMillis);
+    }
+
+    private void testWeights(ShortestPathAlgorithm<Node, DirectedEdge> expectedAlg, DenseAStar dense,
+                             ToDoubleFunction<DirectedEdge> weight) {
+        assertTrue(nodes.size() > SIZE);
+        expectedAlg.preprocess();
+        dense.preprocess();
+
+        for (Node start : nodes) {
+            ArrayList<Stack<DirectedEdge>> trees = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++)
+                trees.add(new Stack<>());
+            dense.findShortestPaths(start, nodes, trees);
+
+            for (int i = 0; i < nodes.size(); i++) {
+                Node end = nodes.get(i);
+                Stack<DirectedEdge> expected = new Stack<>();
+                expectedAlg.findShortestPath(start, end, expected);
+                Stack<DirectedEdge> point = new Stack<>();
+                dense.findShortestPath(start, end, point);
+
+                String msg = "From " + start.getId() + " to " + end.getId();
+                assertEquals(msg, expected.isEmpty(), point.isEmpty());
+                assertEquals(msg, expected.isEmpty(), trees.get(i).isEmpty());
+                assertEquals(msg, weight(expected, weight), weight(point, weight), 1e-6);
+                assertEquals(msg, weight(expected, weight), weight(trees.get(i), weight), 1e-6);
+                if (!point.isEmpty()) {
+                    assertPath(msg, start, end, point);
+                    assertPath(msg, start, end, trees.get(i));
+                }
+            }
+        }
+    }
+
+    private static double weight(Stack<DirectedEdge> path, ToDoubleFunction<DirectedEdge> weight) {
+        return path.stream().mapToDouble(weight).sum();
+    }
+
+    /**
+     * Checks that the path is connected and goes from {@code start} to {@code end}; the first edge is on top.
+     */
+    private static void assertPath(String msg, Node start, Node end, Stack<DirectedEdge> path) {
+        Node current = start;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            assertSame(msg, current, path.get(i).getOrigin());
+            current = path.get(i).getDestination();
+        }
+        assertSame(msg, end, current);
+    }
+
+
+    /*
+    |=======|
+    | input |
+    |=======|
+    */
+    private static Graph parse(File file, SimulationConfig config) throws Exception {
+        StreetGraphGenerator sggen = new StreetGraphGenerator(config);
+        FeatureDefinition streetgraph = new FeatureDefinition("streetgraph",
+                new FeatureDependency(OSMProcessor.PLACEHOLDER_UNIFICATION, null), sggen, n -> false,
+                w -> w.tags.containsKey("highway"));
+
+        FeatureGenerator.Properties properties = new FeatureGenerator.Properties();
+        properties.clip = FeatureGenerator.Properties.BoundaryManagement.NONE;
+
+        Parser parser = new Parser(new OSMProcessor(properties, streetgraph));
+        parser.getWayEntityManager().putInitializer(StreetComponent.class, new StreetComponentFactory());
+        parser.getWayEntityManager().putInitializer(SanitizerWayComponent.class, new SanitizerWayComponentFactory());
+        parser.getRelationManager().putFactory("restriction", new RestrictionRelationFactory());
+
+        parser.getFeatureSystem().putFeature(OSMProcessor.PLACEHOLDER_UNIFICATION);
+        parser.getFeatureSystem().putFeature(streetgraph);
+
+        parser.parse(file);
+        return sggen.getStreetGraph();
+    }
+
+    /**
+     * @return a regular grid of streets, every fourth street is a primary with a higher speed limit
+     */
+    private static String createGrid() {
+        StringBuilder xml = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<osm version=\"0.6\">\n");
+        xml.append("<bounds minlat=\"48.0\" minlon=\"9.0\" maxlat=\"").append(lat(SIZE - 1))
+                .append("\" maxlon=\"").append(lon(SIZE - 1)).append("\"/>\n");
+
+        for (int row = 0; row < SIZE; row++)
+            for (int col = 0; col < SIZE; col++)
+                xml.append("<node id=\"").append(nodeId(row, col)).append("\" lat=\"").append(lat(row))
+                        .append("\" lon=\"").append(lon(col)).append("\"/>\n");
+
+        long way = 1;
+        for (int line = 0; line < SIZE; line++) {
+            xml.append("<way id=\"").append(way++).append("\">");
+            for (int col = 0; col < SIZE; col++)
+                xml.append("<nd ref=\"").append(nodeId(line, col)).append("\"/>");
+            appendTags(xml, line);
+            xml.append("</way>\n");
+
+            xml.append("<way id=\"").append(way++).append("\">");
+            for (int row = 0; row < SIZE; row++)
+                xml.append("<nd ref=\"").append(nodeId(row, line)).append("\"/>");
+            appendTags(xml, line + 2);
+            xml.append("</way>\n");
+        }
+
+        return xml.append("</osm>\n").toString();
+    }
+
+    private static void appendTags(StringBuilder xml, int line) {
+        if (line % 4 == 0)
+            xml.append("<tag k=\"highway\" v=\"primary\"/>");
+        else
+            xml.append("<tag k=\"highway\" v=\"residential\"/>");
+    }
+
+    private static double lat(int row) {
+        return 48.0 + row * 0.001;
+    }
+
+    private static double lon(int col) {
+        return 9.0 + col * 0.001;
+    }
+
+    private static long nodeId(int row, int col) {
+        return 1 + row * SIZE + col;
+    }
+}
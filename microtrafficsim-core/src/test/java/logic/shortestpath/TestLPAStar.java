@@ -0,0 +1,174 @@
+package logic.shortestpath;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.shortestpath.astar.DenseAStar;
+import microtrafficsim.core.shortestpath.lpastar.LPAStar;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.math.Vec2d;
+import microtrafficsim.math.random.distributions.impl.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Stack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link LPAStar} on a grid with random edge weights against a {@link DenseAStar} without estimation, which
+ * searches from scratch. Every node connects all of its incoming edges with all of its leaving edges, so the
+ * edge-based and the node-based search have to find paths of equal weight.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestLPAStar {
+    private final SimulationConfig config = new SimulationConfig();
+    private final int              width  = 12;
+    private final Random           random = new Random(42);
+
+    private Node[]   nodes;
+    private CSRGraph graph;
+    private double[] weights;    // by edge index of the CSR view
+
+
+    @Before
+    public void setup() {
+        random.reset();
+        Coordinate position = new Coordinate(0, 0);
+
+        Graph streetGraph = new StreetGraph(new Bounds(0, 0, 0, 0));
+        nodes = new Node[width * width];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(i, position, config.crossingLogic);
+            streetGraph.addNode(nodes[i]);
+        }
+
+        long id = 0;
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x + 1 < width) {
+                    addEdge(streetGraph, id++, nodes[y * width + x], nodes[y * width + x + 1]);
+                    addEdge(streetGraph, id++, nodes[y * width + x + 1], nodes[y * width + x]);
+                }
+                if (y + 1 < width) {
+                    addEdge(streetGraph, id++, nodes[y * width + x], nodes[(y + 1) * width + x]);
+                    addEdge(streetGraph, id++, nodes[(y + 1) * width + x], nodes[y * width + x]);
+                }
+            }
+        }
+
+        for (Node node : nodes)
+            for (DirectedEdge incoming : node.getIncomingEdges())
+                for (DirectedEdge leaving : node.getLeavingEdges())
+                    node.addConnector(incoming.getLane(0), leaving.getLane(0));
+
+        graph   = new CSRGraph(streetGraph);
+        weights = new double[graph.getEdgeCount()];
+        for (int e = 0; e < weights.length; e++)
+            weights[e] = 1 + random.nextInt(100);
+    }
+
+    @Test
+    public void testWeightChanges() {
+        LPAStar lpaStar = new LPAStar(graph, this::getWeight, 4);
+
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++) {
+                int edge = random.nextInt(weights.length);
+                weights[edge] = 1 + random.nextInt(100);
+                lpaStar.setWeight(edge, weights[edge]);
+            }
+
+            DenseAStar dijkstra = new DenseAStar(graph, this::getWeight, (csr, node, end) -> 0);
+            for (int i = 0; i < 10; i++) {
+                Node start = nodes[random.nextInt(nodes.length)];
+                Node end   = nodes[random.nextInt(6)];    // few destinations, so trees are reused
+
+                Stack<DirectedEdge> expected = new Stack<>();
+                dijkstra.findShortestPath(start, end, expected);
+                Stack<DirectedEdge> actual = new Stack<>();
+                lpaStar.findShortestPath(start, end, actual);
+
+                assertEquals(start == end, actual.isEmpty());
+                assertEquals("Path weight differs after weight changes.", weightOf(expected), weightOf(actual), 1e-9);
+                if (!actual.isEmpty()) {
+                    assertEquals(start, actual.peek().getOrigin());
+                    assertEquals(end, actual.firstElement().getDestination());
+                }
+            }
+        }
+
+        assertTrue(lpaStar.getTreeCount() <= 4);
+    }
+
+    @Test
+    public void testRepairAndBudget() {
+        LPAStar lpaStar = new LPAStar(graph, this::getWeight, 1);
+        int destination = graph.indexOf(nodes[0]);
+        int first       = graph.getLeavingAt(graph.getLeavingBegin(graph.indexOf(nodes[nodes.length - 1])));
+
+        /* interrupted search continues where it has stopped */
+        LPAStar.Tree tree = lpaStar.getTree(destination);
+        int fromScratch = 0;
+        while (!tree.isSolved(first))
+            fromScratch += tree.computeShortestPath(first, 3);
+        int[] path = tree.getPath(first);
+        assertNotNull(path);
+        assertEquals(first, path[0]);
+        assertEquals(destination, graph.getDestination(path[path.length - 1]));
+        assertEquals(tree.getDistance(first), sum(path), 1e-9);
+
+        /* changing an edge far from the destination only repairs the few states depending on it */
+        assertTrue(path.length > 2);
+        int changed = path[1];
+        weights[changed] += 1000;
+        lpaStar.setWeight(changed, weights[changed]);
+        int repair = tree.computeShortestPath(first, Integer.MAX_VALUE);
+        assertTrue("Repairing expanded " + repair + " states, searching from scratch " + fromScratch + ".",
+                repair < fromScratch);
+
+        LPAStar fresh = new LPAStar(graph, this::getWeight, 1);
+        LPAStar.Tree freshTree = fresh.getTree(destination);
+        freshTree.computeShortestPath(first, Integer.MAX_VALUE);
+        assertEquals(freshTree.getDistance(first), tree.getDistance(first), 1e-9);
+        assertEquals(tree.getDistance(first), sum(tree.getPath(first)), 1e-9);
+    }
+
+
+    private void addEdge(Graph streetGraph, long id, Node origin, Node destination) {
+        Vec2d vector = new Vec2d(1, 1);
+        DirectedEdge edge = new DirectedEdge(
+                id, config.metersPerCell, vector, vector, Orientation.FORWARD, origin, destination,
+                new StreetType(StreetType.UNCLASSIFIED), 1, 1, config.metersPerCell, type -> (byte) 0);
+        origin.addLeavingEdge(edge);
+        destination.addIncomingEdge(edge);
+        streetGraph.addEdge(edge);
+    }
+
+    private double getWeight(DirectedEdge edge) {
+        return weights[graph.indexOf(edge)];
+    }
+
+    private double weightOf(Stack<DirectedEdge> path) {
+        double weight = 0;
+        for (DirectedEdge edge : path)
+            weight += getWeight(edge);
+        return weight;
+    }
+
+    private double sum(int[] path) {
+        double weight = 0;
+        for (int edge : path)
+            weight += weights[edge];
+        return weight;
+    }
+}
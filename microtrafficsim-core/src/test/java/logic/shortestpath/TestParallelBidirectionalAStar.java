@@ -0,0 +1,130 @@
+package logic.shortestpath;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.shortestpath.astar.ParallelBidirectionalAStar;
+import microtrafficsim.core.shortestpath.lpastar.LPAStar;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.math.Vec2d;
+import microtrafficsim.math.random.distributions.impl.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Stack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link ParallelBidirectionalAStar} on a grid with random edge weights and randomly missing turns against
+ * {@link LPAStar}, whose searches are edge-based as well and hence respect the turns exactly.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestParallelBidirectionalAStar {
+    private final SimulationConfig config = new SimulationConfig();
+    private final int              width  = 16;
+    private final Random           random = new Random(42);
+
+    private Node[] nodes;
+    private Graph  graph;
+    private HashMap<DirectedEdge, Double> weights;
+
+
+    @Before
+    public void setup() {
+        random.reset();
+        Coordinate position = new Coordinate(0, 0);
+
+        graph = new StreetGraph(new Bounds(0, 0, 0, 0));
+        nodes = new Node[width * width];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(i, position, config.crossingLogic);
+            graph.addNode(nodes[i]);
+        }
+
+        weights = new HashMap<>();
+        long id = 0;
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x + 1 < width) {
+                    addEdge(id++, nodes[y * width + x], nodes[y * width + x + 1]);
+                    addEdge(id++, nodes[y * width + x + 1], nodes[y * width + x]);
+                }
+                if (y + 1 < width) {
+                    addEdge(id++, nodes[y * width + x], nodes[(y + 1) * width + x]);
+                    addEdge(id++, nodes[(y + 1) * width + x], nodes[y * width + x]);
+                }
+            }
+        }
+
+        // no u-turns and some forbidden turns, so node-based searches would be wrong
+        for (Node node : nodes)
+            for (DirectedEdge incoming : node.getIncomingEdges())
+                for (DirectedEdge leaving : node.getLeavingEdges())
+                    if (leaving.getDestination() != incoming.getOrigin() && random.nextInt(5) > 0)
+                        node.addConnector(incoming.getLane(0), leaving.getLane(0));
+    }
+
+    @Test
+    public void testPathsAreShortest() {
+        ParallelBidirectionalAStar<Node, DirectedEdge> parallel =
+                new ParallelBidirectionalAStar<>(weights::get, (node, end) -> 0);
+        LPAStar reference = new LPAStar(new CSRGraph(graph), weights::get, 4);
+
+        int found = 0;
+        for (int i = 0; i < 300; i++) {
+            Node start = nodes[random.nextInt(nodes.length)];
+            Node end   = nodes[random.nextInt(nodes.length)];
+
+            Stack<DirectedEdge> expected = new Stack<>();
+            reference.findShortestPath(start, end, expected);
+            Stack<DirectedEdge> actual = new Stack<>();
+            parallel.findShortestPath(start, end, actual);
+
+            assertEquals(expected.isEmpty(), actual.isEmpty());
+            assertEquals("Path weight differs.", weightOf(expected), weightOf(actual), 1e-9);
+            if (actual.isEmpty())
+                continue;
+            found++;
+
+            // driving order from top to bottom, respecting the turns
+            assertEquals(start, actual.peek().getOrigin());
+            assertEquals(end, actual.firstElement().getDestination());
+            for (int k = actual.size() - 1; k > 0; k--) {
+                DirectedEdge current = actual.get(k);
+                assertTrue(current.getDestination().getLeavingEdges(current).contains(actual.get(k - 1)));
+            }
+        }
+
+        assertTrue(found > 0);
+        assertTrue(parallel.getSettledNodeCount() > 0);
+    }
+
+
+    private void addEdge(long id, Node origin, Node destination) {
+        Vec2d vector = new Vec2d(1, 1);
+        DirectedEdge edge = new DirectedEdge(
+                id, config.metersPerCell, vector, vector, Orientation.FORWARD, origin, destination,
+                new StreetType(StreetType.UNCLASSIFIED), 1, 1, config.metersPerCell, type -> (byte) 0);
+        origin.addLeavingEdge(edge);
+        destination.addIncomingEdge(edge);
+        graph.addEdge(edge);
+        weights.put(edge, 1.0 + random.nextInt(100));
+    }
+
+    private double weightOf(Stack<DirectedEdge> path) {
+        double weight = 0;
+        for (DirectedEdge edge : path)
+            weight += weights.get(edge);
+        return weight;
+    }
+}
@@ -0,0 +1,167 @@
+package logic.shortestpath;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.routes.CompactRoute;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.cache.CachingShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.cache.RouteCache;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.math.Vec2d;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link RouteCache} and {@link CompactRoute} on a chain of nodes, whose paths are given by a scout counting its
+ * calls.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestRouteCache {
+    private final SimulationConfig config = new SimulationConfig();
+    private final int              length = 10;
+
+    private Node[]         nodes;
+    private DirectedEdge[] edges;    // edges[i] goes from nodes[i] to nodes[i + 1]
+    private CSRGraph       graph;
+    private int            scoutCalls;
+    private ShortestPathAlgorithm<Node, DirectedEdge> scout;
+
+
+    @Before
+    public void setup() {
+        Coordinate position = new Coordinate(0, 0);
+        Vec2d      vector   = new Vec2d(1, 1);
+
+        Graph streetGraph = new StreetGraph(new Bounds(0, 0, 0, 0));
+        nodes = new Node[length + 1];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(i, position, config.crossingLogic);
+            streetGraph.addNode(nodes[i]);
+        }
+
+        edges = new DirectedEdge[length];
+        for (int i = 0; i < length; i++) {
+            edges[i] = new DirectedEdge(
+                    i, config.metersPerCell, vector, vector, Orientation.FORWARD, nodes[i], nodes[i + 1],
+                    new StreetType(StreetType.UNCLASSIFIED), 1, 1, config.metersPerCell, type -> (byte) 0);
+            nodes[i].addLeavingEdge(edges[i]);
+            nodes[i + 1].addIncomingEdge(edges[i]);
+            streetGraph.addEdge(edges[i]);
+        }
+        graph = new CSRGraph(streetGraph);
+
+        scoutCalls = 0;
+        scout = (start, end, shortestPath) -> {
+            scoutCalls++;
+            for (int i = indexOf(end) - 1; i >= indexOf(start); i--)
+                shortestPath.push(edges[i]);
+        };
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        RouteCache cache = new RouteCache(graph, 1000);
+        CachingShortestPathAlgorithm cachingScout = cache.wrap(scout, "chain");
+
+        Stack<DirectedEdge> first = new Stack<>();
+        cachingScout.findShortestPath(nodes[2], nodes[7], first);
+        Stack<DirectedEdge> second = new Stack<>();
+        cachingScout.findShortestPath(nodes[2], nodes[7], second);
+
+        assertEquals(1, scoutCalls);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(first, second);
+        assertSame("The first edge has to be on top.", edges[2], second.peek());
+        assertEquals(5, second.size());
+
+        // other metrics are cached separately
+        cache.wrap(scout, "other").findShortestPath(nodes[2], nodes[7], new Stack<>());
+        assertEquals(2, scoutCalls);
+        assertEquals(2, cache.size());
+        assertEquals(10, cache.getEdgeCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        RouteCache cache = new RouteCache(graph, 6, 1);
+        CachingShortestPathAlgorithm cachingScout = cache.wrap(scout, "chain");
+
+        cachingScout.findShortestPath(nodes[0], nodes[3], new Stack<>());    // 3 edges
+        cachingScout.findShortestPath(nodes[3], nodes[5], new Stack<>());    // 2 edges
+        cachingScout.findShortestPath(nodes[0], nodes[3], new Stack<>());    // hit, (3, 5) is least recently used
+        cachingScout.findShortestPath(nodes[5], nodes[7], new Stack<>());    // 2 edges, evicts (3, 5)
+        assertEquals(3, scoutCalls);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(5, cache.getEdgeCount());
+
+        cachingScout.findShortestPath(nodes[0], nodes[3], new Stack<>());
+        assertEquals("Recently used path has been evicted.", 3, scoutCalls);
+        cachingScout.findShortestPath(nodes[3], nodes[5], new Stack<>());
+        assertEquals("Evicted path has not been calculated again.", 4, scoutCalls);
+
+        // paths exceeding the bound are not cached
+        cachingScout.findShortestPath(nodes[0], nodes[10], new Stack<>());
+        cachingScout.findShortestPath(nodes[0], nodes[10], new Stack<>());
+        assertEquals(6, scoutCalls);
+        assertTrue(cache.getEdgeCount() <= cache.getMaxEdgeCount());
+    }
+
+    @Test
+    public void testCompactRoutes() {
+        RouteCache cache = new RouteCache(graph, 1000);
+        CachingShortestPathAlgorithm cachingScout = cache.wrap(scout, "chain");
+
+        List<Node> destinations = Arrays.asList(nodes[4], nodes[6], nodes[4], nodes[1]);
+        List<CompactRoute> routes = cachingScout.findRoutes(nodes[1], destinations);
+        assertEquals(3, scoutCalls);
+        assertEquals(destinations.size(), routes.size());
+        assertTrue(routes.get(3).isEmpty());
+
+        CompactRoute route = routes.get(0);
+        CompactRoute other = routes.get(2);
+        assertNotSame(route, other);
+        assertEquals(nodes[1], route.getOrigin());
+        assertEquals(nodes[4], route.getDestination());
+        assertEquals(3, route.size());
+
+        // every route has its own cursor
+        assertSame(edges[1], route.pop());
+        CompactRoute copy = route.clone();
+        assertSame(edges[2], route.pop());
+        assertSame(edges[3], route.pop());
+        assertTrue(route.isEmpty());
+        assertNull(route.getOrigin());
+
+        assertEquals(2, copy.size());
+        assertSame(edges[2], copy.peek());
+        assertEquals(3, other.size());
+        assertSame(edges[1], other.peek());
+    }
+
+
+    private int indexOf(Node node) {
+        for (int i = 0; i < nodes.length; i++)
+            if (nodes[i] == node)
+                return i;
+        return -1;
+    }
+}
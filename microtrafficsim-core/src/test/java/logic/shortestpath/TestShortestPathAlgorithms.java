@@ -2,6 +2,7 @@ package logic.shortestpath;
 
 import microtrafficsim.core.entities.street.StreetEntity;
 import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
 import microtrafficsim.core.logic.streetgraph.Graph;
 import microtrafficsim.core.logic.streetgraph.StreetGraph;
 import microtrafficsim.core.logic.streets.DirectedEdge;
@@ -11,8 +12,14 @@ import microtrafficsim.core.map.Coordinate;
 import microtrafficsim.core.map.StreetType;
 import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
 import microtrafficsim.core.shortestpath.ShortestPathEdge;
+import microtrafficsim.core.shortestpath.alt.Landmarks;
 import microtrafficsim.core.shortestpath.astar.AStars;
 import microtrafficsim.core.shortestpath.astar.BidirectionalAStars;
+import microtrafficsim.core.shortestpath.cache.RouteCache;
+import microtrafficsim.core.shortestpath.ch.CHShortestPath;
+import microtrafficsim.core.shortestpath.ch.ContractionHierarchy;
+import microtrafficsim.core.shortestpath.lpastar.LPAStar;
+import microtrafficsim.core.shortestpath.turns.TurnExpandedShortestPath;
 import microtrafficsim.core.simulation.configs.SimulationConfig;
 import microtrafficsim.math.Vec2d;
 import microtrafficsim.utils.id.BasicLongIDGenerator;
@@ -25,6 +32,7 @@ import org.slf4j.Logger;
 
 import java.util.HashMap;
 import java.util.Stack;
+import java.util.function.Supplier;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -134,6 +142,135 @@ public class TestShortestPathAlgorithms {
         testAll();
     }
 
+    @Test
+    public void testParallelBidirectionalDijkstra() {
+        logger.info("");
+        logger.info("NEW TEST: BidirectionalAStars.parallelShortestPathDijkstra()");
+        shortestPathAlgorithm = BidirectionalAStars.parallelShortestPathDijkstra();
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testFastestWayParallelBidirectionalAStar() {
+        logger.info("");
+        logger.info("NEW TEST: BidirectionalAStars.parallelFastestPathAStar()");
+        shortestPathAlgorithm = BidirectionalAStars.parallelFastestPathAStar(
+                config.metersPerCell, config.globalMaxVelocity);
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testShortestWayContractionHierarchy() {
+        logger.info("");
+        logger.info("NEW TEST: CHShortestPath with ContractionHierarchy.Metric.LENGTH");
+        shortestPathAlgorithm = new CHShortestPath(graph, ContractionHierarchy.Metric.LENGTH);
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testFastestWayContractionHierarchy() {
+        logger.info("");
+        logger.info("NEW TEST: CHShortestPath with ContractionHierarchy.Metric.TIME");
+        shortestPathAlgorithm = new CHShortestPath(graph, ContractionHierarchy.Metric.TIME);
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testLinearDistanceDenseAStar() {
+        logger.info("");
+        logger.info("NEW TEST: AStars.denseShortestPathAStar()");
+        shortestPathAlgorithm = AStars.denseShortestPathAStar(graph, config.metersPerCell);
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testFastestWayDenseAStar() {
+        logger.info("");
+        logger.info("NEW TEST: AStars.denseFastestPathAStar()");
+        shortestPathAlgorithm = AStars.denseFastestPathAStar(graph, config.metersPerCell, config.globalMaxVelocity);
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testFastestWayCachedAStar() {
+        logger.info("");
+        logger.info("NEW TEST: RouteCache.wrap(AStars.fastestPathAStar())");
+        ShortestPathAlgorithm<Node, DirectedEdge> scout
+                = AStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity);
+        shortestPathAlgorithm = new GraphDependentAlgorithm(() -> {
+            scout.preprocess();
+            return new RouteCache(new CSRGraph(graph), 1000).wrap(scout, "fastest");
+        });
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testShortestWayLandmarkAStar() {
+        logger.info("");
+        logger.info("NEW TEST: AStars.landmarkAStar() with Landmarks.Selection.FARTHEST");
+        shortestPathAlgorithm = new GraphDependentAlgorithm(() -> AStars.landmarkAStar(
+                new Landmarks(graph, DirectedEdge::getLength, 2, Landmarks.Selection.FARTHEST, config.seed)));
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testFastestWayLandmarkBidirectionalAStar() {
+        logger.info("");
+        logger.info("NEW TEST: BidirectionalAStars.landmarkAStar() with Landmarks.Selection.AVOID");
+        shortestPathAlgorithm = new GraphDependentAlgorithm(() -> BidirectionalAStars.landmarkAStar(
+                new Landmarks(graph, DirectedEdge::getTimeCostMillis, 2, Landmarks.Selection.AVOID, config.seed)));
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testFastestWayLandmarkParallelBidirectionalAStar() {
+        logger.info("");
+        logger.info("NEW TEST: BidirectionalAStars.parallelLandmarkAStar() with Landmarks.Selection.AVOID");
+        shortestPathAlgorithm = new GraphDependentAlgorithm(() -> BidirectionalAStars.parallelLandmarkAStar(
+                new Landmarks(graph, DirectedEdge::getTimeCostMillis, 2, Landmarks.Selection.AVOID, config.seed)));
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testFastestWayTurnExpandedAStar() {
+        logger.info("");
+        logger.info("NEW TEST: TurnExpandedShortestPath with AStars.fastestPathAStar()");
+        shortestPathAlgorithm = new TurnExpandedShortestPath(
+                graph, AStars.fastestPathAStar(config.metersPerCell, config.globalMaxVelocity));
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testTurnExpandedParallelBidirectionalDijkstra() {
+        logger.info("");
+        logger.info("NEW TEST: TurnExpandedShortestPath with BidirectionalAStars.parallelShortestPathDijkstra()");
+        shortestPathAlgorithm = new TurnExpandedShortestPath(
+                graph, BidirectionalAStars.parallelShortestPathDijkstra());
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
+    @Test
+    public void testFastestWayLPAStar() {
+        logger.info("");
+        logger.info("NEW TEST: LPAStar");
+        shortestPathAlgorithm = new GraphDependentAlgorithm(
+                () -> new LPAStar(new CSRGraph(graph), DirectedEdge::getTimeCostMillis, 4));
+        shortestPathAlgorithm.preprocess();
+        testAll();
+    }
+
     /**
      * <p>
      * Executes: <br>
@@ -468,5 +605,33 @@ public class TestShortestPathAlgorithms {
             }
             node.getLeavingEdges();
         }
+
+
+        /* algorithms depending on the graph, e.g. contraction hierarchies */
+        shortestPathAlgorithm.preprocess();
+    }
+
+
+    /**
+     * Creates the algorithm in {@link #preprocess()}, because it depends on the graph of the current test case,
+     * e.g. its landmarks or edge indices.
+     */
+    private class GraphDependentAlgorithm implements ShortestPathAlgorithm<Node, DirectedEdge> {
+        private final Supplier<ShortestPathAlgorithm<Node, DirectedEdge>> factory;
+        private ShortestPathAlgorithm<Node, DirectedEdge> algorithm;
+
+        private GraphDependentAlgorithm(Supplier<ShortestPathAlgorithm<Node, DirectedEdge>> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public void preprocess() {
+            algorithm = factory.get();
+        }
+
+        @Override
+        public void findShortestPath(Node start, Node end, Stack<? super DirectedEdge> shortestPath) {
+            algorithm.findShortestPath(start, end, shortestPath);
+        }
     }
 }
@@ -0,0 +1,172 @@
+package logic.shortestpath;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.astar.AStar;
+import microtrafficsim.core.shortestpath.astar.ParallelBidirectionalAStar;
+import microtrafficsim.core.shortestpath.lpastar.LPAStar;
+import microtrafficsim.core.shortestpath.turns.TurnExpandedGraph;
+import microtrafficsim.core.shortestpath.turns.TurnExpandedShortestPath;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.math.Vec2d;
+import microtrafficsim.math.random.distributions.impl.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Stack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the structure of the {@link TurnExpandedGraph} and node-based algorithms running on it by
+ * {@link TurnExpandedShortestPath} on a grid with random edge lengths and randomly missing turns. {@link LPAStar}
+ * searches on edges as well, so its paths are the reference.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestTurnExpandedGraph {
+    private final SimulationConfig config = new SimulationConfig();
+    private final int              width  = 12;
+    private final Random           random = new Random(42);
+
+    private Node[]   nodes;
+    private Graph    graph;
+    private CSRGraph csr;
+
+
+    @Before
+    public void setup() {
+        random.reset();
+        Coordinate position = new Coordinate(0, 0);
+
+        graph = new StreetGraph(new Bounds(0, 0, 0, 0));
+        nodes = new Node[width * width];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(i, position, config.crossingLogic);
+            graph.addNode(nodes[i]);
+        }
+
+        long id = 0;
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x + 1 < width) {
+                    addEdge(id++, nodes[y * width + x], nodes[y * width + x + 1]);
+                    addEdge(id++, nodes[y * width + x + 1], nodes[y * width + x]);
+                }
+                if (y + 1 < width) {
+                    addEdge(id++, nodes[y * width + x], nodes[(y + 1) * width + x]);
+                    addEdge(id++, nodes[(y + 1) * width + x], nodes[y * width + x]);
+                }
+            }
+        }
+
+        // no u-turns and some forbidden turns, so node-based searches would be wrong
+        for (Node node : nodes)
+            for (DirectedEdge incoming : node.getIncomingEdges())
+                for (DirectedEdge leaving : node.getLeavingEdges())
+                    if (leaving.getDestination() != incoming.getOrigin() && random.nextInt(5) > 0)
+                        node.addConnector(incoming.getLane(0), leaving.getLane(0));
+
+        csr = new CSRGraph(graph);
+    }
+
+    @Test
+    public void testStructure() {
+        TurnExpandedGraph turnGraph = new TurnExpandedGraph(csr);
+
+        int turns = 0;
+        for (int e = 0; e < csr.getEdgeCount(); e++)
+            turns += csr.getTurnEnd(e) - csr.getTurnBegin(e);
+        assertEquals(csr.getEdgeCount() + 2 * csr.getNodeCount(), turnGraph.getVertexCount());
+        assertEquals(turns + 2 * csr.getEdgeCount(), turnGraph.getTurnCount());
+
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            DirectedEdge edge = csr.getEdge(e);
+            TurnExpandedGraph.Vertex vertex = turnGraph.getVertex(edge);
+            assertEquals(e, vertex.getEdgeIndex());
+
+            // allowed turns plus the arrival
+            int allowed = edge.getDestination().getLeavingEdges(edge).size();
+            assertEquals(allowed + 1, vertex.getLeavingEdges(null).size());
+            for (TurnExpandedGraph.Turn turn : vertex.getLeavingEdges(null)) {
+                if (turn.getEdge() == null)
+                    assertEquals(turnGraph.getArrival(edge.getDestination()), turn.getDestination());
+                else
+                    assertTrue(edge.getDestination().getLeavingEdges(edge).contains(turn.getEdge()));
+                assertTrue(turn.getDestination().getIncomingEdges(null).contains(turn));
+            }
+
+            // reverse turns plus the departure
+            assertEquals(csr.getReverseTurnEnd(e) - csr.getReverseTurnBegin(e) + 1,
+                    vertex.getIncomingEdges(null).size());
+        }
+
+        assertNull(turnGraph.getArrival(new Node(-1, new Coordinate(0, 0), config.crossingLogic)));
+    }
+
+    @Test
+    public void testPathsAreShortest() {
+        TurnExpandedGraph turnGraph = new TurnExpandedGraph(csr);
+        LPAStar reference = new LPAStar(csr, DirectedEdge::getLength, 4);
+
+        testPathsAreShortest(new TurnExpandedShortestPath(turnGraph,
+                new AStar<>(TurnExpandedGraph.Turn::getLength, (vertex, end) -> 0)), reference);
+        testPathsAreShortest(new TurnExpandedShortestPath(turnGraph,
+                new ParallelBidirectionalAStar<>(TurnExpandedGraph.Turn::getLength, (vertex, end) -> 0)), reference);
+    }
+
+
+    private void testPathsAreShortest(ShortestPathAlgorithm<Node, DirectedEdge> algorithm, LPAStar reference) {
+        random.reset();
+        for (int i = 0; i < 200; i++) {
+            Node start = nodes[random.nextInt(nodes.length)];
+            Node end   = nodes[random.nextInt(nodes.length)];
+
+            Stack<DirectedEdge> expected = new Stack<>();
+            reference.findShortestPath(start, end, expected);
+            Stack<DirectedEdge> actual = new Stack<>();
+            algorithm.findShortestPath(start, end, actual);
+
+            assertEquals(expected.isEmpty(), actual.isEmpty());
+            assertEquals("Path length differs.", lengthOf(expected), lengthOf(actual));
+            if (actual.isEmpty())
+                continue;
+
+            // driving order from top to bottom, respecting the turns
+            assertEquals(start, actual.peek().getOrigin());
+            assertEquals(end, actual.firstElement().getDestination());
+            for (int k = actual.size() - 1; k > 0; k--) {
+                DirectedEdge current = actual.get(k);
+                assertTrue(current.getDestination().getLeavingEdges(current).contains(actual.get(k - 1)));
+            }
+        }
+    }
+
+    private void addEdge(long id, Node origin, Node destination) {
+        int length = 1 + random.nextInt(100);
+        Vec2d vector = new Vec2d(1, 1);
+        DirectedEdge edge = new DirectedEdge(
+                id, length * config.metersPerCell, vector, vector, Orientation.FORWARD, origin, destination,
+                new StreetType(StreetType.UNCLASSIFIED), 1, 1, config.metersPerCell, type -> (byte) 0);
+        origin.addLeavingEdge(edge);
+        destination.addIncomingEdge(edge);
+        graph.addEdge(edge);
+    }
+
+    private int lengthOf(Stack<DirectedEdge> path) {
+        int length = 0;
+        for (DirectedEdge edge : path)
+            length += edge.getLength();
+        return length;
+    }
+}
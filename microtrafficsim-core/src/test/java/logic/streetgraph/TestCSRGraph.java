@@ -0,0 +1,134 @@
+package logic.streetgraph;
+
+import logic.crossinglogic.MultilaneTestGraph;
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests whether a {@link CSRGraph} contains the same nodes, edges and connectors as the graph it has been built from.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestCSRGraph {
+
+    private StreetGraph graph;
+    private CSRGraph csr;
+
+
+    @Before
+    public void prepareForTest() {
+        graph = new MultilaneTestGraph(new SimulationConfig()).graph;
+        csr   = new CSRGraph(graph);
+    }
+
+
+    @Test
+    public void testMappings() {
+        assertEquals(graph.getNodes().size(), csr.getNodeCount());
+        int n = 0;
+        for (Node node : graph.getNodes()) {
+            assertSame(node, csr.getNode(n));
+            assertEquals(n, csr.indexOf(node));
+            assertEquals(node.getId(), csr.getNodeId(n));
+            assertEquals(node.getCoordinate().lat, csr.getLat(n), 0);
+            assertEquals(node.getCoordinate().lon, csr.getLon(n), 0);
+            n++;
+        }
+
+        assertEquals(graph.getEdges().size(), csr.getEdgeCount());
+        int e = 0;
+        for (DirectedEdge edge : graph.getEdges()) {
+            assertSame(edge, csr.getEdge(e));
+            assertEquals(e, csr.indexOf(edge));
+            assertSame(edge.getOrigin(), csr.getNode(csr.getOrigin(e)));
+            assertSame(edge.getDestination(), csr.getNode(csr.getDestination(e)));
+            assertEquals(edge.getNumberOfLanes(), csr.getNumberOfLanes(e));
+            assertEquals(edge.getLength(), csr.getLength(e));
+            assertEquals(edge.getMaxVelocity(), csr.getMaxVelocity(e));
+            assertEquals(edge.getPriorityLevel(), csr.getPriorityLevel(e));
+            assertEquals(edge.getTimeCostMillis(), csr.getTimeCostMillis(e), 0);
+            e++;
+        }
+    }
+
+    @Test
+    public void testAdjacencies() {
+        for (int n = 0; n < csr.getNodeCount(); n++) {
+            Node node = csr.getNode(n);
+
+            List<DirectedEdge> leaving = new ArrayList<>();
+            for (int i = csr.getLeavingBegin(n); i < csr.getLeavingEnd(n); i++)
+                leaving.add(csr.getEdge(csr.getLeavingAt(i)));
+            assertEquals("Node " + node.getId(), new ArrayList<>(node.getLeavingEdges()), leaving);
+
+            List<DirectedEdge> incoming = new ArrayList<>();
+            for (int i = csr.getIncomingBegin(n); i < csr.getIncomingEnd(n); i++)
+                incoming.add(csr.getEdge(csr.getIncomingAt(i)));
+            assertEquals("Node " + node.getId(), new ArrayList<>(node.getIncomingEdges()), incoming);
+        }
+    }
+
+    @Test
+    public void testConnectors() {
+        int laneCount = 0;
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            DirectedEdge edge = csr.getEdge(e);
+            Node destination  = edge.getDestination();
+
+            List<DirectedEdge> turns = new ArrayList<>();
+            for (int i = csr.getTurnBegin(e); i < csr.getTurnEnd(e); i++)
+                turns.add(csr.getEdge(csr.getTurnAt(i)));
+            assertEquals("Edge " + edge.key(), new ArrayList<>(destination.getLeavingEdges(edge)), turns);
+
+            for (int laneNo = 0; laneNo < edge.getNumberOfLanes(); laneNo++) {
+                int lane = csr.getFirstLane(e) + laneNo;
+                assertEquals(e, csr.getLaneEdge(lane));
+                assertEquals(laneNo, csr.getLaneNo(lane));
+                laneCount++;
+
+                int connectorCount = 0;
+                for (int i = csr.getConnectorBegin(lane); i < csr.getConnectorEnd(lane); i++) {
+                    DirectedEdge.Lane leavingLane = csr.getLane(csr.getConnectorAt(i));
+                    DirectedEdge.Lane expected
+                            = destination.getLeavingLane(edge.getLane(laneNo), leavingLane.getEdge());
+                    assertNotNull(expected);
+                    assertEquals(expected.getIndex(), leavingLane.getIndex());
+                    connectorCount++;
+                }
+
+                int expectedCount = 0;
+                for (DirectedEdge leaving : destination.getLeavingEdges())
+                    if (destination.getLeavingLane(edge.getLane(laneNo), leaving) != null)
+                        expectedCount++;
+                assertEquals(expectedCount, connectorCount);
+            }
+        }
+        assertEquals(laneCount, csr.getLaneCount());
+    }
+
+    @Test
+    public void testReverseTurns() {
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int prev = 0; prev < csr.getEdgeCount(); prev++)
+                for (int i = csr.getTurnBegin(prev); i < csr.getTurnEnd(prev); i++)
+                    if (csr.getTurnAt(i) == e)
+                        expected.add(prev);
+
+            List<Integer> reverse = new ArrayList<>();
+            for (int i = csr.getReverseTurnBegin(e); i < csr.getReverseTurnEnd(e); i++)
+                reverse.add(csr.getReverseTurnAt(i));
+            assertEquals("Edge " + csr.getEdge(e).key(), expected, reverse);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package logic.streetgraph;
+
+import logic.crossinglogic.MultilaneTestGraph;
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streetgraph.StreetGraphTopology;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests whether every instance of a {@link StreetGraphTopology} equals the template graph, but does not share any
+ * nodes or edges with it or other instances.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestStreetGraphTopology {
+
+    private SimulationConfig    config;
+    private StreetGraph         template;
+    private StreetGraphTopology topology;
+
+
+    @Before
+    public void prepareForTest() {
+        config   = new SimulationConfig();
+        template = new MultilaneTestGraph(config).graph;
+        template.updateGraphGUID();
+        topology = new StreetGraphTopology(template);
+    }
+
+
+    @Test
+    public void testInstanceEqualsTemplate() {
+        StreetGraph instance = topology.instantiate(config);
+
+        assertEquals(template.getGUID(), instance.getGUID());
+        assertEquals(collectConnectors(template), collectConnectors(instance));
+    }
+
+    @Test
+    public void testInstancesAreIndependent() {
+        StreetGraph instance0 = topology.instantiate(config);
+        StreetGraph instance1 = topology.instantiate(config);
+
+        Iterator<Node> nodes0 = instance0.getNodes().iterator();
+        for (Node node1 : instance1.getNodes()) {
+            Node node0 = nodes0.next();
+            assertNotSame(node0, node1);
+            assertEquals(node0.getId(), node1.getId());
+        }
+
+        Iterator<DirectedEdge> edges0 = instance0.getEdges().iterator();
+        for (DirectedEdge edge1 : instance1.getEdges()) {
+            DirectedEdge edge0 = edges0.next();
+            assertNotSame(edge0, edge1);
+            assertNotSame(edge0.getOrigin(), edge1.getOrigin());
+            assertEquals(edge0.getLength(), edge1.getLength());
+            assertEquals(edge0.getMaxVelocity(), edge1.getMaxVelocity());
+        }
+    }
+
+
+    /**
+     * @return all edges and connectors of the graph in a deterministic order
+     */
+    private List<String> collectConnectors(StreetGraph graph) {
+        List<String> connectors = new ArrayList<>();
+
+        for (DirectedEdge edge : graph.getEdges()) {
+            connectors.add(edge.key() + ": " + edge.getOrigin().getId() + " -> " + edge.getDestination().getId()
+                    + ", lanes = " + edge.getNumberOfLanes() + ", cells = " + edge.getLength()
+                    + ", velocity = " + edge.getMaxVelocity() + ", priority = " + edge.getPriorityLevel());
+
+            Node node = edge.getDestination();
+            for (DirectedEdge leaving : node.getLeavingEdges())
+                for (int laneNo = 0; laneNo < edge.getNumberOfLanes(); laneNo++) {
+                    DirectedEdge.Lane leavingLane = node.getLeavingLane(edge.getLane(laneNo), leaving);
+                    if (leavingLane != null)
+                        connectors.add(edge.key() + "_" + laneNo + " -> "
+                                + leaving.key() + "_" + leavingLane.getIndex());
+                }
+        }
+
+        return connectors;
+    }
+}
@@ -0,0 +1,119 @@
+package logic.streets;
+
+import microtrafficsim.core.logic.streets.CellArrayLaneContainer;
+import microtrafficsim.core.logic.streets.LaneContainer;
+import microtrafficsim.core.logic.streets.NavigableSkipListLaneContainer;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.logic.vehicles.machines.impl.Car;
+import microtrafficsim.math.random.distributions.impl.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link CellArrayLaneContainer} by executing the same random operations on it and on a
+ * {@link NavigableSkipListLaneContainer}, whose results are expected.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestCellArrayLaneContainer {
+
+    private static final int nLanes = 3;
+    private static final int nCells = 200;
+
+    private Random        random;
+    private LaneContainer expected;
+    private LaneContainer actual;
+    private Vehicle[]     vehicles;
+
+
+    @Before
+    public void prepareForTest() {
+        random   = new Random(42);
+        expected = new NavigableSkipListLaneContainer(nLanes);
+        actual   = new CellArrayLaneContainer(nLanes, nCells);
+
+        vehicles = new Vehicle[nCells];
+        for (int i = 0; i < vehicles.length; i++)
+            vehicles[i] = new Car(i, null);
+    }
+
+
+    @Test
+    public void testDenseLanes() {
+        testRandomOperations(0.8f);
+    }
+
+    @Test
+    public void testSparseLanes() {
+        testRandomOperations(0.05f);
+    }
+
+    @Test
+    public void testClear() {
+        fill(0.5f);
+        actual.clear();
+
+        for (int laneNo = 0; laneNo < nLanes; laneNo++) {
+            assertTrue(actual.isEmpty(laneNo));
+            assertNull(actual.getNextOf(laneNo, -1));
+            for (int cellNo = 0; cellNo < nCells; cellNo++)
+                assertNull(actual.get(laneNo, cellNo));
+        }
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    private void testRandomOperations(float density) {
+        fill(density);
+        assertEqualContainers();
+
+        for (int i = 0; i < 10_000; i++) {
+            int laneNo = random.nextInt(nLanes);
+            int cellNo = random.nextInt(nCells);
+
+            if (random.nextFloat() < density) {
+                Vehicle vehicle = vehicles[random.nextInt(vehicles.length)];
+                assertSame(expected.set(vehicle, laneNo, cellNo), actual.set(vehicle, laneNo, cellNo));
+            } else {
+                assertSame(expected.remove(laneNo, cellNo), actual.remove(laneNo, cellNo));
+            }
+
+            if (i % 500 == 0)
+                assertEqualContainers();
+        }
+        assertEqualContainers();
+    }
+
+    private void fill(float density) {
+        for (int laneNo = 0; laneNo < nLanes; laneNo++)
+            for (int cellNo = 0; cellNo < nCells; cellNo++)
+                if (random.nextFloat() < density) {
+                    expected.set(vehicles[cellNo], laneNo, cellNo);
+                    actual.set(vehicles[cellNo], laneNo, cellNo);
+                }
+    }
+
+    private void assertEqualContainers() {
+        for (int laneNo = 0; laneNo < nLanes; laneNo++) {
+            assertEquals(expected.getVehicleCount(laneNo), actual.getVehicleCount(laneNo));
+            assertEquals(expected.isEmpty(laneNo), actual.isEmpty(laneNo));
+            if (!expected.isEmpty(laneNo)) {
+                assertSame(expected.getFirstVehicle(laneNo), actual.getFirstVehicle(laneNo));
+                assertSame(expected.getLastVehicle(laneNo), actual.getLastVehicle(laneNo));
+            }
+
+            for (int cellNo = -1; cellNo <= nCells; cellNo++) {
+                String msg = "lane = " + laneNo + ", cell = " + cellNo;
+                assertSame(msg, expected.get(laneNo, cellNo), actual.get(laneNo, cellNo));
+                assertSame(msg, expected.getPrevOf(laneNo, cellNo), actual.getPrevOf(laneNo, cellNo));
+                assertSame(msg, expected.getNextOf(laneNo, cellNo), actual.getNextOf(laneNo, cellNo));
+            }
+        }
+    }
+}
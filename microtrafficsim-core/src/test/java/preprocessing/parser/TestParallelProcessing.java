@@ -0,0 +1,251 @@
+package preprocessing.parser;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.features.Street;
+import microtrafficsim.core.parser.features.streetgraph.StreetGraphGenerator;
+import microtrafficsim.core.parser.features.streets.StreetFeatureGenerator;
+import microtrafficsim.core.parser.processing.OSMProcessor;
+import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponent;
+import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponentFactory;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.osm.parser.Parser;
+import microtrafficsim.osm.parser.base.DataSet;
+import microtrafficsim.osm.parser.ecs.entities.NodeEntity;
+import microtrafficsim.osm.parser.ecs.entities.WayEntity;
+import microtrafficsim.osm.parser.features.FeatureDefinition;
+import microtrafficsim.osm.parser.features.FeatureDependency;
+import microtrafficsim.osm.parser.features.FeatureGenerator;
+import microtrafficsim.osm.parser.features.streets.StreetComponent;
+import microtrafficsim.osm.parser.features.streets.StreetComponentFactory;
+import microtrafficsim.osm.parser.relations.restriction.RestrictionRelationFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that the parallel processing stages of the {@link OSMProcessor} create exactly the same data as the sequential
+ * processing, including the IDs of ways and nodes created during clipping and unification.
+ *
+ * @author Maximilian Luz
+ */
+public class TestParallelProcessing {
+
+    private static final int SIZE    = 40;      // nodes per row and column of the grid
+    private static final int SEGMENT = 4;       // nodes per way
+
+    private static File file;
+
+
+    @BeforeClass
+    public static void createFile() throws IOException {
+        file = File.createTempFile("microtrafficsim-grid", ".osm");
+        Files.write(file.toPath(), createGrid().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (file != null && !file.delete())
+            file.deleteOnExit();
+    }
+
+
+    @Test
+    public void testEqualsSequential() throws Exception {
+        Output sequential = process(null);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Output parallel;
+        try {
+            parallel = process(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        // unified data-set, including generated ids
+        assertFalse(sequential.ways.isEmpty());
+        assertEquals(sequential.ways.keySet(), parallel.ways.keySet());
+        for (Long id : sequential.ways.keySet())
+            assertArrayEquals("Way " + id, sequential.ways.get(id), parallel.ways.get(id));
+
+        assertEquals(sequential.nodes.keySet(), parallel.nodes.keySet());
+        for (Long id : sequential.nodes.keySet())
+            assertEquals("Node " + id, sequential.nodes.get(id), parallel.nodes.get(id));
+
+        // nodes have been created on the clipping bounds
+        assertTrue(parallel.nodes.values().stream().anyMatch(c -> c.lat == BOUNDS.maxlat));
+
+        // streets, in order
+        assertFalse(sequential.streets.isEmpty());
+        assertEquals(sequential.streets.size(), parallel.streets.size());
+        for (int i = 0; i < sequential.streets.size(); i++)
+            assertEquals("Street " + i, sequential.streets.get(i), parallel.streets.get(i));
+
+        // street-graph
+        assertFalse(sequential.graph.isEmpty());
+        assertEquals(sequential.graph, parallel.graph);
+    }
+
+
+    /*
+    |=======|
+    | input |
+    |=======|
+    */
+    private static final Bounds BOUNDS = new Bounds(48.0 + 0.0015, 9.0 + 0.0025, 48.0 + 0.0325, 9.0 + 0.0355);
+
+    private static double lat(int row) {
+        return 48.0 + row * 0.001;
+    }
+
+    private static double lon(int col) {
+        return 9.0 + col * 0.001;
+    }
+
+    /**
+     * @return a grid of streets crossing each other on every node, consisting of short ways of different types
+     */
+    private static String createGrid() {
+        StringBuilder xml = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<osm version=\"0.6\">\n");
+        xml.append("<bounds minlat=\"").append(lat(0)).append("\" minlon=\"").append(lon(0))
+                .append("\" maxlat=\"").append(lat(SIZE - 1)).append("\" maxlon=\"").append(lon(SIZE - 1))
+                .append("\"/>\n");
+
+        for (int row = 0; row < SIZE; row++)
+            for (int col = 0; col < SIZE; col++)
+                xml.append("<node id=\"").append(nodeId(row, col)).append("\" lat=\"").append(lat(row))
+                        .append("\" lon=\"").append(lon(col)).append("\"/>\n");
+
+        long way = 1;
+        for (int line = 0; line < SIZE; line++) {
+            for (int start = 0; start < SIZE - 1; start += SEGMENT - 1) {
+                int end = Math.min(start + SEGMENT - 1, SIZE - 1);
+
+                // horizontal
+                xml.append("<way id=\"").append(way++).append("\">");
+                for (int col = start; col <= end; col++)
+                    xml.append("<nd ref=\"").append(nodeId(line, col)).append("\"/>");
+                appendTags(xml, line, start);
+                xml.append("</way>\n");
+
+                // vertical
+                xml.append("<way id=\"").append(way++).append("\">");
+                for (int row = start; row <= end; row++)
+                    xml.append("<nd ref=\"").append(nodeId(row, line)).append("\"/>");
+                appendTags(xml, start, line);
+                xml.append("</way>\n");
+            }
+        }
+
+        return xml.append("</osm>\n").toString();
+    }
+
+    private static long nodeId(int row, int col) {
+        return 1000 + row * SIZE + col;
+    }
+
+    private static void appendTags(StringBuilder xml, int a, int b) {
+        String[] types = {"residential", "primary", "secondary", "tertiary"};
+        xml.append("<tag k=\"highway\" v=\"").append(types[(a + b) % types.length]).append("\"/>");
+
+        if ((a + 2 * b) % 5 == 0)
+            xml.append("<tag k=\"oneway\" v=\"yes\"/>");
+        if ((a * b) % 3 == 0)
+            xml.append("<tag k=\"lanes\" v=\"").append(1 + (a + b) % 3).append("\"/>");
+        if ((a + b) % 4 == 1)
+            xml.append("<tag k=\"maxspeed\" v=\"").append(30 + 10 * (a % 4)).append("\"/>");
+    }
+
+
+    /*
+    |========|
+    | output |
+    |========|
+    */
+    private static class Output {
+        TreeMap<Long, long[]>     ways  = new TreeMap<>();
+        TreeMap<Long, Coordinate> nodes = new TreeMap<>();
+        List<String>              streets;
+        List<String>              graph;
+    }
+
+    private static Output process(ForkJoinPool pool) throws Exception {
+        Output output = new Output();
+
+        FeatureDependency afterUnification = new FeatureDependency(OSMProcessor.PLACEHOLDER_UNIFICATION, null);
+
+        // record the data-set after unification
+        FeatureGenerator extractor = (DataSet dataset, FeatureDefinition fd, FeatureGenerator.Properties p) -> {
+            for (WayEntity way : dataset.ways.values())
+                output.ways.put(way.id, way.nodes.clone());
+            for (NodeEntity node : dataset.nodes.values())
+                output.nodes.put(node.id, new Coordinate(node.lat, node.lon));
+        };
+        FeatureDefinition dataset = new FeatureDefinition("dataset", afterUnification, extractor, n -> false,
+                w -> w.tags.containsKey("highway"));
+
+        StreetGraphGenerator sggen = new StreetGraphGenerator(new SimulationConfig());
+        FeatureDependency sgdep = new FeatureDependency(OSMProcessor.PLACEHOLDER_UNIFICATION, null);
+        sgdep.addRequires(dataset);
+        FeatureDefinition streetgraph = new FeatureDefinition("streetgraph", sgdep, sggen, n -> false,
+                w -> w.tags.containsKey("highway"));
+
+        StreetFeatureGenerator streetgen = new StreetFeatureGenerator();
+        FeatureDependency streetdep = new FeatureDependency(OSMProcessor.PLACEHOLDER_UNIFICATION, null);
+        streetdep.addRequires(streetgraph);
+        FeatureDefinition streets = new FeatureDefinition("streets", streetdep, streetgen, n -> false,
+                w -> w.tags.containsKey("highway"));
+
+        FeatureGenerator.Properties properties = new FeatureGenerator.Properties();
+        properties.clip   = FeatureGenerator.Properties.BoundaryManagement.CLIP;
+        properties.bounds = BOUNDS;
+        properties.pool   = pool;
+
+        Parser parser = new Parser(new OSMProcessor(properties, streetgraph));
+        parser.getWayEntityManager().putInitializer(StreetComponent.class, new StreetComponentFactory());
+        parser.getWayEntityManager().putInitializer(SanitizerWayComponent.class, new SanitizerWayComponentFactory());
+        parser.getRelationManager().putFactory("restriction", new RestrictionRelationFactory());
+
+        parser.getFeatureSystem().putFeature(OSMProcessor.PLACEHOLDER_WAY_CLIPPING);
+        parser.getFeatureSystem().putFeature(OSMProcessor.PLACEHOLDER_UNIFICATION);
+        parser.getFeatureSystem().putFeature(dataset);
+        parser.getFeatureSystem().putFeature(streetgraph);
+        parser.getFeatureSystem().putFeature(streets);
+
+        parser.parse(file);
+
+        output.streets = new ArrayList<>();
+        for (Street street : streetgen.getGeneratedFeatures().get("streets").getData())
+            output.streets.add(street.id + " " + Arrays.toString(street.coordinates) + " " + street.length + " "
+                    + Arrays.toString(street.distances) + " " + street.numLanesFwd + " " + street.numLanesBwd
+                    + " " + (street.getEntity() != null));
+
+        Graph graph = sggen.getStreetGraph();
+        output.graph = new ArrayList<>();
+        for (Node node : graph.getNodes())
+            output.graph.add("node " + node.getId() + " " + node.getCoordinate());
+        for (DirectedEdge edge : graph.getEdges())
+            output.graph.add("edge " + edge.getId() + " " + edge.getOrientation() + " " + edge.getOrigin().getId()
+                    + " " + edge.getDestination().getId() + " " + edge.getLength() + " " + edge.getNumberOfLanes()
+                    + " " + (edge.getEntity() != null));
+        output.graph.sort(String::compareTo);
+
+        return output;
+    }
+}
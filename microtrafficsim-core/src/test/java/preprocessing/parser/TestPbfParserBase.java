@@ -0,0 +1,481 @@
+package preprocessing.parser;
+
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.osm.parser.base.ParserBase;
+import microtrafficsim.osm.parser.base.ParserBaseEventHandler;
+import microtrafficsim.osm.parser.base.PbfParserBase;
+import microtrafficsim.osm.primitives.Node;
+import microtrafficsim.osm.primitives.Relation;
+import microtrafficsim.osm.primitives.RelationMember;
+import microtrafficsim.osm.primitives.Way;
+import microtrafficsim.utils.resources.PackagedResource;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link PbfParserBase} by comparing its events for a PBF file with the events of the {@link ParserBase}
+ * for the equivalent XML file. The PBF file is encoded by this test.
+ *
+ * <p>
+ * Additionally, the resource {@value #FIXTURE}{@code .pbf} is compared with the OpenStreetMap export
+ * {@value #FIXTURE} it has been converted from. It has not been written by the encoder of this test, but by a
+ * separate one following the format's protobuf definitions like the common tools: zlib-compressed blocks, dense
+ * nodes with {@code DenseInfo}, ways and relations with {@code Info}, and an optional {@code Sort.Type_then_ID}
+ * feature.
+ *
+ * @author Maximilian Luz
+ */
+public class TestPbfParserBase {
+
+    private static final int BLOCKS          = 12;
+    private static final int NODES_PER_BLOCK = 50;
+
+    private static final String FIXTURE = "/logic/3_edges_but_4-node.osm";
+
+
+    @Test
+    public void testEqualsXml() throws Exception {
+        List<String> expected = parseXml(createXml());
+
+        for (int nThreads : new int[] { 1, 3 }) {
+            for (boolean compressed : new boolean[] { false, true }) {
+                List<String> actual = parsePbf(createPbf(compressed), nThreads);
+                assertEquals("nThreads = " + nThreads + ", compressed = " + compressed, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testFixture() throws Exception {
+        List<String> expected;
+        try (InputStream in = new PackagedResource(TestPbfParserBase.class, FIXTURE).asStream()) {
+            expected = parseXml(in);
+        }
+        assertTrue(expected.size() > 1000);
+
+        for (int nThreads : new int[] { 1, 3 }) {
+            try (InputStream in = new PackagedResource(TestPbfParserBase.class, FIXTURE + ".pbf").asStream()) {
+                assertEquals("nThreads = " + nThreads, expected, parsePbf(in, nThreads));
+            }
+        }
+    }
+
+    @Test
+    public void testUnsupportedFeature() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeBlock(out, "OSMHeader", new Message().string(4, "HistoricalInformation").toByteArray(), false);
+
+        try {
+            parsePbf(out.toByteArray(), 1);
+            fail("Unsupported required features have to cause an IOException");
+        } catch (IOException ignored) {}
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        byte[] pbf = createPbf(true);
+        byte[] truncated = new byte[pbf.length - 10];
+        System.arraycopy(pbf, 0, truncated, 0, truncated.length);
+
+        try {
+            parsePbf(truncated, 2);
+            fail("Truncated files have to cause an IOException");
+        } catch (IOException ignored) {}
+    }
+
+
+    /*
+    |==========|
+    | expected |
+    |==========|
+    */
+    private static long nodeId(int block, int i) {
+        return 1000L * block + 2 * i + 1;
+    }
+
+    private static double lat(int block, int i) {
+        return 48.5 + block * 0.001 + i * 0.0000123;
+    }
+
+    private static double lon(int block, int i) {
+        return 9.25 - block * 0.002 + i * 0.0000077;
+    }
+
+    private static String createXml() {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version='1.0' encoding='UTF-8'?>\n<osm version=\"0.6\">\n");
+        xml.append("<bounds minlat=\"48.5\" minlon=\"9.2\" maxlat=\"48.6\" maxlon=\"9.3\"/>\n");
+
+        for (int b = 0; b < BLOCKS; b++) {
+            for (int i = 0; i < NODES_PER_BLOCK; i++) {
+                xml.append("<node id=\"").append(nodeId(b, i)).append("\" lat=\"").append(lat(b, i))
+                        .append("\" lon=\"").append(lon(b, i)).append("\"");
+                if (i % 7 == 0)
+                    xml.append("><tag k=\"highway\" v=\"traffic_signals\"/><tag k=\"name\" v=\"Kreuzung ")
+                            .append(b).append("\"/></node>\n");
+                else
+                    xml.append("/>\n");
+            }
+        }
+
+        // single, non-dense node
+        xml.append("<node id=\"7\" lat=\"48.55\" lon=\"9.27\" visible=\"false\"><tag k=\"amenity\" v=\"fuel\"/>"
+                + "</node>\n");
+
+        for (int b = 0; b < BLOCKS; b++) {
+            xml.append("<way id=\"").append(b + 1).append("\">");
+            for (int i = 0; i < NODES_PER_BLOCK; i += 3)
+                xml.append("<nd ref=\"").append(nodeId(b, i)).append("\"/>");
+            xml.append("<tag k=\"highway\" v=\"residential\"/><tag k=\"maxspeed\" v=\"30\"/></way>\n");
+        }
+
+        xml.append("<relation id=\"3\"><member type=\"way\" ref=\"2\" role=\"from\"/>"
+                + "<member type=\"node\" ref=\"").append(nodeId(1, 0)).append("\" role=\"via\"/>"
+                + "<member type=\"way\" ref=\"1\" role=\"to\"/>"
+                + "<member type=\"relation\" ref=\"4\" role=\"\"/>"
+                + "<tag k=\"type\" v=\"restriction\"/><tag k=\"restriction\" v=\"no_left_turn\"/></relation>\n");
+
+        xml.append("</osm>\n");
+        return xml.toString();
+    }
+
+
+    /*
+    |=====|
+    | pbf |
+    |=====|
+    */
+    private static byte[] createPbf(boolean compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Message bbox = new Message()
+                .signed(1, 9_200_000_000L).signed(2, 9_300_000_000L)
+                .signed(3, 48_600_000_000L).signed(4, 48_500_000_000L);
+        Message header = new Message()
+                .message(1, bbox)
+                .string(4, "OsmSchema-V0.6")
+                .string(4, "DenseNodes")
+                .string(16, "test");
+        writeBlock(out, "OSMHeader", header.toByteArray(), compressed);
+
+        // unknown block types have to be ignored
+        writeBlock(out, "Unknown", new byte[] { 1, 2, 3 }, compressed);
+
+        // dense nodes, one block per node-block, with non-default granularity and offsets
+        for (int b = 0; b < BLOCKS; b++) {
+            StringTable strings = new StringTable();
+            long granularity = 10;
+            long latOffset   = 48_000_000_000L;
+            long lonOffset   = 9_000_000_000L;
+
+            ByteArrayOutputStream ids     = new ByteArrayOutputStream();
+            ByteArrayOutputStream lats    = new ByteArrayOutputStream();
+            ByteArrayOutputStream lons    = new ByteArrayOutputStream();
+            ByteArrayOutputStream keyvals = new ByteArrayOutputStream();
+
+            long prevId = 0, prevLat = 0, prevLon = 0;
+            for (int i = 0; i < NODES_PER_BLOCK; i++) {
+                long id  = nodeId(b, i);
+                long lat = Math.round((lat(b, i) * 1e9 - latOffset) / granularity);
+                long lon = Math.round((lon(b, i) * 1e9 - lonOffset) / granularity);
+
+                writeVarint(ids, zigzag(id - prevId));
+                writeVarint(lats, zigzag(lat - prevLat));
+                writeVarint(lons, zigzag(lon - prevLon));
+                prevId  = id;
+                prevLat = lat;
+                prevLon = lon;
+
+                if (i % 7 == 0) {
+                    writeVarint(keyvals, strings.index("highway"));
+                    writeVarint(keyvals, strings.index("traffic_signals"));
+                    writeVarint(keyvals, strings.index("name"));
+                    writeVarint(keyvals, strings.index("Kreuzung " + b));
+                }
+                writeVarint(keyvals, 0);
+            }
+
+            Message dense = new Message()
+                    .bytes(1, ids.toByteArray())
+                    .bytes(8, lats.toByteArray())
+                    .bytes(9, lons.toByteArray())
+                    .bytes(10, keyvals.toByteArray());
+
+            Message block = new Message()
+                    .message(1, strings.toMessage())
+                    .message(2, new Message().message(2, dense))
+                    .varint(17, granularity)
+                    .varint(19, latOffset)
+                    .varint(20, lonOffset);
+            writeBlock(out, "OSMData", block.toByteArray(), compressed);
+        }
+
+        // single, non-dense node, its tags encoded non-packed
+        {
+            StringTable strings = new StringTable();
+            Message node = new Message()
+                    .signed(1, 7)
+                    .varint(2, strings.index("amenity"))
+                    .varint(3, strings.index("fuel"))
+                    .message(4, new Message().varint(1, 1).varint(6, 0))
+                    .signed(8, 48_550_000_000L / 100)
+                    .signed(9, 9_270_000_000L / 100);
+
+            Message block = new Message()
+                    .message(1, strings.toMessage())
+                    .message(2, new Message().message(1, node));
+            writeBlock(out, "OSMData", block.toByteArray(), compressed);
+        }
+
+        // ways and relations in one block, but different groups
+        {
+            StringTable strings = new StringTable();
+
+            Message ways = new Message();
+            for (int b = 0; b < BLOCKS; b++) {
+                ByteArrayOutputStream refs = new ByteArrayOutputStream();
+                long prev = 0;
+                for (int i = 0; i < NODES_PER_BLOCK; i += 3) {
+                    writeVarint(refs, zigzag(nodeId(b, i) - prev));
+                    prev = nodeId(b, i);
+                }
+
+                ByteArrayOutputStream keys = new ByteArrayOutputStream();
+                ByteArrayOutputStream vals = new ByteArrayOutputStream();
+                writeVarint(keys, strings.index("highway"));
+                writeVarint(vals, strings.index("residential"));
+                writeVarint(keys, strings.index("maxspeed"));
+                writeVarint(vals, strings.index("30"));
+
+                ways.message(3, new Message()
+                        .varint(1, b + 1)
+                        .bytes(2, keys.toByteArray())
+                        .bytes(3, vals.toByteArray())
+                        .bytes(8, refs.toByteArray()));
+            }
+
+            ByteArrayOutputStream keys  = new ByteArrayOutputStream();
+            ByteArrayOutputStream vals  = new ByteArrayOutputStream();
+            ByteArrayOutputStream roles = new ByteArrayOutputStream();
+            ByteArrayOutputStream ids   = new ByteArrayOutputStream();
+            ByteArrayOutputStream types = new ByteArrayOutputStream();
+            writeVarint(keys, strings.index("type"));
+            writeVarint(vals, strings.index("restriction"));
+            writeVarint(keys, strings.index("restriction"));
+            writeVarint(vals, strings.index("no_left_turn"));
+
+            long[] memids     = { 2, nodeId(1, 0), 1, 4 };
+            int[]  memtypes   = { 1, 0, 1, 2 };
+            String[] memroles = { "from", "via", "to", "" };
+            long prev = 0;
+            for (int i = 0; i < memids.length; i++) {
+                writeVarint(roles, strings.index(memroles[i]));
+                writeVarint(ids, zigzag(memids[i] - prev));
+                writeVarint(types, memtypes[i]);
+                prev = memids[i];
+            }
+
+            Message relations = new Message().message(4, new Message()
+                    .varint(1, 3)
+                    .bytes(2, keys.toByteArray())
+                    .bytes(3, vals.toByteArray())
+                    .bytes(8, roles.toByteArray())
+                    .bytes(9, ids.toByteArray())
+                    .bytes(10, types.toByteArray()));
+
+            Message block = new Message()
+                    .message(1, strings.toMessage())
+                    .message(2, ways)
+                    .message(2, relations);
+            writeBlock(out, "OSMData", block.toByteArray(), compressed);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static void writeBlock(ByteArrayOutputStream out, String type, byte[] data, boolean compressed)
+            throws IOException {
+        Message blob = new Message();
+        if (compressed) {
+            Deflater deflater = new Deflater();
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                zlib.write(buffer, 0, n);
+            }
+            deflater.end();
+
+            blob.varint(2, data.length).bytes(3, zlib.toByteArray());
+        } else {
+            blob.bytes(1, data);
+        }
+
+        byte[] blobBytes   = blob.toByteArray();
+        byte[] headerBytes = new Message().string(1, type).varint(3, blobBytes.length).toByteArray();
+
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(headerBytes.length);
+        dout.write(headerBytes);
+        dout.write(blobBytes);
+        dout.flush();
+    }
+
+
+    /*
+    |=======|
+    | utils |
+    |=======|
+    */
+    private static List<String> parseXml(String xml) throws Exception {
+        return parseXml(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> parseXml(InputStream xml) throws Exception {
+        Recorder recorder = new Recorder();
+        new ParserBase(recorder).parse(xml);
+        return recorder.events;
+    }
+
+    private static List<String> parsePbf(byte[] pbf, int nThreads) throws Exception {
+        return parsePbf(new ByteArrayInputStream(pbf), nThreads);
+    }
+
+    private static List<String> parsePbf(InputStream pbf, int nThreads) throws Exception {
+        Recorder recorder = new Recorder();
+        new PbfParserBase(recorder, nThreads).parse(pbf);
+        return recorder.events;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Records all events as strings, rounding coordinates to the precision of the PBF file.
+     */
+    private static class Recorder implements ParserBaseEventHandler {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onStart() {
+            events.add("start");
+        }
+
+        @Override
+        public void onEnd() {
+            events.add("end");
+        }
+
+        @Override
+        public void onPrimitiveParsed(Bounds b) {
+            events.add(String.format("bounds %.7f %.7f %.7f %.7f", b.minlat, b.minlon, b.maxlat, b.maxlon));
+        }
+
+        @Override
+        public void onPrimitiveParsed(Node n) {
+            events.add(String.format("node %d %.7f %.7f %b %s", n.id, n.lat, n.lon, n.visible,
+                    new TreeMap<>(n.tags)));
+        }
+
+        @Override
+        public void onPrimitiveParsed(Way w) {
+            events.add("way " + w.id + " " + w.visible + " " + w.nodes + " " + new TreeMap<>(w.tags));
+        }
+
+        @Override
+        public void onPrimitiveParsed(Relation r) {
+            StringBuilder members = new StringBuilder();
+            for (RelationMember m : r.members)
+                members.append(m.type).append(':').append(m.ref).append(':').append(m.role).append(' ');
+            events.add("relation " + r.id + " " + r.visible + " " + members + new TreeMap<>(r.tags));
+        }
+    }
+
+    /**
+     * Builds the string-table of a block; index 0 is reserved as delimiter.
+     */
+    private static class StringTable {
+        private final List<String> strings = new ArrayList<>();
+
+        StringTable() {
+            strings.add("");
+        }
+
+        int index(String s) {
+            int index = strings.indexOf(s);
+            if (index > 0)
+                return index;
+
+            strings.add(s);
+            return strings.size() - 1;
+        }
+
+        Message toMessage() {
+            Message table = new Message();
+            for (String s : strings)
+                table.string(1, s);
+            return table;
+        }
+    }
+
+    /**
+     * Minimal protobuf message encoder.
+     */
+    private static class Message {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Message varint(int field, long value) {
+            writeVarint(out, field << 3);
+            writeVarint(out, value);
+            return this;
+        }
+
+        Message signed(int field, long value) {
+            return varint(field, zigzag(value));
+        }
+
+        Message bytes(int field, byte[] value) {
+            writeVarint(out, (field << 3) | 2);
+            writeVarint(out, value.length);
+            out.write(value, 0, value.length);
+            return this;
+        }
+
+        Message string(int field, String value) {
+            return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Message message(int field, Message value) {
+            return bytes(field, value.toByteArray());
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
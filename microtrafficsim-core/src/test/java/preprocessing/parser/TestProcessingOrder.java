@@ -0,0 +1,174 @@
+package preprocessing.parser;
+
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.parser.features.streetgraph.StreetGraphGenerator;
+import microtrafficsim.core.parser.processing.OSMProcessor;
+import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponent;
+import microtrafficsim.core.parser.processing.sanitizer.SanitizerWayComponentFactory;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.osm.parser.Parser;
+import microtrafficsim.osm.parser.features.FeatureDefinition;
+import microtrafficsim.osm.parser.features.FeatureDependency;
+import microtrafficsim.osm.parser.features.FeatureGenerator;
+import microtrafficsim.osm.parser.features.streets.StreetComponent;
+import microtrafficsim.osm.parser.features.streets.StreetComponentFactory;
+import microtrafficsim.osm.parser.relations.restriction.RestrictionRelationFactory;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that the IDs generated while processing (unification, clipping) only depend on the order of the OpenStreetMap
+ * IDs and not on the hashing of the data-set's maps. The expected edge hashes have been calculated by the processing
+ * before the data-set used {@link microtrafficsim.utils.collections.LongHashMap}, so the street-graph, its
+ * {@link microtrafficsim.core.logic.streetgraph.GraphGUID} and all data referring to it stay the same.
+ */
+public class TestProcessingOrder {
+
+    private static final int SIZE    = 16;      // nodes per row and column of the grid
+    private static final int SEGMENT = 4;       // nodes per way
+
+    private static final Bounds BOUNDS = new Bounds(48.0 + 0.0015, 9.0 + 0.0025, 48.0 + 0.0125, 9.0 + 0.0135);
+
+    private static final int EXPECTED_EDGE_HASH         = -210945779;
+    private static final int EXPECTED_EDGE_HASH_CLIPPED = -1000732088;
+
+
+    @Test
+    public void testEdgeIds() throws Exception {
+        Graph graph = process(createGrid(0, 0), false);
+        assertFalse(graph.getEdges().isEmpty());
+        assertEquals(EXPECTED_EDGE_HASH, graph.getGUID().getEdgeHash());
+
+        Graph clipped = process(createGrid(0, 0), true);
+        assertFalse(clipped.getEdges().isEmpty());
+        assertEquals(EXPECTED_EDGE_HASH_CLIPPED, clipped.getGUID().getEdgeHash());
+    }
+
+    @Test
+    public void testIndependentOfIdRange() throws Exception {
+        // same order of ids, but in the range of real OpenStreetMap ids
+        long nodeOffset = 4_000_000_000L;
+        long wayOffset  = 300_000_000L;
+
+        assertEquals(process(createGrid(0, 0), false).getGUID().getEdgeHash(),
+                process(createGrid(nodeOffset, wayOffset), false).getGUID().getEdgeHash());
+        assertEquals(process(createGrid(0, 0), true).getGUID().getEdgeHash(),
+                process(createGrid(nodeOffset, wayOffset), true).getGUID().getEdgeHash());
+    }
+
+
+    /*
+    |=======|
+    | input |
+    |=======|
+    */
+    private static double lat(int row) {
+        return 48.0 + row * 0.001;
+    }
+
+    private static double lon(int col) {
+        return 9.0 + col * 0.001;
+    }
+
+    /**
+     * @return a grid of streets crossing each other on every node, consisting of short ways of different types
+     */
+    private static String createGrid(long nodeOffset, long wayOffset) {
+        StringBuilder xml = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<osm version=\"0.6\">\n");
+        xml.append("<bounds minlat=\"").append(lat(0)).append("\" minlon=\"").append(lon(0))
+                .append("\" maxlat=\"").append(lat(SIZE - 1)).append("\" maxlon=\"").append(lon(SIZE - 1))
+                .append("\"/>\n");
+
+        for (int row = 0; row < SIZE; row++)
+            for (int col = 0; col < SIZE; col++)
+                xml.append("<node id=\"").append(nodeOffset + nodeId(row, col)).append("\" lat=\"").append(lat(row))
+                        .append("\" lon=\"").append(lon(col)).append("\"/>\n");
+
+        long way = wayOffset + 1;
+        for (int line = 0; line < SIZE; line++) {
+            for (int start = 0; start < SIZE - 1; start += SEGMENT - 1) {
+                int end = Math.min(start + SEGMENT - 1, SIZE - 1);
+
+                // horizontal
+                xml.append("<way id=\"").append(way++).append("\">");
+                for (int col = start; col <= end; col++)
+                    xml.append("<nd ref=\"").append(nodeOffset + nodeId(line, col)).append("\"/>");
+                appendTags(xml, line, start);
+                xml.append("</way>\n");
+
+                // vertical
+                xml.append("<way id=\"").append(way++).append("\">");
+                for (int row = start; row <= end; row++)
+                    xml.append("<nd ref=\"").append(nodeOffset + nodeId(row, line)).append("\"/>");
+                appendTags(xml, start, line);
+                xml.append("</way>\n");
+            }
+        }
+
+        return xml.append("</osm>\n").toString();
+    }
+
+    private static long nodeId(int row, int col) {
+        return 1000 + row * SIZE + col;
+    }
+
+    private static void appendTags(StringBuilder xml, int a, int b) {
+        String[] types = {"residential", "primary", "secondary", "tertiary"};
+        xml.append("<tag k=\"highway\" v=\"").append(types[(a + b) % types.length]).append("\"/>");
+
+        if ((a + 2 * b) % 5 == 0)
+            xml.append("<tag k=\"oneway\" v=\"yes\"/>");
+        if ((a * b) % 3 == 0)
+            xml.append("<tag k=\"lanes\" v=\"").append(1 + (a + b) % 3).append("\"/>");
+    }
+
+
+    /*
+    |========|
+    | output |
+    |========|
+    */
+    private static Graph process(String osm, boolean clip) throws Exception {
+        File file = File.createTempFile("microtrafficsim-grid", ".osm");
+        try {
+            Files.write(file.toPath(), osm.getBytes(StandardCharsets.UTF_8));
+
+            StreetGraphGenerator sggen = new StreetGraphGenerator(new SimulationConfig());
+            FeatureDefinition streetgraph = new FeatureDefinition("streetgraph",
+                    new FeatureDependency(OSMProcessor.PLACEHOLDER_UNIFICATION, null), sggen, n -> false,
+                    w -> w.tags.containsKey("highway"));
+
+            FeatureGenerator.Properties properties = new FeatureGenerator.Properties();
+            if (clip) {
+                properties.clip   = FeatureGenerator.Properties.BoundaryManagement.CLIP;
+                properties.bounds = BOUNDS;
+            } else {
+                properties.clip = FeatureGenerator.Properties.BoundaryManagement.NONE;
+            }
+
+            Parser parser = new Parser(new OSMProcessor(properties, streetgraph));
+            parser.getWayEntityManager().putInitializer(StreetComponent.class, new StreetComponentFactory());
+            parser.getWayEntityManager().putInitializer(SanitizerWayComponent.class,
+                    new SanitizerWayComponentFactory());
+            parser.getRelationManager().putFactory("restriction", new RestrictionRelationFactory());
+
+            if (clip)
+                parser.getFeatureSystem().putFeature(OSMProcessor.PLACEHOLDER_WAY_CLIPPING);
+            parser.getFeatureSystem().putFeature(OSMProcessor.PLACEHOLDER_UNIFICATION);
+            parser.getFeatureSystem().putFeature(streetgraph);
+
+            parser.parse(file);
+            return sggen.getStreetGraph();
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package preprocessing.parser;
+
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.osm.parser.base.DataSet;
+import microtrafficsim.osm.parser.base.MultiPassParserBaseEventHandler;
+import microtrafficsim.osm.parser.base.NodeCoordinateStore;
+import microtrafficsim.osm.parser.base.ParserBase;
+import microtrafficsim.osm.parser.ecs.entities.NodeEntity;
+import microtrafficsim.osm.parser.ecs.entities.NodeEntityManager;
+import microtrafficsim.osm.parser.ecs.entities.WayEntityManager;
+import microtrafficsim.osm.parser.features.FeatureDefinition;
+import microtrafficsim.osm.parser.features.FeatureDependency;
+import microtrafficsim.osm.parser.features.FeatureSystem;
+import microtrafficsim.osm.parser.relations.RelationManager;
+import microtrafficsim.osm.parser.relations.multipolygon.MultiPolygonRelationFactory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link NodeCoordinateStore} and compares the single-pass extraction of the
+ * {@link MultiPassParserBaseEventHandler} with the multi-pass extraction.
+ *
+ * @author Maximilian Luz
+ */
+public class TestSinglePassExtraction {
+
+    /*
+    |=======|
+    | store |
+    |=======|
+    */
+    @Test
+    public void testStoreSorted() throws Exception {
+        testStore(false, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testStoreUnsorted() throws Exception {
+        testStore(true, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testStoreMapped() throws Exception {
+        testStore(false, 2000);
+        testStore(true, 2000);
+    }
+
+    private static void testStore(boolean shuffle, long maxHeapBytes) throws Exception {
+        Random random = new Random(42);
+
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; ids.size() < 5000; id += 1 + random.nextInt(3))
+            ids.add(id);
+        if (shuffle)
+            Collections.shuffle(ids, random);
+
+        try (NodeCoordinateStore store = new NodeCoordinateStore(maxHeapBytes, 256)) {
+            for (long id : ids)
+                store.put(id, lat(id), lon(id));
+
+            assertEquals(ids.size(), store.size());
+            assertEquals(maxHeapBytes < ids.size() * 16, store.isMapped());
+
+            for (long id : ids) {
+                Coordinate c = store.get(id);
+                assertNotNull("Node " + id, c);
+                assertEquals("Node " + id, lat(id), c.lat, 0);
+                assertEquals("Node " + id, lon(id), c.lon, 0);
+            }
+
+            assertNull(store.get(0));
+            assertNull(store.get(-17));
+            assertNull(store.get(Long.MAX_VALUE));
+            for (long id = 1; id < 100; id++)
+                if (!ids.contains(id))
+                    assertNull(store.get(id));
+
+            // nodes added after lookups
+            store.put(-5, -33.8567844, 151.2152967);
+            Coordinate c = store.get(-5);
+            assertEquals(-33.8567844, c.lat, 0);
+            assertEquals(151.2152967, c.lon, 0);
+            assertEquals(lat(ids.get(0)), store.get(ids.get(0)).lat, 0);
+        }
+    }
+
+    /**
+     * @return a latitude with 7 decimal places, which has to be restored exactly
+     */
+    private static double lat(long id) {
+        return Double.parseDouble(String.format("%.7f", -89.9 + (id * 0.0123457) % 179.8));
+    }
+
+    private static double lon(long id) {
+        return Double.parseDouble(String.format("%.7f", 179.9 - (id * 0.0732051) % 359.8));
+    }
+
+
+    /*
+    |============|
+    | extraction |
+    |============|
+    */
+    @Test
+    public void testExtraction() throws Exception {
+        String xml = createXml();
+
+        DataSet multi  = new DataSet();
+        DataSet single = new DataSet();
+        int multiPasses  = extract(xml, multi, null);
+        int singlePasses = extract(xml, single, new NodeCoordinateStore(Long.MAX_VALUE, 4));
+
+        // pass 1: highways, pass 2: their nodes and the way of the relation, pass 3: its nodes
+        assertEquals(3, multiPasses);
+        // pass 1: highways, pass 2: the way of the relation
+        assertEquals(2, singlePasses);
+
+        assertArrayEquals(sorted(multi.ways.keys()), sorted(single.ways.keys()));
+        assertArrayEquals(sorted(multi.nodes.keys()), sorted(single.nodes.keys()));
+        for (NodeEntity expected : multi.nodes.values()) {
+            NodeEntity actual = single.nodes.get(expected.id);
+            assertEquals(expected.lat, actual.lat, 0);
+            assertEquals(expected.lon, actual.lon, 0);
+            assertEquals(expected.features.size(), actual.features.size());
+        }
+        assertEquals(multi.relations.size(), single.relations.size());
+
+        assertTrue(single.ways.containsKey(3L));
+        assertTrue(single.nodes.containsKey(7L));
+        assertTrue(single.nodes.containsKey(8L));
+        assertFalse(single.nodes.containsKey(9L));
+        assertFalse(single.nodes.get(1L).features.isEmpty());
+    }
+
+    private static long[] sorted(long[] keys) {
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static String createXml() {
+        return "<?xml version='1.0' encoding='UTF-8'?>\n<osm version=\"0.6\">\n"
+                + "<node id=\"1\" lat=\"48.1000001\" lon=\"9.1000001\"><tag k=\"highway\" v=\"traffic_signals\"/>"
+                + "</node>\n"
+                + "<node id=\"2\" lat=\"48.1000002\" lon=\"9.1234567\"/>\n"
+                + "<node id=\"3\" lat=\"48.1234567\" lon=\"9.1000003\"/>\n"
+                + "<node id=\"4\" lat=\"-48.7654321\" lon=\"-9.7654321\"/>\n"
+                + "<node id=\"5\" lat=\"48.0000005\" lon=\"9.0000005\"/>\n"
+                + "<node id=\"6\" lat=\"48.0000006\" lon=\"9.0000006\"/>\n"
+                + "<node id=\"7\" lat=\"48.0000007\" lon=\"9.0000007\"/>\n"
+                + "<node id=\"8\" lat=\"48.0000008\" lon=\"9.0000008\"/>\n"
+                + "<node id=\"9\" lat=\"48.0000009\" lon=\"9.0000009\"/>\n"
+                + "<way id=\"1\"><nd ref=\"1\"/><nd ref=\"2\"/><nd ref=\"3\"/>"
+                + "<tag k=\"highway\" v=\"primary\"/></way>\n"
+                + "<way id=\"2\"><nd ref=\"3\"/><nd ref=\"4\"/><nd ref=\"5\"/>"
+                + "<tag k=\"highway\" v=\"primary\"/></way>\n"
+                + "<way id=\"3\"><nd ref=\"5\"/><nd ref=\"7\"/><nd ref=\"8\"/><tag k=\"barrier\" v=\"fence\"/></way>\n"
+                + "<way id=\"4\"><nd ref=\"8\"/><nd ref=\"9\"/><tag k=\"barrier\" v=\"fence\"/></way>\n"
+                + "<relation id=\"1\"><member type=\"way\" ref=\"3\" role=\"outer\"/>"
+                + "<tag k=\"type\" v=\"multipolygon\"/></relation>\n"
+                + "</osm>\n";
+    }
+
+    /**
+     * Runs passes like the {@code Parser} does.
+     *
+     * @return the number of passes
+     */
+    private static int extract(String xml, DataSet datastore, NodeCoordinateStore store) throws Exception {
+        FeatureSystem features = new FeatureSystem();
+        features.putFeature(new FeatureDefinition("highways", new FeatureDependency(), (ds, fd, p) -> {},
+                n -> n.tags.containsKey("highway"), w -> w.tags.containsKey("highway")));
+
+        RelationManager relations = new RelationManager();
+        relations.putFactory("multipolygon", new MultiPolygonRelationFactory());
+
+        MultiPassParserBaseEventHandler handler = new MultiPassParserBaseEventHandler(datastore, features,
+                new NodeEntityManager(), new WayEntityManager(), relations, store);
+        ParserBase base = new ParserBase(handler);
+
+        int passes = 0;
+        int elementsPrev;
+        int elementsAfter = -1;
+        do {
+            base.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+            passes++;
+
+            elementsPrev  = elementsAfter;
+            elementsAfter = datastore.nodes.size() + datastore.ways.size() + datastore.relations.size();
+        } while (elementsPrev != elementsAfter && handler.isAnotherPassRequired());
+
+        if (store != null)
+            store.close();
+
+        assertTrue(handler.hasRequiredPrimitives());
+        return passes;
+    }
+}
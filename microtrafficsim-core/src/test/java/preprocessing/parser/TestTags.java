@@ -0,0 +1,127 @@
+package preprocessing.parser;
+
+import microtrafficsim.osm.primitives.TagDictionary;
+import microtrafficsim.osm.primitives.Tags;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link Tags} and the underlying {@link TagDictionary}.
+ *
+ * @author Maximilian Luz
+ */
+public class TestTags {
+
+    @Test
+    public void testMap() {
+        TagDictionary dictionary = new TagDictionary();
+        Tags.Builder  builder    = new Tags.Builder(dictionary);
+
+        Tags tags = builder.add("highway", "residential")
+                .add("maxspeed", "50")
+                .add("highway", "primary")
+                .add("name", new String("primary"))
+                .build();
+
+        HashMap<String, String> expected = new HashMap<>();
+        expected.put("highway", "primary");
+        expected.put("maxspeed", "50");
+        expected.put("name", "primary");
+
+        assertEquals(expected, tags);
+        assertEquals(tags, expected);
+        assertEquals(expected.hashCode(), tags.hashCode());
+        assertEquals(3, tags.size());
+
+        assertEquals("primary", tags.get("highway"));
+        assertNull(tags.get("oneway"));
+        assertNull(tags.get("residential"));
+        assertTrue(tags.containsKey("maxspeed"));
+        assertFalse(tags.containsKey("oneway"));
+        assertFalse(tags.containsKey(42));
+
+        // code-based comparison
+        assertTrue(tags.contains("highway", "primary"));
+        assertFalse(tags.contains("highway", "residential"));
+        assertFalse(tags.contains("highway", "motorway"));
+        assertFalse(tags.contains("oneway", "yes"));
+
+        // equal values are shared via the dictionary
+        assertSame(tags.get("highway"), tags.get("name"));
+        assertEquals(tags.getCode(dictionary.lookup("highway")), tags.getCode(dictionary.lookup("name")));
+        assertEquals(TagDictionary.NOT_FOUND, dictionary.lookup("motorway"));
+
+        // the builder is reset
+        assertSame(Tags.EMPTY, builder.build());
+        Tags other = builder.add("maxspeed", "50").build();
+        assertEquals(1, other.size());
+        assertEquals("50", other.get("maxspeed"));
+        assertEquals(3, tags.size());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(Tags.EMPTY.isEmpty());
+        assertEquals(new HashMap<String, String>(), Tags.EMPTY);
+        assertNull(Tags.EMPTY.get("highway"));
+        assertFalse(Tags.EMPTY.containsKey("highway"));
+        assertFalse(Tags.EMPTY.contains("highway", "primary"));
+        assertFalse(Tags.EMPTY.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testReadOnly() {
+        Tags tags = new Tags.Builder(new TagDictionary()).add("highway", "primary").build();
+
+        try {
+            tags.put("oneway", "yes");
+            fail("Tags must not be modifiable.");
+        } catch (UnsupportedOperationException ignored) {}
+
+        try {
+            tags.entrySet().iterator().remove();
+            fail("Tags must not be modifiable.");
+        } catch (UnsupportedOperationException | IllegalStateException ignored) {}
+
+        assertEquals(1, tags.size());
+    }
+
+    @Test
+    public void testConcurrentDictionary() throws Exception {
+        TagDictionary   dictionary = new TagDictionary();
+        ExecutorService pool       = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    int[] codes = new int[5000];
+                    for (int i = 0; i < codes.length; i++)
+                        codes[i] = dictionary.code("value-" + i);
+                    return codes;
+                }));
+            }
+
+            int[] codes = results.get(0).get();
+            for (Future<int[]> result : results)
+                assertArrayEquals(codes, result.get());
+
+            assertEquals(codes.length, dictionary.size());
+            for (int i = 0; i < codes.length; i++) {
+                assertEquals("value-" + i, dictionary.string(codes[i]));
+                assertEquals(codes[i], dictionary.lookup("value-" + i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
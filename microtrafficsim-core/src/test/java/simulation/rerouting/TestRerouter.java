@@ -0,0 +1,204 @@
+package simulation.rerouting;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.routes.CompactRoute;
+import microtrafficsim.core.logic.routes.Route;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.logic.vehicles.driver.BasicDriver;
+import microtrafficsim.core.logic.vehicles.driver.Driver;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.logic.vehicles.machines.impl.Car;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.simulation.core.VehicleSimulation;
+import microtrafficsim.core.simulation.rerouting.Rerouter;
+import microtrafficsim.core.simulation.scenarios.Scenario;
+import microtrafficsim.core.simulation.scenarios.impl.BasicScenario;
+import microtrafficsim.core.simulation.utils.RouteContainer;
+import microtrafficsim.core.simulation.utils.SortedRouteContainer;
+import microtrafficsim.math.Vec2d;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>
+ * Tests the {@link Rerouter} on a graph with two paths from {@code s} to {@code t}: the short one over {@code a} and
+ * the long one over {@code b}. A vehicle drives from {@code o} to {@code t} over {@code a}; its next edge is
+ * {@code (o, s)}. Jamming the edge {@code (a, t)} by standing vehicles has to move the vehicle to the path over
+ * {@code b}.
+ *
+ * <p>
+ * The rerouter's steps are triggered directly. The simulation is not running, so its age stays 0 and every step
+ * updates the estimates if {@link microtrafficsim.core.simulation.configs.ReroutingConfig#updateInterval} is 1.
+ */
+public class TestRerouter {
+    private final SimulationConfig config = new SimulationConfig();
+
+    private DirectedEdge os, sa, at, sb, bt;
+    private Graph        streetGraph;
+    private CSRGraph     graph;
+    private Scenario     scenario;
+    private Vehicle      vehicle;
+    private long         vehicleId;
+
+
+    @Before
+    public void setup() {
+        config.rerouting.enabled        = true;
+        config.rerouting.updateInterval = 1;
+
+        Coordinate position = new Coordinate(0, 0);
+        streetGraph = new StreetGraph(new Bounds(0, 0, 0, 0));
+        Node o = addNode(0, position);
+        Node s = addNode(1, position);
+        Node a = addNode(2, position);
+        Node b = addNode(3, position);
+        Node t = addNode(4, position);
+
+        os = addEdge(0, o, s, 5);
+        sa = addEdge(1, s, a, 5);
+        at = addEdge(2, a, t, 5);
+        sb = addEdge(3, s, b, 6);
+        bt = addEdge(4, b, t, 6);
+        s.addConnector(os.getLane(0), sa.getLane(0));
+        s.addConnector(os.getLane(0), sb.getLane(0));
+        a.addConnector(sa.getLane(0), at.getLane(0));
+        b.addConnector(sb.getLane(0), bt.getLane(0));
+        graph = new CSRGraph(streetGraph);
+
+        scenario = new BasicScenario(config, streetGraph) {
+            private final RouteContainer routes = new SortedRouteContainer();
+
+            @Override
+            public RouteContainer getRoutes() {
+                return routes;
+            }
+
+            @Override
+            public Supplier<ShortestPathAlgorithm<Node, DirectedEdge>> getScoutFactory() {
+                return () -> null;
+            }
+        };
+
+        vehicleId = 0;
+        vehicle   = createVehicle(new CompactRoute(graph, new int[]{
+                graph.indexOf(os), graph.indexOf(sa), graph.indexOf(at)}));
+        scenario.getVehicleContainer().addVehicle(vehicle);
+    }
+
+    @Test
+    public void testKeepsRouteWithoutJam() {
+        Rerouter rerouter = new Rerouter(scenario);
+        VehicleSimulation simulation = new VehicleSimulation();
+        for (int step = 0; step < 5; step++)
+            rerouter.didOneStep(simulation);
+
+        assertEquals(0, rerouter.getChangedEdgeCount());
+        assertEquals(0, rerouter.getReroutedCount());
+        assertEquals(0, rerouter.getPendingCount());
+        assertRoute(os, sa, at);
+    }
+
+    @Test
+    public void testReroutesAroundJam() {
+        Rerouter rerouter = new Rerouter(scenario);
+        jam(at);
+
+        rerouter.didOneStep(new VehicleSimulation());
+        assertTrue(rerouter.getChangedEdgeCount() > 0);
+        assertTrue("The jammed edge has not been changed.",
+                rerouter.getSearch().getWeight(graph.indexOf(at)) > graph.getTimeCostMillis(graph.indexOf(at)));
+        assertEquals(1, rerouter.getReroutedCount());
+        assertEquals(0, rerouter.getPendingCount());
+        assertEquals("One tree per destination.", 1, rerouter.getSearch().getTreeCount());
+        assertRoute(os, sb, bt);
+    }
+
+    @Test
+    public void testKeepsNextEdge() {
+        Rerouter rerouter = new Rerouter(scenario);
+        jam(os);
+
+        rerouter.didOneStep(new VehicleSimulation());
+        assertTrue(rerouter.getChangedEdgeCount() > 0);
+        assertEquals("The vehicle has been queued for a change of its next edge.", 0, rerouter.getPendingCount());
+        assertRoute(os, sa, at);
+    }
+
+    @Test
+    public void testInterruptedReplanningIsContinued() {
+        // one expansion per step, but the queue is replaced in every step
+        config.rerouting.expansionsPerStep = 1;
+        Rerouter rerouter = new Rerouter(scenario);
+        jam(at);
+
+        VehicleSimulation simulation = new VehicleSimulation();
+        rerouter.didOneStep(simulation);
+        assertEquals(0, rerouter.getReroutedCount());
+        assertEquals(1, rerouter.getPendingCount());
+
+        for (int step = 0; step < 2 * graph.getEdgeCount() && rerouter.getReroutedCount() == 0; step++) {
+            rerouter.didOneStep(simulation);
+            assertTrue(rerouter.getPendingCount() <= 1);
+        }
+        assertEquals(1, rerouter.getReroutedCount());
+        assertRoute(os, sb, bt);
+    }
+
+
+    private Node addNode(long id, Coordinate position) {
+        Node node = new Node(id, position, config.crossingLogic);
+        streetGraph.addNode(node);
+        return node;
+    }
+
+    private DirectedEdge addEdge(long id, Node origin, Node destination, int cells) {
+        Vec2d vector = new Vec2d(1, 1);
+        DirectedEdge edge = new DirectedEdge(
+                id, cells * config.metersPerCell, vector, vector, Orientation.FORWARD, origin, destination,
+                new StreetType(StreetType.UNCLASSIFIED), 1, 1, config.metersPerCell, type -> (byte) 0);
+        origin.addLeavingEdge(edge);
+        destination.addIncomingEdge(edge);
+        streetGraph.addEdge(edge);
+        return edge;
+    }
+
+    private Vehicle createVehicle(Route route) {
+        Vehicle vehicle = new Car(vehicleId, config.visualization.style);
+        Driver  driver  = new BasicDriver(new BasicDriver.InitSetup(vehicleId++));
+        driver.setRoute(route);
+        driver.setVehicle(vehicle);
+        vehicle.setDriver(driver);
+        return vehicle;
+    }
+
+    /**
+     * Fills the edge with standing vehicles, that are not part of the scenario.
+     */
+    private void jam(DirectedEdge edge) {
+        for (int cell = 0; cell < edge.getLength(); cell++)
+            edge.getLane(0).insertVehicle(createVehicle(new CompactRoute(graph, new int[0])), cell);
+    }
+
+    private void assertRoute(DirectedEdge... expected) {
+        Route route = vehicle.getDriver().getRoute();
+        assertEquals(expected.length, route.size());
+
+        int i = 0;
+        for (DirectedEdge edge : route)
+            assertSame("Unexpected edge " + i, expected[i++], edge);
+    }
+}
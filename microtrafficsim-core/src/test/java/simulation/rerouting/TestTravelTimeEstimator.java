@@ -0,0 +1,142 @@
+package simulation.rerouting;
+
+import microtrafficsim.core.logic.nodes.Node;
+import microtrafficsim.core.logic.streetgraph.CSRGraph;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.streetgraph.StreetGraph;
+import microtrafficsim.core.logic.streets.DirectedEdge;
+import microtrafficsim.core.logic.streets.information.Orientation;
+import microtrafficsim.core.logic.vehicles.driver.BasicDriver;
+import microtrafficsim.core.logic.vehicles.driver.Driver;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.logic.vehicles.machines.impl.Car;
+import microtrafficsim.core.map.Bounds;
+import microtrafficsim.core.map.Coordinate;
+import microtrafficsim.core.map.StreetType;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.simulation.rerouting.TravelTimeEstimator;
+import microtrafficsim.math.Vec2d;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link TravelTimeEstimator} on two edges, whose lanes are filled with standing vehicles.
+ */
+public class TestTravelTimeEstimator {
+    private static final double DELTA = 1e-9;
+
+    private final SimulationConfig config = new SimulationConfig();
+
+    private DirectedEdge single;    // 1 lane, 10 cells
+    private DirectedEdge multi;     // 2 lanes, 10 cells
+    private CSRGraph     graph;
+    private long         vehicleId;
+
+
+    @Before
+    public void setup() {
+        Coordinate position = new Coordinate(0, 0);
+        Graph streetGraph = new StreetGraph(new Bounds(0, 0, 0, 0));
+        Node[] nodes = new Node[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(i, position, config.crossingLogic);
+            streetGraph.addNode(nodes[i]);
+        }
+
+        single = addEdge(streetGraph, 0, nodes[0], nodes[1], 1);
+        multi  = addEdge(streetGraph, 1, nodes[1], nodes[2], 2);
+        graph  = new CSRGraph(streetGraph);
+        vehicleId = 0;
+    }
+
+    @Test
+    public void testFreeFlowBeforeUpdate() {
+        TravelTimeEstimator estimator = new TravelTimeEstimator(graph, 0.5, 0.05);
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            assertEquals(graph.getTimeCostMillis(e), estimator.getFreeFlowTimeMillis(e), DELTA);
+            assertEquals(graph.getTimeCostMillis(e), estimator.getTravelTimeMillis(e), DELTA);
+        }
+    }
+
+    @Test
+    public void testUpdateSmoothesSamples() {
+        TravelTimeEstimator estimator = new TravelTimeEstimator(graph, 0.5, 0.05);
+        int e = graph.indexOf(single);
+        double free = estimator.getFreeFlowTimeMillis(e);
+
+        // empty edges keep their free-flow time
+        estimator.update();
+        assertEquals(free, estimator.getTravelTimeMillis(e), DELTA);
+
+        // density 0.5, so a sample is twice the free-flow time
+        fill(single.getLane(0), 5);
+        estimator.update();
+        assertEquals(1.5 * free, estimator.getTravelTimeMillis(e), DELTA);
+        estimator.update();
+        assertEquals(1.75 * free, estimator.getTravelTimeMillis(e), DELTA);
+
+        // the other edge is not affected
+        int other = graph.indexOf(multi);
+        assertEquals(estimator.getFreeFlowTimeMillis(other), estimator.getTravelTimeMillis(other), DELTA);
+    }
+
+    @Test
+    public void testDensityOfAllLanes() {
+        TravelTimeEstimator estimator = new TravelTimeEstimator(graph, 1, 0.05);
+        int e = graph.indexOf(multi);
+
+        // 5 of 20 cells
+        fill(multi.getLane(0), 5);
+        estimator.update();
+        assertEquals(estimator.getFreeFlowTimeMillis(e) / 0.75, estimator.getTravelTimeMillis(e), DELTA);
+    }
+
+    @Test
+    public void testMinVelocityFactor() {
+        TravelTimeEstimator estimator = new TravelTimeEstimator(graph, 1, 0.05);
+        int e = graph.indexOf(single);
+
+        fill(single.getLane(0), 10);
+        estimator.update();
+        assertEquals(20 * estimator.getFreeFlowTimeMillis(e), estimator.getTravelTimeMillis(e), DELTA);
+    }
+
+    @Test
+    public void testInvalidFactors() {
+        double[][] invalid = {{0, 0.5}, {1.5, 0.5}, {0.5, 0}, {0.5, 1.5}, {Double.NaN, 0.5}};
+        for (double[] factors : invalid) {
+            try {
+                new TravelTimeEstimator(graph, factors[0], factors[1]);
+                fail("Invalid factors (" + factors[0] + ", " + factors[1] + ") have been accepted.");
+            } catch (IllegalArgumentException ignored) {}
+        }
+    }
+
+
+    private DirectedEdge addEdge(Graph streetGraph, long id, Node origin, Node destination, int nLanes) {
+        Vec2d vector = new Vec2d(1, 1);
+        DirectedEdge edge = new DirectedEdge(
+                id, 10 * config.metersPerCell, vector, vector, Orientation.FORWARD, origin, destination,
+                new StreetType(StreetType.UNCLASSIFIED), nLanes, 1, config.metersPerCell, type -> (byte) 0);
+        origin.addLeavingEdge(edge);
+        destination.addIncomingEdge(edge);
+        streetGraph.addEdge(edge);
+        return edge;
+    }
+
+    /**
+     * Inserts standing vehicles into the first cells of the lane.
+     */
+    private void fill(DirectedEdge.Lane lane, int count) {
+        for (int cell = 0; cell < count; cell++) {
+            Vehicle vehicle = new Car(vehicleId, config.visualization.style);
+            Driver  driver  = new BasicDriver(new BasicDriver.InitSetup(vehicleId++));
+            driver.setVehicle(vehicle);
+            vehicle.setDriver(driver);
+            lane.insertVehicle(vehicle, cell);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package simulation.scenarios;
+
+import logic.crossinglogic.scenarios.TCrossroadScenario;
+import microtrafficsim.core.convenience.parser.DefaultParserConfig;
+import microtrafficsim.core.logic.routes.Route;
+import microtrafficsim.core.logic.streetgraph.Graph;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.map.MapProperties;
+import microtrafficsim.core.shortestpath.ShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.cache.CachingShortestPathAlgorithm;
+import microtrafficsim.core.shortestpath.cache.RouteCache;
+import microtrafficsim.core.simulation.builder.impl.VehicleScenarioBuilder;
+import microtrafficsim.core.simulation.configs.SimulationConfig;
+import microtrafficsim.core.simulation.scenarios.impl.QueueScenarioSmall;
+import microtrafficsim.utils.resources.PackagedResource;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that a looping {@link QueueScenarioSmall} calculates the routes of its sub-scenarios only once and gets the
+ * same routes from its {@link RouteCache} afterwards.
+ */
+public class TestQueueScenarioSmall {
+
+    @Test
+    public void testRoutesAreCached() throws Exception {
+        SimulationConfig config = TCrossroadScenario.setupConfig(new SimulationConfig());
+        File file = new PackagedResource(TestQueueScenarioSmall.class, "/logic/validation/T_crossroad.osm")
+                .asTemporaryFile();
+        Graph graph = DefaultParserConfig.get(config).build()
+                .parse(file, new MapProperties(config.crossingLogic.drivingOnTheRight)).streetgraph;
+
+        TCrossroadScenario scenario = new TCrossroadScenario(config, graph, null);
+        scenario.setLooping(true);
+
+        ShortestPathAlgorithm<?, ?> scout = scenario.getScoutFactory().get();
+        assertTrue(scout instanceof CachingShortestPathAlgorithm);
+        RouteCache cache = ((CachingShortestPathAlgorithm) scout).getCache();
+
+        List<String> firstLoop = loop(scenario);
+        long misses = cache.getMissCount();
+        long hits   = cache.getHitCount();
+        assertFalse(firstLoop.isEmpty());
+        assertTrue(misses > 0);
+
+        List<String> secondLoop = loop(scenario);
+        assertEquals(firstLoop, secondLoop);
+        assertEquals("Routes have been calculated again.", misses, cache.getMissCount());
+        assertEquals(hits + firstLoop.size(), cache.getHitCount());
+    }
+
+    /**
+     * Prepares every sub-scenario once.
+     *
+     * @return the routes of all prepared vehicles
+     */
+    private static List<String> loop(TCrossroadScenario scenario) throws InterruptedException {
+        VehicleScenarioBuilder builder = new VehicleScenarioBuilder(scenario.getConfig().seed);
+        ArrayList<String> routes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            scenario.setPrepared(false);
+            builder.prepare(scenario);
+
+            for (Vehicle vehicle : scenario.getVehicleContainer()) {
+                Route route = vehicle.getDriver().getRoute();
+                routes.add(route.getOrigin().getId() + " -> " + route.getDestination().getId() + ": " + route.size());
+            }
+        }
+        return routes;
+    }
+}
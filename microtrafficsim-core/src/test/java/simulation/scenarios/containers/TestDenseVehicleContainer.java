@@ -0,0 +1,127 @@
+package simulation.scenarios.containers;
+
+import microtrafficsim.core.logic.vehicles.VehicleState;
+import microtrafficsim.core.logic.vehicles.machines.Vehicle;
+import microtrafficsim.core.logic.vehicles.machines.impl.Car;
+import microtrafficsim.core.simulation.scenarios.containers.impl.DenseVehicleContainer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link DenseVehicleContainer}, especially applying the state changes at the end of a step.
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestDenseVehicleContainer {
+
+    private static final int vehicleCount = 100;
+
+    private DenseVehicleContainer container;
+    private List<Vehicle>         vehicles;
+
+
+    @Before
+    public void prepareForTest() {
+        container = new DenseVehicleContainer();
+        vehicles  = new ArrayList<>();
+        for (int id = 0; id < vehicleCount; id++) {
+            Car car = new Car(id, null);
+            car.addStateListener(container);
+            container.addVehicle(car);
+            vehicles.add(car);
+        }
+    }
+
+
+    @Test
+    public void testAdding() {
+        assertEquals(vehicleCount, container.getVehicleCount());
+        assertEquals(vehicleCount, container.getNotSpawnedCount());
+        assertEquals(0, container.getSpawnedCount());
+        assertEquals(new HashSet<>(vehicles), new HashSet<>(container.getVehicles()));
+        assertEquals(new HashSet<>(vehicles), new HashSet<>(container.getNotSpawnedVehicles()));
+    }
+
+    @Test
+    public void testStateChangesAreDeferred() {
+        for (int i = 0; i < vehicleCount; i += 2)
+            vehicles.get(i).setState(VehicleState.SPAWNED);
+
+        // views are unchanged until the end of the step
+        assertEquals(vehicleCount, container.getNotSpawnedVehicles().size());
+        assertTrue(container.getSpawnedVehicles().isEmpty());
+
+        container.applyStateChanges();
+        assertEquals(vehicleCount / 2, container.getSpawnedCount());
+        assertEquals(vehicleCount / 2, container.getNotSpawnedCount());
+        for (Vehicle vehicle : container.getSpawnedVehicles())
+            assertEquals(VehicleState.SPAWNED, vehicle.getState());
+        for (Vehicle vehicle : container.getNotSpawnedVehicles())
+            assertEquals(VehicleState.NOT_SPAWNED, vehicle.getState());
+    }
+
+    @Test
+    public void testDespawning() {
+        for (int i = 0; i < vehicleCount; i++)
+            vehicles.get(i).setState(VehicleState.SPAWNED);
+        container.applyStateChanges();
+
+        // spawned and despawned in one step
+        for (int i = 0; i < vehicleCount; i += 3)
+            vehicles.get(i).setState(VehicleState.DESPAWNED);
+        container.applyStateChanges();
+
+        int despawned = (vehicleCount + 2) / 3;
+        assertEquals(vehicleCount - despawned, container.getVehicleCount());
+        assertEquals(vehicleCount - despawned, container.getSpawnedCount());
+        assertEquals(0, container.getNotSpawnedCount());
+        for (Vehicle vehicle : container)
+            assertNotEquals(VehicleState.DESPAWNED, vehicle.getState());
+    }
+
+    @Test
+    public void testDeterministicOrder() {
+        // report the same changes in different orders
+        DenseVehicleContainer other = new DenseVehicleContainer();
+        List<Vehicle> otherVehicles = new ArrayList<>();
+        for (int id = 0; id < vehicleCount; id++) {
+            Car car = new Car(id, null);
+            car.addStateListener(other);
+            other.addVehicle(car);
+            otherVehicles.add(car);
+        }
+
+        for (int i = 0; i < vehicleCount; i += 2)
+            vehicles.get(i).setState(VehicleState.SPAWNED);
+        for (int i = vehicleCount - 2; i >= 0; i -= 2)
+            otherVehicles.get(i).setState(VehicleState.SPAWNED);
+        container.applyStateChanges();
+        other.applyStateChanges();
+
+        for (int i = 0; i < container.getSpawnedCount(); i++)
+            assertEquals(
+                    container.getSpawnedVehicles().get(i).getId(),
+                    other.getSpawnedVehicles().get(i).getId());
+        for (int i = 0; i < container.getNotSpawnedCount(); i++)
+            assertEquals(
+                    container.getNotSpawnedVehicles().get(i).getId(),
+                    other.getNotSpawnedVehicles().get(i).getId());
+    }
+
+    @Test
+    public void testClear() {
+        vehicles.get(0).setState(VehicleState.SPAWNED);
+        container.clearAll();
+        container.applyStateChanges();
+
+        assertTrue(container.isEmpty());
+        assertEquals(0, container.getSpawnedCount());
+        assertEquals(0, container.getNotSpawnedCount());
+    }
+}
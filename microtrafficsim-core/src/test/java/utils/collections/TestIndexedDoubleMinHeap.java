@@ -0,0 +1,118 @@
+package utils.collections;
+
+import microtrafficsim.math.random.distributions.impl.Random;
+import microtrafficsim.utils.collections.IndexedDoubleMinHeap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link IndexedDoubleMinHeap}
+ *
+ * @author Dominic Parga Cacheiro
+ */
+public class TestIndexedDoubleMinHeap {
+    private final int    capacity = 1000;
+    private final Random random   = new Random(42);
+
+    private IndexedDoubleMinHeap heap;
+    private double[]             keys;
+
+
+    @Before
+    public void init() {
+        heap = new IndexedDoubleMinHeap(capacity);
+        keys = new double[capacity];
+        Arrays.fill(keys, Double.POSITIVE_INFINITY);
+        random.reset();
+    }
+
+    @Test
+    public void testPollOrderWithDecreaseKey() {
+        for (int i = 0; i < 5 * capacity; i++) {
+            int value  = random.nextInt(capacity);
+            double key = random.nextInt(100000);
+            boolean decreased = heap.insertOrDecrease(value, key);
+
+            assertEquals("Wrong result of insertOrDecrease.", key < keys[value], decreased);
+            keys[value] = Math.min(keys[value], key);
+        }
+
+        double last = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int value  = heap.poll();
+
+            assertTrue("Keys are not polled in ascending order.", last <= key);
+            assertEquals("Polled key differs from the minimal inserted key.", keys[value], key, 0);
+            assertFalse("Polled value is still contained.", heap.contains(value));
+            last = key;
+            count++;
+        }
+
+        int expectedCount = 0;
+        for (double key : keys)
+            if (key != Double.POSITIVE_INFINITY)
+                expectedCount++;
+        assertEquals("Every value has to be polled exactly once.", expectedCount, count);
+    }
+
+    @Test
+    public void testPollOrderWithUpdateAndRemove() {
+        for (int i = 0; i < 5 * capacity; i++) {
+            int value = random.nextInt(capacity);
+            if (random.nextInt(4) == 0) {
+                boolean removed = heap.remove(value);
+
+                assertEquals("Wrong result of remove.", keys[value] != Double.POSITIVE_INFINITY, removed);
+                assertFalse("Removed value is still contained.", heap.contains(value));
+                keys[value] = Double.POSITIVE_INFINITY;
+            } else {
+                double key = random.nextInt(100000);
+                heap.insertOrUpdate(value, key);
+                keys[value] = key;
+            }
+        }
+
+        double last = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int value  = heap.poll();
+
+            assertTrue("Keys are not polled in ascending order.", last <= key);
+            assertEquals("Polled key differs from the last updated key.", keys[value], key, 0);
+            last = key;
+            count++;
+        }
+
+        int expectedCount = 0;
+        for (double key : keys)
+            if (key != Double.POSITIVE_INFINITY)
+                expectedCount++;
+        assertEquals("Every contained value has to be polled exactly once.", expectedCount, count);
+    }
+
+    @Test
+    public void testClear() {
+        for (int value = 0; value < capacity; value++)
+            heap.insertOrDecrease(value, random.nextInt(100));
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        for (int value = 0; value < capacity; value++)
+            assertFalse("Value is contained after clearing.", heap.contains(value));
+
+        heap.insertOrDecrease(7, 3);
+        heap.insertOrDecrease(3, 7);
+        assertEquals(2, heap.size());
+        assertEquals(7, heap.poll());
+        assertEquals(3, heap.poll());
+    }
+}
@@ -0,0 +1,161 @@
+package utils.collections;
+
+import microtrafficsim.math.random.distributions.impl.Random;
+import microtrafficsim.utils.collections.LongHashMap;
+import microtrafficsim.utils.collections.LongHashSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link LongHashMap} and {@link LongHashSet} against {@link HashMap} and {@link HashSet}.
+ *
+ * @author Maximilian Luz
+ */
+public class TestLongHashMap {
+    private final int    operations = 20000;
+    private final Random random     = new Random(42);
+
+
+    @Before
+    public void init() {
+        random.reset();
+    }
+
+    /**
+     * @return a key out of a small range, so keys are hit repeatedly, including negative and large keys
+     */
+    private long nextKey() {
+        long key = random.nextInt(2000) - 500;
+        return random.nextInt(8) == 0 ? key << 40 : key;
+    }
+
+
+    @Test
+    public void testMap() {
+        LongHashMap<String> map      = new LongHashMap<>();
+        HashMap<Long, String> expected = new HashMap<>();
+
+        for (int i = 0; i < operations; i++) {
+            long key = nextKey();
+
+            if (random.nextInt(3) == 0) {
+                assertEquals("Wrong result of remove.", expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals("Wrong result of put.", expected.put(key, value), map.put(key, value));
+            }
+
+            assertEquals("Wrong size.", expected.size(), map.size());
+            assertEquals("Wrong result of get.", expected.get(key), map.get(key));
+            assertEquals("Wrong result of containsKey.", expected.containsKey(key), map.containsKey(key));
+        }
+
+        assertMapEquals(expected, map);
+
+        // remove via the iterator of the values
+        for (Iterator<String> it = map.values().iterator(); it.hasNext();)
+            if (it.next().hashCode() % 2 == 0)
+                it.remove();
+        expected.values().removeIf(v -> v.hashCode() % 2 == 0);
+        assertMapEquals(expected, map);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(expected.keySet().iterator().next()));
+        assertEquals(0, map.values().size());
+    }
+
+    @Test
+    public void testMapNullValue() {
+        try {
+            new LongHashMap<String>().put(1, null);
+            fail("Null values must be rejected.");
+        } catch (NullPointerException ignored) {}
+    }
+
+    private static void assertMapEquals(HashMap<Long, String> expected, LongHashMap<String> map) {
+        assertEquals("Wrong size.", expected.size(), map.size());
+        for (Long key : expected.keySet())
+            assertEquals("Wrong value for key " + key + ".", expected.get(key), map.get(key));
+
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals("Wrong keys.", expected.keySet().stream().mapToLong(k -> k).sorted().toArray(), keys);
+
+        HashSet<String> values = new HashSet<>(map.values());
+        assertEquals("Values are not unique.", map.size(), values.size());
+        assertEquals("Wrong values.", new HashSet<>(expected.values()), values);
+
+        ArrayList<String> sorted = new ArrayList<>();
+        new TreeMap<>(expected).forEach((key, value) -> sorted.add(value));
+        assertEquals("Wrong order of sorted values.", sorted, map.valuesSortedByKey());
+    }
+
+
+    @Test
+    public void testSet() {
+        LongHashSet   set      = new LongHashSet();
+        HashSet<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < operations; i++) {
+            long key = nextKey();
+
+            if (random.nextInt(3) == 0)
+                assertEquals("Wrong result of remove.", expected.remove(key), set.remove(key));
+            else
+                assertEquals("Wrong result of add.", expected.add(key), set.add(key));
+
+            assertEquals("Wrong size.", expected.size(), set.size());
+            assertEquals("Wrong result of contains.", expected.contains(key), set.contains(key));
+        }
+
+        assertSetEquals(expected, set);
+
+        // removeIf and remove via the iterator
+        set.removeIf(e -> e % 3 == 0);
+        expected.removeIf(e -> e % 3 == 0);
+        assertSetEquals(expected, set);
+
+        for (PrimitiveIterator.OfLong it = set.iterator(); it.hasNext();)
+            if (it.nextLong() % 2 == 0)
+                it.remove();
+        expected.removeIf(e -> e % 2 == 0);
+        assertSetEquals(expected, set);
+
+        LongHashSet other = new LongHashSet(expected.size());
+        assertTrue(other.addAll(expected));
+        assertFalse(other.addAll(expected));
+        assertEquals(set, other);
+        assertEquals(set.hashCode(), other.hashCode());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+        assertNotEquals(set, other);
+    }
+
+    private static void assertSetEquals(HashSet<Long> expected, LongHashSet set) {
+        assertEquals("Wrong size.", expected.size(), set.size());
+        for (Long e : expected)
+            assertTrue("Missing element " + e + ".", set.contains(e));
+
+        long[] elements = set.toArray();
+        Arrays.sort(elements);
+        assertArrayEquals("Wrong elements.", expected.stream().mapToLong(e -> e).sorted().toArray(), elements);
+
+        int count = 0;
+        for (PrimitiveIterator.OfLong it = set.iterator(); it.hasNext(); it.nextLong())
+            count++;
+        assertEquals("Wrong number of iterated elements.", expected.size(), count);
+    }
+}
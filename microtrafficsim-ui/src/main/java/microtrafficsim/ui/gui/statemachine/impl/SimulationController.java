@@ -703,7 +703,7 @@ public class SimulationController implements GUIController {
         WrappedString cachedTitle = new WrappedString();
         rememberCurrentFrameTitleIn(cachedTitle);
         Procedure setNewFrameTitle = () -> updateFrameTitle(cachedTitle);
-        if (MTSFileChooser.Filters.MAP_OSM_XML.accept(file)) {
+        if (MTSFileChooser.Filters.MAP_OSM.accept(file)) {
             updateFrameTitle(FrameTitle.PARSING, file);
         } else if (MTSFileChooser.Filters.MAP_EXFMT.accept(file)) {
             updateFrameTitle(FrameTitle.LOADING, file);
@@ -726,7 +726,7 @@ public class SimulationController implements GUIController {
                         frame,
                         "The chosen file '" + file.getName() + "' has a wrong format.\n" +
                                 "Therefore it could be neither loaded nor parsed.\n" +
-                                "Please make sure this file exists and is a valid OSM XML or MTS binary file.",
+                                "Please make sure this file exists and is a valid OSM XML, OSM PBF or MTS binary file.",
                         "Error: wrong map-file format",
                         JOptionPane.ERROR_MESSAGE);
             }
@@ -756,7 +756,7 @@ public class SimulationController implements GUIController {
         if (priorityToTheRight == null) {
             priorityToTheRight = true;
 
-            if (MTSFileChooser.Filters.MAP_OSM_XML.accept(file)) {
+            if (MTSFileChooser.Filters.MAP_OSM.accept(file)) {
                 String question =
                 "Is the road network built for driving on the right?\n"
                 + "\n"